@@ -0,0 +1,13 @@
+#!/bin/sh
+# Runs the benchmarks and keeps the JSON results, named by time and commit so runs can be compared.
+# Extra arguments go to JMH, e.g. a benchmark filter: benchmarks/run.sh ForecastBenchmark -p items=100
+set -e
+cd "$(dirname "$0")"
+mkdir -p results
+# SearchFilterBenchmark.search queries the in-process database rather than a server
+export DB_BACKEND="${DB_BACKEND:-embedded}"
+# ...in memory: its setup replaces the whole catalogue, which must never touch a terminal's file
+unset DB_EMBEDDED_PATH
+out="results/$(date +%Y%m%d-%H%M%S)-$(git rev-parse --short HEAD 2>/dev/null || echo local).json"
+java -jar target/benchmarks.jar -rf json -rff "$out" "$@"
+echo "Results written to benchmarks/$out"
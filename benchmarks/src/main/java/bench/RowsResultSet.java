@@ -0,0 +1,63 @@
+package bench;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only {@link ResultSet} over rows already in memory, for benchmarking row mapping
+ * without a database. Supports next, the getters by label or index, wasNull and close; any
+ * other call fails. Dispatch goes through a proxy, which adds a few nanoseconds per call.
+ */
+public final class RowsResultSet {
+    private RowsResultSet() {
+    }
+
+    public static ResultSet of(String[] labels, Object[][] rows) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            columns.put(labels[i].toLowerCase(), i);
+        }
+        int[] cursor = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++cursor[0] < rows.length;
+                        case "close":
+                            return null;
+                        case "wasNull":
+                            return wasNull[0];
+                        case "getInt":
+                        case "getLong":
+                        case "getDouble":
+                        case "getString":
+                        case "getObject":
+                            break;
+                        default:
+                            throw new SQLException("Not supported by RowsResultSet: " + name);
+                    }
+                    int column = args[0] instanceof String
+                            ? columns.get(((String) args[0]).toLowerCase())
+                            : (Integer) args[0] - 1;
+                    Object value = rows[cursor[0]][column];
+                    wasNull[0] = value == null;
+                    switch (name) {
+                        case "getInt":
+                            return value == null ? 0 : ((Number) value).intValue();
+                        case "getLong":
+                            return value == null ? 0L : ((Number) value).longValue();
+                        case "getDouble":
+                            return value == null ? 0.0 : ((Number) value).doubleValue();
+                        case "getString":
+                            return value == null ? null : value.toString();
+                        default:
+                            return value;
+                    }
+                });
+    }
+}
@@ -0,0 +1,97 @@
+package bench;
+
+import forecasting.SalesHistory;
+
+import java.time.YearMonth;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded, catalogue-shaped data for the benchmarks: the same seed always gives the same items,
+ * so runs on different commits measure identical inputs. Most items have steady seasonal demand
+ * with a trend; one in five sells intermittently, and a few months are missing (NaN), as in
+ * real sales_history.
+ */
+public final class SyntheticData {
+    public static final long SEED = 20240601L;
+
+    private static final String[] PRODUCTS = {
+            "Sterile Water for Irrigation", "Dextrose 5% in Normal Saline 0.9%", "Dextrose 5% in 1/3 Normal Saline",
+            "Isotonic Sodium Chloride", "Sterile Water for Injection (vial)", "Dextrose 5% in Lactated Ringers Injection",
+            "Acetated Ringers Injection", "Normal Saline Solution", "Dextrose 5% in Distilled Water",
+            "Lactated Ringers Injection", "Dextrose 5% in 1/2 Normal Saline", "Mannitol 20%"};
+    private static final int[] VOLUMES = {50, 100, 250, 500, 1000, 3000};
+    // Heavily skewed towards Intravenous, as the real catalogue is
+    private static final String[] CATEGORIES = {
+            "Intravenous", "Intravenous", "Intravenous", "Intravenous", "Intravenous", "Intravenous",
+            "Irrigation", "Irrigation", "Injection", "Nutrition"};
+
+    /** One catalogue item, shaped like a row of the inventory table. */
+    public static final class Product {
+        public final int itemCode;
+        public final String description;
+        public final int volume;
+        public final String category;
+        public final int salesOfftake;
+        public final int stockOnHand;
+
+        Product(int itemCode, String description, int volume, String category, int salesOfftake, int stockOnHand) {
+            this.itemCode = itemCode;
+            this.description = description;
+            this.volume = volume;
+            this.category = category;
+            this.salesOfftake = salesOfftake;
+            this.stockOnHand = stockOnHand;
+        }
+    }
+
+    private SyntheticData() {
+    }
+
+    public static Product[] products(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Product[] products = new Product[count];
+        for (int i = 0; i < count; i++) {
+            int volume = VOLUMES[random.nextInt(VOLUMES.length)];
+            products[i] = new Product(1_000_000 + i * 7,
+                    PRODUCTS[random.nextInt(PRODUCTS.length)] + " " + volume + "mL",
+                    volume,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    random.nextInt(20_000),
+                    random.nextInt(30_000));
+        }
+        return products;
+    }
+
+    public static SalesHistory[] histories(int count, int months, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        YearMonth start = YearMonth.of(2020, 1);
+        SalesHistory[] histories = new SalesHistory[count];
+        for (int i = 0; i < count; i++) {
+            histories[i] = new SalesHistory(1_000_000 + i * 7, start, series(random, months));
+        }
+        return histories;
+    }
+
+    // Monthly sales for one item
+    public static double[] series(SplittableRandom random, int months) {
+        double[] values = new double[months];
+        boolean intermittent = random.nextInt(5) == 0;
+        double level = Math.exp(4 + random.nextDouble() * 5);
+        double trend = level * (random.nextDouble() - 0.4) * 0.02;
+        double amplitude = random.nextDouble() * 0.4;
+        double phase = random.nextDouble() * 2 * Math.PI;
+        double demandChance = 0.3 + random.nextDouble() * 0.3;
+        for (int m = 0; m < months; m++) {
+            if (random.nextInt(40) == 0) {
+                values[m] = Double.NaN;
+            } else if (intermittent) {
+                values[m] = random.nextDouble() < demandChance ? Math.round(level * random.nextDouble()) : 0;
+            } else {
+                double seasonal = 1 + amplitude * Math.sin(2 * Math.PI * m / 12 + phase);
+                double noise = 1 + (random.nextDouble() - 0.5) * 0.3;
+                values[m] = Math.max(0, Math.round((level + trend * m) * seasonal * noise));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,54 @@
+package dashboard;
+
+import bench.RowsResultSet;
+import bench.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning the inventory query's rows into table items, as the inventory tab and search do
+ * through {@link DashboardQueries#readInventory}. The rows come from memory, so this is the
+ * mapping and allocation cost alone, without the driver's parsing or the network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+    private static final String[] COLUMNS = {"item_code", "item_description", "volume", "category", "sot", "soh"};
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private Object[][] data;
+
+    @Setup
+    public void setUp() {
+        SyntheticData.Product[] products = SyntheticData.products(rows, SyntheticData.SEED);
+        data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            SyntheticData.Product p = products[i];
+            data[i] = new Object[]{p.itemCode, p.description, p.volume, p.category, p.salesOfftake, p.stockOnHand};
+        }
+    }
+
+    @Benchmark
+    public List<Inventory_management_bin> readInventory() throws SQLException {
+        return DashboardQueries.readInventory(RowsResultSet.of(COLUMNS, data));
+    }
+}
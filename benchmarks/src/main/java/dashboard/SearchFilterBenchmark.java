@@ -0,0 +1,119 @@
+package dashboard;
+
+import bench.SyntheticData;
+import database.database_utility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The inventory tab's search. {@link #search} runs {@link DashboardQueries#search} against the
+ * embedded database (DB_BACKEND=embedded, which run.sh sets), so it measures the real query and
+ * row mapping without the network. {@link #filter} is {@link DashboardQueries#matchesSearch},
+ * the same test in memory, which live updates apply to every row they patch in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchFilterBenchmark {
+    @Param({"1000", "100000"})
+    public int items;
+
+    // A common prefix, an item code fragment, and a term that matches nothing
+    @Param({"dext", "10004", "zzz"})
+    public String term;
+
+    private Inventory_management_bin[] rows;
+
+    @Setup
+    public void setUp() throws SQLException {
+        SyntheticData.Product[] products = SyntheticData.products(items, SyntheticData.SEED);
+        rows = new Inventory_management_bin[items];
+        for (int i = 0; i < items; i++) {
+            SyntheticData.Product p = products[i];
+            rows[i] = new Inventory_management_bin(p.itemCode, p.description, p.volume, p.category,
+                    p.salesOfftake, p.stockOnHand);
+        }
+        if (database_utility.backend().isEmbedded()) {
+            load(products);
+        }
+    }
+
+    @Benchmark
+    public List<Inventory_management_bin> search() throws SQLException, IOException {
+        if (!database_utility.backend().isEmbedded()) {
+            throw new IllegalStateException("search needs DB_BACKEND=embedded; benchmarks/run.sh sets it");
+        }
+        return DashboardQueries.search(term, "jan");
+    }
+
+    @Benchmark
+    public int filter() {
+        int matches = 0;
+        for (Inventory_management_bin row : rows) {
+            if (DashboardQueries.matchesSearch(row, term)) matches++;
+        }
+        return matches;
+    }
+
+    // Replaces the in-memory database's sample catalogue with the synthetic one
+    private static void load(SyntheticData.Product[] products) throws SQLException {
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to open the embedded database");
+        }
+        // The load wipes the catalogue first; only ever do that to a throwaway in-memory database
+        String url = connect.getMetaData().getURL();
+        if (!url.startsWith("jdbc:h2:mem:")) {
+            database_utility.close(connect);
+            throw new IllegalStateException("Refusing to replace the catalogue in " + url
+                    + "; unset DB_EMBEDDED_PATH to benchmark against an in-memory database");
+        }
+        try (Statement statement = connect.createStatement();
+             PreparedStatement product = connect.prepareStatement(
+                     "INSERT INTO sale_offtake (item_code, item_description, volume, category, jan) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement stock = connect.prepareStatement(
+                     "INSERT INTO stock_onhand (item_code, jan1) VALUES (?, ?)")) {
+            connect.setAutoCommit(false);
+            statement.executeUpdate("DELETE FROM stock_movements");
+            statement.executeUpdate("DELETE FROM stock_onhand");
+            statement.executeUpdate("DELETE FROM sales_history");
+            statement.executeUpdate("DELETE FROM sale_offtake");
+            for (SyntheticData.Product p : products) {
+                product.setInt(1, p.itemCode);
+                product.setString(2, p.description);
+                product.setInt(3, p.volume);
+                product.setString(4, p.category);
+                product.setInt(5, p.salesOfftake);
+                product.addBatch();
+                stock.setInt(1, p.itemCode);
+                stock.setInt(2, p.stockOnHand);
+                stock.addBatch();
+            }
+            product.executeBatch();
+            stock.executeBatch();
+            connect.commit();
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+}
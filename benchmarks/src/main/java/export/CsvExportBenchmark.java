@@ -0,0 +1,94 @@
+package export;
+
+import bench.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV export formatting: the inventory export's row shape written field by field through
+ * {@link CsvWriter}, and in-memory rows (the sales chart export) through {@link Exports#rows}.
+ * Output goes to a temporary file, so the page cache is part of what's measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvExportBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private SyntheticData.Product[] products;
+    private int[][] monthly;
+    private List<Object[]> chartRows;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        products = SyntheticData.products(rows, SyntheticData.SEED);
+        SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+        monthly = new int[rows][24];
+        chartRows = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            for (int m = 0; m < 24; m++) {
+                monthly[i][m] = random.nextInt(20_000);
+            }
+            chartRows.add(new Object[]{products[i].description, "Jan", random.nextDouble() * 10_000});
+        }
+        file = Files.createTempFile("export-benchmark", ".csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // The columns Exports.inventory() writes per item
+    @Benchmark
+    public long inventoryRows() throws IOException {
+        try (CsvWriter out = new CsvWriter(file)) {
+            out.header("Item Code", "Description", "Volume", "Category");
+            for (int i = 0; i < rows; i++) {
+                SyntheticData.Product p = products[i];
+                out.number(p.itemCode);
+                out.text(p.description);
+                out.number(p.volume);
+                out.text(p.category);
+                for (int value : monthly[i]) {
+                    out.number(value);
+                }
+                out.endRow();
+            }
+        }
+        return Files.size(file);
+    }
+
+    @Benchmark
+    public long chartRows() throws IOException, SQLException {
+        ExportContext context = new ExportContext(() -> false, written -> { });
+        try (CsvWriter out = new CsvWriter(file)) {
+            Exports.rows("Sales", new String[]{"Product", "Month", "Sales"}, chartRows).export(out, context);
+        }
+        return context.getRows();
+    }
+}
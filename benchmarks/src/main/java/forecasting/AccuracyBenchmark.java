@@ -0,0 +1,59 @@
+package forecasting;
+
+import bench.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** The accuracy figures shown on the Forecasting tab and the backtest behind safety stock. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class AccuracyBenchmark {
+    // At least two seasons, so the backtest has something to refit
+    @Param({"24", "60", "120"})
+    public int months;
+
+    private ForecastCalculator calculator;
+    private Forecaster holtWinters;
+    private double[] actual;
+    private double[] forecast;
+
+    @Setup
+    public void setUp() {
+        calculator = new ForecastCalculator(new ForecastingModel(0.2, 0.1, 0.3));
+        holtWinters = calculator.get("Holt-Winters");
+        SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+        actual = SyntheticData.series(random, months);
+        // Within 15% of the actuals, so the MAPE isn't clamped to zero accuracy
+        forecast = new double[months];
+        for (int m = 0; m < months; m++) {
+            forecast[m] = actual[m] * (0.85 + random.nextDouble() * 0.3);
+        }
+    }
+
+    @Benchmark
+    public double mapeAccuracy() {
+        return ForecastingModel.calculateAccuracy(actual, forecast);
+    }
+
+    // Refit without the last season and score the held-out months
+    @Benchmark
+    public double backtestErrorSigma() {
+        return calculator.backtestErrorSigma(holtWinters, actual, calculator.holdoutFor(12));
+    }
+}
@@ -0,0 +1,73 @@
+package forecasting;
+
+import bench.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The forecasting methods over a catalogue: one formula at a time, and the scheduler's full
+ * {@link ForecastCalculator#computeAll} (every method plus its backtests) per item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+public class ForecastBenchmark {
+    @State(Scope.Benchmark)
+    public static class Catalogue {
+        @Param({"12", "36", "120"})
+        public int months;
+
+        @Param({"100", "1000"})
+        public int items;
+
+        ForecastCalculator calculator;
+        SalesHistory[] histories;
+        final double[] out = new double[ForecastCalculator.MAX_HORIZON];
+
+        @Setup
+        public void setUp() {
+            calculator = new ForecastCalculator(new ForecastingModel(0.2, 0.1, 0.3));
+            histories = SyntheticData.histories(items, months, SyntheticData.SEED);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Method {
+        @Param({"Holt-Winters", "Moving Average", "Linear Programming", "ETS Multiplicative", "SBA"})
+        public String formula;
+    }
+
+    // A 12-month forecast for every item with the chosen formula
+    @Benchmark
+    public void forecastCatalogue(Catalogue catalogue, Method method, Blackhole blackhole) {
+        Forecaster forecaster = catalogue.calculator.get(method.formula);
+        for (SalesHistory history : catalogue.histories) {
+            double[] values = history.values();
+            if (values.length < forecaster.minimumHistory()) continue;
+            catalogue.calculator.forecastInto(forecaster, values, 0, values.length, catalogue.out, 0, 12);
+            blackhole.consume(catalogue.out[11]);
+        }
+    }
+
+    // What a scheduler run does for the whole catalogue
+    @Benchmark
+    public void computeAll(Catalogue catalogue, Blackhole blackhole) {
+        for (SalesHistory history : catalogue.histories) {
+            blackhole.consume(catalogue.calculator.computeAll(history));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package forecasting;
+
+import bench.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScalarKernels} against {@link VectorKernels} over a catalogue's histories laid end to
+ * end, as a forecast run walks them. Whether the vector versions pay off depends on the history
+ * length and the machine's vector width, which is what this is for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class KernelBenchmark {
+    private static final int ITEMS = 1000;
+
+    @Param({"12", "60", "120"})
+    public int months;
+
+    private double[] actual;
+    private double[] forecast;
+    private final double[] trend = new double[2];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+        actual = new double[ITEMS * months];
+        forecast = new double[ITEMS * months];
+        for (int item = 0; item < ITEMS; item++) {
+            double[] series = SyntheticData.series(random, months);
+            System.arraycopy(series, 0, actual, item * months, months);
+            for (int m = 0; m < months; m++) {
+                forecast[item * months + m] = series[m] * (0.85 + random.nextDouble() * 0.3);
+            }
+        }
+    }
+
+    @Benchmark
+    public double scalarMean() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            total += ScalarKernels.mean(actual, from, months);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double vectorMean() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            total += VectorKernels.mean(actual, from, months);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double scalarLinearTrend() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            ScalarKernels.linearTrend(actual, from, months, trend, 0);
+            total += trend[1];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double vectorLinearTrend() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            VectorKernels.linearTrend(actual, from, months, trend, 0);
+            total += trend[1];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double scalarMape() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            total += ScalarKernels.mape(actual, from, forecast, from, months);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double vectorMape() {
+        double total = 0;
+        for (int from = 0; from < actual.length; from += months) {
+            total += VectorKernels.mape(actual, from, forecast, from, months);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,50 @@
+#!/bin/sh
+# Measures time from process start to the login window's first frame, with and without the AppCDS
+# archive, on the runtime built by `mvn clean package -Pruntime`. Needs a display (or xvfb-run).
+#
+#   deployment/startup_benchmark.sh [runs]
+#
+# Each configuration runs [runs] times (default 10) and reports the median and the range:
+#   no-cds   -Xshare:off, every class loaded and verified from the jars
+#   jdk-cds  the runtime's default archive of JDK classes only
+#   app-cds  the default archive plus app.jsa from the training run
+RUNS=${1:-10}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+APP="$ROOT/target/app"
+JAVA="$ROOT/target/runtime/bin/java"
+
+if [ ! -x "$JAVA" ] || [ ! -f "$APP/app.jsa" ]; then
+    echo "Build the runtime and archive first: mvn clean package -Pruntime" >&2
+    exit 1
+fi
+
+measure() {
+    name=$1
+    shift
+    times=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        ms=$(cd "$APP" && "$JAVA" "$@" \
+            -Dinventory.startup.report=true -Dinventory.startup.exit=true \
+            --add-modules jdk.incubator.vector --enable-native-access=ALL-UNNAMED \
+            --module-path lib --add-modules ALL-MODULE-PATH \
+            --module inventory.example.inventory_ms/login.login_app 2>/dev/null \
+            | sed -n 's/^startup: first frame after \([0-9]*\) ms$/\1/p')
+        if [ -z "$ms" ]; then
+            echo "$name: run $((i + 1)) did not report a first frame" >&2
+            exit 1
+        fi
+        times="$times $ms"
+        i=$((i + 1))
+    done
+    echo "$times" | tr ' ' '\n' | sed '/^$/d' | sort -n | awk -v name="$name" '
+        { t[NR] = $1 }
+        END {
+            median = NR % 2 ? t[(NR + 1) / 2] : (t[NR / 2] + t[NR / 2 + 1]) / 2
+            printf "%-8s median %6.0f ms   min %6d ms   max %6d ms   (%d runs)\n", name, median, t[1], t[NR], NR
+        }'
+}
+
+measure no-cds -Xshare:off
+measure jdk-cds
+measure app-cds -XX:SharedArchiveFile=app.jsa
@@ -0,0 +1,178 @@
+USE inventory_management_system_database;
+
+-- Idempotent upgrades for databases created from an older dump.
+-- Safe to re-run: every statement checks for what it creates.
+
+-- Monthly sales history, one row per item per month. A missing row means
+-- no figure was recorded for that month (not a zero).
+CREATE TABLE IF NOT EXISTS sales_history (
+    item_code INT NOT NULL,
+    period_year SMALLINT NOT NULL,
+    period_month TINYINT NOT NULL,
+    quantity INT DEFAULT NULL,
+    PRIMARY KEY (item_code, period_year, period_month),
+    CONSTRAINT sales_history_ibfk_1 FOREIGN KEY (item_code)
+        REFERENCES sale_offtake(item_code)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+-- Carry the current year's sale_offtake columns over (existing rows win); months
+-- still to come are left NULL rather than counted as zero sales
+INSERT IGNORE INTO sales_history (item_code, period_year, period_month, quantity)
+SELECT item_code, YEAR(CURDATE()), 1, CASE WHEN 1 <= MONTH(CURDATE()) THEN jan END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 2, CASE WHEN 2 <= MONTH(CURDATE()) THEN feb END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 3, CASE WHEN 3 <= MONTH(CURDATE()) THEN mar END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 4, CASE WHEN 4 <= MONTH(CURDATE()) THEN apr END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 5, CASE WHEN 5 <= MONTH(CURDATE()) THEN may END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 6, CASE WHEN 6 <= MONTH(CURDATE()) THEN jun END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 7, CASE WHEN 7 <= MONTH(CURDATE()) THEN jul END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 8, CASE WHEN 8 <= MONTH(CURDATE()) THEN aug END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 9, CASE WHEN 9 <= MONTH(CURDATE()) THEN sep END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 10, CASE WHEN 10 <= MONTH(CURDATE()) THEN oct END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 11, CASE WHEN 11 <= MONTH(CURDATE()) THEN nov END FROM sale_offtake UNION ALL
+SELECT item_code, YEAR(CURDATE()), 12, CASE WHEN 12 <= MONTH(CURDATE()) THEN `dec` END FROM sale_offtake;
+
+-- Last-write time per history row, so the forecast scheduler only recomputes
+-- items that changed since its previous run. MySQL 8.0 has no
+-- ADD COLUMN IF NOT EXISTS, hence the information_schema check.
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE sales_history
+             ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+             ADD INDEX idx_sales_history_updated_at (updated_at)',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales_history' AND COLUMN_NAME = 'updated_at'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Append-only stock movement ledger. stock_onhand becomes the snapshot that
+-- movements are periodically folded into; snapshot_id marks folded rows.
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    item_code INT NOT NULL,
+    period_year SMALLINT NOT NULL,
+    period_month TINYINT NOT NULL,
+    movement_type ENUM('RECEIPT', 'SALE', 'ADJUSTMENT', 'DELETE') NOT NULL,
+    quantity INT NOT NULL,
+    terminal VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    snapshot_id INT DEFAULT NULL,
+    PRIMARY KEY (id),
+    KEY idx_stock_movements_tail (snapshot_id, item_code),
+    KEY idx_stock_movements_item (item_code, period_year, period_month)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id INT NOT NULL AUTO_INCREMENT,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    movements INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+-- Snapshot plus unfolded tail; read this instead of stock_onhand
+CREATE OR REPLACE VIEW stock_onhand_live AS
+SELECT o.item_code,
+       COALESCE(o.`jan1` + t.m1, o.`jan1`, t.m1) AS `jan1`,
+       COALESCE(o.`feb1` + t.m2, o.`feb1`, t.m2) AS `feb1`,
+       COALESCE(o.`mar1` + t.m3, o.`mar1`, t.m3) AS `mar1`,
+       COALESCE(o.`apr1` + t.m4, o.`apr1`, t.m4) AS `apr1`,
+       COALESCE(o.`may1` + t.m5, o.`may1`, t.m5) AS `may1`,
+       COALESCE(o.`jun1` + t.m6, o.`jun1`, t.m6) AS `jun1`,
+       COALESCE(o.`jul1` + t.m7, o.`jul1`, t.m7) AS `jul1`,
+       COALESCE(o.`aug1` + t.m8, o.`aug1`, t.m8) AS `aug1`,
+       COALESCE(o.`sep1` + t.m9, o.`sep1`, t.m9) AS `sep1`,
+       COALESCE(o.`oct1` + t.m10, o.`oct1`, t.m10) AS `oct1`,
+       COALESCE(o.`nov1` + t.m11, o.`nov1`, t.m11) AS `nov1`,
+       COALESCE(o.`dec1` + t.m12, o.`dec1`, t.m12) AS `dec1`
+FROM stock_onhand o
+LEFT JOIN (
+    SELECT item_code,
+           SUM(CASE WHEN period_month = 1 THEN quantity END) AS m1,
+           SUM(CASE WHEN period_month = 2 THEN quantity END) AS m2,
+           SUM(CASE WHEN period_month = 3 THEN quantity END) AS m3,
+           SUM(CASE WHEN period_month = 4 THEN quantity END) AS m4,
+           SUM(CASE WHEN period_month = 5 THEN quantity END) AS m5,
+           SUM(CASE WHEN period_month = 6 THEN quantity END) AS m6,
+           SUM(CASE WHEN period_month = 7 THEN quantity END) AS m7,
+           SUM(CASE WHEN period_month = 8 THEN quantity END) AS m8,
+           SUM(CASE WHEN period_month = 9 THEN quantity END) AS m9,
+           SUM(CASE WHEN period_month = 10 THEN quantity END) AS m10,
+           SUM(CASE WHEN period_month = 11 THEN quantity END) AS m11,
+           SUM(CASE WHEN period_month = 12 THEN quantity END) AS m12
+    FROM stock_movements
+    WHERE snapshot_id IS NULL
+    GROUP BY item_code
+) t ON t.item_code = o.item_code;
+
+-- Row version for optimistic concurrency on product edits; every write to a
+-- product's sale_offtake row bumps it (see database.ProductUpdater).
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE sale_offtake ADD COLUMN version INT NOT NULL DEFAULT 0',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sale_offtake' AND COLUMN_NAME = 'version'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Change feed: triggers log every stock, product and activity change with a
+-- sequence number that terminals poll past (see database.ChangeFeed).
+CREATE TABLE IF NOT EXISTS change_log (
+    seq         BIGINT NOT NULL AUTO_INCREMENT,
+    change_type ENUM('STOCK', 'PRODUCT', 'DELETE', 'ACTIVITY') NOT NULL,
+    ref_id      INT NOT NULL,
+    terminal    VARCHAR(64) NULL,
+    created_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (seq),
+    KEY idx_change_log_created_at (created_at)
+);
+
+-- Which terminal logged an activity, so it isn't echoed back to itself
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE notifications_activities ADD COLUMN terminal VARCHAR(64) NULL',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'notifications_activities' AND COLUMN_NAME = 'terminal'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+DROP TRIGGER IF EXISTS change_log_stock_movement;
+CREATE TRIGGER change_log_stock_movement AFTER INSERT ON stock_movements FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id, terminal) VALUES ('STOCK', NEW.item_code, NEW.terminal);
+DROP TRIGGER IF EXISTS change_log_stock_insert;
+CREATE TRIGGER change_log_stock_insert AFTER INSERT ON stock_onhand FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id) VALUES ('STOCK', NEW.item_code);
+DROP TRIGGER IF EXISTS change_log_product_insert;
+CREATE TRIGGER change_log_product_insert AFTER INSERT ON sale_offtake FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id) VALUES ('PRODUCT', NEW.item_code);
+DROP TRIGGER IF EXISTS change_log_product_update;
+CREATE TRIGGER change_log_product_update AFTER UPDATE ON sale_offtake FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id) VALUES ('PRODUCT', NEW.item_code);
+DROP TRIGGER IF EXISTS change_log_product_delete;
+CREATE TRIGGER change_log_product_delete AFTER DELETE ON sale_offtake FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id) VALUES ('DELETE', OLD.item_code);
+DROP TRIGGER IF EXISTS change_log_activity;
+CREATE TRIGGER change_log_activity AFTER INSERT ON notifications_activities FOR EACH ROW
+    INSERT INTO change_log (change_type, ref_id, terminal) VALUES ('ACTIVITY', NEW.id, NEW.terminal);
+
+-- Salted password hashes (see login.AuthService). Plaintext passwords are
+-- hashed and cleared on each account's next successful login.
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE accounts ADD COLUMN password_hash VARCHAR(255) NULL',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'accounts' AND COLUMN_NAME = 'password_hash'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
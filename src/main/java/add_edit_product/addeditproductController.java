@@ -9,10 +9,9 @@ import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.scene.Scene;
-import database.database_utility;
+import database.ProductUpdater;
+import forecasting.SalesHistoryRepository;
 import dashboard.Inventory_management_bin;
-import java.sql.Connection;
-import java.sql.ResultSet;
 import javafx.scene.control.ButtonType;
 
 public class addeditproductController {
@@ -28,6 +27,8 @@ public class addeditproductController {
 
     private dashboard.dashboardController dashboardControllerRef;
     private Inventory_management_bin itemToEdit;
+    // The values the form was loaded with, for conflict detection on save
+    private ProductUpdater.Snapshot baseline;
     private String currentMonth;
 
     @FXML
@@ -67,6 +68,8 @@ public class addeditproductController {
 
     public void setItemToEdit(Inventory_management_bin item) {
         this.itemToEdit = item;
+        this.baseline = new ProductUpdater.Snapshot(item.getItem_code(), item.getItem_des(), item.getVolume(),
+                item.getCategory(), item.getSot(), item.getSoh(), -1);
         populateFields();
     }
 
@@ -111,61 +114,65 @@ public class addeditproductController {
     }
 
     private void updateDatabaseRecords(String description, int volume, String category, int salesOfftake, int stocksOnHand) {
-        Connection connect = null;
         try {
-            // Update sale_offtake table
-            String saleUpdate = String.format(
-                "UPDATE sale_offtake SET item_description = ?, volume = ?, category = ?, %s = ? WHERE item_code = ?",
-                currentMonth
-            );
-            Object[] saleResult = database_utility.update(saleUpdate, 
-                description, volume, category, salesOfftake, itemToEdit.getItem_code()
-            );
+            // Save with a version check, merging changes other users made to fields we didn't edit
+            ProductUpdater.Snapshot edited = new ProductUpdater.Snapshot(baseline.getItemCode(),
+                    description, volume, category, salesOfftake, stocksOnHand, -1);
+            ProductUpdater.Result result = new ProductUpdater().update(baseline, edited, currentMonth);
+
+            if (result.getStatus() == ProductUpdater.Result.Status.NOT_FOUND) {
+                showAlert("Error", "This product has been deleted by another user.");
+                return;
+            }
+            if (result.getStatus() == ProductUpdater.Result.Status.CONFLICT) {
+                showConflict(result, edited);
+                return;
+            }
+
+            if (result.isSalesOfftakeChanged()) {
+                // Mirror the edited month's offtake into the forecasting history
+                new SalesHistoryRepository().recordMonthTotal(baseline.getItemCode(),
+                        SalesHistoryRepository.currentPeriod(currentMonth), salesOfftake);
+            }
 
-            if (saleResult != null) {
-                connect = (Connection) saleResult[0];
-                
-                // Update stock_onhand table
-                String stockUpdate = String.format(
-                    "UPDATE stock_onhand SET %s1 = ? WHERE item_code = ?",
-                    currentMonth
-                );
-                Object[] stockResult = database_utility.update(stockUpdate, 
-                    stocksOnHand, itemToEdit.getItem_code()
-                );
-
-                if (stockResult != null) {
-                    showAlert("Success", "Product updated successfully");
-                    
-                    // Add notification for the edit action
-                    if (dashboardControllerRef != null) {
-                        dashboardControllerRef.addInventoryActionNotification("edit", description);
-                    }
-                    
-                    // Refresh the main table
-                    if (dashboardControllerRef != null) {
-                        dashboardControllerRef.inventory_management_query();
-                    }
-                    
-                    // Close the form
-                    Stage stage = (Stage) continueButton.getScene().getWindow();
-                    stage.close();
-                } else {
-                    showAlert("Error", "Failed to update stock on hand data");
-                }
-            } else {
-                showAlert("Error", "Failed to update product data");
+            showAlert("Success", result.getStatus() == ProductUpdater.Result.Status.MERGED
+                    ? "Product updated successfully. Changes another user made to other fields were kept."
+                    : "Product updated successfully");
+            
+            // Add notification for the edit action
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.addInventoryActionNotification("edit", description);
+            }
+            
+            // Refresh the main table
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.inventory_management_query();
             }
+            
+            // Close the form
+            Stage stage = (Stage) continueButton.getScene().getWindow();
+            stage.close();
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Error", "Database error: " + e.getMessage());
-        } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
         }
     }
 
+    // Shows what changed underneath the form and rebases the form onto the current values
+    private void showConflict(ProductUpdater.Result result, ProductUpdater.Snapshot edited) {
+        showAlert("Edit Conflict", "Another user changed this product while you were editing it: "
+                + result.describeConflicts() + ". The form now shows the current values with your "
+                + "other changes kept; check them and press Continue again.");
+        ProductUpdater.Snapshot current = result.getCurrent();
+        ProductUpdater.Snapshot rebased = ProductUpdater.rebase(baseline, edited, current, result.getConflicts());
+        descriptionField.setText(rebased.getDescription());
+        volumeField.setText(String.valueOf(rebased.getVolume()));
+        categoryField.setText(rebased.getCategory());
+        salesOfftakeField.setText(String.valueOf(rebased.getSalesOfftake()));
+        stocksOnHandField.setText(String.valueOf(rebased.getStockOnHand()));
+        baseline = current;
+    }
+
     private void handleCancel() {
         Stage stage = (Stage) cancelButton.getScene().getWindow();
         stage.close();
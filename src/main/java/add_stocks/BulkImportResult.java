@@ -0,0 +1,83 @@
+package add_stocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: rows loaded, rows rejected and why. Only the first
+ * {@value #MAX_REPORTED_ERRORS} rejections are kept in full; the rest are counted.
+ */
+public class BulkImportResult {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final List<RowError> errors = new ArrayList<>();
+    private long imported;
+    private long rejected;
+    private boolean cancelled;
+
+    void addImported(long rows) {
+        imported += rows;
+    }
+
+    void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    void setCancelled() {
+        cancelled = true;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public String getSummary() {
+        String summary = String.format("Imported %,d rows, rejected %,d.", imported, rejected);
+        if (cancelled) {
+            summary += " The import was cancelled; rows already committed were kept.";
+        }
+        if (rejected > errors.size()) {
+            summary += String.format(" Showing the first %,d errors.", errors.size());
+        }
+        return summary;
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package add_stocks;
+
+import javafx.concurrent.Task;
+
+import java.nio.file.Path;
+
+/**
+ * Runs a {@link BulkImporter} in the background, reporting progress through the file.
+ */
+public final class BulkImportTask extends Task<BulkImportResult> {
+    private final BulkImporter importer;
+    private final Path file;
+
+    public BulkImportTask(BulkImporter.Kind kind, String monthColumn, Path file) {
+        this.importer = new BulkImporter(kind, monthColumn);
+        this.file = file;
+        updateTitle("Importing " + kind + " from " + file.getFileName());
+    }
+
+    @Override
+    protected BulkImportResult call() throws Exception {
+        updateMessage("Reading " + file.getFileName() + "...");
+        long start = System.nanoTime();
+        BulkImportResult result = importer.run(file, this::isCancelled, fraction -> {
+            updateProgress(fraction, 1.0);
+            updateMessage(String.format("%.0f%% of file read", fraction * 100));
+        });
+        updateMessage(String.format("%s (%.1f s)", result.getSummary(), (System.nanoTime() - start) / 1e9));
+        return result;
+    }
+}
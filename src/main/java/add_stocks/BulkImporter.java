@@ -0,0 +1,524 @@
+package add_stocks;
+
+import database.StockLedger;
+import database.database_utility;
+import forecasting.SalesHistory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Loads products or stock receipts from a CSV file. Rows are parsed with {@link CsvReader},
+ * validated against the catalogue, and written with JDBC batches (rewritten into multi-row
+ * statements by Connector/J) in transactions of {@value #CHUNK_SIZE} rows. If a chunk fails,
+ * it's rolled back and replayed one row at a time so only the offending rows are rejected.
+ *
+ * <p>Product files need description, volume and category columns; item_code, sales_offtake and
+ * stock_on_hand are optional and behave like the Add Product form, except that the opening stock
+ * goes into the stock ledger as a receipt for each month rather than straight into
+ * {@code stock_onhand}, whose new row starts at zero. Receipt files need a quantity
+ * and either an item_code or a description (plus volume where descriptions repeat); quantities
+ * are appended to the stock ledger as receipts for the given month.
+ */
+public class BulkImporter {
+    public enum Kind {
+        PRODUCTS("Products"),
+        STOCK_RECEIPTS("Stock Receipts");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PROGRESS_EVERY = 1024;
+    private static final List<String> MONTHS = SalesHistory.MONTH_COLUMNS;
+
+    private final Kind kind;
+    private final String monthColumn;
+
+    public BulkImporter(Kind kind, String monthColumn) {
+        if (!MONTHS.contains(monthColumn)) {
+            throw new IllegalArgumentException("Unknown month column: " + monthColumn);
+        }
+        this.kind = kind;
+        this.monthColumn = monthColumn;
+    }
+
+    public BulkImportResult run(Path file, BooleanSupplier cancelled, DoubleConsumer progress)
+            throws IOException, SQLException {
+        BulkImportResult result = new BulkImportResult();
+        double size = Math.max(1, Files.size(file));
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try (CsvReader reader = new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            connect.setAutoCommit(false);
+            Catalogue catalogue = Catalogue.load(connect);
+            connect.commit();
+
+            if (!reader.next()) {
+                result.reject(1, "The file is empty");
+                return result;
+            }
+            Map<String, Integer> header = readHeader(reader);
+            ChunkLoader loader = kind == Kind.PRODUCTS
+                    ? new ProductLoader(connect, catalogue, header)
+                    : new ReceiptLoader(connect, catalogue, header);
+            String missing = loader.missingColumn();
+            if (missing != null) {
+                result.reject(reader.getLine(), "Missing required column: " + missing);
+                return result;
+            }
+
+            long rows = 0;
+            while (reader.next()) {
+                if (cancelled.getAsBoolean()) {
+                    connect.rollback();
+                    result.setCancelled();
+                    return result;
+                }
+                loader.add(reader, result);
+                if (loader.pending() == CHUNK_SIZE) {
+                    loader.flush(result);
+                }
+                if (++rows % PROGRESS_EVERY == 0) {
+                    progress.accept(Math.min(1.0, reader.getCharsRead() / size));
+                }
+            }
+            loader.flush(result);
+            loader.close();
+            progress.accept(1.0);
+            return result;
+        } catch (SQLException | IOException | RuntimeException e) {
+            try {
+                connect.rollback();
+            } catch (SQLException ignored) {
+                // The connection is being closed anyway
+            }
+            throw e;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // Column names are matched case-insensitively, ignoring spaces and punctuation
+    private static Map<String, Integer> readHeader(CsvReader reader) {
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < reader.size(); i++) {
+            header.putIfAbsent(normalize(reader.get(i)), i);
+        }
+        return header;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static int column(Map<String, Integer> header, String... aliases) {
+        for (String alias : aliases) {
+            Integer index = header.get(alias);
+            if (index != null) return index;
+        }
+        return -1;
+    }
+
+    private static String value(CsvReader reader, int column) {
+        return column < 0 ? "" : reader.get(column).trim();
+    }
+
+    private static int parseCount(String value, String name, boolean positive) {
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number, got \"" + value + "\"");
+        }
+        if (parsed < 0 || (positive && parsed == 0)) {
+            throw new IllegalArgumentException(name + " must be " + (positive ? "greater than zero" : "zero or more"));
+        }
+        return parsed;
+    }
+
+    /**
+     * Rows parsed but not yet committed, and the batched statements that write them.
+     */
+    private abstract static class ChunkLoader {
+        final Connection connect;
+        final Catalogue catalogue;
+        private final List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+        private final List<Long> lines = new ArrayList<>(CHUNK_SIZE);
+
+        ChunkLoader(Connection connect, Catalogue catalogue) {
+            this.connect = connect;
+            this.catalogue = catalogue;
+        }
+
+        // Name of a required column the header lacks, or null
+        abstract String missingColumn();
+
+        // Validates the current record and returns its statement parameters
+        abstract Object[] parse(CsvReader reader);
+
+        abstract void addBatch(Object[] row) throws SQLException;
+
+        abstract void executeBatch() throws SQLException;
+
+        abstract void clearBatch() throws SQLException;
+
+        abstract void close() throws SQLException;
+
+        int pending() {
+            return rows.size();
+        }
+
+        void add(CsvReader reader, BulkImportResult result) {
+            try {
+                rows.add(parse(reader));
+                lines.add(reader.getLine());
+            } catch (IllegalArgumentException e) {
+                result.reject(reader.getLine(), e.getMessage());
+            }
+        }
+
+        void flush(BulkImportResult result) throws SQLException {
+            if (rows.isEmpty()) return;
+            try {
+                for (Object[] row : rows) {
+                    addBatch(row);
+                }
+                executeBatch();
+                connect.commit();
+                result.addImported(rows.size());
+            } catch (SQLException e) {
+                connect.rollback();
+                clearBatch();
+                retryOneByOne(result);
+            }
+            rows.clear();
+            lines.clear();
+        }
+
+        private void retryOneByOne(BulkImportResult result) throws SQLException {
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    addBatch(rows.get(i));
+                    executeBatch();
+                    connect.commit();
+                    result.addImported(1);
+                } catch (SQLException e) {
+                    connect.rollback();
+                    clearBatch();
+                    result.reject(lines.get(i), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private class ProductLoader extends ChunkLoader {
+        private final int codeColumn;
+        private final int descriptionColumn;
+        private final int volumeColumn;
+        private final int categoryColumn;
+        private final int offtakeColumn;
+        private final int stockColumn;
+        private final PreparedStatement insertProduct;
+        private final PreparedStatement insertStock;
+        private final PreparedStatement openingStock;
+        private final int year = Year.now().getValue();
+
+        ProductLoader(Connection connect, Catalogue catalogue, Map<String, Integer> header) throws SQLException {
+            super(connect, catalogue);
+            codeColumn = column(header, "itemcode", "code");
+            descriptionColumn = column(header, "description", "itemdescription", "product", "name");
+            volumeColumn = column(header, "volume");
+            categoryColumn = column(header, "category");
+            offtakeColumn = column(header, "salesofftake", "offtake", "sales");
+            stockColumn = column(header, "stockonhand", "stocksonhand", "soh", "stock");
+
+            StringBuilder productSql = new StringBuilder("INSERT INTO sale_offtake (item_code, item_description, volume, category");
+            StringBuilder stockSql = new StringBuilder("INSERT INTO stock_onhand (item_code");
+            for (String month : MONTHS) {
+                productSql.append(", `").append(month).append('`');
+                stockSql.append(", `").append(month).append("1`");
+            }
+            productSql.append(") VALUES (?, ?, ?, ?").append(", ?".repeat(MONTHS.size())).append(')');
+            stockSql.append(") VALUES (?").append(", ?".repeat(MONTHS.size())).append(')');
+            insertProduct = connect.prepareStatement(productSql.toString());
+            insertStock = connect.prepareStatement(stockSql.toString());
+            openingStock = StockLedger.prepareBatch(connect);
+        }
+
+        @Override
+        String missingColumn() {
+            if (descriptionColumn < 0) return "description";
+            if (volumeColumn < 0) return "volume";
+            if (categoryColumn < 0) return "category";
+            return null;
+        }
+
+        @Override
+        Object[] parse(CsvReader reader) {
+            String description = value(reader, descriptionColumn);
+            if (description.isEmpty()) {
+                throw new IllegalArgumentException("Description is required");
+            }
+            int volume = parseCount(value(reader, volumeColumn), "Volume", false);
+            String category = value(reader, categoryColumn);
+            if (category.isEmpty()) {
+                throw new IllegalArgumentException("Category is required");
+            }
+            if (category.length() > 45) {
+                throw new IllegalArgumentException("Category is longer than 45 characters");
+            }
+            String offtake = value(reader, offtakeColumn);
+            String stock = value(reader, stockColumn);
+            int salesOfftake = offtake.isEmpty() ? 0 : parseCount(offtake, "Sales offtake", false);
+            int stockOnHand = stock.isEmpty() ? 0 : parseCount(stock, "Stock on hand", false);
+
+            Integer existing = catalogue.find(description, volume);
+            if (existing != null) {
+                throw new IllegalArgumentException("Product already exists (item code " + existing + ")");
+            }
+            String code = value(reader, codeColumn);
+            int itemCode;
+            if (code.isEmpty()) {
+                itemCode = catalogue.nextCode();
+            } else {
+                itemCode = parseCount(code, "Item code", true);
+                if (catalogue.contains(itemCode)) {
+                    throw new IllegalArgumentException("Item code " + itemCode + " already exists");
+                }
+                if (catalogue.isRetired(itemCode)) {
+                    throw new IllegalArgumentException("Item code " + itemCode + " belonged to a deleted product");
+                }
+            }
+            catalogue.register(itemCode, description, volume, true);
+            return new Object[]{itemCode, description, volume, category, salesOfftake, stockOnHand};
+        }
+
+        @Override
+        void addBatch(Object[] row) throws SQLException {
+            insertProduct.setInt(1, (Integer) row[0]);
+            insertProduct.setString(2, (String) row[1]);
+            insertProduct.setInt(3, (Integer) row[2]);
+            insertProduct.setString(4, (String) row[3]);
+            insertStock.setInt(1, (Integer) row[0]);
+            int stockOnHand = (Integer) row[5];
+            for (int m = 0; m < MONTHS.size(); m++) {
+                insertProduct.setInt(5 + m, (Integer) row[4]);
+                insertStock.setInt(2 + m, 0);
+                if (stockOnHand > 0) {
+                    StockLedger.addToBatch(openingStock, (Integer) row[0], YearMonth.of(year, m + 1),
+                            StockLedger.MovementType.RECEIPT, stockOnHand);
+                }
+            }
+            insertProduct.addBatch();
+            insertStock.addBatch();
+        }
+
+        @Override
+        void executeBatch() throws SQLException {
+            insertProduct.executeBatch();
+            insertStock.executeBatch();
+            openingStock.executeBatch();
+        }
+
+        @Override
+        void clearBatch() throws SQLException {
+            insertProduct.clearBatch();
+            insertStock.clearBatch();
+            openingStock.clearBatch();
+        }
+
+        @Override
+        void close() throws SQLException {
+            insertProduct.close();
+            insertStock.close();
+            openingStock.close();
+        }
+    }
+
+    private class ReceiptLoader extends ChunkLoader {
+        private final int codeColumn;
+        private final int descriptionColumn;
+        private final int volumeColumn;
+        private final int quantityColumn;
+        private final PreparedStatement addStock;
+        private final YearMonth period = YearMonth.of(Year.now().getValue(), MONTHS.indexOf(monthColumn) + 1);
+
+        ReceiptLoader(Connection connect, Catalogue catalogue, Map<String, Integer> header) throws SQLException {
+            super(connect, catalogue);
+            codeColumn = column(header, "itemcode", "code");
+            descriptionColumn = column(header, "description", "itemdescription", "product", "name");
+            volumeColumn = column(header, "volume");
+            quantityColumn = column(header, "quantity", "qty", "received", "newstock", "newstocks");
+            addStock = StockLedger.prepareBatch(connect);
+        }
+
+        @Override
+        String missingColumn() {
+            if (quantityColumn < 0) return "quantity";
+            if (codeColumn < 0 && descriptionColumn < 0) return "item_code or description";
+            return null;
+        }
+
+        @Override
+        Object[] parse(CsvReader reader) {
+            int quantity = parseCount(value(reader, quantityColumn), "Quantity", true);
+            String code = value(reader, codeColumn);
+            int itemCode;
+            if (!code.isEmpty()) {
+                itemCode = parseCount(code, "Item code", true);
+                if (!catalogue.contains(itemCode)) {
+                    throw new IllegalArgumentException("Unknown item code " + itemCode);
+                }
+            } else {
+                String description = value(reader, descriptionColumn);
+                if (description.isEmpty()) {
+                    throw new IllegalArgumentException("Item code or description is required");
+                }
+                String volume = value(reader, volumeColumn);
+                itemCode = catalogue.resolve(description,
+                        volume.isEmpty() ? null : parseCount(volume, "Volume", false));
+            }
+            if (!catalogue.hasStockRow(itemCode)) {
+                throw new IllegalArgumentException("Item " + itemCode + " has no stock on hand record");
+            }
+            return new Object[]{quantity, itemCode};
+        }
+
+        @Override
+        void addBatch(Object[] row) throws SQLException {
+            StockLedger.addToBatch(addStock, (Integer) row[1], period, StockLedger.MovementType.RECEIPT, (Integer) row[0]);
+        }
+
+        @Override
+        void executeBatch() throws SQLException {
+            addStock.executeBatch();
+        }
+
+        @Override
+        void clearBatch() throws SQLException {
+            addStock.clearBatch();
+        }
+
+        @Override
+        void close() throws SQLException {
+            addStock.close();
+        }
+    }
+
+    /**
+     * Item codes and description/volume pairs already in the database, plus those accepted
+     * earlier in the file, for duplicate checks and description lookups. Codes of deleted
+     * products still have movements in the stock ledger, so they're never handed out again.
+     */
+    private static class Catalogue {
+        private final Map<Integer, Boolean> stockRows = new HashMap<>();
+        private final Set<Integer> retired = new HashSet<>();
+        private final Map<String, List<int[]>> byDescription = new HashMap<>();
+        private int maxCode;
+
+        static Catalogue load(Connection connect) throws SQLException {
+            Catalogue catalogue = new Catalogue();
+            try (Statement statement = connect.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT s.item_code, s.item_description, s.volume, o.item_code IS NOT NULL AS has_stock " +
+                         "FROM sale_offtake s LEFT JOIN stock_onhand o ON o.item_code = s.item_code")) {
+                while (rs.next()) {
+                    catalogue.register(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getBoolean(4));
+                }
+            }
+            try (Statement statement = connect.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT DISTINCT m.item_code FROM stock_movements m " +
+                         "LEFT JOIN sale_offtake s ON s.item_code = m.item_code WHERE s.item_code IS NULL")) {
+                while (rs.next()) {
+                    catalogue.retired.add(rs.getInt(1));
+                    catalogue.maxCode = Math.max(catalogue.maxCode, rs.getInt(1));
+                }
+            }
+            return catalogue;
+        }
+
+        void register(int itemCode, String description, int volume, boolean hasStock) {
+            stockRows.put(itemCode, hasStock);
+            maxCode = Math.max(maxCode, itemCode);
+            if (description != null) {
+                byDescription.computeIfAbsent(key(description), k -> new ArrayList<>(1)).add(new int[]{itemCode, volume});
+            }
+        }
+
+        boolean contains(int itemCode) {
+            return stockRows.containsKey(itemCode);
+        }
+
+        boolean isRetired(int itemCode) {
+            return retired.contains(itemCode);
+        }
+
+        boolean hasStockRow(int itemCode) {
+            return Boolean.TRUE.equals(stockRows.get(itemCode));
+        }
+
+        int nextCode() {
+            return maxCode + 1;
+        }
+
+        Integer find(String description, int volume) {
+            for (int[] item : byDescription.getOrDefault(key(description), List.of())) {
+                if (item[1] == volume) return item[0];
+            }
+            return null;
+        }
+
+        // Item code for a description, narrowed by volume when given
+        int resolve(String description, Integer volume) {
+            List<int[]> matches = new ArrayList<>();
+            for (int[] item : byDescription.getOrDefault(key(description), List.of())) {
+                if (volume == null || item[1] == volume) matches.add(item);
+            }
+            if (matches.isEmpty()) {
+                throw new IllegalArgumentException("Unknown product \"" + description + "\""
+                        + (volume != null ? " with volume " + volume : ""));
+            }
+            if (matches.size() > 1) {
+                throw new IllegalArgumentException("\"" + description + "\" matches " + matches.size()
+                        + " products; add an item_code or volume column");
+            }
+            return matches.get(0)[0];
+        }
+
+        private static String key(String description) {
+            return description.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
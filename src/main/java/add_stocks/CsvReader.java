@@ -0,0 +1,130 @@
+package add_stocks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader: quoted fields, doubled quotes, commas and line breaks inside
+ * quotes, CRLF or LF line endings and a leading UTF-8 BOM. Only the current record is held in
+ * memory and its field list is reused between records.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    private int position;
+    private int limit;
+    private long charsRead;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next non-blank record. Returns false at end of input.
+     *
+     * @throws IOException on read errors or a quoted field left open at end of input
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (!readRecord()) return false;
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) return true;
+        }
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    // Field i of the current record, or "" if the record is shorter
+    public String get(int i) {
+        return i < fields.size() ? fields.get(i) : "";
+    }
+
+    // Line the current record started on, counting from 1
+    public long getLine() {
+        return recordLine;
+    }
+
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = read();
+        if (c < 0) return false;
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') c = read();
+        }
+        recordLine = line;
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = peek();
+                    if (next == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r' && peek() == '\n') read();
+                if (c >= 0) line++;
+                fields.add(field.toString());
+                return true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        charsRead++;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        if (n <= 0) return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
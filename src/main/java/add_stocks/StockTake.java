@@ -0,0 +1,270 @@
+package add_stocks;
+
+import database.StockLedger;
+import database.database_utility;
+import forecasting.SalesHistoryRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A physical stock count for one month. Counted quantities are compared with the balances
+ * the count sheet was loaded with, and every difference is recorded as an ADJUSTMENT movement
+ * in a single transaction through one JDBC batch. Since only the variance is booked, sales
+ * made while the count was being entered stay applied.
+ */
+public class StockTake {
+    private static final int CHUNK_SIZE = 1000;
+
+    /** One item as the count sheet shows it before counting. */
+    public static class Line {
+        private final int itemCode;
+        private final String description;
+        private final int volume;
+        private final String category;
+        private final int expected;
+
+        Line(int itemCode, String description, int volume, String category, int expected) {
+            this.itemCode = itemCode;
+            this.description = description;
+            this.volume = volume;
+            this.category = category;
+            this.expected = expected;
+        }
+
+        public int getItemCode() {
+            return itemCode;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getVolume() {
+            return volume;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        // Whether the item code, description or category contains the already lower-cased term
+        public boolean matches(String term) {
+            return term.isEmpty()
+                    || String.valueOf(itemCode).contains(term)
+                    || description.toLowerCase().contains(term)
+                    || category.toLowerCase().contains(term);
+        }
+
+        public int getExpected() {
+            return expected;
+        }
+    }
+
+    /** A counted item whose count differed from its balance. */
+    public static class Variance {
+        private final int itemCode;
+        private final String description;
+        private final int expected;
+        private final int counted;
+
+        Variance(int itemCode, String description, int expected, int counted) {
+            this.itemCode = itemCode;
+            this.description = description;
+            this.expected = expected;
+            this.counted = counted;
+        }
+
+        public int getItemCode() {
+            return itemCode;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getExpected() {
+            return expected;
+        }
+
+        public int getCounted() {
+            return counted;
+        }
+
+        public int getDifference() {
+            return counted - expected;
+        }
+    }
+
+    public static class Result {
+        private final int counted;
+        private final List<Variance> variances;
+        private final List<Integer> missing;
+        private final long elapsedMillis;
+
+        Result(int counted, List<Variance> variances, List<Integer> missing, long elapsedMillis) {
+            this.counted = counted;
+            this.variances = Collections.unmodifiableList(variances);
+            this.missing = Collections.unmodifiableList(missing);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getCounted() {
+            return counted;
+        }
+
+        // Largest differences first
+        public List<Variance> getVariances() {
+            return variances;
+        }
+
+        // Counted item codes that no longer exist; nothing was recorded for them
+        public List<Integer> getMissing() {
+            return missing;
+        }
+
+        public long getNetDifference() {
+            long net = 0;
+            for (Variance variance : variances) net += variance.getDifference();
+            return net;
+        }
+
+        public long getAbsoluteDifference() {
+            long total = 0;
+            for (Variance variance : variances) total += Math.abs(variance.getDifference());
+            return total;
+        }
+
+        public String getSummary() {
+            String summary = String.format("Counted %,d items in %.1f s: %,d matched, %,d adjusted (net %+,d, absolute %,d units).",
+                    counted, elapsedMillis / 1000.0, counted - variances.size() - missing.size(), variances.size(),
+                    getNetDifference(), getAbsoluteDifference());
+            if (!missing.isEmpty()) {
+                summary += String.format(" %,d items were deleted during the count and skipped.", missing.size());
+            }
+            return summary;
+        }
+    }
+
+    private final String monthColumn;
+    // The count sheet from load(), by item code
+    private final Map<Integer, Line> sheet = new HashMap<>();
+
+    public StockTake(String monthColumn) {
+        if (!forecasting.SalesHistory.MONTH_COLUMNS.contains(monthColumn)) {
+            throw new IllegalArgumentException("Unknown month column: " + monthColumn);
+        }
+        this.monthColumn = monthColumn;
+    }
+
+    // Every item with its current balance, for the count sheet
+    public List<Line> load() throws SQLException {
+        List<Line> lines = new ArrayList<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(String.format(
+                    "SELECT so.item_code, so.item_description, so.volume, so.category, o.`%s1` AS soh " +
+                    "FROM sale_offtake so JOIN stock_onhand_live o ON o.item_code = so.item_code " +
+                    "ORDER BY so.category, so.item_description, so.volume", monthColumn));
+            if (result == null) {
+                throw new SQLException("Failed to load items for the stock take");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                Line line = new Line(rs.getInt("item_code"), rs.getString("item_description"), rs.getInt("volume"),
+                        rs.getString("category"), rs.getInt("soh"));
+                lines.add(line);
+                sheet.put(line.getItemCode(), line);
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return lines;
+    }
+
+    /**
+     * Books the counts (item code to counted quantity) as adjustments against the balances
+     * {@link #load()} read. All or nothing.
+     */
+    public Result commit(Map<Integer, Integer> counts) throws SQLException {
+        long start = System.nanoTime();
+        List<Variance> variances = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        YearMonth period = SalesHistoryRepository.currentPeriod(monthColumn);
+
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try {
+            connect.setAutoCommit(false);
+            List<Integer> itemCodes = new ArrayList<>(counts.keySet());
+            try (PreparedStatement batch = StockLedger.prepareBatch(connect)) {
+                for (int from = 0; from < itemCodes.size(); from += CHUNK_SIZE) {
+                    List<Integer> chunk = itemCodes.subList(from, Math.min(from + CHUNK_SIZE, itemCodes.size()));
+                    Set<Integer> existing = readExisting(connect, chunk);
+                    for (Integer itemCode : chunk) {
+                        Line line = sheet.get(itemCode);
+                        if (line == null) {
+                            throw new IllegalArgumentException("Item " + itemCode + " is not on the count sheet");
+                        }
+                        if (!existing.contains(itemCode)) {
+                            missing.add(itemCode);
+                            continue;
+                        }
+                        int counted = counts.get(itemCode);
+                        if (counted != line.getExpected()) {
+                            StockLedger.addToBatch(batch, itemCode, period, StockLedger.MovementType.ADJUSTMENT,
+                                    counted - line.getExpected());
+                            variances.add(new Variance(itemCode, line.getDescription(), line.getExpected(), counted));
+                        }
+                    }
+                    batch.executeBatch();
+                }
+            }
+            connect.commit();
+        } catch (SQLException | RuntimeException e) {
+            connect.rollback();
+            throw e;
+        } finally {
+            database_utility.close(connect);
+        }
+
+        variances.sort(Comparator.comparingInt((Variance v) -> Math.abs(v.getDifference())).reversed());
+        return new Result(counts.size(), variances, missing, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // The chunk's item codes that still exist
+    private static Set<Integer> readExisting(Connection connect, List<Integer> itemCodes) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT item_code FROM sale_offtake WHERE item_code IN (");
+        for (int i = 0; i < itemCodes.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        Set<Integer> existing = new HashSet<>();
+        try (PreparedStatement statement = connect.prepareStatement(sql.toString())) {
+            for (int i = 0; i < itemCodes.size(); i++) {
+                statement.setInt(i + 1, itemCodes.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getInt(1));
+                }
+            }
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,333 @@
+package add_stocks;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.converter.DefaultStringConverter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Count sheet for a stock take: every item with its expected balance and an editable Counted
+ * column. Counts can be typed or pasted from a spreadsheet, either as "code, count" pairs or as
+ * a single column filling down from the selected row. Only rows with a count are committed.
+ */
+public class StockTakeDialog {
+    /** One row of the sheet; counted is blank until the item has been counted. */
+    public static class Row {
+        private final StockTake.Line line;
+        private final SimpleStringProperty counted = new SimpleStringProperty("");
+
+        Row(StockTake.Line line) {
+            this.line = line;
+        }
+
+        public StockTake.Line getLine() {
+            return line;
+        }
+
+        public SimpleStringProperty countedProperty() {
+            return counted;
+        }
+
+        // The count, or null when blank or not a whole number
+        Integer getCount() {
+            String text = counted.get().trim();
+            if (text.isEmpty()) return null;
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Stage stage = new Stage();
+    private final StockTake stockTake;
+    private final ObservableList<Row> rows = FXCollections.observableArrayList();
+    private final Map<Integer, Row> rowsByCode = new HashMap<>();
+    private final TableView<Row> table = new TableView<>();
+    private final Label status = new Label("Loading items...");
+    private final Button commitButton = new Button("Commit Count");
+    private final Button cancelButton = new Button("Cancel");
+    private StockTake.Result result;
+
+    public StockTakeDialog(Window owner, String monthColumn) {
+        this.stockTake = new StockTake(monthColumn);
+
+        Label title = new Label("Stock Take (" + monthColumn.toUpperCase() + ")");
+        title.setStyle("-fx-text-fill: white; -fx-font-size: 16px; -fx-font-weight: bold;");
+
+        TextField filterField = new TextField();
+        filterField.setPromptText("Filter by code, description or category");
+        FilteredList<Row> filtered = new FilteredList<>(rows);
+        filterField.textProperty().addListener((obs, oldText, text) -> {
+            String term = text.trim().toLowerCase();
+            filtered.setPredicate(row -> row.getLine().matches(term));
+        });
+
+        buildTable();
+        table.setItems(filtered);
+        table.setPrefSize(820, 480);
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        status.setStyle("-fx-text-fill: #AEB9E1;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        cancelButton.setStyle("-fx-background-color: #181739; -fx-text-fill: #AEB9E1; -fx-background-radius: 6;");
+        cancelButton.setOnAction(e -> stage.close());
+        commitButton.setStyle("-fx-background-color: #0A1196; -fx-text-fill: white; -fx-background-radius: 6;");
+        commitButton.setDisable(true);
+        commitButton.setOnAction(e -> commit());
+        HBox buttons = new HBox(12, status, spacer, cancelButton, commitButton);
+        buttons.setAlignment(Pos.CENTER_LEFT);
+
+        VBox root = new VBox(12, title, filterField, table, buttons);
+        root.setPadding(new Insets(24));
+        root.setStyle("-fx-background-color: #081028; -fx-background-radius: 12;");
+
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        stage.initModality(Modality.WINDOW_MODAL);
+        stage.setTitle("Stock Take");
+        stage.setScene(new Scene(root));
+    }
+
+    private void buildTable() {
+        TableColumn<Row, Number> codeColumn = new TableColumn<>("Code");
+        codeColumn.setCellValueFactory(data -> new SimpleIntegerProperty(data.getValue().getLine().getItemCode()));
+        TableColumn<Row, String> descriptionColumn = new TableColumn<>("Description");
+        descriptionColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getLine().getDescription()));
+        descriptionColumn.setPrefWidth(260);
+        TableColumn<Row, Number> volumeColumn = new TableColumn<>("Volume");
+        volumeColumn.setCellValueFactory(data -> new SimpleIntegerProperty(data.getValue().getLine().getVolume()));
+        TableColumn<Row, String> categoryColumn = new TableColumn<>("Category");
+        categoryColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getLine().getCategory()));
+        TableColumn<Row, Number> expectedColumn = new TableColumn<>("Expected");
+        expectedColumn.setCellValueFactory(data -> new SimpleIntegerProperty(data.getValue().getLine().getExpected()));
+
+        TableColumn<Row, String> countedColumn = new TableColumn<>("Counted");
+        countedColumn.setCellValueFactory(data -> data.getValue().countedProperty());
+        countedColumn.setCellFactory(TextFieldTableCell.forTableColumn(new DefaultStringConverter()));
+        countedColumn.setOnEditCommit(event -> {
+            event.getRowValue().countedProperty().set(event.getNewValue() == null ? "" : event.getNewValue());
+            updateStatus();
+        });
+
+        TableColumn<Row, Integer> varianceColumn = new TableColumn<>("Variance");
+        varianceColumn.setCellValueFactory(data -> {
+            Row row = data.getValue();
+            SimpleObjectProperty<Integer> variance = new SimpleObjectProperty<>();
+            variance.bind(Bindings.createObjectBinding(() -> {
+                Integer count = row.getCount();
+                return count == null ? null : count - row.getLine().getExpected();
+            }, row.countedProperty()));
+            return variance;
+        });
+        varianceColumn.setCellFactory(column -> new TableCell<Row, Integer>() {
+            @Override
+            protected void updateItem(Integer variance, boolean empty) {
+                super.updateItem(variance, empty);
+                if (empty || variance == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(String.format("%+d", variance));
+                    setStyle(variance == 0 ? "" : "-fx-text-fill: " + (variance < 0 ? "#FF5A65" : "#14CA74") + ";");
+                }
+            }
+        });
+
+        table.getColumns().add(codeColumn);
+        table.getColumns().add(descriptionColumn);
+        table.getColumns().add(volumeColumn);
+        table.getColumns().add(categoryColumn);
+        table.getColumns().add(expectedColumn);
+        table.getColumns().add(countedColumn);
+        table.getColumns().add(varianceColumn);
+        table.setEditable(true);
+        table.setPlaceholder(new Label("Loading items..."));
+        table.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.isShortcutDown() && event.getCode() == KeyCode.V && table.getEditingCell() == null) {
+                paste(Clipboard.getSystemClipboard().getString());
+                event.consume();
+            }
+        });
+    }
+
+    /**
+     * Pastes counts. Lines with two fields (tab, comma or semicolon separated) are item code and
+     * count; single values fill the Counted column down from the selected row.
+     */
+    private void paste(String text) {
+        if (text == null || text.isBlank()) return;
+        int index = Math.max(table.getSelectionModel().getSelectedIndex(), 0);
+        int applied = 0;
+        int skipped = 0;
+        for (String line : text.split("\\R")) {
+            if (line.isBlank()) continue;
+            String[] fields = line.trim().split("\\s*[\\t,;]\\s*");
+            if (fields.length >= 2) {
+                Row row = null;
+                try {
+                    row = rowsByCode.get(Integer.parseInt(fields[0]));
+                } catch (NumberFormatException e) {
+                    // A header line or a typo; counted below
+                }
+                if (row != null && isCount(fields[1])) {
+                    row.countedProperty().set(fields[1]);
+                    applied++;
+                } else {
+                    skipped++;
+                }
+            } else if (index < table.getItems().size() && isCount(fields[0])) {
+                table.getItems().get(index++).countedProperty().set(fields[0]);
+                applied++;
+            } else {
+                skipped++;
+            }
+        }
+        updateStatus();
+        if (skipped > 0) {
+            status.setText(status.getText() + String.format(" Pasted %,d, skipped %,d unreadable lines.", applied, skipped));
+        }
+    }
+
+    private static boolean isCount(String text) {
+        try {
+            return Integer.parseInt(text.trim()) >= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void updateStatus() {
+        int counted = 0;
+        int invalid = 0;
+        int differing = 0;
+        for (Row row : rows) {
+            if (row.countedProperty().get().isBlank()) continue;
+            Integer count = row.getCount();
+            if (count == null || count < 0) {
+                invalid++;
+            } else {
+                counted++;
+                if (count != row.getLine().getExpected()) differing++;
+            }
+        }
+        String text = String.format("%,d of %,d counted, %,d differ.", counted, rows.size(), differing);
+        if (invalid > 0) {
+            text += String.format(" %,d counts are not whole numbers.", invalid);
+        }
+        status.setText(text);
+        commitButton.setDisable(counted == 0 || invalid > 0);
+    }
+
+    private void load() {
+        Task<List<StockTake.Line>> task = new Task<>() {
+            @Override
+            protected List<StockTake.Line> call() throws Exception {
+                return stockTake.load();
+            }
+        };
+        task.setOnSucceeded(e -> {
+            for (StockTake.Line line : task.getValue()) {
+                Row row = new Row(line);
+                rows.add(row);
+                rowsByCode.put(line.getItemCode(), row);
+            }
+            table.setPlaceholder(new Label("No items"));
+            updateStatus();
+        });
+        task.setOnFailed(e -> {
+            task.getException().printStackTrace();
+            table.setPlaceholder(new Label("Failed to load items"));
+            status.setText("Failed to load items: " + task.getException().getMessage());
+        });
+        Thread thread = new Thread(task, "stock-take-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void commit() {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (Row row : rows) {
+            Integer count = row.getCount();
+            if (count != null) {
+                counts.put(row.getLine().getItemCode(), count);
+            }
+        }
+
+        Task<StockTake.Result> task = new Task<>() {
+            @Override
+            protected StockTake.Result call() throws Exception {
+                return stockTake.commit(counts);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            result = task.getValue();
+            stage.close();
+        });
+        task.setOnFailed(e -> {
+            task.getException().printStackTrace();
+            table.setDisable(false);
+            cancelButton.setDisable(false);
+            updateStatus();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.initOwner(stage);
+            alert.setTitle("Stock Take Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Nothing was recorded: " + task.getException().getMessage());
+            alert.showAndWait();
+        });
+
+        // One transaction that cannot be cancelled halfway, so there is no Cancel while it runs
+        commitButton.setDisable(true);
+        cancelButton.setDisable(true);
+        table.setDisable(true);
+        status.setText(String.format("Committing %,d counts...", counts.size()));
+        stage.setOnCloseRequest(e -> {
+            if (task.isRunning()) e.consume();
+        });
+        Thread thread = new Thread(task, "stock-take-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Shows the sheet until it is committed or closed; null if nothing was committed
+    public StockTake.Result showAndWait() {
+        load();
+        stage.showAndWait();
+        return result;
+    }
+}
@@ -9,10 +9,16 @@ import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.scene.Scene;
+import database.ProductUpdater;
+import database.StockLedger;
 import database.database_utility;
+import forecasting.SalesHistoryRepository;
 import dashboard.Inventory_management_bin;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Arrays;
 import java.util.List;
 import javafx.scene.control.ButtonType;
@@ -28,8 +34,12 @@ public class addproductController {
     @FXML private Button cancelButton;
 
     private dashboard.dashboardController dashboardControllerRef;
+    // How many item codes to try before giving up, in case other terminals keep taking them first
+    private static final int MAX_CODE_ATTEMPTS = 5;
     private final List<String> ALL_MONTHS = Arrays.asList("jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec");
     private Inventory_management_bin itemToEdit;
+    // The values the form was loaded with, for conflict detection on save
+    private ProductUpdater.Snapshot baseline;
     private boolean isEditMode = false;
 
     @FXML
@@ -60,21 +70,6 @@ public class addproductController {
         stage.close();
     }
 
-    private int getNextItemCode() throws Exception {
-        System.out.println("Getting next item code...");
-        Object[] result = database_utility.query("SELECT COALESCE(MAX(item_code), 0) + 1 as next_code FROM sale_offtake");
-        if (result != null) {
-            ResultSet rs = (ResultSet) result[1];
-            if (rs.next()) {
-                int nextCode = rs.getInt("next_code");
-                System.out.println("Next item code: " + nextCode);
-                return nextCode;
-            }
-        }
-        System.out.println("No existing records, starting with code 1");
-        return 1;
-    }
-
     private void handleContinue() {
         System.out.println("Handle continue called...");
         
@@ -202,6 +197,8 @@ public class addproductController {
 
     public void setItemToEdit(Inventory_management_bin item) {
         this.itemToEdit = item;
+        this.baseline = new ProductUpdater.Snapshot(item.getItem_code(), item.getItem_des(), item.getVolume(),
+                item.getCategory(), item.getSot(), item.getSoh(), -1);
         this.isEditMode = true;
         populateFields();
     }
@@ -217,137 +214,131 @@ public class addproductController {
     }
 
     private void updateExistingProduct(String description, int volume, String category, int salesOfftake, int stocksOnHand) {
-        Connection connect = null;
         try {
             String selectedMonth = dashboardControllerRef.getSelectedMonthColumn();
-            
-            // Update sale_offtake table
-            String saleUpdate = String.format(
-                "UPDATE sale_offtake SET item_description = ?, volume = ?, category = ?, %s = ? WHERE item_code = ?",
-                selectedMonth
-            );
-            Object[] saleResult = database_utility.update(saleUpdate, 
-                description, volume, category, salesOfftake, itemToEdit.getItem_code()
-            );
 
-            if (saleResult != null) {
-                connect = (Connection) saleResult[0];
-                
-                // Update stock_onhand table
-                String stockUpdate = String.format(
-                    "UPDATE stock_onhand SET %s1 = ? WHERE item_code = ?",
-                    selectedMonth
-                );
-                Object[] stockResult = database_utility.update(stockUpdate, 
-                    stocksOnHand, itemToEdit.getItem_code()
-                );
+            // Save with a version check, merging changes other users made to fields we didn't edit
+            ProductUpdater.Snapshot edited = new ProductUpdater.Snapshot(baseline.getItemCode(),
+                    description, volume, category, salesOfftake, stocksOnHand, -1);
+            ProductUpdater.Result result = new ProductUpdater().update(baseline, edited, selectedMonth);
 
-                if (stockResult != null) {
-                    showAlert("Success", "Product updated successfully");
-                    if (dashboardControllerRef != null) {
-                        dashboardControllerRef.inventory_management_query();
-                    }
-                    handleCancel();
-                } else {
-                    showAlert("Error", "Failed to update stock on hand data");
-                }
-            } else {
-                showAlert("Error", "Failed to update product data");
+            if (result.getStatus() == ProductUpdater.Result.Status.NOT_FOUND) {
+                showAlert("Error", "This product has been deleted by another user.");
+                return;
             }
+            if (result.getStatus() == ProductUpdater.Result.Status.CONFLICT) {
+                showConflict(result, edited);
+                return;
+            }
+
+            if (result.isSalesOfftakeChanged()) {
+                // Mirror the edited month's offtake into the forecasting history
+                new SalesHistoryRepository().recordMonthTotal(baseline.getItemCode(),
+                        SalesHistoryRepository.currentPeriod(selectedMonth), salesOfftake);
+            }
+
+            showAlert("Success", result.getStatus() == ProductUpdater.Result.Status.MERGED
+                    ? "Product updated successfully. Changes another user made to other fields were kept."
+                    : "Product updated successfully");
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.inventory_management_query();
+            }
+            handleCancel();
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Error", "Database error: " + e.getMessage());
-        } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
         }
     }
 
+    // Shows what changed underneath the form and rebases the form onto the current values
+    private void showConflict(ProductUpdater.Result result, ProductUpdater.Snapshot edited) {
+        showAlert("Edit Conflict", "Another user changed this product while you were editing it: "
+                + result.describeConflicts() + ". The form now shows the current values with your "
+                + "other changes kept; check them and press Continue again.");
+        ProductUpdater.Snapshot current = result.getCurrent();
+        ProductUpdater.Snapshot rebased = ProductUpdater.rebase(baseline, edited, current, result.getConflicts());
+        descriptionField.setText(rebased.getDescription());
+        volumeField.setText(String.valueOf(rebased.getVolume()));
+        categoryField.setText(rebased.getCategory());
+        salesOfftakeField.setText(String.valueOf(rebased.getSalesOfftake()));
+        stocksOnHandField.setText(String.valueOf(rebased.getStockOnHand()));
+        baseline = current;
+    }
+
     private void addNewProduct(String description, int volume, String category, int salesOfftake, int stocksOnHand) {
-        Connection connect = null;
         try {
-            // Insert into sale_offtake table first
-            String insertSaleQuery = "INSERT INTO sale_offtake (item_description, volume, category";
-            String values = "VALUES (?, ?, ?";
-            for (String month : ALL_MONTHS) {
-                insertSaleQuery += ", `" + month + "`";
-                values += ", ?";
+            int itemCode = insertProduct(description, volume, category, salesOfftake, stocksOnHand);
+            System.out.println("Added product with item_code: " + itemCode);
+            showAlert("Success", "Product added successfully");
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.inventory_management_query();
+                // Add notification for new product
+                dashboardControllerRef.addInventoryActionNotification("add", description);
             }
-            insertSaleQuery += ") " + values + ")";
-
-            Object[] params = new Object[ALL_MONTHS.size() + 3];
-            params[0] = description;
-            params[1] = volume;
-            params[2] = category;
-            for (int i = 0; i < ALL_MONTHS.size(); i++) {
-                params[i + 3] = salesOfftake;
-            }
-
-            System.out.println("Executing sale_offtake insert: " + insertSaleQuery);
-            Object[] saleResult = database_utility.update(insertSaleQuery, params);
-            
-            if (saleResult != null) {
-                connect = (Connection) saleResult[0];
-                
-                // Get the most recently inserted item_code
-                String getItemCodeQuery = "SELECT item_code FROM sale_offtake WHERE item_description = ? AND volume = ? AND category = ? ORDER BY item_code DESC LIMIT 1";
-                Object[] queryParams = new Object[]{description, volume, category};
-                Object[] itemCodeResult = database_utility.query(getItemCodeQuery, queryParams);
-                
-                if (itemCodeResult != null && itemCodeResult.length > 1) {
-                    ResultSet rs = (ResultSet) itemCodeResult[1];
-                    if (rs.next()) {
-                        int newItemCode = rs.getInt("item_code");
-                        System.out.println("Retrieved item_code: " + newItemCode);
+            handleCancel();
+        } catch (Exception e) {
+            e.printStackTrace();
+            showAlert("Error", "Failed to add product: " + e.getMessage());
+        }
+    }
 
-                        // Now insert into stock_onhand with the correct item_code
-                        String insertStockQuery = "INSERT INTO stock_onhand (item_code";
-                        values = "VALUES (?";
-                        for (String month : ALL_MONTHS) {
-                            insertStockQuery += ", `" + month + "1`";
-                            values += ", ?";
-                        }
-                        insertStockQuery += ") " + values + ")";
+    /**
+     * Inserts the product and its stock row in one transaction under the next free item code,
+     * which skips codes still in the ledger from deleted products. Two terminals can pick the
+     * same code at once; the loser's insert hits the primary key and it tries the next one.
+     */
+    private int insertProduct(String description, int volume, String category, int salesOfftake,
+                              int stocksOnHand) throws SQLException {
+        StringBuilder productColumns = new StringBuilder("item_code, item_description, volume, category");
+        StringBuilder stockColumns = new StringBuilder("item_code");
+        for (String month : ALL_MONTHS) {
+            productColumns.append(", `").append(month).append('`');
+            stockColumns.append(", `").append(month).append("1`");
+        }
+        String insertProduct = "INSERT INTO sale_offtake (" + productColumns + ") VALUES (?, ?, ?, ?"
+                + ", ?".repeat(ALL_MONTHS.size()) + ")";
+        String insertStock = "INSERT INTO stock_onhand (" + stockColumns + ") VALUES (?"
+                + ", ?".repeat(ALL_MONTHS.size()) + ")";
 
-                        Object[] stockParams = new Object[ALL_MONTHS.size() + 1];
-                        stockParams[0] = newItemCode;
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try {
+            connect.setAutoCommit(false);
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    int itemCode;
+                    try (PreparedStatement next = connect.prepareStatement(StockLedger.NEXT_ITEM_CODE);
+                         ResultSet rs = next.executeQuery()) {
+                        itemCode = rs.next() ? rs.getInt("next_code") : 1;
+                    }
+                    try (PreparedStatement product = connect.prepareStatement(insertProduct);
+                         PreparedStatement stock = connect.prepareStatement(insertStock)) {
+                        product.setInt(1, itemCode);
+                        product.setString(2, description);
+                        product.setInt(3, volume);
+                        product.setString(4, category);
+                        stock.setInt(1, itemCode);
                         for (int i = 0; i < ALL_MONTHS.size(); i++) {
-                            stockParams[i + 1] = stocksOnHand;
-                        }
-
-                        System.out.println("Executing stock_onhand insert: " + insertStockQuery);
-                        Object[] stockResult = database_utility.update(insertStockQuery, stockParams);
-                        
-                        if (stockResult != null) {
-                            showAlert("Success", "Product added successfully");
-                            if (dashboardControllerRef != null) {
-                                dashboardControllerRef.inventory_management_query();
-                                // Add notification for new product
-                                dashboardControllerRef.addInventoryActionNotification("add", description);
-                            }
-                            handleCancel();
-                        } else {
-                            // If stock_onhand insert fails, we should rollback the sale_offtake insert
-                            database_utility.update("DELETE FROM sale_offtake WHERE item_code = ?", newItemCode);
-                            showAlert("Error", "Failed to add stock on hand data");
+                            product.setInt(5 + i, salesOfftake);
+                            stock.setInt(2 + i, stocksOnHand);
                         }
-                    } else {
-                        showAlert("Error", "Failed to retrieve the new item code");
+                        product.executeUpdate();
+                        stock.executeUpdate();
                     }
-                } else {
-                    showAlert("Error", "Failed to get item code for new product");
+                    connect.commit();
+                    return itemCode;
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    connect.rollback();
+                    if (attempt == MAX_CODE_ATTEMPTS) throw e;
                 }
-            } else {
-                showAlert("Error", "Failed to add product data");
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("Error", "Database error: " + e.getMessage());
+        } catch (SQLException | RuntimeException e) {
+            connect.rollback();
+            throw e;
         } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
+            database_utility.close(connect);
         }
     }
 } 
\ No newline at end of file
@@ -8,8 +8,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
-import database.database_utility;
-import java.sql.Connection;
+import database.StockMovements;
 
 public class addstocksController {
     @FXML
@@ -83,20 +82,20 @@ public class addstocksController {
             showAlert("Input Error", "Please enter a valid number for new stocks.");
             return;
         }
-        int updatedSoh = currentSoh + addStock;
-        Connection connect = null;
+        common.UiActionEvent action = common.UiActionEvent.start("Add stocks", "Stock received");
         try {
             // Get the selected month from dashboardController
             String selectedMonth = dashboardControllerRef.getSelectedMonthColumn();
             
-            // Update stock_onhand table with the correct month column
-            Object[] result = database_utility.update(
-                String.format("UPDATE stock_onhand SET %s1 = ? WHERE item_code = ?", selectedMonth),
-                updatedSoh, itemCode
-            );
-            if (result != null) {
-                connect = (Connection) result[0];
+            server.InventoryClient client = server.InventoryClient.get();
+            if (client != null) {
+                client.recordMovement(itemCode, selectedMonth, "RECEIPT", addStock);
+            } else {
+                // Append the receipt to the stock ledger for the selected month
+                StockMovements.recordReceipt(itemCode, selectedMonth, addStock);
             }
+            // Timed up to the write, not the user dismissing the alert below
+            action.finish(1, itemCode + " x" + addStock);
             showAlert("Success", "Stocks updated successfully.");
             // Auto-refresh the table in dashboard
             if (dashboardControllerRef != null) {
@@ -112,9 +111,7 @@ public class addstocksController {
         } catch (Exception ex) {
             showAlert("Database Error", "Failed to update stocks: " + ex.getMessage());
         } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
+            action.finish(0, "failed");
         }
     }
 
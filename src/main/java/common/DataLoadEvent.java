@@ -0,0 +1,53 @@
+package common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A screen's data load in Flight Recorder: which load, the statement behind it and how many
+ * items came back. Nested inside the {@link UiActionEvent} that asked for it when both are on
+ * the same thread; the individual JDBC calls are {@code inventory.JdbcStatement} events.
+ */
+@Name("inventory.DataLoad")
+@Label("Data Load")
+@Category({"Inventory", "Data"})
+@Description("Data loaded for a screen")
+public final class DataLoadEvent extends Event {
+    @Label("Operation")
+    private String operation;
+
+    @Label("SQL Template")
+    @Description("The main statement, with literals folded; empty when loaded from the inventory server")
+    private String sqlTemplate;
+
+    @Label("Item Count")
+    private int itemCount;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    // Folded only if the event is recorded
+    private transient String sql;
+
+    /** Starts timing a load; sql may be null when the data comes from the inventory server. */
+    public static DataLoadEvent start(String operation, String sql) {
+        DataLoadEvent event = new DataLoadEvent();
+        event.operation = operation;
+        event.sql = sql;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int itemCount, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.itemCount = itemCount;
+            this.succeeded = succeeded;
+            this.sqlTemplate = sql != null ? database.QueryStats.template(sql) : "";
+            commit();
+        }
+    }
+}
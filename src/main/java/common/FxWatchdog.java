@@ -0,0 +1,178 @@
+package common;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the JavaFX application thread for stalls. A heartbeat is posted with
+ * {@link Platform#runLater} every 100 ms and the time until it runs is recorded. When one waits
+ * longer than {@code FX_STALL_MS} (default 500, 0 turns the watchdog off), the FX thread's stack
+ * is logged with the user action in progress. Stalls are also grouped by the first application
+ * frame on that stack. The grouped report is printed every {@code FX_STALL_REPORT_SECONDS}
+ * (default 600) and at exit, so the code paths that freeze the UI most often can be moved off
+ * the FX thread first.
+ */
+public final class FxWatchdog {
+    private static final long HEARTBEAT_MILLIS = 100;
+    private static final int LOGGED_FRAMES = 25;
+    // Frames from these packages are skipped when deciding where a stall happened
+    private static final String[] PLATFORM_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "javafx.", "com.mysql."};
+
+    // Stalls that stopped in the same place
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalMillis = new LongAdder();
+        final AtomicLong maxMillis = new AtomicLong();
+        volatile String lastAction;
+    }
+
+    private static FxWatchdog instance;
+
+    private final long thresholdMillis;
+    private final Thread fxThread;
+    private final LatencyHistogram heartbeats = new LatencyHistogram();
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private FxWatchdog(long thresholdMillis, Thread fxThread) {
+        this.thresholdMillis = thresholdMillis;
+        this.fxThread = fxThread;
+    }
+
+    /** Starts watching, once per process. Call on the FX thread. */
+    public static synchronized void start() {
+        long threshold = setting("FX_STALL_MS", 500);
+        if (instance != null || threshold <= 0) return;
+        instance = new FxWatchdog(threshold, Thread.currentThread());
+
+        Thread watcher = new Thread(instance::watch, "fx-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        long interval = setting("FX_STALL_REPORT_SECONDS", 600);
+        if (interval > 0) {
+            Thread reporter = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(interval * 1000);
+                        instance.printReport();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "fx-watchdog-report");
+            reporter.setDaemon(true);
+            reporter.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(instance::printReport, "fx-watchdog-exit"));
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                long posted = System.nanoTime();
+                CountDownLatch ran = new CountDownLatch(1);
+                Platform.runLater(ran::countDown);
+
+                if (!ran.await(thresholdMillis, TimeUnit.MILLISECONDS)) {
+                    // Blocked: take the stack now, while it's still stuck where it stalled
+                    StackTraceElement[] stack = fxThread.getStackTrace();
+                    String action = UiActionEvent.describeActive();
+                    logStall(stack, action);
+                    ran.await();
+                    long millis = (System.nanoTime() - posted) / 1_000_000;
+                    System.err.println("FX thread responsive again after " + millis + " ms");
+                    record(siteOf(stack), millis, action);
+                }
+                heartbeats.record((System.nanoTime() - posted) / 1000);
+                Thread.sleep(HEARTBEAT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void logStall(StackTraceElement[] stack, String action) {
+        StringBuilder log = new StringBuilder("FX thread blocked for over ").append(thresholdMillis).append(" ms");
+        if (action != null) {
+            log.append(" during \"").append(action).append('"');
+        }
+        for (int i = 0; i < Math.min(stack.length, LOGGED_FRAMES); i++) {
+            log.append("\n    at ").append(stack[i]);
+        }
+        if (stack.length > LOGGED_FRAMES) {
+            log.append("\n    ... ").append(stack.length - LOGGED_FRAMES).append(" more");
+        }
+        System.err.println(log);
+    }
+
+    private void record(String site, long millis, String action) {
+        Site stalls = sites.computeIfAbsent(site, key -> new Site());
+        stalls.count.increment();
+        stalls.totalMillis.add(millis);
+        stalls.maxMillis.accumulateAndGet(millis, Math::max);
+        if (action != null) {
+            stalls.lastAction = action;
+        }
+    }
+
+    // The innermost application frame, e.g. "dashboard.dashboardController.performSearch(dashboardController.java:2010)"
+    private static String siteOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (!isPlatformFrame(frame.getClassName())) {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "(unknown)";
+    }
+
+    private static boolean isPlatformFrame(String className) {
+        for (String prefix : PLATFORM_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stall sites, most total time blocked first
+    private String report() {
+        List<Map.Entry<String, Site>> ranked = new ArrayList<>(sites.entrySet());
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, Site> entry) -> entry.getValue().totalMillis.sum()).reversed());
+        StringBuilder text = new StringBuilder(String.format(
+                "FX thread stalls (heartbeat delay p50 %.1f ms, p99 %.1f ms, max %.1f ms over %d heartbeats)%n",
+                heartbeats.percentile(50) / 1000.0, heartbeats.percentile(99) / 1000.0,
+                heartbeats.max() / 1000.0, heartbeats.count()));
+        text.append(String.format("%6s %10s %8s  %s%n", "stalls", "total ms", "max ms", "site (last action)"));
+        for (Map.Entry<String, Site> entry : ranked) {
+            Site site = entry.getValue();
+            text.append(String.format("%6d %10d %8d  %s%s%n", site.count.sum(), site.totalMillis.sum(),
+                    site.maxMillis.get(), entry.getKey(), site.lastAction != null ? " (" + site.lastAction + ")" : ""));
+        }
+        return text.toString();
+    }
+
+    private void printReport() {
+        if (!sites.isEmpty()) {
+            System.err.print(report());
+        }
+    }
+
+    private static long setting(String name, long defaultValue) {
+        try {
+            return Long.parseLong(System.getenv().getOrDefault(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package common;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Small modal window showing a background task's title, progress and message with a Cancel
+ * button. Closes itself when the task finishes, fails or is cancelled.
+ */
+public class TaskProgressDialog {
+    private final Stage stage = new Stage();
+
+    public TaskProgressDialog(Window owner, Task<?> task) {
+        Label title = new Label();
+        title.textProperty().bind(task.titleProperty());
+        title.setStyle("-fx-text-fill: white; -fx-font-size: 16px; -fx-font-weight: bold;");
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(360);
+        progressBar.progressProperty().bind(task.progressProperty());
+
+        Label message = new Label();
+        message.setStyle("-fx-text-fill: #AEB9E1;");
+        message.textProperty().bind(task.messageProperty());
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setStyle("-fx-background-color: #181739; -fx-text-fill: #AEB9E1; -fx-background-radius: 6;");
+        cancelButton.setOnAction(e -> task.cancel());
+        HBox buttons = new HBox(cancelButton);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+
+        VBox root = new VBox(12, title, progressBar, message, buttons);
+        root.setPadding(new Insets(24));
+        root.setStyle("-fx-background-color: #081028; -fx-background-radius: 12;");
+
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        stage.initModality(Modality.WINDOW_MODAL);
+        stage.setTitle(task.getTitle());
+        stage.setScene(new Scene(root));
+        stage.setOnCloseRequest(e -> task.cancel());
+
+        task.stateProperty().addListener((obs, oldState, state) -> {
+            if (task.isDone()) {
+                stage.close();
+            }
+        });
+    }
+
+    public void show() {
+        stage.show();
+    }
+}
@@ -0,0 +1,74 @@
+package common;
+
+import javafx.application.Platform;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A user action in Flight Recorder, from the input that started it to the screen showing the
+ * result, so a slow spot in a recording can be traced back to what the cashier did. Actions
+ * that finish on a background thread are committed there.
+ */
+@Name("inventory.UiAction")
+@Label("UI Action")
+@Category({"Inventory", "UI"})
+@Description("A user action, from input to the updated screen")
+public final class UiActionEvent extends Event {
+    @Label("Screen")
+    private String screen;
+
+    @Label("Action")
+    private String action;
+
+    @Label("Item Count")
+    @Description("Items the action touched or showed")
+    private int itemCount;
+
+    @Label("Detail")
+    private String detail;
+
+    private transient boolean finished;
+
+    // The action running on the FX thread, for FxWatchdog's stall reports
+    private static volatile UiActionEvent active;
+
+    /** Starts timing an action; finish it once its result is on screen. */
+    public static UiActionEvent start(String screen, String action) {
+        UiActionEvent event = new UiActionEvent();
+        event.screen = screen;
+        event.action = action;
+        event.begin();
+        if (Platform.isFxApplicationThread()) {
+            active = event;
+        }
+        return event;
+    }
+
+    /** The unfinished action most recently started on the FX thread, e.g. "Inventory: Search typed". */
+    public static String describeActive() {
+        UiActionEvent event = active;
+        return event != null ? event.screen + ": " + event.action : null;
+    }
+
+    public void finish(int itemCount) {
+        finish(itemCount, null);
+    }
+
+    // Only the first call counts, so a fallback in a finally block can't record the action twice
+    public void finish(int itemCount, String detail) {
+        if (finished) return;
+        finished = true;
+        if (active == this) {
+            active = null;
+        }
+        end();
+        if (shouldCommit()) {
+            this.itemCount = itemCount;
+            this.detail = detail;
+            commit();
+        }
+    }
+}
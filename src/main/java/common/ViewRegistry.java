@@ -0,0 +1,115 @@
+package common;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps popup views parsed ahead of time so opening one doesn't parse FXML and load images on
+ * the FX thread.
+ *
+ * <p>Forms that hold per-use state (typed values, the item being edited) are handed out with
+ * {@link #take}: each view is used once and a fresh spare is parsed in the background for the
+ * next open, so no form ever shows a previous use's values. Stateless views such as the delete
+ * confirmation are parsed once and reused through {@link #shared}; callers reset whatever
+ * they set on the controller each time.
+ */
+public final class ViewRegistry {
+    /** A loaded FXML root and its controller. */
+    public static final class View<C> {
+        private final Parent root;
+        private final C controller;
+
+        View(Parent root, C controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+
+        public Parent getRoot() {
+            return root;
+        }
+
+        public C getController() {
+            return controller;
+        }
+    }
+
+    // FXML is parsed off the FX thread; nodes aren't attached to a scene until taken
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-preload");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Map<String, CompletableFuture<View<?>>> SPARES = new ConcurrentHashMap<>();
+    private static final Map<String, View<?>> SHARED = new ConcurrentHashMap<>();
+
+    private ViewRegistry() {
+    }
+
+    // Starts parsing a spare of each form in the background; call once the UI is idle
+    public static void preload(String... paths) {
+        for (String path : paths) {
+            SPARES.computeIfAbsent(path, ViewRegistry::loadInBackground);
+        }
+    }
+
+    /**
+     * A freshly loaded view for one use: the preloaded spare if it's ready, otherwise parsed
+     * now. Either way a new spare is started for the next call.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> View<C> take(String path) throws IOException {
+        CompletableFuture<View<?>> spare = SPARES.remove(path);
+        View<?> view = null;
+        if (spare != null && spare.isDone() && !spare.isCompletedExceptionally()) {
+            view = spare.join();
+        } else if (spare != null && !spare.isDone()) {
+            // Still parsing; leave it as the next spare rather than wait for it
+            SPARES.put(path, spare);
+        }
+        if (view == null) {
+            view = load(path);
+        }
+        SPARES.computeIfAbsent(path, ViewRegistry::loadInBackground);
+        return (View<C>) view;
+    }
+
+    // The one instance of a stateless view, parsed on first use
+    @SuppressWarnings("unchecked")
+    public static <C> View<C> shared(String path) throws IOException {
+        View<?> view = SHARED.get(path);
+        if (view == null) {
+            view = load(path);
+            View<?> existing = SHARED.putIfAbsent(path, view);
+            if (existing != null) {
+                view = existing;
+            }
+        }
+        return (View<C>) view;
+    }
+
+    private static CompletableFuture<View<?>> loadInBackground(String path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(path);
+            } catch (IOException e) {
+                System.err.println("Failed to preload " + path + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, LOADER);
+    }
+
+    private static View<?> load(String path) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewRegistry.class.getResource(path));
+        Parent root = loader.load();
+        return new View<>(root, loader.getController());
+    }
+}
@@ -0,0 +1,144 @@
+package dashboard;
+
+import database.database_utility;
+import javafx.application.Platform;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Loads the dashboard's first tab in parallel while the login screen is still showing. Started
+ * as soon as the credentials check out; the loading overlay follows its stages, and the
+ * dashboard is shown once they've all finished. {@link dashboardController} then claims the
+ * prefetched data instead of querying again, falling back to its own queries for any stage
+ * that failed.
+ */
+public class DashboardBootstrap {
+    /** Progress as stages complete, always called on the FX thread. */
+    public interface Listener {
+        void progress(int done, int total, String message);
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile DashboardBootstrap pending;
+
+    private final String month;
+    private final int lowStockThreshold;
+    private final CompletableFuture<List<Inventory_management_bin>> inventory;
+    private final CompletableFuture<List<Inventory_management_bin>> lowStock;
+    private final CompletableFuture<List<String>> activities;
+    private final List<CompletableFuture<?>> stages = new ArrayList<>();
+    private final List<String> stageNames = new ArrayList<>();
+    private Listener listener;
+    private int done;
+
+    private DashboardBootstrap(String month, int lowStockThreshold) {
+        this.month = month;
+        this.lowStockThreshold = lowStockThreshold;
+        // Loads the driver and opens the first connection alongside the queries rather than before them
+        stage("Connecting to database", () -> {
+            Connection connect = database_utility.connect();
+            database_utility.close(connect);
+            return null;
+        });
+        inventory = stage("Loading inventory", () -> unchecked(() -> DashboardQueries.inventory(month)));
+        lowStock = stage("Loading critical stocks", () -> unchecked(() -> DashboardQueries.lowStock(month, lowStockThreshold)));
+        activities = stage("Loading recent activities", () -> unchecked(DashboardQueries::activities));
+    }
+
+    /** Starts prefetching the dashboard as it first opens: the current month at the default threshold. */
+    public static DashboardBootstrap start() {
+        String month = forecasting.SalesHistory.MONTH_COLUMNS.get(LocalDate.now().getMonthValue() - 1);
+        DashboardBootstrap bootstrap = new DashboardBootstrap(month, dashboardController.DEFAULT_LOW_STOCK_THRESHOLD);
+        pending = bootstrap;
+        return bootstrap;
+    }
+
+    // The prefetch for the dashboard being built, once; null if there is none
+    static DashboardBootstrap claim() {
+        DashboardBootstrap bootstrap = pending;
+        pending = null;
+        return bootstrap;
+    }
+
+    /** Reports stages completed so far and then each one as it completes. Call on the FX thread. */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        report();
+    }
+
+    /** Runs the action on the FX thread once every stage has finished, whether or not it succeeded. */
+    public void whenReady(Runnable action) {
+        CompletableFuture.allOf(stages.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> Platform.runLater(action));
+    }
+
+    // Prefetched rows for the month, or null if that stage failed or loaded another month
+    List<Inventory_management_bin> getInventory(String month) {
+        return this.month.equals(month) ? resultOf(inventory) : null;
+    }
+
+    List<Inventory_management_bin> getLowStock(String month, int threshold) {
+        return this.month.equals(month) && lowStockThreshold == threshold ? resultOf(lowStock) : null;
+    }
+
+    List<String> getActivities() {
+        return resultOf(activities);
+    }
+
+    private <T> CompletableFuture<T> stage(String name, Supplier<T> work) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(work, EXECUTOR);
+        stages.add(future);
+        stageNames.add(name);
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                System.err.println(name + " failed during startup: " + error.getMessage());
+            }
+            Platform.runLater(() -> {
+                done++;
+                report();
+            });
+        });
+        return future;
+    }
+
+    private void report() {
+        if (listener == null) return;
+        String message = "Almost there...";
+        for (int i = 0; i < stages.size(); i++) {
+            if (!stages.get(i).isDone()) {
+                message = stageNames.get(i) + "...";
+                break;
+            }
+        }
+        listener.progress(done, stages.size(), message);
+    }
+
+    private static <T> T resultOf(CompletableFuture<T> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private interface Query<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> T unchecked(Query<T> query) {
+        try {
+            return query.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package dashboard;
+
+import database.database_utility;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The dashboard's data reads, free of UI code so they can run on any thread: the controller
+ * calls them on refresh, {@link DashboardBootstrap} prefetches them while the user is still
+ * looking at the login screen, and the load harness drives them as simulated terminals.
+ */
+public final class DashboardQueries {
+    /** The best-selling product over the year's months. */
+    public static final class TopProduct {
+        private final String description;
+        private final int totalSales;
+
+        TopProduct(String description, int totalSales) {
+            this.description = description;
+            this.totalSales = totalSales;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getTotalSales() {
+            return totalSales;
+        }
+    }
+
+    private DashboardQueries() {
+    }
+
+    // The inventory table for a month, from the inventory server when one is configured
+    public static List<Inventory_management_bin> inventory(String month) throws SQLException, IOException {
+        server.InventoryClient client = server.InventoryClient.get();
+        if (client != null) {
+            common.DataLoadEvent load = common.DataLoadEvent.start("Inventory", null);
+            List<Inventory_management_bin> items = null;
+            try {
+                items = toInventoryBins(client.inventory(month));
+                return items;
+            } finally {
+                load.finish(items != null ? items.size() : 0, items != null);
+            }
+        }
+
+        List<Inventory_management_bin> items = List.of();
+        Connection connect = null;
+        String sql_query = String.format(
+            "SELECT sale_offtake.item_code, item_description, volume, category, " +
+            "sale_offtake.%s as sot, stock_onhand.%s1 as soh " +
+            "FROM sale_offtake JOIN stock_onhand_live stock_onhand ON sale_offtake.item_code = stock_onhand.item_code",
+            month, month
+        );
+        common.DataLoadEvent load = common.DataLoadEvent.start("Inventory", sql_query);
+        boolean loaded = false;
+        try {
+            Object[] result_from_query = database_utility.query(sql_query);
+            if (result_from_query == null) {
+                throw new SQLException("Failed to query inventory");
+            }
+            connect = (Connection) result_from_query[0];
+            items = readInventory((ResultSet) result_from_query[1]);
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(items.size(), loaded);
+        }
+        return items;
+    }
+
+    // Items whose description, code or category contains the term, from the server when one is configured
+    public static List<Inventory_management_bin> search(String term, String month) throws SQLException, IOException {
+        server.InventoryClient client = server.InventoryClient.get();
+        if (client != null) {
+            return toInventoryBins(client.search(term, month));
+        }
+
+        List<Inventory_management_bin> items = List.of();
+        Connection connect = null;
+        String sql_query = String.format(
+            "SELECT sale_offtake.item_code, item_description, volume, category, " +
+            "sale_offtake.%s as sot, stock_onhand.%s1 as soh " +
+            "FROM sale_offtake JOIN stock_onhand_live stock_onhand ON sale_offtake.item_code = stock_onhand.item_code " +
+            "WHERE LOWER(item_description) LIKE LOWER(?) OR " +
+            "sale_offtake.item_code LIKE ? OR " +
+            "LOWER(category) LIKE LOWER(?)",
+            month, month
+        );
+        common.DataLoadEvent load = common.DataLoadEvent.start("Search", sql_query);
+        boolean loaded = false;
+        try {
+            String pattern = "%" + term + "%";
+            Object[] result_from_query = database_utility.query(sql_query, pattern, pattern, pattern);
+            if (result_from_query == null) {
+                throw new SQLException("Failed to search inventory");
+            }
+            connect = (Connection) result_from_query[0];
+            items = readInventory((ResultSet) result_from_query[1]);
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(items.size(), loaded);
+        }
+        return items;
+    }
+
+    /**
+     * Whether search(term, ...) would return the item: the term occurs in its description, code
+     * or category, ignoring case. Every item matches an empty term. Used to keep rows patched in
+     * from other terminals consistent with the search on screen.
+     */
+    static boolean matchesSearch(Inventory_management_bin item, String term) {
+        if (term.isEmpty()) return true;
+        String lower = term.toLowerCase();
+        return (item.getItem_des() != null && item.getItem_des().toLowerCase().contains(lower))
+                || String.valueOf(item.getItem_code()).contains(term)
+                || (item.getCategory() != null && item.getCategory().toLowerCase().contains(lower));
+    }
+
+    // Table rows from a result with item_code, item_description, volume, category, sot and soh columns
+    static List<Inventory_management_bin> readInventory(ResultSet result) throws SQLException {
+        List<Inventory_management_bin> items = new ArrayList<>();
+        while (result.next()) {
+            items.add(new Inventory_management_bin(
+                result.getInt("item_code"),
+                result.getString("item_description"),
+                result.getInt("volume"),
+                result.getString("category"),
+                result.getInt("sot"),
+                result.getInt("soh")
+            ));
+        }
+        return items;
+    }
+
+    // Items at or below the threshold for a month, lowest stock first
+    static List<Inventory_management_bin> lowStock(String month, int threshold) throws SQLException {
+        List<Inventory_management_bin> items = new ArrayList<>();
+        Connection connect = null;
+        String sql = String.format(
+            "SELECT s.item_code, s.%s1 as stock_level, so.item_description, so.volume, so.category " +
+            "FROM stock_onhand_live s " +
+            "JOIN sale_offtake so ON s.item_code = so.item_code " +
+            "WHERE s.%s1 <= ? " +
+            "ORDER BY s.%s1 ASC",
+            month, month, month
+        );
+        common.DataLoadEvent load = common.DataLoadEvent.start("Critical stocks", sql);
+        boolean loaded = false;
+        try {
+            Object[] result = database_utility.query(sql, threshold);
+            if (result == null) {
+                throw new SQLException("Failed to query critical stocks");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                items.add(new Inventory_management_bin(rs.getInt("item_code"),
+                    rs.getString("item_description"), rs.getInt("volume"), rs.getString("category"),
+                    0, rs.getInt("stock_level")));
+            }
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(items.size(), loaded);
+        }
+        return items;
+    }
+
+    // The recent activities feed, newest first
+    static List<String> activities() throws SQLException {
+        List<String> activities = new ArrayList<>();
+        Connection connect = null;
+        String sql = "SELECT activities, timestamp FROM notifications_activities ORDER BY timestamp DESC";
+        common.DataLoadEvent load = common.DataLoadEvent.start("Recent activities", sql);
+        boolean loaded = false;
+        try {
+            Object[] result = database_utility.query(sql);
+            if (result == null) {
+                throw new SQLException("Failed to query recent activities");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                activities.add(rs.getString("activities"));
+            }
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(activities.size(), loaded);
+        }
+        return activities;
+    }
+
+    // Offtake summed over the catalogue for each month, January first; null if no month has any
+    public static double[] monthlySalesTotals() throws SQLException {
+        String sql = "SELECT " +
+            "SUM(jan) as Jan, SUM(feb) as Feb, SUM(mar) as Mar, " +
+            "SUM(apr) as Apr, SUM(may) as May, SUM(jun) as Jun, " +
+            "SUM(jul) as Jul, SUM(aug) as Aug, SUM(sep) as Sep, " +
+            "SUM(oct) as Oct, SUM(nov) as Nov, SUM(`dec`) as `Dec` " +
+            "FROM sale_offtake";
+        double[] totals = null;
+        Connection connect = null;
+        common.DataLoadEvent load = common.DataLoadEvent.start("Monthly sales totals", sql);
+        boolean loaded = false;
+        try {
+            Object[] result = database_utility.query(sql);
+            if (result == null) {
+                throw new SQLException("Failed to query monthly sales totals");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (rs.next()) {
+                double[] months = new double[12];
+                boolean hasData = false;
+                for (int m = 0; m < 12; m++) {
+                    months[m] = rs.getDouble(m + 1);
+                    hasData |= !rs.wasNull();
+                }
+                totals = hasData ? months : null;
+            }
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(totals != null ? 12 : 0, loaded);
+        }
+        return totals;
+    }
+
+    // The product with the most offtake over the year; null for an empty catalogue
+    public static TopProduct topProduct() throws SQLException {
+        String sql =
+            "SELECT item_description, " +
+            "(jan + feb + mar + apr + may + jun + jul + aug + sep + oct + nov + `dec`) as total_sales " +
+            "FROM sale_offtake " +
+            "ORDER BY total_sales DESC LIMIT 1";
+        TopProduct top = null;
+        Connection connect = null;
+        common.DataLoadEvent load = common.DataLoadEvent.start("Top product", sql);
+        boolean loaded = false;
+        try {
+            Object[] result = database_utility.query(sql);
+            if (result == null) {
+                throw new SQLException("Failed to query top product");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (rs.next()) {
+                top = new TopProduct(rs.getString("item_description"), rs.getInt("total_sales"));
+            }
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(top != null ? 1 : 0, loaded);
+        }
+        return top;
+    }
+
+    // Rows from the inventory server's JSON, as the table's items
+    static List<Inventory_management_bin> toInventoryBins(List<Map<String, Object>> rows) {
+        List<Inventory_management_bin> items = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            items.add(new Inventory_management_bin(
+                ((Number) row.get("itemCode")).intValue(),
+                (String) row.get("description"),
+                ((Number) row.get("volume")).intValue(),
+                (String) row.get("category"),
+                ((Number) row.get("salesOfftake")).intValue(),
+                ((Number) row.get("stockOnHand")).intValue()
+            ));
+        }
+        return items;
+    }
+}
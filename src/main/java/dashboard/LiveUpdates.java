@@ -0,0 +1,182 @@
+package dashboard;
+
+import database.ChangeFeed;
+import database.database_utility;
+import javafx.application.Platform;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the dashboard in step with other terminals. A daemon thread long-polls the
+ * {@link ChangeFeed}, reads back only the items and activities that changed, and hands them to
+ * the controller to patch into the inventory table, the low-stock panel and the activity feed.
+ * On the embedded backend there are no other terminals, so it never starts.
+ */
+class LiveUpdates {
+    private static final long POLL_TIMEOUT_MILLIS = 30_000;
+    private static final long RETRY_MILLIS = 5_000;
+
+    private final dashboardController controller;
+    private Thread thread;
+    // The months the inventory table and the critical stocks panel show, set on the FX thread
+    private volatile String inventoryMonth;
+    private volatile String lowStockMonth;
+
+    LiveUpdates(dashboardController controller) {
+        this.controller = controller;
+    }
+
+    // Opens the feed before the caller's initial load, so changes made during it aren't missed
+    synchronized void start(String inventoryMonth, String lowStockMonth) {
+        if (thread != null) return;
+        // Nothing feeds change_log in an embedded database, and no other terminal can write to it
+        if (database_utility.backend().isEmbedded()) return;
+        showing(inventoryMonth, lowStockMonth);
+        ChangeFeed feed;
+        try {
+            feed = new ChangeFeed();
+        } catch (SQLException e) {
+            System.err.println("Live updates unavailable: " + e.getMessage());
+            feed = null;
+        }
+        final ChangeFeed opened = feed;
+        thread = new Thread(() -> run(opened), "change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops following changes; the thread closes the feed on its way out
+    synchronized void stop() {
+        if (thread != null) thread.interrupt();
+    }
+
+    // Called on the FX thread whenever either month changes; changes are read for these months
+    void showing(String inventoryMonth, String lowStockMonth) {
+        this.inventoryMonth = inventoryMonth;
+        this.lowStockMonth = lowStockMonth;
+    }
+
+    private void run(ChangeFeed feed) {
+        try {
+            while (feed == null) {
+                Thread.sleep(RETRY_MILLIS);
+                try {
+                    feed = new ChangeFeed();
+                    // Whatever changed while the feed was down is unknown
+                    Platform.runLater(controller::reloadLiveData);
+                } catch (SQLException e) {
+                    feed = null;
+                }
+            }
+            while (!Thread.currentThread().isInterrupted()) {
+                ChangeFeed.Batch batch = feed.next(POLL_TIMEOUT_MILLIS);
+                if (batch.isEmpty()) continue;
+                try {
+                    apply(batch);
+                } catch (SQLException e) {
+                    System.err.println("Failed to apply live changes: " + e.getMessage());
+                    Platform.runLater(controller::reloadLiveData);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (feed != null) feed.close();
+        }
+    }
+
+    private void apply(ChangeFeed.Batch batch) throws SQLException {
+        if (batch.isResync()) {
+            Platform.runLater(controller::reloadLiveData);
+        }
+        // Read once, so the rows and the months they're labelled with agree
+        String inventoryMonth = this.inventoryMonth;
+        String lowStockMonth = this.lowStockMonth;
+
+        Map<Integer, Inventory_management_bin> inventoryRows = new LinkedHashMap<>();
+        Map<Integer, Inventory_management_bin> lowStockRows = new LinkedHashMap<>();
+        Set<Integer> removed = new HashSet<>(batch.getDeletedItems());
+        if (!batch.isResync() && !batch.getChangedItems().isEmpty()) {
+            readItems(batch.getChangedItems(), inventoryMonth, lowStockMonth, inventoryRows, lowStockRows);
+            // Changed but gone: deleted after the change was logged
+            for (Integer itemCode : batch.getChangedItems()) {
+                if (!inventoryRows.containsKey(itemCode)) removed.add(itemCode);
+            }
+        }
+        List<String> activities = readActivities(batch.getActivityIds());
+
+        Platform.runLater(() -> controller.applyLiveChanges(inventoryMonth, inventoryRows,
+                lowStockMonth, lowStockRows, removed, activities));
+    }
+
+    // The current inventory row for each item, plus the same item as of the low-stock panel's month
+    private static void readItems(Set<Integer> itemCodes, String inventoryMonth, String lowStockMonth,
+                                  Map<Integer, Inventory_management_bin> inventoryRows,
+                                  Map<Integer, Inventory_management_bin> lowStockRows) throws SQLException {
+        String sql = String.format(
+                "SELECT so.item_code, so.item_description, so.volume, so.category, so.`%s` AS sot, " +
+                "o.`%s1` AS soh, o.`%s1` AS low_soh " +
+                "FROM sale_offtake so JOIN stock_onhand_live o ON o.item_code = so.item_code " +
+                "WHERE so.item_code IN (%s)",
+                inventoryMonth, inventoryMonth, lowStockMonth, placeholders(itemCodes.size()));
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(sql, itemCodes.toArray());
+            if (result == null) {
+                throw new SQLException("Failed to read changed items");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                int itemCode = rs.getInt("item_code");
+                String description = rs.getString("item_description");
+                int volume = rs.getInt("volume");
+                String category = rs.getString("category");
+                inventoryRows.put(itemCode, new Inventory_management_bin(itemCode, description, volume, category,
+                        rs.getInt("sot"), rs.getInt("soh")));
+                lowStockRows.put(itemCode, new Inventory_management_bin(itemCode, description, volume, category,
+                        rs.getInt("sot"), rs.getInt("low_soh")));
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    private static List<String> readActivities(List<Integer> ids) throws SQLException {
+        List<String> activities = new ArrayList<>();
+        if (ids.isEmpty()) return activities;
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(String.format(
+                    "SELECT activities FROM notifications_activities WHERE id IN (%s) ORDER BY id",
+                    placeholders(ids.size())), ids.toArray());
+            if (result == null) {
+                throw new SQLException("Failed to read activities");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                activities.add(rs.getString(1));
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return activities;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder marks = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            marks.append(i == 0 ? "?" : ", ?");
+        }
+        return marks.toString();
+    }
+}
@@ -18,7 +18,13 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import common.TaskProgressDialog;
 import database.database_utility;
+import export.ExportSource;
+import export.ExportTask;
+import export.Exports;
+import forecasting.ForecastCalculator;
+import forecasting.ForecastingModel;
 
 public class SalesController {
     @FXML private AreaChart<String, Number> salesChart;
@@ -44,24 +50,8 @@ public class SalesController {
     }
 
     public void initialize() {
+        // Controls are set up once injectComponents() hands them over
         System.out.println("Initializing SalesController...");
-        Platform.runLater(() -> {
-            setupControls();
-            setupSalesChart();
-            setupClock();
-            updateTotalSales();
-            System.out.println("SalesController initialization complete.");
-            
-            // Add a delay before showing dashboard
-            javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(1.5));
-            delay.setOnFinished(event -> {
-                // Show dashboard after delay
-                if (mainController != null) {
-                    mainController.showDashboard();
-                }
-            });
-            delay.play();
-        });
     }
 
     private void setupControls() {
@@ -134,12 +124,25 @@ public class SalesController {
         }
     }
 
+    private static final String CHART_EXPORT = "Current chart";
+
     private void exportData() {
+        ChoiceDialog<String> datasetDialog = new ChoiceDialog<>(CHART_EXPORT,
+                CHART_EXPORT, "Inventory", "Stock History", "Sales History", "Forecasts");
+        datasetDialog.setTitle("Export Sales Data");
+        datasetDialog.setHeaderText(null);
+        datasetDialog.setContentText("Data to export:");
+        String dataset = datasetDialog.showAndWait().orElse(null);
+        if (dataset == null) {
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Export Sales Data");
         
         // Set default filename with current date
-        String defaultFileName = "sales_data_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        String prefix = CHART_EXPORT.equals(dataset) ? "sales_data" : dataset.toLowerCase().replace(' ', '_');
+        String defaultFileName = prefix + "_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
         fileChooser.setInitialFileName(defaultFileName + ".csv");
         
         // Set default directory to user's documents folder
@@ -155,47 +158,53 @@ public class SalesController {
         File file = fileChooser.showSaveDialog(stage);
         
         if (file != null) {
-            try {
-                // If no extension is provided, default to .csv
-                if (!file.getName().toLowerCase().endsWith(".csv") && !file.getName().toLowerCase().endsWith(".xlsx")) {
-                    file = new File(file.getAbsolutePath() + ".csv");
-                }
-                
-                if (file.getName().toLowerCase().endsWith(".csv")) {
-                    exportToCSV(file);
-                } else if (file.getName().toLowerCase().endsWith(".xlsx")) {
-                    exportToExcel(file);
-                }
-                showInfo("Success", "Data exported successfully to: " + file.getName());
-            } catch (Exception e) {
-                e.printStackTrace();
-                showError("Export Error", "Failed to export data: " + e.getMessage());
+            // If no extension is provided, default to .csv
+            if (!file.getName().toLowerCase().endsWith(".csv") && !file.getName().toLowerCase().endsWith(".xlsx")) {
+                file = new File(file.getAbsolutePath() + ".csv");
             }
+            runExport(createExportSource(dataset), file, stage);
         }
     }
 
-    private void exportToCSV(File file) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            // Write headers
-            writer.println("Month,Product,Sales Volume");
-
-            // Write data
-            for (XYChart.Series<String, Number> series : currentData) {
-                String productName = series.getName();
-                for (XYChart.Data<String, Number> data : series.getData()) {
-                    writer.printf("%s,%s,%d%n", 
-                        data.getXValue(),
-                        productName,
-                        data.getYValue().intValue()
-                    );
+    private ExportSource createExportSource(String dataset) {
+        switch (dataset) {
+            case "Inventory":
+                return Exports.inventory();
+            case "Stock History":
+                return Exports.stockHistory();
+            case "Sales History":
+                return Exports.salesHistory();
+            case "Forecasts":
+                return Exports.forecasts(new ForecastCalculator(new ForecastingModel(0.2, 0.1, 0.3)));
+            default:
+                // Snapshot the chart on the FX thread; the export itself runs in the background
+                List<Object[]> rows = new ArrayList<>();
+                for (XYChart.Series<String, Number> series : currentData) {
+                    for (XYChart.Data<String, Number> data : series.getData()) {
+                        rows.add(new Object[]{data.getXValue(), series.getName(), data.getYValue().intValue()});
+                    }
                 }
-            }
+                return Exports.rows("Sales Data", new String[]{"Month", "Product", "Sales Volume"}, rows);
         }
     }
 
-    private void exportToExcel(File file) {
-        // TODO: Implement Excel export using Apache POI
-        showError("Not Implemented", "Excel export is not yet implemented.");
+    private void runExport(ExportSource source, File file, Stage owner) {
+        ExportTask task = new ExportTask(source, file.toPath());
+        task.setOnSucceeded(e -> {
+            if (!task.isCancelled()) {
+                showInfo("Success", String.format("Exported %,d rows to: %s", task.getValue(), file.getName()));
+            }
+        });
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Export Error", "Failed to export data: " + error.getMessage());
+        });
+
+        new TaskProgressDialog(owner, task).show();
+        Thread thread = new Thread(task, "export");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void setupSalesChart() {
@@ -276,121 +285,18 @@ public class SalesController {
             topProductLabel.setText("Loading...");
             topProductLabel.setStyle("-fx-text-fill: white; -fx-font-size: 16;");
         }
-        
-        Connection conn = null;
-        try {
-            String monthlySalesQuery = "SELECT " +
-                "SUM(jan) as Jan, SUM(feb) as Feb, SUM(mar) as Mar, " +
-                "SUM(apr) as Apr, SUM(may) as May, SUM(jun) as Jun, " +
-                "SUM(jul) as Jul, SUM(aug) as Aug, SUM(sep) as Sep, " +
-                "SUM(oct) as Oct, SUM(nov) as Nov, SUM(`dec`) as `Dec` " +
-                "FROM sale_offtake";
-
-            Object[] result = database_utility.query(monthlySalesQuery);
-            if (result != null && result.length == 2) {
-                conn = (Connection) result[0];
-                ResultSet rs = (ResultSet) result[1];
-
-                if (rs.next()) {
-                    XYChart.Series<String, Number> series = new XYChart.Series<>();
-                    series.setName("Total Sales Volume");
-
-                    String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", 
-                                    "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-                    int annualTotal = 0;
-                    double previousMonth = 0;
-                    double totalSales = 0;
-                    int monthCount = 0;
-                    boolean hasData = false;
 
-                    for (String month : months) {
-                        double value = rs.getDouble(month);
-                        if (!rs.wasNull()) {
-                            hasData = true;
-                        }
-                        annualTotal += value;
-                        totalSales += value;
-                        monthCount++;
-                        // Calculate growth rate
-                        if (previousMonth > 0) {
-                            double growthRate = ((value - previousMonth) / previousMonth) * 100;
-                            Platform.runLater(() -> 
-                                growthRateLabel.setText(String.format("Growth Rate: %.1f%%", growthRate))
-                            );
-                        }
-                        previousMonth = value;
-                        series.getData().add(new XYChart.Data<>(month, value));
-                    }
-
-                    double averageSales = monthCount > 0 ? totalSales / monthCount : 0;
-                    final int finalAnnualTotal = annualTotal;
-                    final double finalAverageSales = averageSales;
-                    final boolean finalHasData = hasData;
-
-                    Platform.runLater(() -> {
-                        currentData.clear();
-                        if (finalHasData) {
-                            currentData.add(series);
-                            updateChartData(currentData);
-                            if (totalSalesLabel != null) {
-                                totalSalesLabel.setText(String.format("%,d units", finalAnnualTotal));
-                            }
-                            if (averageSalesLabel != null) {
-                                averageSalesLabel.setText(String.format("Avg. Monthly Sales: %,.0f units", finalAverageSales));
-                            }
-                        } else {
-                            updateChartData(new ArrayList<>());
-                            if (totalSalesLabel != null) totalSalesLabel.setText("No sales data available");
-                            if (averageSalesLabel != null) averageSalesLabel.setText("Avg. Monthly Sales: N/A");
-                        }
-                        styleChartSeries();
-                    });
-                } else {
-                    Platform.runLater(() -> {
-                        updateChartData(new ArrayList<>());
-                        if (totalSalesLabel != null) totalSalesLabel.setText("No sales data available");
-                        if (averageSalesLabel != null) averageSalesLabel.setText("Avg. Monthly Sales: N/A");
-                    });
-                }
-                rs.close();
-            } else {
-                Platform.runLater(() -> {
-                    updateChartData(new ArrayList<>());
-                    if (totalSalesLabel != null) totalSalesLabel.setText("Error loading data (no result)");
-                    if (averageSalesLabel != null) averageSalesLabel.setText("Avg. Monthly Sales: N/A");
-                });
-            }
-
-            // Get top product
-            String topProductQuery = 
-                "SELECT item_description, " +
-                "(jan + feb + mar + apr + may + jun + jul + aug + sep + oct + nov + `dec`) as total_sales " +
-                "FROM sale_offtake " +
-                "ORDER BY total_sales DESC LIMIT 1";
-
-            Object[] topProductResult = database_utility.query(topProductQuery);
-            if (topProductResult != null && topProductResult.length == 2) {
-                ResultSet rs = (ResultSet) topProductResult[1];
-                if (rs.next()) {
-                    String topProduct = rs.getString("item_description");
-                    int topSales = rs.getInt("total_sales");
-                    Platform.runLater(() -> {
-                        if (topProductLabel != null) {
-                            topProductLabel.setText(String.format("%s\nAnnual Volume: %,d units", topProduct, topSales));
-                        }
-                    });
-                } else {
-                    Platform.runLater(() -> {
-                        if (topProductLabel != null) topProductLabel.setText("No top product data");
-                    });
-                }
-                rs.close();
-            } else {
-                Platform.runLater(() -> {
-                    if (topProductLabel != null) topProductLabel.setText("Error loading top product");
-                });
-            }
+        // Every label and chart update below goes through Platform.runLater
+        common.UiActionEvent action = common.UiActionEvent.start("Sales", "Total sales requested");
+        Thread thread = new Thread(() -> loadTotalSales(action), "sales-totals");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    private void loadTotalSales(common.UiActionEvent action) {
+        try {
+            showMonthlyTotals(DashboardQueries.monthlySalesTotals());
+            showTopProduct(DashboardQueries.topProduct());
         } catch (Exception e) {
             e.printStackTrace();
             Platform.runLater(() -> {
@@ -402,10 +308,70 @@ public class SalesController {
                 if (averageSalesLabel != null) averageSalesLabel.setText("Avg. Monthly Sales: N/A");
             });
         } finally {
-            if (conn != null) {
-                database_utility.close(conn);
+            action.finish(12);
+        }
+    }
+
+    // Off the FX thread; the labels and chart are updated through Platform.runLater
+    private void showMonthlyTotals(double[] totals) {
+        if (totals == null) {
+            Platform.runLater(() -> {
+                currentData.clear();
+                updateChartData(new ArrayList<>());
+                if (totalSalesLabel != null) totalSalesLabel.setText("No sales data available");
+                if (averageSalesLabel != null) averageSalesLabel.setText("Avg. Monthly Sales: N/A");
+                styleChartSeries();
+            });
+            return;
+        }
+
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Total Sales Volume");
+        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
+                        "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+        double totalSales = 0;
+        double previousMonth = 0;
+        Double growthRate = null;
+        for (int m = 0; m < months.length; m++) {
+            double value = totals[m];
+            totalSales += value;
+            // Growth from the previous month, as of the last month that had a previous one
+            if (previousMonth > 0) {
+                growthRate = ((value - previousMonth) / previousMonth) * 100;
             }
+            previousMonth = value;
+            series.getData().add(new XYChart.Data<>(months[m], value));
         }
+
+        final int annualTotal = (int) totalSales;
+        final double averageSales = totalSales / months.length;
+        final Double finalGrowthRate = growthRate;
+        Platform.runLater(() -> {
+            if (finalGrowthRate != null && growthRateLabel != null) {
+                growthRateLabel.setText(String.format("Growth Rate: %.1f%%", finalGrowthRate));
+            }
+            currentData.clear();
+            currentData.add(series);
+            updateChartData(currentData);
+            if (totalSalesLabel != null) {
+                totalSalesLabel.setText(String.format("%,d units", annualTotal));
+            }
+            if (averageSalesLabel != null) {
+                averageSalesLabel.setText(String.format("Avg. Monthly Sales: %,.0f units", averageSales));
+            }
+            styleChartSeries();
+        });
+    }
+
+    private void showTopProduct(DashboardQueries.TopProduct top) {
+        Platform.runLater(() -> {
+            if (topProductLabel == null) return;
+            if (top != null) {
+                topProductLabel.setText(String.format("%s\nAnnual Volume: %,d units", top.getDescription(), top.getTotalSales()));
+            } else {
+                topProductLabel.setText("No top product data");
+            }
+        });
     }
 
     public void showProductSelectionDialog() {
@@ -2,6 +2,7 @@ package dashboard;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import database.StockLedger;
 import database.database_utility;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -13,9 +14,9 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.ListChangeListener;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
@@ -50,9 +51,26 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.UnaryOperator;
 
 public class dashboardController {
+    private static final String ADD_STOCKS_FORM = "/addStocks/addstocks_form.fxml";
+    private static final String ADD_PRODUCT_FORM = "/addStocks/addproduct.fxml";
+    private static final String EDIT_PRODUCT_FORM = "/addEditProduct/add-edit-product_form.fxml";
+    private static final String CONFIRMATION_FORM = "/confirmation/confirmation_form.fxml";
+    static final int DEFAULT_LOW_STOCK_THRESHOLD = 1000;
+
     @FXML private Button minimizeButton;
     @FXML private Button resizeButton;
     @FXML private Button exitButton;
@@ -89,6 +107,7 @@ public class dashboardController {
     @FXML private Label salesTimeLabel;
     @FXML private VBox recent;
     @FXML private ComboBox<String> forecastFormulaComboBox;
+    @FXML private ComboBox<String> forecastHorizonComboBox;
     @FXML private Label forecastPlaceholderLabel;
     @FXML private Button formulaHelpButton;
     @FXML private Button exportButton;
@@ -97,9 +116,16 @@ public class dashboardController {
     @FXML private Button totalSalesButton;
     @FXML private Button compareButton;
     @FXML private Button forecastRefreshButton;
+    @FXML private Button purchaseListButton;
+    @FXML private ProgressBar forecastRunProgressBar;
+    @FXML private Label forecastRunStatusLabel;
+    @FXML private Button forecastRunCancelButton;
 
     @FXML private ScrollPane notifScrollPane;
     @FXML private VBox recent1;
+    // The critical stocks panel's month and threshold
+    @FXML private ComboBox<String> month;
+    @FXML private ComboBox<String> stocks;
 
     @FXML private Region dashboardIndicator;
     @FXML private Region inventoryIndicator;
@@ -146,6 +172,9 @@ public class dashboardController {
 
             // Initialize collections first
             inventory_management_table = FXCollections.observableArrayList();
+
+            // Fold stock movements into the stock_onhand snapshot in the background
+            StockLedger.startCompaction();
             
             // Store controller reference in BorderPane's userData
             if (borderpane != null) {
@@ -157,20 +186,6 @@ public class dashboardController {
             // Capitalize first letter only
             currentMonth = currentMonth.substring(0, 1).toUpperCase() + currentMonth.substring(1).toLowerCase();
 
-            // Perform database operations first
-            Connection connect = null;
-            try {
-                // Pre-load database connection
-                Object[] result = database_utility.query("SELECT 1");
-                if (result != null) {
-                    connect = (Connection) result[0];
-                }
-            } finally {
-                if (connect != null) {
-                    database_utility.close(connect);
-                }
-            }
-            
             // Initialize UI components
             setupTableView();
             setupWindowControls();
@@ -183,34 +198,66 @@ public class dashboardController {
                 monthComboBox.setValue(currentMonth);
                 // Auto-refresh inventory table when month changes
                 monthComboBox.setOnAction(event -> {
+                    common.UiActionEvent action = common.UiActionEvent.start("Inventory", "Month changed");
                     inventory_management_query();
                     updateStockNotifications();
+                    action.finish(inventory_management_table.size(), getSelectedMonthColumn());
                 });
             }
             
             // Set current month as default for the dashboard month ComboBox
-            ComboBox<String> dashboardMonthCombo = (ComboBox<String>) borderpane.lookup("#month");
-            if (dashboardMonthCombo != null) {
-                dashboardMonthCombo.setValue(currentMonth);
-                dashboardMonthCombo.setOnAction(event -> updateStockNotifications());
+            if (month != null) {
+                month.setValue(currentMonth);
+                month.setOnAction(event -> updateStockNotifications());
             }
             
             // Set default value for stocks ComboBox
-            ComboBox<String> stocksCombo = (ComboBox<String>) borderpane.lookup("#stocks");
-            if (stocksCombo != null) {
-                stocksCombo.setValue("1000");
-                stocksCombo.setOnAction(event -> updateStockNotifications());
+            if (stocks != null) {
+                stocks.setValue(String.valueOf(DEFAULT_LOW_STOCK_THRESHOLD));
+                stocks.setOnAction(event -> updateStockNotifications());
             }
 
-            // Pre-load data before showing UI
-            inventory_management_query();
-            updateStockNotifications();
-            
-            // Initialize other sections first
-            initializeForecastingSection();
-            initializeSalesSection();
-            loadNotificationsFromDatabase();
+            // Follow other terminals' changes; started first so none made during the load are missed
+            liveUpdates = new LiveUpdates(this);
+            liveUpdates.start(getSelectedMonthColumn(), getLowStockMonthColumn());
+            if (monthComboBox != null) {
+                monthComboBox.valueProperty().addListener((obs, oldValue, newValue) ->
+                        liveUpdates.showing(getSelectedMonthColumn(), getLowStockMonthColumn()));
+            }
+            if (month != null) {
+                month.valueProperty().addListener((obs, oldValue, newValue) ->
+                        liveUpdates.showing(getSelectedMonthColumn(), getLowStockMonthColumn()));
+            }
+
+            // Fill the first tab from the login prefetch, querying only what it couldn't load
+            DashboardBootstrap bootstrap = DashboardBootstrap.claim();
+            List<Inventory_management_bin> inventory = bootstrap != null ? bootstrap.getInventory(getSelectedMonthColumn()) : null;
+            if (inventory != null) {
+                inventory_management_table.setAll(inventory);
+            } else {
+                inventory_management_query();
+            }
+            List<Inventory_management_bin> lowStock = bootstrap != null
+                    ? bootstrap.getLowStock(getLowStockMonthColumn(), getLowStockThreshold()) : null;
+            if (lowStock != null && recent1 != null) {
+                showLowStockItems(lowStock);
+            } else {
+                updateStockNotifications();
+            }
+            List<String> activities = bootstrap != null ? bootstrap.getActivities() : null;
+            if (activities != null) {
+                showActivities(activities);
+            } else {
+                loadNotificationsFromDatabase();
+            }
             setupNavigation();
+            showDashboard();
+
+            // The other tabs aren't visible yet; set them up after the dashboard's first frame
+            Platform.runLater(() -> {
+                initializeForecastingSection();
+                initializeSalesSection();
+            });
             
             startClock();
             
@@ -225,6 +272,10 @@ public class dashboardController {
                     }
                 });
             }
+
+            // Parse the popup forms once the dashboard is up, so the first open is instant too
+            Platform.runLater(() -> common.ViewRegistry.preload(
+                    sold_stocks.soldStock.FORM, ADD_STOCKS_FORM, ADD_PRODUCT_FORM, EDIT_PRODUCT_FORM));
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -367,8 +418,12 @@ public class dashboardController {
                 forecastRecommendationsLabel,
                 forecastFormulaComboBox,
                 forecastPlaceholderLabel,
-                formulaHelpButton
+                formulaHelpButton,
+                forecastHorizonComboBox,
+                purchaseListButton
             );
+            forecastingController.setMonthColumnSupplier(this::getSelectedMonthColumn);
+            forecastingController.attachScheduler(forecastRunProgressBar, forecastRunStatusLabel, forecastRunCancelButton);
         } catch (Exception e) {
             System.err.println("Error initializing forecasting section: " + e.getMessage());
             e.printStackTrace();
@@ -553,8 +608,7 @@ public class dashboardController {
         Platform.runLater(() -> centerAddFormContainer());
 
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/confirmation/confirmation_form.fxml"));
-            Parent confirmationForm = loader.load();
+            Parent confirmationForm = common.ViewRegistry.shared(CONFIRMATION_FORM).getRoot();
             confirmationContainer.getChildren().setAll(confirmationForm);
             confirmationContainer.setVisible(false); // keep hidden initially
         } catch (IOException e) {
@@ -729,7 +783,12 @@ public class dashboardController {
         dashboardbutton.setOnAction(e -> TabSwitch(dashboardbutton, dashboardpane));
         inventorybutton.setOnAction(e -> TabSwitch(inventorybutton, inventorypane));
         salesbutton.setOnAction(e -> TabSwitch(salesbutton, salespane));
-        forecastingbutton.setOnAction(e -> TabSwitch(forecastingbutton, forecastingpane));
+        forecastingbutton.setOnAction(e -> {
+            TabSwitch(forecastingbutton, forecastingpane);
+            if (forecastingController != null) {
+                forecastingController.onTabShown();
+            }
+        });
         helpbutton.setOnAction(e -> TabSwitch(helpbutton, helppane));
         
         // Set initial active state for dashboard
@@ -823,12 +882,12 @@ public class dashboardController {
                 return;
             } else if (checkedCount == 1) {
                 // Load addstocks form if exactly one checkbox is checked
-                fxmlPath = "/addStocks/addstocks_form.fxml";
+                fxmlPath = ADD_STOCKS_FORM;
                 title = "Add Stocks Form";
 
-                FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
-                Parent addForm = loader.load();
-                add_stocks.addstocksController controller = loader.getController();
+                common.ViewRegistry.View<add_stocks.addstocksController> view = common.ViewRegistry.take(fxmlPath);
+                Parent addForm = view.getRoot();
+                add_stocks.addstocksController controller = view.getController();
                 if (selectedItem != null && controller != null) {
                     controller.text_field1.setText(String.valueOf(selectedItem.getVolume()));
                     controller.textfield2.setText(selectedItem.getCategory());
@@ -845,7 +904,7 @@ public class dashboardController {
                 stage.initStyle(StageStyle.TRANSPARENT);
                 stage.setTitle(title);
                 stage.setScene(scene);
-                stage.getIcons().add(new Image(getClass().getResourceAsStream("/images/intervein_logo_no_text.png")));
+                common.StageManager.configureStage(stage);
                 Bounds paneBounds = right_pane.localToScreen(right_pane.getBoundsInLocal());
                 stage.show();
                 double centerX = paneBounds.getMinX() + (paneBounds.getWidth() / 2) - (stage.getWidth() / 2);
@@ -856,16 +915,16 @@ public class dashboardController {
                 return;
             } else {
                 // Load addproduct form if no checkbox is checked
-                fxmlPath = "/addStocks/addproduct.fxml";
+                fxmlPath = ADD_PRODUCT_FORM;
                 title = "Add Product Form";
             }
 
-            // Load the FXML and create scene
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
-            Parent addForm = loader.load();
+            // Take the preloaded form
+            common.ViewRegistry.View<add_stocks.addproductController> view = common.ViewRegistry.take(fxmlPath);
+            Parent addForm = view.getRoot();
             
             // Get the controller and pass dashboard reference
-            add_stocks.addproductController controller = loader.getController();
+            add_stocks.addproductController controller = view.getController();
             if (controller == null) {
                 throw new RuntimeException("Failed to get controller for add product form");
             }
@@ -879,7 +938,7 @@ public class dashboardController {
             stage.initStyle(StageStyle.TRANSPARENT);
             stage.setTitle(title);
             stage.setScene(scene);
-            stage.getIcons().add(new Image(getClass().getResourceAsStream("/images/intervein_logo_no_text.png")));
+            common.StageManager.configureStage(stage);
             
             // Get screen bounds of right_pane for centering
             Bounds paneBounds = right_pane.localToScreen(right_pane.getBoundsInLocal());
@@ -976,18 +1035,9 @@ public class dashboardController {
     @FXML
     private void handleConfirmationButton() {
         try {
-            // Count checked checkboxes in inventory table
-            int checkedCount = 0;
-            Inventory_management_bin selectedItem = null;
-            
-            for (Inventory_management_bin item : inventory_table.getItems()) {
-                if (item.getSelected()) {
-                    checkedCount++;
-                    selectedItem = item;
-                }
-            }
+            List<Inventory_management_bin> checkedItems = getCheckedItems();
             
-            if (checkedCount == 0) {
+            if (checkedItems.isEmpty()) {
                 // Show error if no item is selected
                 Alert alert = new Alert(Alert.AlertType.WARNING);
                 alert.setTitle("Selection Error");
@@ -998,51 +1048,28 @@ public class dashboardController {
                 return;
             }
 
-            final Inventory_management_bin itemToDelete = selectedItem;
-
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/confirmation/confirmation_form.fxml"));
-            Parent confirmationForm = loader.load();
-            confirmationController controller = loader.getController();
+            common.ViewRegistry.View<confirmationController> view = common.ViewRegistry.shared(CONFIRMATION_FORM);
+            Parent confirmationForm = view.getRoot();
+            confirmationController controller = view.getController();
             
             // Set up the deletion callback
             controller.setDeletionCallback(new confirmationController.DeletionCallback() {
                 @Override
                 public void onConfirmDeletion() {
-                    // Remove from table
-                    inventory_table.getItems().remove(itemToDelete);
-                    
-                    // Delete from database
-                    try {
-                        Connection connect = null;
-                        try {
-                            // First delete from stock_onhand (child table)
-                            Object[] result = database_utility.update("DELETE FROM stock_onhand WHERE item_code = ?", itemToDelete.getItem_code());
-                            if (result != null) {
-                                connect = (Connection)result[0];
-                                // Then delete from sale_offtake (parent table)
-                                database_utility.update("DELETE FROM sale_offtake WHERE item_code = ?", itemToDelete.getItem_code());
-                            }
-                        } finally {
-                            if (connect != null) {
-                                database_utility.close(connect);
-                            }
+                    database.BulkEditor editor = new database.BulkEditor(getSelectedMonthColumn());
+                    List<Integer> itemCodes = itemCodesOf(checkedItems);
+                    runBulkEdit("Deleting " + describeCount(checkedItems), (cancelled, progress) -> {
+                        editor.delete(itemCodes, cancelled, progress);
+                        return null;
+                    }, ignored -> {
+                        Set<Integer> deleted = new HashSet<>(itemCodes);
+                        inventory_management_table.removeIf(item -> deleted.contains(item.getItem_code()));
+                        if (recent1 != null && lowStockItems.keySet().removeAll(deleted)) {
+                            renderLowStockItems();
                         }
-                        
-                        // Refresh table data
-                        inventory_management_query();
-                        
-                        // Add notification for the delete action
-                        addInventoryActionNotification("delete", itemToDelete.getItem_des());
-                        
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        Alert alert = new Alert(Alert.AlertType.ERROR);
-                        alert.setTitle("Error");
-                        alert.setHeaderText(null);
-                        alert.setContentText("Failed to delete item from database: " + e.getMessage());
-                        alert.initStyle(StageStyle.UNDECORATED);
-                        alert.showAndWait();
-                    }
+                        addInventoryActionNotification("delete", checkedItems.size() == 1
+                                ? checkedItems.get(0).getItem_des() : describeCount(checkedItems));
+                    });
                 }
 
                 @Override
@@ -1074,8 +1101,10 @@ public class dashboardController {
     @FXML
     private void handleContinueClick() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/confirmation/confirmation_form.fxml"));
-            Parent confirmationForm = loader.load();
+            common.ViewRegistry.View<confirmationController> view = common.ViewRegistry.shared(CONFIRMATION_FORM);
+            // The shared form may still hold the last delete's callback
+            view.getController().setDeletionCallback(null);
+            Parent confirmationForm = view.getRoot();
 
             confirmationContainer.getChildren().setAll(confirmationForm);
             confirmationForm.setLayoutX(0);
@@ -1116,6 +1145,9 @@ public class dashboardController {
    @FXML 
     private TableColumn<Inventory_management_bin, Boolean> col_select;
     private ObservableList<Inventory_management_bin> inventory_management_table;
+    // Items in the critical stocks panel, by item code
+    private final Map<Integer, Inventory_management_bin> lowStockItems = new HashMap<>();
+    private LiveUpdates liveUpdates;
 
 
     // Helper method to get the selected month's column name
@@ -1129,42 +1161,11 @@ public class dashboardController {
 
     // Make this method public so it can be called from addstocksController
     public void inventory_management_query() {
-        Connection connect = null;
         try {
-            String selectedMonth = getSelectedMonthColumn();
-            String sql_query = String.format(
-                "SELECT sale_offtake.item_code, item_description, volume, category, " +
-                "sale_offtake.%s as sot, stock_onhand.%s1 as soh " +
-                "FROM sale_offtake JOIN stock_onhand ON sale_offtake.item_code = stock_onhand.item_code",
-                selectedMonth, selectedMonth
-            );
-
-            Object[] result_from_query = database_utility.query(sql_query);
-            if (result_from_query != null) {
-                connect = (Connection) result_from_query[0];
-                ResultSet result = (ResultSet) result_from_query[1];
-
-                ObservableList<Inventory_management_bin> items = FXCollections.observableArrayList();
-                while (result.next()) {
-                    items.add(new Inventory_management_bin(
-                        result.getInt("item_code"),
-                        result.getString("item_description"),
-                        result.getInt("volume"),
-                        result.getString("category"),
-                        result.getInt("sot"),
-                        result.getInt("soh")
-                    ));
-                }
-
-                inventory_management_table.setAll(items);
-                inventory_table.refresh();
-            }
+            inventory_management_table.setAll(DashboardQueries.inventory(getSelectedMonthColumn()));
+            inventory_table.refresh();
         } catch (Exception e) {
             e.printStackTrace();
-        } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
         }
     }
 
@@ -1189,6 +1190,7 @@ public class dashboardController {
 
     @FXML
     private void handleRefreshData() {
+        common.UiActionEvent action = common.UiActionEvent.start("Inventory", "Refresh");
         // Clear existing table data
         if (inventory_management_table != null) {
             inventory_management_table.clear();
@@ -1196,6 +1198,7 @@ public class dashboardController {
         
         // Re-fetch data from database
         inventory_management_query();
+        action.finish(inventory_management_table.size());
         
         // Show success message
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -1315,8 +1318,8 @@ public class dashboardController {
             Connection connect = null;
             try {
                 Object[] result = database_utility.update(
-                    "INSERT INTO notifications_activities (activities) VALUES (?)",
-                    notificationText
+                    "INSERT INTO notifications_activities (activities, terminal) VALUES (?, ?)",
+                    notificationText, StockLedger.TERMINAL
                 );
                 if (result != null) {
                     connect = (Connection) result[0];
@@ -1379,8 +1382,8 @@ public class dashboardController {
             Connection connect = null;
             try {
                 Object[] result = database_utility.update(
-                    "INSERT INTO notifications_activities (activities) VALUES (?)",
-                    notificationText
+                    "INSERT INTO notifications_activities (activities, terminal) VALUES (?, ?)",
+                    notificationText, StockLedger.TERMINAL
                 );
                 if (result != null) {
                     connect = (Connection) result[0];
@@ -1396,6 +1399,123 @@ public class dashboardController {
     }
 
 
+    @FXML
+    private void handleBulkImport() {
+        ChoiceDialog<add_stocks.BulkImporter.Kind> kindDialog = new ChoiceDialog<>(
+                add_stocks.BulkImporter.Kind.STOCK_RECEIPTS, add_stocks.BulkImporter.Kind.values());
+        kindDialog.setTitle("Import CSV");
+        kindDialog.setHeaderText(null);
+        kindDialog.setContentText("Import:");
+        add_stocks.BulkImporter.Kind kind = kindDialog.showAndWait().orElse(null);
+        if (kind == null) {
+            return;
+        }
+
+        javafx.stage.FileChooser fileChooser = new javafx.stage.FileChooser();
+        fileChooser.setTitle("Import " + kind);
+        fileChooser.getExtensionFilters().add(new javafx.stage.FileChooser.ExtensionFilter("CSV Files (*.csv)", "*.csv"));
+        Stage owner = (Stage) inventory_table.getScene().getWindow();
+        java.io.File file = fileChooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+
+        add_stocks.BulkImportTask task = new add_stocks.BulkImportTask(kind, getSelectedMonthColumn(), file.toPath());
+        task.setOnSucceeded(e -> {
+            add_stocks.BulkImportResult result = task.getValue();
+            inventory_management_query();
+            if (result.getImported() > 0) {
+                addInventoryActionNotification("import", String.format("%,d %s rows from %s",
+                        result.getImported(), kind.toString().toLowerCase(), file.getName()));
+            }
+            showImportResult(result);
+        });
+        task.setOnCancelled(e -> {
+            inventory_management_query();
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Import Cancelled");
+            alert.setHeaderText(null);
+            alert.setContentText("The import was cancelled. Rows already committed were kept.");
+            alert.showAndWait();
+        });
+        task.setOnFailed(e -> {
+            task.getException().printStackTrace();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Import Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Failed to import " + file.getName() + ": " + task.getException().getMessage());
+            alert.showAndWait();
+        });
+
+        new common.TaskProgressDialog(owner, task).show();
+        Thread thread = new Thread(task, "bulk-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showImportResult(add_stocks.BulkImportResult result) {
+        Alert alert = new Alert(result.getRejected() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION);
+        alert.setTitle("Import Complete");
+        alert.setHeaderText(null);
+        alert.setContentText(result.getSummary());
+        if (!result.getErrors().isEmpty()) {
+            StringBuilder errors = new StringBuilder();
+            for (add_stocks.BulkImportResult.RowError error : result.getErrors()) {
+                errors.append(error).append('\n');
+            }
+            TextArea errorArea = new TextArea(errors.toString());
+            errorArea.setEditable(false);
+            errorArea.setWrapText(true);
+            errorArea.setPrefRowCount(12);
+            alert.getDialogPane().setExpandableContent(errorArea);
+            alert.getDialogPane().setExpanded(true);
+        }
+        alert.showAndWait();
+    }
+
+    @FXML
+    private void handleStockTake() {
+        Stage owner = (Stage) inventory_table.getScene().getWindow();
+        add_stocks.StockTake.Result result = new add_stocks.StockTakeDialog(owner, getSelectedMonthColumn()).showAndWait();
+        if (result == null) {
+            return;
+        }
+        // Timed from the commit coming back, not from when the dialog opened
+        common.UiActionEvent action = common.UiActionEvent.start("Inventory", "Stock take committed");
+        inventory_management_query();
+        updateStockNotifications();
+        action.finish(result.getCounted(), result.getVariances().size() + " adjusted");
+        addInventoryActionNotification("stock take", String.format("%,d items counted, %,d adjusted",
+                result.getCounted(), result.getVariances().size()));
+        showStockTakeResult(result);
+    }
+
+    private void showStockTakeResult(add_stocks.StockTake.Result result) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Stock Take Complete");
+        alert.setHeaderText(null);
+        alert.setContentText(result.getSummary());
+        if (!result.getVariances().isEmpty() || !result.getMissing().isEmpty()) {
+            StringBuilder report = new StringBuilder(String.format("%-10s %-40s %10s %10s %10s%n",
+                    "Code", "Description", "Expected", "Counted", "Variance"));
+            for (add_stocks.StockTake.Variance variance : result.getVariances()) {
+                report.append(String.format("%-10d %-40.40s %10d %10d %+10d%n", variance.getItemCode(),
+                        variance.getDescription(), variance.getExpected(), variance.getCounted(), variance.getDifference()));
+            }
+            for (Integer itemCode : result.getMissing()) {
+                report.append(String.format("%-10d %-40s%n", itemCode, "(deleted, not recorded)"));
+            }
+            TextArea reportArea = new TextArea(report.toString());
+            reportArea.setEditable(false);
+            reportArea.setStyle("-fx-font-family: 'monospace';");
+            reportArea.setPrefRowCount(16);
+            reportArea.setPrefColumnCount(86);
+            alert.getDialogPane().setExpandableContent(reportArea);
+            alert.getDialogPane().setExpanded(true);
+        }
+        alert.showAndWait();
+    }
+
     @FXML
     private void handleEditButton() {
         try {
@@ -1420,22 +1540,16 @@ public class dashboardController {
                 alert.showAndWait();
                 return;
             } else if (checkedCount > 1) {
-                // Show error alert if multiple checkboxes are checked
-                Alert alert = new Alert(Alert.AlertType.WARNING);
-                alert.setTitle("Selection Error");
-                alert.setHeaderText(null);
-                alert.setContentText("Please select only one item to edit.");
-                alert.initStyle(StageStyle.UNDECORATED);
-                alert.showAndWait();
+                handleBulkEdit(getCheckedItems());
                 return;
             }
 
             // Load and show the edit form
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/addEditProduct/add-edit-product_form.fxml"));
-            Parent editForm = loader.load();
+            common.ViewRegistry.View<addeditproductController> view = common.ViewRegistry.take(EDIT_PRODUCT_FORM);
+            Parent editForm = view.getRoot();
             
             // Get the controller and set up the data
-            addeditproductController controller = loader.getController();
+            addeditproductController controller = view.getController();
             controller.setDashboardController(this);
             controller.setItemToEdit(selectedItem);
 
@@ -1445,7 +1559,7 @@ public class dashboardController {
             stage.initStyle(StageStyle.TRANSPARENT);
             stage.setTitle("Edit Product");
             stage.setScene(scene);
-            stage.getIcons().add(new Image(getClass().getResourceAsStream("/images/intervein_logo_no_text.png")));
+            common.StageManager.configureStage(stage);
             
             // Center the stage on the inventory pane
             Bounds paneBounds = right_pane.localToScreen(right_pane.getBoundsInLocal());
@@ -1465,6 +1579,155 @@ public class dashboardController {
             alert.showAndWait();
         }
     }
+    // Recategorize or adjust stock for every checked item at once
+    private void handleBulkEdit(List<Inventory_management_bin> items) {
+        String recategorize = "Change category";
+        String adjust = "Adjust stock on hand";
+        ChoiceDialog<String> actionDialog = new ChoiceDialog<>(recategorize, recategorize, adjust);
+        actionDialog.setTitle("Edit " + describeCount(items));
+        actionDialog.setHeaderText(null);
+        actionDialog.setContentText("Action:");
+        String action = actionDialog.showAndWait().orElse(null);
+        if (action == null) {
+            return;
+        }
+
+        database.BulkEditor editor = new database.BulkEditor(getSelectedMonthColumn());
+        List<Integer> itemCodes = itemCodesOf(items);
+        if (action.equals(recategorize)) {
+            TextInputDialog categoryDialog = new TextInputDialog(items.get(0).getCategory());
+            categoryDialog.setTitle("Change Category");
+            categoryDialog.setHeaderText(null);
+            categoryDialog.setContentText("New category for " + describeCount(items) + ":");
+            String category = categoryDialog.showAndWait().map(String::trim).orElse("");
+            if (category.isEmpty()) {
+                return;
+            }
+            runBulkEdit("Recategorizing " + describeCount(items), (cancelled, progress) -> {
+                editor.recategorize(itemCodes, category, cancelled, progress);
+                return null;
+            }, ignored -> {
+                patchInventoryRows(itemCodes, item -> new Inventory_management_bin(item.getItem_code(),
+                        item.getItem_des(), item.getVolume(), category, item.getSot(), item.getSoh()));
+                addInventoryActionNotification("edit", describeCount(items) + " moved to " + category);
+            });
+        } else {
+            TextInputDialog quantityDialog = new TextInputDialog();
+            quantityDialog.setTitle("Adjust Stock on Hand");
+            quantityDialog.setHeaderText(null);
+            quantityDialog.setContentText("Adjustment for each item (e.g. 12 or -5):");
+            String text = quantityDialog.showAndWait().map(String::trim).orElse("");
+            if (text.isEmpty()) {
+                return;
+            }
+            int quantity;
+            try {
+                quantity = Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                showErrorAlert("Invalid Quantity", "Please enter a whole number.");
+                return;
+            }
+            if (quantity == 0) {
+                return;
+            }
+            String month = getSelectedMonthColumn();
+            runBulkEdit("Adjusting " + describeCount(items), (cancelled, progress) ->
+                    editor.adjust(itemCodes, quantity, cancelled, progress), balances -> {
+                patchInventoryRows(balances.keySet(), item -> new Inventory_management_bin(item.getItem_code(),
+                        item.getItem_des(), item.getVolume(), item.getCategory(), item.getSot(),
+                        balances.get(item.getItem_code())));
+                if (recent1 != null && month.equals(getLowStockMonthColumn())) {
+                    int threshold = getLowStockThreshold();
+                    for (Inventory_management_bin item : inventory_management_table) {
+                        Integer balance = balances.get(item.getItem_code());
+                        if (balance == null) continue;
+                        if (balance <= threshold) {
+                            lowStockItems.put(item.getItem_code(), item);
+                        } else {
+                            lowStockItems.remove(item.getItem_code());
+                        }
+                    }
+                    renderLowStockItems();
+                }
+                addInventoryActionNotification("edit", String.format("%s adjusted by %+d", describeCount(items), quantity));
+            });
+        }
+    }
+
+    private interface BulkOperation<T> {
+        T run(BooleanSupplier cancelled, DoubleConsumer progress) throws Exception;
+    }
+
+    // Runs a bulk edit with a progress dialog, then applies its result to the table in place
+    private <T> void runBulkEdit(String title, BulkOperation<T> operation, Consumer<T> onSucceeded) {
+        int itemCount = getCheckedItems().size();
+        common.UiActionEvent action = common.UiActionEvent.start("Inventory", title);
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                updateTitle(title);
+                updateMessage(title + "...");
+                return operation.run(this::isCancelled, fraction -> updateProgress(fraction, 1.0));
+            }
+        };
+        task.setOnSucceeded(e -> {
+            onSucceeded.accept(task.getValue());
+            action.finish(itemCount, "succeeded");
+        });
+        task.setOnCancelled(e -> {
+            action.finish(itemCount, "cancelled");
+            // A cancel that lands after the last check still commits, so show what's really there
+            reloadLiveData();
+        });
+        task.setOnFailed(e -> {
+            action.finish(itemCount, "failed");
+            task.getException().printStackTrace();
+            showErrorAlert("Error", title + " failed, nothing was changed: " + task.getException().getMessage());
+        });
+
+        Stage owner = (Stage) inventory_table.getScene().getWindow();
+        new common.TaskProgressDialog(owner, task).show();
+        Thread thread = new Thread(task, "bulk-edit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Replaces the given items' rows with patched copies, keeping their checkboxes
+    private void patchInventoryRows(Collection<Integer> itemCodes,
+                                    UnaryOperator<Inventory_management_bin> patch) {
+        Set<Integer> codes = new HashSet<>(itemCodes);
+        for (int i = 0; i < inventory_management_table.size(); i++) {
+            Inventory_management_bin current = inventory_management_table.get(i);
+            if (codes.contains(current.getItem_code())) {
+                Inventory_management_bin updated = patch.apply(current);
+                updated.setSelected(current.getSelected());
+                inventory_management_table.set(i, updated);
+            }
+        }
+    }
+
+    private List<Inventory_management_bin> getCheckedItems() {
+        List<Inventory_management_bin> checked = new ArrayList<>();
+        for (Inventory_management_bin item : inventory_table.getItems()) {
+            if (item.getSelected()) {
+                checked.add(item);
+            }
+        }
+        return checked;
+    }
+
+    private static List<Integer> itemCodesOf(List<Inventory_management_bin> items) {
+        List<Integer> itemCodes = new ArrayList<>(items.size());
+        for (Inventory_management_bin item : items) {
+            itemCodes.add(item.getItem_code());
+        }
+        return itemCodes;
+    }
+
+    private static String describeCount(List<Inventory_management_bin> items) {
+        return items.size() == 1 ? "1 item" : String.format("%,d items", items.size());
+    }
+
     private ImageView createNotificationIcon(String iconPath) {
         Image icon;
         try {
@@ -1484,76 +1747,66 @@ public class dashboardController {
         imageView.setFitWidth(22);
         imageView.setPreserveRatio(true);
         return imageView;
-    }    private void loadNotificationsFromDatabase() {
-        Connection connect = null;
-        try {
-            Object[] result = database_utility.query(
-                "SELECT activities, timestamp FROM notifications_activities ORDER BY timestamp DESC"
-            );
-            if (result != null) {
-                connect = (Connection) result[0];
-                ResultSet rs = (ResultSet) result[1];
-                
-                while (rs.next()) {
-                    String activity = rs.getString("activities");
-                    
-                    // Determine icon path based on activity text pattern
-                    String iconPath;
-                    if (activity.contains("Product deleted")) {
-                        iconPath = "/images/trash.png";
-                    } else if (activity.contains("New product added")) {
-                        iconPath = "/images/plus.png";
-                    } else if (activity.contains("has been sold")) {
-                        iconPath = "/images/peso.png";
-                    } else if (activity.contains("arrived")) {
-                        iconPath = "/images/stocks.png";
-                    } else if (activity.contains("Product updated")) {
-                        iconPath = "/images/edit.png";
-                    } else {
-                        iconPath = "/images/stocks.png"; // default fallback
-                    }
-
-                    // Debug print to verify icon selection
-                    System.out.println("Activity: " + activity);
-                    System.out.println("Selected icon: " + iconPath);
+    }
 
-                    VBox notificationBox = new VBox();
-                    notificationBox.setPrefHeight(30);
-                    notificationBox.setMinHeight(30);
-                    notificationBox.setMaxHeight(30);
-                    notificationBox.setStyle("-fx-background-color: #0E1D47; -fx-background-radius: 7; -fx-padding: 1 1 1 1; -fx-margin: 0;");
+    // A recent activities entry, with its icon chosen from the activity text
+    private VBox createActivityBox(String activity) {
+        String iconPath;
+        if (activity.contains("Product deleted")) {
+            iconPath = "/images/trash.png";
+        } else if (activity.contains("New product added")) {
+            iconPath = "/images/plus.png";
+        } else if (activity.contains("has been sold")) {
+            iconPath = "/images/peso.png";
+        } else if (activity.contains("arrived")) {
+            iconPath = "/images/stocks.png";
+        } else if (activity.contains("Product updated")) {
+            iconPath = "/images/edit.png";
+        } else {
+            iconPath = "/images/stocks.png"; // default fallback
+        }
 
-                    VBox.setMargin(notificationBox, new javafx.geometry.Insets(0, 0, 0, 0));
+        VBox notificationBox = new VBox();
+        notificationBox.setPrefHeight(30);
+        notificationBox.setMinHeight(30);
+        notificationBox.setMaxHeight(30);
+        notificationBox.setStyle("-fx-background-color: #0E1D47; -fx-background-radius: 7; -fx-padding: 1 1 1 1; -fx-margin: 0;");
 
-                    HBox hBox = new HBox(8);
-                    hBox.setFillHeight(true);
-                    hBox.setStyle("-fx-alignment: CENTER_LEFT; -fx-padding: 0 9 0 9;");
+        VBox.setMargin(notificationBox, new javafx.geometry.Insets(0, 0, 0, 0));
 
-                    ImageView imageView = createNotificationIcon(iconPath);
+        HBox hBox = new HBox(8);
+        hBox.setFillHeight(true);
+        hBox.setStyle("-fx-alignment: CENTER_LEFT; -fx-padding: 0 9 0 9;");
 
-                    Label label = new Label(activity);
-                    label.setStyle("-fx-text-fill: white; -fx-font-size: 14px; -fx-font-family: 'Arial';");
+        ImageView imageView = createNotificationIcon(iconPath);
 
-                    hBox.getChildren().addAll(imageView, label);
-                    notificationBox.getChildren().add(hBox);
+        Label label = new Label(activity);
+        label.setStyle("-fx-text-fill: white; -fx-font-size: 14px; -fx-font-family: 'Arial';");
 
-                    recent.getChildren().add(notificationBox);
-                }
+        hBox.getChildren().addAll(imageView, label);
+        notificationBox.getChildren().add(hBox);
+        return notificationBox;
+    }
 
-                // Configure scrolling if needed
-                if (recent.getParent() instanceof ScrollPane scrollPane) {
-                    scrollPane.setFitToWidth(true);
-                    scrollPane.setFitToHeight(false);
-                    scrollPane.setPannable(true);
-                    scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-                }
-            }
+    private void loadNotificationsFromDatabase() {
+        try {
+            showActivities(DashboardQueries.activities());
         } catch (Exception e) {
             e.printStackTrace();
-        } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
+        }
+    }
+
+    private void showActivities(List<String> activities) {
+        for (String activity : activities) {
+            recent.getChildren().add(createActivityBox(activity));
+        }
+
+        // Configure scrolling if needed
+        if (recent.getParent() instanceof ScrollPane scrollPane) {
+            scrollPane.setFitToWidth(true);
+            scrollPane.setFitToHeight(false);
+            scrollPane.setPannable(true);
+            scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
         }
     }
     
@@ -1590,81 +1843,151 @@ public class dashboardController {
 
 
     private void updateStockNotifications() {
-        ComboBox<String> stocksCombo = (ComboBox<String>) borderpane.lookup("#stocks");
-        ComboBox<String> monthCombo = (ComboBox<String>) borderpane.lookup("#month");
-
-        if (stocksCombo == null || monthCombo == null || recent1 == null) {
+        if (stocks == null || month == null || recent1 == null) {
             return;
         }
 
-        // Get the threshold value and month
-        int threshold;
         try {
-            threshold = Integer.parseInt(stocksCombo.getValue());
-        } catch (NumberFormatException e) {
-            threshold = 1000; // Default value
+            showLowStockItems(DashboardQueries.lowStock(getLowStockMonthColumn(), getLowStockThreshold()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            lowStockItems.clear();
+            renderLowStockItems();
+        }
+    }
+
+    private void showLowStockItems(List<Inventory_management_bin> items) {
+        lowStockItems.clear();
+        for (Inventory_management_bin item : items) {
+            lowStockItems.put(item.getItem_code(), item);
         }
-        String selectedMonth = monthCombo.getValue().toLowerCase().substring(0, 3);
+        renderLowStockItems();
+    }
 
-        // Clear existing notifications
+    // Rebuilds the critical stocks panel from lowStockItems, lowest stock first
+    private void renderLowStockItems() {
         recent1.getChildren().clear();
 
-        Connection connect = null;
-        try {
-            // Query to get stock levels for the selected month, joining with item descriptions
-            String sql = String.format(
-                "SELECT s.item_code, s.%s1 as stock_level, so.item_description, so.volume " +
-                "FROM stock_onhand s " +
-                "JOIN sale_offtake so ON s.item_code = so.item_code " +
-                "WHERE s.%s1 <= ? " +
-                "ORDER BY s.%s1 ASC",
-                selectedMonth, selectedMonth, selectedMonth
-            );
+        List<Inventory_management_bin> items = new ArrayList<>(lowStockItems.values());
+        items.sort(Comparator.comparingInt(Inventory_management_bin::getSoh));
+        for (Inventory_management_bin item : items) {
+            // Create notification box
+            VBox notificationBox = new VBox();
+            notificationBox.setPrefHeight(30);
+            notificationBox.setMinHeight(30);
+            notificationBox.setMaxHeight(30);
+            notificationBox.setStyle("-fx-background-color: #0E1D47; -fx-background-radius: 7; -fx-padding: 1 1 1 1;");
 
-            Object[] result = database_utility.query(sql, threshold);
-            if (result != null) {
-                connect = (Connection) result[0];
-                ResultSet rs = (ResultSet) result[1];
+            HBox hBox = new HBox(8);
+            hBox.setFillHeight(true);
+            hBox.setStyle("-fx-alignment: CENTER_LEFT; -fx-padding: 0 9 0 9;");
 
-                while (rs.next()) {
-                    int stockLevel = rs.getInt("stock_level");
-                    String description = rs.getString("item_description");
-                    int volume = rs.getInt("volume");
+            ImageView imageView = new ImageView(new Image(getClass().getResource("/images/stocks.png").toExternalForm()));
+            imageView.setFitHeight(22);
+            imageView.setFitWidth(22);
+            imageView.setPreserveRatio(true);
 
-                    // Create notification box
-                    VBox notificationBox = new VBox();
-                    notificationBox.setPrefHeight(30);
-                    notificationBox.setMinHeight(30);
-                    notificationBox.setMaxHeight(30);
-                    notificationBox.setStyle("-fx-background-color: #0E1D47; -fx-background-radius: 7; -fx-padding: 1 1 1 1;");
+            String notificationText = item.getVolume() + " mL " + item.getItem_des() + " has " + item.getSoh() + " stocks";
+            Label label = new Label(notificationText);
+            label.setStyle("-fx-text-fill: white; -fx-font-size: 14px; -fx-font-family: 'Arial';");
 
-                    HBox hBox = new HBox(8);
-                    hBox.setFillHeight(true);
-                    hBox.setStyle("-fx-alignment: CENTER_LEFT; -fx-padding: 0 9 0 9;");
+            hBox.getChildren().addAll(imageView, label);
+            notificationBox.getChildren().add(hBox);
 
-                    ImageView imageView = new ImageView(new Image(getClass().getResource("/images/stocks.png").toExternalForm()));
-                    imageView.setFitHeight(22);
-                    imageView.setFitWidth(22);
-                    imageView.setPreserveRatio(true);
+            // Add margin between notifications
+            VBox.setMargin(notificationBox, new javafx.geometry.Insets(0, 0, 5, 0));
 
-                    String notificationText = volume + " mL " + description + " has " + stockLevel + " stocks";
-                    Label label = new Label(notificationText);
-                    label.setStyle("-fx-text-fill: white; -fx-font-size: 14px; -fx-font-family: 'Arial';");
+            // Add to container
+            recent1.getChildren().add(notificationBox);
+        }
+    }
 
-                    hBox.getChildren().addAll(imageView, label);
-                    notificationBox.getChildren().add(hBox);
+    // Month column ("jan".."dec") the critical stocks panel shows
+    String getLowStockMonthColumn() {
+        if (month != null && month.getValue() != null) {
+            return month.getValue().toLowerCase().substring(0, 3);
+        }
+        return getSelectedMonthColumn();
+    }
 
-                    // Add margin between notifications
-                    VBox.setMargin(notificationBox, new javafx.geometry.Insets(0, 0, 5, 0));
+    private int getLowStockThreshold() {
+        try {
+            return Integer.parseInt(stocks.getValue());
+        } catch (Exception e) {
+            return DEFAULT_LOW_STOCK_THRESHOLD;
+        }
+    }
 
-                    // Add to container
-                    recent1.getChildren().add(notificationBox);
+    /**
+     * Patches changes made on other terminals into the inventory table, the critical stocks
+     * panel and recent activities. Rows read for a month that's no longer selected are dropped;
+     * switching month already reloaded that view.
+     */
+    void applyLiveChanges(String inventoryMonth, Map<Integer, Inventory_management_bin> inventoryRows,
+                          String lowStockMonth, Map<Integer, Inventory_management_bin> lowStockRows,
+                          Set<Integer> removed, List<String> activities) {
+        String term = searchField != null && searchField.getText() != null ? searchField.getText() : "";
+        if (inventoryMonth.equals(getSelectedMonthColumn()) && (!inventoryRows.isEmpty() || !removed.isEmpty())) {
+            Map<Integer, Inventory_management_bin> pending = new HashMap<>(inventoryRows);
+            for (int i = inventory_management_table.size() - 1; i >= 0; i--) {
+                Inventory_management_bin current = inventory_management_table.get(i);
+                if (removed.contains(current.getItem_code())) {
+                    inventory_management_table.remove(i);
+                    continue;
+                }
+                Inventory_management_bin updated = pending.remove(current.getItem_code());
+                if (updated == null) continue;
+                // An edit can take a row out of the search results
+                if (!DashboardQueries.matchesSearch(updated, term)) {
+                    inventory_management_table.remove(i);
+                } else {
+                    updated.setSelected(current.getSelected());
+                    inventory_management_table.set(i, updated);
+                }
+            }
+            for (Inventory_management_bin added : pending.values()) {
+                if (DashboardQueries.matchesSearch(added, term)) {
+                    inventory_management_table.add(added);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        }
+
+        if (lowStockMonth.equals(getLowStockMonthColumn()) && recent1 != null) {
+            int threshold = getLowStockThreshold();
+            for (Integer itemCode : removed) {
+                lowStockItems.remove(itemCode);
+            }
+            for (Inventory_management_bin item : lowStockRows.values()) {
+                if (item.getSoh() <= threshold) {
+                    lowStockItems.put(item.getItem_code(), item);
+                } else {
+                    lowStockItems.remove(item.getItem_code());
+                }
+            }
+            renderLowStockItems();
+        }
+
+        for (String activity : activities) {
+            recent.getChildren().add(0, createActivityBox(activity));
+        }
+    }
+
+    // Stops background work tied to this dashboard, before its window is thrown away
+    public void close() {
+        if (liveUpdates != null) {
+            liveUpdates.stop();
         }
     }
+
+    // Full reload of everything live updates patch, when changes may have been missed
+    void reloadLiveData() {
+        if (searchField != null && searchField.getText() != null && !searchField.getText().isEmpty()) {
+            performSearch(searchField.getText());
+        } else {
+            inventory_management_query();
+        }
+        updateStockNotifications();
+    }
     
     private void setupSearch() {
         // Set prompt text and style
@@ -1674,6 +1997,7 @@ public class dashboardController {
 
         // Add listener for real-time search
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+            common.UiActionEvent action = common.UiActionEvent.start("Inventory", "Search typed");
             if (newValue.isEmpty()) {
                 // If search field is empty, show all items
                 inventory_management_query();
@@ -1681,72 +2005,18 @@ public class dashboardController {
                 // Perform search with the new text
                 performSearch(newValue);
             }
+            action.finish(inventory_management_table.size(), newValue);
         });
     }
 
     private void performSearch(String searchTerm) {
-        Connection connect = null;
         try {
-            String selectedMonth = getSelectedMonthColumn();
-            String sql_query = String.format(
-                "SELECT sale_offtake.item_code, item_description, volume, category, " +
-                "sale_offtake.%s as sot, stock_onhand.%s1 as soh " +
-                "FROM sale_offtake JOIN stock_onhand ON sale_offtake.item_code = stock_onhand.item_code " +
-                "WHERE LOWER(item_description) LIKE LOWER(?) OR " +
-                "sale_offtake.item_code LIKE ? OR " +
-                "LOWER(category) LIKE LOWER(?)",
-                selectedMonth, selectedMonth
-            );
-
-            Object[] result_from_query = database_utility.query(sql_query, 
-                "%" + searchTerm + "%",
-                "%" + searchTerm + "%",
-                "%" + searchTerm + "%"
-            );
-
-            if (result_from_query != null) {
-                connect = (Connection) result_from_query[0];
-                ResultSet result = (ResultSet) result_from_query[1];
-
-                ObservableList<Inventory_management_bin> items = FXCollections.observableArrayList();
-                while (result.next()) {
-                    items.add(new Inventory_management_bin(
-                        result.getInt("item_code"),
-                        result.getString("item_description"),
-                        result.getInt("volume"),
-                        result.getString("category"),
-                        result.getInt("sot"),
-                        result.getInt("soh")
-                    ));
-                }
-
-                inventory_management_table.setAll(items);
-                inventory_table.refresh();
-
-                // Show search results count
-                String resultText = items.size() + " item" + (items.size() != 1 ? "s" : "") + " found";
-                Tooltip tooltip = new Tooltip(resultText);
-                searchField.setTooltip(tooltip);
-                tooltip.show(searchField, 
-                    searchField.localToScreen(searchField.getBoundsInLocal()).getMinX(),
-                    searchField.localToScreen(searchField.getBoundsInLocal()).getMaxY());
-                
-                // Hide tooltip after 2 seconds
-                Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), 
-                    ae -> tooltip.hide()));
-                timeline.play();
-            }
+            showSearchResults(DashboardQueries.search(searchTerm, getSelectedMonthColumn()));
         } catch (Exception e) {
             e.printStackTrace();
             showErrorAlert("Search Error", "Failed to perform search: " + e.getMessage());
-
-        } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
         }
 
-
         // Configure scrolling
         if (notifScrollPane != null) {
             notifScrollPane.setFitToWidth(true);
@@ -1756,6 +2026,24 @@ public class dashboardController {
         }
     }
 
+    private void showSearchResults(List<Inventory_management_bin> items) {
+        inventory_management_table.setAll(items);
+        inventory_table.refresh();
+
+        // Show search results count
+        String resultText = items.size() + " item" + (items.size() != 1 ? "s" : "") + " found";
+        Tooltip tooltip = new Tooltip(resultText);
+        searchField.setTooltip(tooltip);
+        tooltip.show(searchField, 
+            searchField.localToScreen(searchField.getBoundsInLocal()).getMinX(),
+            searchField.localToScreen(searchField.getBoundsInLocal()).getMaxY());
+        
+        // Hide tooltip after 2 seconds
+        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), 
+            ae -> tooltip.hide()));
+        timeline.play();
+    }
+
     /**
      * Adds a notification for inventory actions (add, edit, delete)
      * @param action The action performed (add, edit, delete)
@@ -1821,8 +2109,8 @@ public class dashboardController {
         Connection connect = null;
         try {
             Object[] result = database_utility.update(
-                "INSERT INTO notifications_activities (activities) VALUES (?)",
-                notificationText
+                "INSERT INTO notifications_activities (activities, terminal) VALUES (?, ?)",
+                notificationText, StockLedger.TERMINAL
             );
             if (result != null) {
                 connect = (Connection) result[0];
@@ -0,0 +1,200 @@
+package database;
+
+import forecasting.SalesHistory;
+import forecasting.SalesHistoryRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Delete, recategorize and stock adjustment for many items at once. Each operation runs in one
+ * transaction, touching the items in chunks of {@code WHERE item_code IN (...)} with ledger
+ * movements added through one JDBC batch per chunk. Cancelling rolls the whole operation back.
+ */
+public class BulkEditor {
+    private static final int CHUNK_SIZE = 500;
+
+    // One chunk's work inside the shared transaction
+    private interface ChunkAction {
+        void apply(Connection connect, List<Integer> chunk, String inList) throws SQLException;
+    }
+
+    private final String monthColumn;
+    private final YearMonth period;
+
+    public BulkEditor(String monthColumn) {
+        // Throws for anything but a month column, which is also what keeps it safe to format into SQL
+        this.period = SalesHistoryRepository.currentPeriod(monthColumn);
+        this.monthColumn = monthColumn;
+    }
+
+    /**
+     * Deletes the items. Every month's remaining balance is written off in the ledger first, so
+     * each item's audit trail ends at zero. Returns the number of items deleted.
+     */
+    public int delete(List<Integer> itemCodes, BooleanSupplier cancelled, DoubleConsumer progress) throws SQLException {
+        int[] deleted = {0};
+        run(itemCodes, cancelled, progress, (connect, chunk, inList) -> {
+            Map<Integer, int[]> balances = readYearBalances(connect, chunk, inList);
+            try (PreparedStatement batch = StockLedger.prepareBatch(connect)) {
+                for (Map.Entry<Integer, int[]> balance : balances.entrySet()) {
+                    int[] months = balance.getValue();
+                    for (int m = 0; m < months.length; m++) {
+                        if (months[m] != 0) {
+                            StockLedger.addToBatch(batch, balance.getKey(), YearMonth.of(period.getYear(), m + 1),
+                                    StockLedger.MovementType.DELETE, -months[m]);
+                        }
+                    }
+                }
+                batch.executeBatch();
+            }
+            // stock_onhand is the child table
+            executeUpdate(connect, "DELETE FROM stock_onhand WHERE item_code IN " + inList, chunk);
+            deleted[0] += executeUpdate(connect, "DELETE FROM sale_offtake WHERE item_code IN " + inList, chunk);
+        });
+        return deleted[0];
+    }
+
+    // Moves the items to another category; returns the number of items changed
+    public int recategorize(List<Integer> itemCodes, String category, BooleanSupplier cancelled,
+                            DoubleConsumer progress) throws SQLException {
+        int[] updated = {0};
+        run(itemCodes, cancelled, progress, (connect, chunk, inList) -> {
+            try (PreparedStatement statement = connect.prepareStatement(
+                    "UPDATE sale_offtake SET category = ?, version = version + 1 WHERE item_code IN " + inList)) {
+                statement.setString(1, category);
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setInt(i + 2, chunk.get(i));
+                }
+                updated[0] += statement.executeUpdate();
+            }
+        });
+        return updated[0];
+    }
+
+    /**
+     * Records the same signed adjustment for every item that still exists. Returns the items'
+     * new balances for the month, by item code.
+     */
+    public Map<Integer, Integer> adjust(List<Integer> itemCodes, int quantity, BooleanSupplier cancelled,
+                                       DoubleConsumer progress) throws SQLException {
+        Map<Integer, Integer> newBalances = new HashMap<>();
+        run(itemCodes, cancelled, progress, (connect, chunk, inList) -> {
+            Map<Integer, Integer> balances = readBalances(connect, chunk, inList);
+            try (PreparedStatement batch = StockLedger.prepareBatch(connect)) {
+                for (Map.Entry<Integer, Integer> balance : balances.entrySet()) {
+                    StockLedger.addToBatch(batch, balance.getKey(), period, StockLedger.MovementType.ADJUSTMENT, quantity);
+                    newBalances.put(balance.getKey(), balance.getValue() + quantity);
+                }
+                batch.executeBatch();
+            }
+        });
+        return newBalances;
+    }
+
+    private void run(List<Integer> itemCodes, BooleanSupplier cancelled, DoubleConsumer progress,
+                     ChunkAction action) throws SQLException {
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try {
+            connect.setAutoCommit(false);
+            for (int from = 0; from < itemCodes.size(); from += CHUNK_SIZE) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException();
+                }
+                List<Integer> chunk = itemCodes.subList(from, Math.min(from + CHUNK_SIZE, itemCodes.size()));
+                action.apply(connect, chunk, inList(chunk.size()));
+                progress.accept((double) (from + chunk.size()) / itemCodes.size());
+            }
+            // The last chunk may have taken a while; a cancel during it still rolls everything back
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            connect.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connect.rollback();
+            } catch (SQLException ignored) {
+                // The connection is being closed anyway
+            }
+            throw e;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // Live balances for the chunk's items that still exist
+    private Map<Integer, Integer> readBalances(Connection connect, List<Integer> chunk, String inList) throws SQLException {
+        Map<Integer, Integer> balances = new HashMap<>();
+        try (PreparedStatement statement = connect.prepareStatement(String.format(
+                "SELECT so.item_code, COALESCE(o.`%s1`, 0) FROM sale_offtake so " +
+                "LEFT JOIN stock_onhand_live o ON o.item_code = so.item_code WHERE so.item_code IN %s",
+                monthColumn, inList))) {
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setInt(i + 1, chunk.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return balances;
+    }
+
+    // Live balances for all twelve months, jan first, for the chunk's items that still exist
+    private static Map<Integer, int[]> readYearBalances(Connection connect, List<Integer> chunk, String inList)
+            throws SQLException {
+        StringBuilder columns = new StringBuilder();
+        for (String month : SalesHistory.MONTH_COLUMNS) {
+            columns.append(", COALESCE(o.`").append(month).append("1`, 0)");
+        }
+        Map<Integer, int[]> balances = new HashMap<>();
+        try (PreparedStatement statement = connect.prepareStatement("SELECT so.item_code" + columns +
+                " FROM sale_offtake so LEFT JOIN stock_onhand_live o ON o.item_code = so.item_code" +
+                " WHERE so.item_code IN " + inList)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setInt(i + 1, chunk.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    int[] months = new int[SalesHistory.MONTH_COLUMNS.size()];
+                    for (int m = 0; m < months.length; m++) {
+                        months[m] = rs.getInt(m + 2);
+                    }
+                    balances.put(rs.getInt(1), months);
+                }
+            }
+        }
+        return balances;
+    }
+
+    private static int executeUpdate(Connection connect, String sql, List<Integer> chunk) throws SQLException {
+        try (PreparedStatement statement = connect.prepareStatement(sql)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setInt(i + 1, chunk.get(i));
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    // "(?, ?, ...)" with one placeholder per item
+    private static String inList(int size) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+}
@@ -0,0 +1,257 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A cursor over {@code change_log}, the sequence-numbered table that triggers append to whenever
+ * an item's stock or product row changes or an activity is logged. Each terminal keeps one feed
+ * and long-polls it with {@link #next(long)}: the feed holds a single connection and repeats an
+ * index seek past its last-seen sequence number, backing off while nothing happens, so an idle
+ * terminal costs the server one primary key lookup a second instead of a table reload.
+ *
+ * <p>Sequence numbers are assigned at insert but become visible at commit, so a poll can see 12
+ * before a slower transaction commits 11. Missing numbers below the cursor are remembered and
+ * asked for again on every poll for {@value #GAP_TIMEOUT_MILLIS} ms, after which they're taken
+ * to be rolled back.
+ *
+ * <p>The embedded backend has no triggers, so its {@code change_log} stays empty and a feed on
+ * it would never report anything. The dashboard and the server don't open one there.
+ */
+public class ChangeFeed implements AutoCloseable {
+    // Beyond this many changed items a caller should reload everything rather than patch
+    public static final int MAX_ITEMS_PER_BATCH = 500;
+
+    private static final int MAX_ROWS_PER_POLL = 5000;
+    private static final long GAP_TIMEOUT_MILLIS = 30_000;
+    private static final int MAX_GAPS = 1000;
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+    private static final int RETENTION_HOURS = 24;
+    // Sequence numbers pruned at a time, so the delete never holds the log's locks for long
+    private static final int PRUNE_BATCH = 10_000;
+    private static final long MIN_POLL_MILLIS = 100;
+    private static final long MAX_POLL_MILLIS = parsePollMillis();
+
+    /** What changed since the previous batch, with repeated changes to an item collapsed. */
+    public static class Batch {
+        private final Set<Integer> changedItems = new LinkedHashSet<>();
+        private final Set<Integer> deletedItems = new LinkedHashSet<>();
+        private final List<Integer> activityIds = new ArrayList<>();
+        private boolean resync;
+
+        // Items whose stock or product row changed; fetch their current values
+        public Set<Integer> getChangedItems() {
+            return Collections.unmodifiableSet(changedItems);
+        }
+
+        public Set<Integer> getDeletedItems() {
+            return Collections.unmodifiableSet(deletedItems);
+        }
+
+        // notifications_activities ids logged by other terminals, oldest first
+        public List<Integer> getActivityIds() {
+            return Collections.unmodifiableList(activityIds);
+        }
+
+        /**
+         * True when changes may have been missed (the feed reconnected after the log was pruned
+         * past it) or there are too many to patch in; the caller should reload everything.
+         */
+        public boolean isResync() {
+            return resync || changedItems.size() > MAX_ITEMS_PER_BATCH;
+        }
+
+        public boolean isEmpty() {
+            return !resync && changedItems.isEmpty() && deletedItems.isEmpty() && activityIds.isEmpty();
+        }
+    }
+
+    private final String terminal;
+    private Connection connect;
+    private long position;
+    private boolean reconnected;
+    // Unseen sequence numbers below position -> when they were first noticed
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long lastPrune;
+
+    /**
+     * Opens a feed positioned at the current end of the log. Read the data the feed will keep
+     * up to date after this, so nothing committed in between is missed.
+     */
+    public ChangeFeed() throws SQLException {
+        this.terminal = StockLedger.TERMINAL;
+        this.connect = open();
+        try (PreparedStatement statement = connect.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM change_log");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            this.position = rs.getLong(1);
+        }
+        this.lastPrune = System.currentTimeMillis();
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Waits up to timeoutMillis for changes and returns them, or an empty batch on timeout.
+     * Connection failures are retried until the timeout; the batch after a reconnect asks for a
+     * resync if the log was pruned past this feed in the meantime.
+     */
+    public Batch next(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long interval = MIN_POLL_MILLIS;
+        while (true) {
+            try {
+                if (connect == null) {
+                    connect = open();
+                    reconnected = true;
+                }
+                Batch batch = poll();
+                pruneIfDue();
+                if (!batch.isEmpty()) {
+                    return batch;
+                }
+            } catch (SQLException e) {
+                System.err.println("Change feed poll failed: " + e.getMessage());
+                database_utility.close(connect);
+                connect = null;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return new Batch();
+            }
+            Thread.sleep(Math.min(interval, remaining));
+            interval = Math.min(interval * 2, MAX_POLL_MILLIS);
+        }
+    }
+
+    private Batch poll() throws SQLException {
+        Batch batch = new Batch();
+        if (reconnected) {
+            // Anything between position and the oldest surviving entry has been pruned unseen
+            try (PreparedStatement statement = connect.prepareStatement("SELECT MIN(seq) FROM change_log");
+                 ResultSet rs = statement.executeQuery()) {
+                if (rs.next() && rs.getLong(1) > position + 1) {
+                    batch.resync = true;
+                }
+            }
+            reconnected = false;
+        }
+
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(firstSeen -> now - firstSeen > GAP_TIMEOUT_MILLIS);
+
+        StringBuilder sql = new StringBuilder("SELECT seq, change_type, ref_id, terminal FROM change_log WHERE seq > ?");
+        if (!gaps.isEmpty()) {
+            sql.append(" OR seq IN (");
+            for (int i = 0; i < gaps.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        sql.append(" ORDER BY seq LIMIT ").append(MAX_ROWS_PER_POLL);
+
+        try (PreparedStatement statement = connect.prepareStatement(sql.toString())) {
+            int index = 1;
+            statement.setLong(index++, position);
+            for (Long gap : gaps.keySet()) {
+                statement.setLong(index++, gap);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong(1);
+                    if (seq <= position) {
+                        gaps.remove(seq);
+                    } else {
+                        for (long missing = position + 1; missing < seq && gaps.size() < MAX_GAPS; missing++) {
+                            gaps.put(missing, now);
+                        }
+                        position = seq;
+                    }
+                    add(batch, rs.getString(2), rs.getInt(3), rs.getString(4));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void add(Batch batch, String type, int refId, String from) {
+        switch (type) {
+            case "STOCK":
+            case "PRODUCT":
+                batch.deletedItems.remove(refId);
+                batch.changedItems.add(refId);
+                break;
+            case "DELETE":
+                batch.changedItems.remove(refId);
+                batch.deletedItems.add(refId);
+                break;
+            case "ACTIVITY":
+                // This terminal already showed its own activities when it logged them
+                if (!terminal.equals(from)) {
+                    batch.activityIds.add(refId);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Every terminal prunes; the deletes are cheap and idempotent
+    private void pruneIfDue() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune < PRUNE_INTERVAL_MILLIS) return;
+        lastPrune = now;
+        // A range of the primary key at a time rather than DELETE ... LIMIT, which only MySQL
+        // accepts. The cutoff uses the database's clock, which the created_at values came from.
+        try (PreparedStatement oldest = connect.prepareStatement("SELECT MIN(seq) FROM change_log");
+             PreparedStatement delete = connect.prepareStatement(
+                     "DELETE FROM change_log WHERE seq < ? AND created_at < TIMESTAMPADD(HOUR, ?, CURRENT_TIMESTAMP)")) {
+            delete.setInt(2, -RETENTION_HOURS);
+            while (true) {
+                long from;
+                try (ResultSet rs = oldest.executeQuery()) {
+                    if (!rs.next() || rs.getObject(1) == null) return;
+                    from = rs.getLong(1);
+                }
+                delete.setLong(1, from + PRUNE_BATCH);
+                // Nothing deleted means the oldest entry is itself inside the retention window
+                if (delete.executeUpdate() == 0) return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        database_utility.close(connect);
+        connect = null;
+    }
+
+    private static Connection open() throws SQLException {
+        Connection connection = database_utility.connect();
+        if (connection == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        return connection;
+    }
+
+    // CHANGE_FEED_POLL_MS caps how long an idle feed waits between polls (default 1000)
+    private static long parsePollMillis() {
+        try {
+            return Math.max(MIN_POLL_MILLIS,
+                    Long.parseLong(System.getenv().getOrDefault("CHANGE_FEED_POLL_MS", "1000")));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid CHANGE_FEED_POLL_MS, using 1000");
+            return 1000;
+        }
+    }
+}
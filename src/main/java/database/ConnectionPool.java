@@ -0,0 +1,152 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A fixed-size pool of MySQL connections for the headless server, where many request threads
+ * share the database. Borrowed connections are proxies whose {@code close()} hands the real
+ * connection back, so code written against {@link database_utility} works unchanged. On return,
+ * statements the borrower left open are closed and an open transaction is rolled back.
+ */
+class ConnectionPool {
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+    private static final int VALIDATE_TIMEOUT_SECONDS = 2;
+
+    private final Supplier<Connection> factory;
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+
+    ConnectionPool(int size, Supplier<Connection> factory) {
+        this.factory = factory;
+        this.permits = new Semaphore(size, true);
+    }
+
+    Connection acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out waiting for a pooled database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a pooled database connection", e);
+        }
+        try {
+            Connection connection = takeIdle();
+            if (connection == null) {
+                connection = factory.get();
+                if (connection == null) {
+                    throw new SQLException("Could not establish database connection");
+                }
+            }
+            return lease(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // An idle connection that still answers, discarding any the server has dropped
+    private Connection takeIdle() {
+        while (true) {
+            Connection connection;
+            synchronized (idle) {
+                connection = idle.pollFirst();
+            }
+            if (connection == null) return null;
+            try {
+                if (connection.isValid(VALIDATE_TIMEOUT_SECONDS)) return connection;
+            } catch (SQLException ignored) {
+                // fall through and discard
+            }
+            closeQuietly(connection);
+        }
+    }
+
+    private void release(Connection connection, List<Statement> statements) {
+        try {
+            for (Statement statement : statements) {
+                statement.close();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            synchronized (idle) {
+                idle.addFirst(connection);
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection lease(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Lease(connection));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // already gone
+        }
+    }
+
+    // One borrowing of a connection; usable until closed, then every call fails
+    private class Lease implements InvocationHandler {
+        private final Connection connection;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean returned;
+
+        Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(connection, statements);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            try {
+                Object result = method.invoke(connection, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
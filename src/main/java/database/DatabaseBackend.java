@@ -0,0 +1,37 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where {@link database_utility} gets its connections from. {@code DB_BACKEND} picks one at
+ * startup: {@code mysql} (the default) is the shared server every terminal normally uses, and
+ * {@code embedded} is an in-process database with the same schema, for benchmarks and load
+ * tests that shouldn't measure the network, and for running a terminal with no server at all.
+ */
+public interface DatabaseBackend {
+    /** A short name for logs and reports, e.g. "mysql". */
+    String name();
+
+    /** A new connection, never null. */
+    Connection open() throws SQLException;
+
+    /** True when the database lives in this process and no other terminal can see its changes. */
+    boolean isEmbedded();
+
+    /** The fetch size that makes the driver stream a result set row by row instead of buffering it. */
+    int streamingFetchSize();
+
+    static DatabaseBackend fromEnvironment() {
+        String name = System.getenv().getOrDefault("DB_BACKEND", "mysql");
+        switch (name.toLowerCase()) {
+            case "embedded":
+                return new EmbeddedBackend(System.getenv("DB_EMBEDDED_PATH"));
+            case "mysql":
+                return new MySqlBackend();
+            default:
+                System.err.println("Unknown DB_BACKEND " + name + ", using mysql");
+                return new MySqlBackend();
+        }
+    }
+}
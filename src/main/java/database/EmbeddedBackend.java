@@ -0,0 +1,108 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An H2 database inside this process, in its MySQL compatibility mode so the application's SQL
+ * runs unchanged. With no path it lives in memory and is gone when the process exits; with
+ * DB_EMBEDDED_PATH it's kept in that file, so a terminal can run on its own between restarts.
+ * An empty database gets {@code embedded_schema.sql} on the first connect: the tables, the
+ * {@code stock_onhand_live} view and the sample catalogue.
+ *
+ * <p>The server's triggers that feed {@code change_log} aren't recreated, since H2 triggers are
+ * Java classes; no other terminal shares an embedded database, so there's nothing to announce.
+ */
+final class EmbeddedBackend implements DatabaseBackend {
+    private static final String SCHEMA = "/database/embedded_schema.sql";
+    private static final String OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+
+    private final String url;
+    private volatile boolean initialised;
+
+    EmbeddedBackend(String path) {
+        // DB_CLOSE_DELAY keeps the in-memory database alive between connections
+        this.url = path == null || path.isBlank()
+                ? "jdbc:h2:mem:inventory_management_system_database" + OPTIONS + ";DB_CLOSE_DELAY=-1"
+                : "jdbc:h2:file:" + path + OPTIONS;
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("H2 JDBC Driver not found.");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "embedded";
+    }
+
+    @Override
+    public Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, "sa", "");
+        if (!initialised) {
+            try {
+                initialise(connection);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+
+    private synchronized void initialise(Connection connection) throws SQLException {
+        if (initialised) return;
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, "sale_offtake", null)) {
+            if (!tables.next()) {
+                System.out.println("Creating embedded database at " + url);
+                runScript(connection);
+            }
+        }
+        initialised = true;
+    }
+
+    // Runs the schema script one statement at a time; statements end with a semicolon at the end of a line
+    private static void runScript(Connection connection) throws SQLException {
+        InputStream script = EmbeddedBackend.class.getResourceAsStream(SCHEMA);
+        if (script == null) {
+            throw new SQLException("Embedded schema " + SCHEMA + " not found");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(script, StandardCharsets.UTF_8));
+             Statement statement = connection.createStatement()) {
+            StringBuilder sql = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+                sql.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    statement.execute(sql.substring(0, sql.lastIndexOf(";")));
+                    sql.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to read embedded schema", e);
+        }
+    }
+
+    @Override
+    public boolean isEmbedded() {
+        return true;
+    }
+
+    @Override
+    public int streamingFetchSize() {
+        // H2 has no streaming signal and rejects negative sizes; 0 leaves the driver's default
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * The shared MySQL server, at DB_HOST:DB_PORT/DB_NAME, falling back to the Docker container's
+ * address when it isn't reachable on that host.
+ */
+final class MySqlBackend implements DatabaseBackend {
+    private static final String database_url = String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false&serverTimezone=UTC&useUnicode=true&characterEncoding=UTF-8&rewriteBatchedStatements=true",
+            System.getenv().getOrDefault("DB_HOST", "localhost"),
+            System.getenv().getOrDefault("DB_PORT", "3306"),
+            System.getenv().getOrDefault("DB_NAME", "inventory_management_system_database"));
+    private static final String docker_url = "jdbc:mysql://172.27.0.2:3306/inventory_management_system_database?allowPublicKeyRetrieval=true&useSSL=false&serverTimezone=UTC&rewriteBatchedStatements=true";
+    private static final String database_username = System.getenv().getOrDefault("DB_USER", "root");
+    private static final String database_password = System.getenv().getOrDefault("DB_PASS", "computerengineering");
+
+    // The connection details are printed on the first connect rather than every one
+    private volatile boolean announced;
+
+    MySqlBackend() {
+        try {
+            // Register the MySQL JDBC driver
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("MySQL JDBC Driver not found.");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "mysql";
+    }
+
+    @Override
+    public Connection open() throws SQLException {
+        boolean verbose = !announced;
+        if (verbose) {
+            System.out.println("Attempting to connect to database with URL: " + database_url);
+            System.out.println("Username: " + database_username);
+        }
+
+        // Try to connect with localhost first
+        try {
+            Connection connection = DriverManager.getConnection(database_url, database_username, database_password);
+            if (connection != null && connection.isValid(5)) {
+                if (verbose) {
+                    System.out.println("Successfully connected to database using localhost!");
+                    announced = true;
+                }
+                return connection;
+            }
+        } catch (Exception e) {
+            System.out.println("Could not connect using localhost, trying Docker container IP...");
+        }
+
+        // If localhost fails, try Docker container IP
+        Connection dockerConnection = DriverManager.getConnection(docker_url, database_username, database_password);
+        if (dockerConnection == null || !dockerConnection.isValid(5)) {
+            throw new SQLException("Database connection failed");
+        }
+        if (verbose) {
+            System.out.println("Successfully connected to database using Docker container IP!");
+            announced = true;
+        }
+        return dockerConnection;
+    }
+
+    @Override
+    public boolean isEmbedded() {
+        return false;
+    }
+
+    @Override
+    public int streamingFetchSize() {
+        // Connector/J's signal for a row-at-a-time result set
+        return Integer.MIN_VALUE;
+    }
+}
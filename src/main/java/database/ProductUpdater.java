@@ -0,0 +1,289 @@
+package database;
+
+import forecasting.SalesHistoryRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Saves product edits with optimistic concurrency. The form's edits are compared field by field
+ * with the values it loaded (the base) and with what's in the database now; fields only one
+ * side changed are merged, and a field both sides changed to different values is a conflict.
+ * The {@code sale_offtake} row is written with a compare-and-set on its {@code version} column
+ * and the whole merge retried if another write lands in between.
+ *
+ * <p>Stock on hand lives in the stock ledger, so it never conflicts: an edited balance is applied
+ * as an adjustment of (edited - base) on top of whatever sales, receipts or other edits were
+ * recorded while the form was open. The adjustment commits in the same transaction as the
+ * compare-and-set, so a lost race never leaves one without the other.
+ */
+public class ProductUpdater {
+    public static final String DESCRIPTION = "Description";
+    public static final String VOLUME = "Volume";
+    public static final String CATEGORY = "Category";
+    public static final String SALES_OFFTAKE = "Sales Offtake";
+    public static final String STOCK_ON_HAND = "Stocks on Hand";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * One product's editable fields for a month. Snapshots read by {@link #load} carry the
+     * {@code sale_offtake} row version; form values use -1.
+     */
+    public static class Snapshot {
+        private final int itemCode;
+        private final String description;
+        private final int volume;
+        private final String category;
+        private final int salesOfftake;
+        private final int stockOnHand;
+        private final int version;
+
+        public Snapshot(int itemCode, String description, int volume, String category,
+                        int salesOfftake, int stockOnHand, int version) {
+            this.itemCode = itemCode;
+            this.description = description;
+            this.volume = volume;
+            this.category = category;
+            this.salesOfftake = salesOfftake;
+            this.stockOnHand = stockOnHand;
+            this.version = version;
+        }
+
+        public int getItemCode() {
+            return itemCode;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getVolume() {
+            return volume;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getSalesOfftake() {
+            return salesOfftake;
+        }
+
+        public int getStockOnHand() {
+            return stockOnHand;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String valueOf(String field) {
+            switch (field) {
+                case DESCRIPTION: return description;
+                case VOLUME: return String.valueOf(volume);
+                case CATEGORY: return category;
+                case SALES_OFFTAKE: return String.valueOf(salesOfftake);
+                case STOCK_ON_HAND: return String.valueOf(stockOnHand);
+                default: throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+
+        // Fields whose values differ from other's, by display name
+        List<String> diff(Snapshot other) {
+            List<String> fields = new ArrayList<>();
+            if (!Objects.equals(description, other.description)) fields.add(DESCRIPTION);
+            if (volume != other.volume) fields.add(VOLUME);
+            if (!Objects.equals(category, other.category)) fields.add(CATEGORY);
+            if (salesOfftake != other.salesOfftake) fields.add(SALES_OFFTAKE);
+            if (stockOnHand != other.stockOnHand) fields.add(STOCK_ON_HAND);
+            return fields;
+        }
+    }
+
+    public static class Result {
+        public enum Status {
+            // Saved; nobody else had changed the product
+            UPDATED,
+            // Saved, keeping other users' changes to fields this edit didn't touch
+            MERGED,
+            // Not saved; see getConflicts() and getCurrent()
+            CONFLICT,
+            // The product has been deleted
+            NOT_FOUND
+        }
+
+        private final Status status;
+        private final List<String> conflicts;
+        private final Snapshot current;
+        private final boolean salesOfftakeChanged;
+
+        Result(Status status, List<String> conflicts, Snapshot current, boolean salesOfftakeChanged) {
+            this.status = status;
+            this.conflicts = Collections.unmodifiableList(conflicts);
+            this.current = current;
+            this.salesOfftakeChanged = salesOfftakeChanged;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isSaved() {
+            return status == Status.UPDATED || status == Status.MERGED;
+        }
+
+        // Fields changed both here and elsewhere, by display name
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+
+        // e.g. "Volume (now 500), Stocks on Hand (now 90)"
+        public String describeConflicts() {
+            StringBuilder text = new StringBuilder();
+            for (String field : conflicts) {
+                if (text.length() > 0) text.append(", ");
+                text.append(field);
+                if (current != null) text.append(" (now ").append(current.valueOf(field)).append(')');
+            }
+            return text.toString();
+        }
+
+        // The product as last read from the database, null if it was deleted
+        public Snapshot getCurrent() {
+            return current;
+        }
+
+        // Whether this edit wrote a new sales offtake, so history needs updating
+        public boolean isSalesOfftakeChanged() {
+            return salesOfftakeChanged;
+        }
+    }
+
+    private final StockLedger ledger = new StockLedger();
+
+    public Result update(Snapshot base, Snapshot edited, String monthColumn) throws SQLException {
+        YearMonth period = SalesHistoryRepository.currentPeriod(monthColumn);
+        List<String> ours = edited.diff(base);
+        Snapshot current = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            current = load(base.getItemCode(), monthColumn);
+            if (current == null) {
+                return new Result(Result.Status.NOT_FOUND, List.of(), null, false);
+            }
+            List<String> theirs = current.diff(base);
+
+            List<String> conflicts = new ArrayList<>();
+            for (String field : ours) {
+                if (!field.equals(STOCK_ON_HAND) && theirs.contains(field) && edited.diff(current).contains(field)) {
+                    conflicts.add(field);
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                return new Result(Result.Status.CONFLICT, conflicts, current, false);
+            }
+
+            if (save(base, edited, current, ours, monthColumn, period)) {
+                Result.Status status = theirs.isEmpty() ? Result.Status.UPDATED : Result.Status.MERGED;
+                return new Result(status, List.of(), current, ours.contains(SALES_OFFTAKE));
+            }
+        }
+        // Lost the compare-and-set every time; report it as a conflict on everything we changed
+        return new Result(Result.Status.CONFLICT, ours, current, false);
+    }
+
+    // The offtake row and any stock adjustment in one transaction; false if the version moved
+    private boolean save(Snapshot base, Snapshot edited, Snapshot current, List<String> ours,
+                         String monthColumn, YearMonth period) throws SQLException {
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try {
+            connect.setAutoCommit(false);
+            if (!writeOfftake(connect, edited, current, ours, monthColumn)) {
+                connect.rollback();
+                return false;
+            }
+            if (ours.contains(STOCK_ON_HAND)) {
+                ledger.record(connect, base.getItemCode(), period, StockLedger.MovementType.ADJUSTMENT,
+                        edited.getStockOnHand() - base.getStockOnHand());
+            }
+            connect.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            connect.rollback();
+            throw e;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // The sale_offtake row with our changes over the current values; false if the version moved
+    private static boolean writeOfftake(Connection connect, Snapshot edited, Snapshot current, List<String> ours,
+                                        String monthColumn) throws SQLException {
+        String description = ours.contains(DESCRIPTION) ? edited.description : current.description;
+        int volume = ours.contains(VOLUME) ? edited.volume : current.volume;
+        String category = ours.contains(CATEGORY) ? edited.category : current.category;
+        int salesOfftake = ours.contains(SALES_OFFTAKE) ? edited.salesOfftake : current.salesOfftake;
+
+        try (PreparedStatement statement = connect.prepareStatement(String.format(
+                "UPDATE sale_offtake SET item_description = ?, volume = ?, category = ?, `%s` = ?, version = version + 1 " +
+                "WHERE item_code = ? AND version = ?", monthColumn))) {
+            statement.setString(1, description);
+            statement.setInt(2, volume);
+            statement.setString(3, category);
+            statement.setInt(4, salesOfftake);
+            statement.setInt(5, current.itemCode);
+            statement.setInt(6, current.version);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * What the form should show after a conflict, ready to save again with {@code current} as the
+     * new base. Conflicting fields and fields the user didn't touch take the current values, the
+     * user's other edits are kept, and stock on hand is the current balance plus the user's own
+     * change to it, so saving again neither undoes nor repeats what was recorded meanwhile.
+     */
+    public static Snapshot rebase(Snapshot base, Snapshot edited, Snapshot current, List<String> conflicts) {
+        List<String> kept = edited.diff(base);
+        kept.removeAll(conflicts);
+        return new Snapshot(current.itemCode,
+                kept.contains(DESCRIPTION) ? edited.description : current.description,
+                kept.contains(VOLUME) ? edited.volume : current.volume,
+                kept.contains(CATEGORY) ? edited.category : current.category,
+                kept.contains(SALES_OFFTAKE) ? edited.salesOfftake : current.salesOfftake,
+                current.stockOnHand + edited.stockOnHand - base.stockOnHand,
+                -1);
+    }
+
+    public Snapshot load(int itemCode, String monthColumn) throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(String.format(
+                    "SELECT s.item_description, s.volume, s.category, s.`%1$s`, o.`%1$s1`, s.version " +
+                    "FROM sale_offtake s LEFT JOIN stock_onhand_live o ON o.item_code = s.item_code " +
+                    "WHERE s.item_code = ?", monthColumn), itemCode);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (!rs.next()) {
+                return null;
+            }
+            return new Snapshot(itemCode, rs.getString(1), rs.getInt(2), rs.getString(3),
+                    rs.getInt(4), rs.getInt(5), rs.getInt(6));
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package database;
+
+import common.LatencyHistogram;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latency, row and error counts for every statement run through {@link database_utility}, grouped
+ * by statement template (the SQL with literals and IN lists folded), plus the time taken to get a
+ * connection. Statements slower than {@code DB_SLOW_QUERY_MS} (default 250) are logged as they
+ * happen. Setting {@code DB_STATS_INTERVAL_SECONDS} (default 0, off) logs a summary that often
+ * and at exit. The server serves the same figures at {@code /api/stats} either way, and each
+ * statement is also a Flight Recorder event.
+ */
+public final class QueryStats {
+    // Everything recorded for one statement template
+    private static final class Template {
+        final String sql;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        Template(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    // Keeps a burst of generated SQL from growing the table without bound
+    private static final int MAX_TEMPLATES = 500;
+    private static final String OVERFLOW_TEMPLATE = "(other statements)";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+
+    private static final long SLOW_QUERY_MICROS = setting("DB_SLOW_QUERY_MS", 250) * 1000;
+    private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+    // Raw SQL to its template, so the regexes run once per distinct statement rather than per call.
+    // Statements with literals inlined are all distinct; past the cap they're normalized each time.
+    private static final int MAX_CACHED_STATEMENTS = 5000;
+    private static final Map<String, Template> BY_SQL = new ConcurrentHashMap<>();
+    private static final LatencyHistogram ACQUIRE = new LatencyHistogram();
+    private static final LongAdder ACQUIRE_ERRORS = new LongAdder();
+    private static final System.Logger LOG = System.getLogger(QueryStats.class.getName());
+
+    static {
+        long interval = setting("DB_STATS_INTERVAL_SECONDS", 0);
+        if (interval > 0) {
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "query-stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(QueryStats::logSummary, interval, interval, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(QueryStats::logSummary, "query-stats-exit"));
+        }
+    }
+
+    private QueryStats() {
+    }
+
+    static long start() {
+        return System.nanoTime();
+    }
+
+    // Starts timing a statement, both here and as a Flight Recorder event
+    static StatementEvent startStatement() {
+        StatementEvent event = new StatementEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    // Time taken to get a connection, from the pool or a fresh login
+    static void recordAcquire(long startNanos, boolean failed) {
+        ACQUIRE.record((System.nanoTime() - startNanos) / 1000);
+        if (failed) {
+            ACQUIRE_ERRORS.increment();
+        }
+    }
+
+    // A statement's execution time; rows may be -1 when they're counted later as they're read
+    static void recordStatement(String sql, StatementEvent event, long rows, boolean failed) {
+        long micros = (System.nanoTime() - event.startNanos) / 1000;
+        Template template = templateFor(sql);
+        event.end();
+        if (event.shouldCommit()) {
+            event.sqlTemplate = template.sql;
+            event.rows = rows;
+            event.failed = failed;
+            event.commit();
+        }
+        template.latency.record(micros);
+        if (rows > 0) {
+            template.rows.add(rows);
+        }
+        if (failed) {
+            template.errors.increment();
+        }
+        if (micros >= SLOW_QUERY_MICROS) {
+            // The template only: parameters can hold passwords
+            System.err.println(String.format("Slow query (%d ms%s): %s", micros / 1000,
+                    failed ? ", failed" : "", template.sql));
+        }
+    }
+
+    /**
+     * Wraps a query's result set so each row read through it is added to the statement's row
+     * count as it's read, whether or not the caller reaches the end or closes it.
+     */
+    static ResultSet countRows(String sql, ResultSet result) {
+        Template template = templateFor(sql);
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value;
+                    try {
+                        value = method.invoke(result, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (Boolean.TRUE.equals(value) && method.getName().equals("next")) {
+                        template.rows.increment();
+                    }
+                    return value;
+                });
+    }
+
+    /** One map per statement template, slowest total time first, for reports and the server. */
+    public static List<Map<String, Object>> snapshot() {
+        List<Template> templates = new ArrayList<>(TEMPLATES.values());
+        templates.sort(Comparator.comparingDouble((Template t) -> t.latency.mean() * t.latency.count()).reversed());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(describe("(connection acquire)", ACQUIRE, 0, ACQUIRE_ERRORS.sum()));
+        for (Template template : templates) {
+            rows.add(describe(template.sql, template.latency, template.rows.sum(), template.errors.sum()));
+        }
+        return rows;
+    }
+
+    /** The snapshot as a text table, latencies in milliseconds. */
+    public static String summary() {
+        StringBuilder text = new StringBuilder(String.format("%8s %6s %10s %9s %9s %9s %9s  %s%n",
+                "calls", "errors", "rows", "p50", "p90", "p99", "max", "statement"));
+        for (Map<String, Object> row : snapshot()) {
+            text.append(String.format("%8d %6d %10d %9.1f %9.1f %9.1f %9.1f  %s%n",
+                    row.get("calls"), row.get("errors"), row.get("rows"), row.get("p50Ms"), row.get("p90Ms"),
+                    row.get("p99Ms"), row.get("maxMs"), row.get("statement")));
+        }
+        return text.toString();
+    }
+
+    private static void logSummary() {
+        if (ACQUIRE.count() == 0 && TEMPLATES.isEmpty()) return;
+        LOG.log(System.Logger.Level.INFO, "Database statistics\n" + summary());
+    }
+
+    private static Map<String, Object> describe(String sql, LatencyHistogram latency, long rows, long errors) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("statement", sql);
+        row.put("calls", latency.count());
+        row.put("errors", errors);
+        row.put("rows", rows);
+        row.put("meanMs", latency.mean() / 1000.0);
+        row.put("p50Ms", latency.percentile(50) / 1000.0);
+        row.put("p90Ms", latency.percentile(90) / 1000.0);
+        row.put("p99Ms", latency.percentile(99) / 1000.0);
+        row.put("maxMs", latency.max() / 1000.0);
+        return row;
+    }
+
+    private static Template templateFor(String sql) {
+        Template template = BY_SQL.get(sql);
+        if (template != null) {
+            return template;
+        }
+        String normalized = template(sql);
+        template = TEMPLATES.get(normalized);
+        if (template == null) {
+            String key = TEMPLATES.size() < MAX_TEMPLATES ? normalized : OVERFLOW_TEMPLATE;
+            template = TEMPLATES.computeIfAbsent(key, Template::new);
+        }
+        if (BY_SQL.size() < MAX_CACHED_STATEMENTS) {
+            BY_SQL.put(sql, template);
+        }
+        return template;
+    }
+
+    /** The statement's template: "... IN (?, ?, ?) AND code = 42" becomes "... IN (?, ...) AND code = ?". */
+    public static String template(String sql) {
+        String text = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        text = IN_LIST.matcher(text).replaceAll("(?, ...)");
+        text = STRING_LITERAL.matcher(text).replaceAll("?");
+        return NUMBER_LITERAL.matcher(text).replaceAll("?");
+    }
+
+    private static long setting(String name, long defaultValue) {
+        try {
+            return Long.parseLong(System.getenv().getOrDefault(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
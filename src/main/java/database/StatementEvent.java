@@ -0,0 +1,27 @@
+package database;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One JDBC statement run through {@link database_utility}, recorded by {@link QueryStats}. */
+@Name("inventory.JdbcStatement")
+@Label("JDBC Statement")
+@Category({"Inventory", "Data"})
+@Description("A statement's execution, excluding the time spent reading its rows")
+final class StatementEvent extends Event {
+    @Label("SQL Template")
+    String sqlTemplate;
+
+    @Label("Rows Affected")
+    @Description("Rows changed by an update; -1 for queries, whose rows are read afterwards")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    // For QueryStats' own histogram; not part of the recording
+    transient long startNanos;
+}
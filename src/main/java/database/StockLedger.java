@@ -0,0 +1,290 @@
+package database;
+
+import forecasting.SalesHistory;
+import forecasting.SalesHistoryRepository;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only ledger of stock movements. Every change to stock on hand is inserted into
+ * {@code stock_movements} as a signed quantity instead of overwriting {@code stock_onhand}, so
+ * terminals never contend on an item's row and every balance can be traced back.
+ *
+ * <p>{@code stock_onhand} serves as the snapshot: {@link #compact()} periodically folds
+ * unsnapshotted movements into it. The {@code stock_onhand_live} view adds the remaining tail
+ * to the snapshot, so reads see every committed movement whether or not it's been folded yet.
+ */
+public class StockLedger {
+    public enum MovementType {
+        RECEIPT, SALE, ADJUSTMENT, DELETE
+    }
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (item_code, period_year, period_month, movement_type, quantity, terminal) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int COMPACTION_BATCH = 1000;
+    private static final String COMPACTION_LOCK = "inventory.stock_compaction";
+    private static final String FOLD_SNAPSHOT;
+    // The same fold for the embedded backend, which has MERGE but not MySQL's multi-table UPDATE
+    private static final String FOLD_SNAPSHOT_MERGE;
+
+    static {
+        // UPDATE stock_onhand ... SET jan1 = jan1 + tail of January, ... for one snapshot's movements
+        StringBuilder sums = new StringBuilder();
+        StringBuilder sets = new StringBuilder();
+        StringBuilder mergeSets = new StringBuilder();
+        for (int m = 1; m <= 12; m++) {
+            String name = "`" + SalesHistory.MONTH_COLUMNS.get(m - 1) + "1`";
+            String column = "o." + name;
+            String sum = " = COALESCE(" + column + " + t.m" + m + ", " + column + ", t.m" + m + ')';
+            sums.append(", SUM(CASE WHEN period_month = ").append(m).append(" THEN quantity END) AS m").append(m);
+            sets.append(m > 1 ? ", " : "").append(column).append(sum);
+            mergeSets.append(m > 1 ? ", " : "").append(name).append(sum);
+        }
+        String tail = "(SELECT item_code" + sums + " FROM stock_movements WHERE snapshot_id = ? GROUP BY item_code) t";
+        FOLD_SNAPSHOT = "UPDATE stock_onhand o JOIN " + tail + " ON t.item_code = o.item_code SET " + sets;
+        FOLD_SNAPSHOT_MERGE = "MERGE INTO stock_onhand o USING " + tail +
+                " ON (t.item_code = o.item_code) WHEN MATCHED THEN UPDATE SET " + mergeSets;
+    }
+
+    /**
+     * The code for a new item. Codes are never reused: a deleted item's movements stay in the
+     * ledger, and a new item given its code would inherit them.
+     */
+    public static final String NEXT_ITEM_CODE =
+            "SELECT GREATEST((SELECT COALESCE(MAX(item_code), 0) FROM sale_offtake), " +
+            "(SELECT COALESCE(MAX(item_code), 0) FROM stock_movements)) + 1 AS next_code";
+
+    // Recorded with every movement; TERMINAL_ID if set, otherwise the host name
+    public static final String TERMINAL = resolveTerminal();
+
+    private static ScheduledExecutorService compactor;
+
+    public void record(int itemCode, YearMonth period, MovementType type, int quantity) throws SQLException {
+        Object[] result = database_utility.update(INSERT_MOVEMENT,
+                itemCode, period.getYear(), period.getMonthValue(), type.name(), quantity, TERMINAL);
+        if (result == null) {
+            throw new SQLException("Failed to record stock movement");
+        }
+        database_utility.close((Connection) result[0]);
+    }
+
+    // The same on the caller's connection, so the movement commits or rolls back with its other writes
+    public void record(Connection connect, int itemCode, YearMonth period, MovementType type, int quantity)
+            throws SQLException {
+        try (PreparedStatement statement = prepareBatch(connect)) {
+            addToBatch(statement, itemCode, period, type, quantity);
+            statement.executeBatch();
+        }
+    }
+
+    // Adds a movement to a batch on a statement prepared with prepareBatch()
+    public static void addToBatch(PreparedStatement statement, int itemCode, YearMonth period,
+                                  MovementType type, int quantity) throws SQLException {
+        statement.setInt(1, itemCode);
+        statement.setInt(2, period.getYear());
+        statement.setInt(3, period.getMonthValue());
+        statement.setString(4, type.name());
+        statement.setInt(5, quantity);
+        statement.setString(6, TERMINAL);
+        statement.addBatch();
+    }
+
+    public static PreparedStatement prepareBatch(Connection connect) throws SQLException {
+        return connect.prepareStatement(INSERT_MOVEMENT);
+    }
+
+    /**
+     * Records whatever adjustment brings the month's balance to target, e.g. after a stock
+     * count or a hand edit. Returns the adjustment, 0 if the balance already matched.
+     */
+    public int adjustTo(int itemCode, String monthColumn, int target) throws SQLException {
+        int delta = target - balance(itemCode, monthColumn);
+        if (delta != 0) {
+            record(itemCode, SalesHistoryRepository.currentPeriod(monthColumn), MovementType.ADJUSTMENT, delta);
+        }
+        return delta;
+    }
+
+    // Snapshot plus unfolded movements for one month column; 0 if the item has no stock row
+    public int balance(int itemCode, String monthColumn) throws SQLException {
+        SalesHistory.monthNumber(monthColumn); // rejects anything but a month column before it's formatted in
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    String.format("SELECT `%s1` FROM stock_onhand_live WHERE item_code = ?", monthColumn), itemCode);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    /**
+     * Folds every committed, unsnapshotted movement into {@code stock_onhand}. The tail as it
+     * stands at the start is folded in id ranges of {@value #COMPACTION_BATCH}, one transaction
+     * each, so a run never locks past the last id it saw and terminals keep appending while it
+     * works. Each range is claimed by stamping it with a new snapshot id before it's summed, so a
+     * movement that commits mid-compaction is left for the next run rather than lost.
+     *
+     * <p>Every terminal and the server schedule this, but only whichever holds the
+     * {@value #COMPACTION_LOCK} lock runs it; the others return 0 straight away.
+     *
+     * @return the number of movements folded
+     */
+    public int compact() throws SQLException {
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        // An embedded database belongs to this process alone, so there's no one to lock out
+        boolean embedded = database_utility.backend().isEmbedded();
+        try {
+            if (!embedded && !lock(connect, "SELECT GET_LOCK(?, 0)")) {
+                return 0;
+            }
+            try {
+                long lastId;
+                try (Statement statement = connect.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT MAX(id) FROM stock_movements WHERE snapshot_id IS NULL")) {
+                    lastId = rs.next() ? rs.getLong(1) : 0;
+                }
+                connect.setAutoCommit(false);
+                int folded = 0;
+                long from;
+                long after = 0;
+                while ((from = nextTailId(connect, after, lastId)) > 0) {
+                    after = Math.min(from + COMPACTION_BATCH - 1, lastId);
+                    folded += foldRange(connect, from, after, embedded);
+                }
+                return folded;
+            } catch (SQLException e) {
+                if (!connect.getAutoCommit()) {
+                    connect.rollback();
+                }
+                throw e;
+            } finally {
+                if (!embedded) {
+                    lock(connect, "SELECT RELEASE_LOCK(?)");
+                }
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // Folds the unsnapshotted movements with ids from..to in one transaction
+    private static int foldRange(Connection connect, long from, long to, boolean embedded) throws SQLException {
+        int snapshotId;
+        try (PreparedStatement insert = connect.prepareStatement(
+                "INSERT INTO stock_snapshots (movements) VALUES (0)", Statement.RETURN_GENERATED_KEYS)) {
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                snapshotId = keys.getInt(1);
+            }
+        }
+        int claimed;
+        try (PreparedStatement claim = connect.prepareStatement(
+                "UPDATE stock_movements SET snapshot_id = ? WHERE id BETWEEN ? AND ? AND snapshot_id IS NULL")) {
+            claim.setInt(1, snapshotId);
+            claim.setLong(2, from);
+            claim.setLong(3, to);
+            claimed = claim.executeUpdate();
+        }
+        if (claimed == 0) {
+            connect.rollback();
+            return 0;
+        }
+        try (PreparedStatement fold = connect.prepareStatement(embedded ? FOLD_SNAPSHOT_MERGE : FOLD_SNAPSHOT);
+             PreparedStatement count = connect.prepareStatement("UPDATE stock_snapshots SET movements = ? WHERE id = ?")) {
+            fold.setInt(1, snapshotId);
+            fold.executeUpdate();
+            count.setInt(1, claimed);
+            count.setInt(2, snapshotId);
+            count.executeUpdate();
+        }
+        connect.commit();
+        return claimed;
+    }
+
+    // The first unsnapshotted movement id in (after, last]; 0 if there's none
+    private static long nextTailId(Connection connect, long after, long last) throws SQLException {
+        try (PreparedStatement statement = connect.prepareStatement(
+                "SELECT MIN(id) FROM stock_movements WHERE snapshot_id IS NULL AND id > ? AND id <= ?")) {
+            statement.setLong(1, after);
+            statement.setLong(2, last);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // GET_LOCK / RELEASE_LOCK on the compaction lock; true if it returned 1
+    private static boolean lock(Connection connect, String sql) throws SQLException {
+        try (PreparedStatement statement = connect.prepareStatement(sql)) {
+            statement.setString(1, COMPACTION_LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    /**
+     * Compacts every STOCK_COMPACTION_SECONDS (default 60, 0 disables) on a daemon thread.
+     * Safe to call more than once.
+     */
+    public static synchronized void startCompaction() {
+        if (compactor != null) return;
+        long seconds;
+        try {
+            seconds = Long.parseLong(System.getenv().getOrDefault("STOCK_COMPACTION_SECONDS", "60"));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid STOCK_COMPACTION_SECONDS, using 60");
+            seconds = 60;
+        }
+        if (seconds <= 0) return;
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        StockLedger ledger = new StockLedger();
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                int folded = ledger.compact();
+                if (folded > 0) {
+                    System.out.println("Folded " + folded + " stock movements into stock_onhand");
+                }
+            } catch (Exception e) {
+                System.err.println("Stock ledger compaction failed: " + e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private static String resolveTerminal() {
+        String terminal = System.getenv("TERMINAL_ID");
+        if (terminal == null || terminal.isBlank()) {
+            try {
+                terminal = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                terminal = "unknown";
+            }
+        }
+        return terminal.length() > 64 ? terminal.substring(0, 64) : terminal;
+    }
+}
@@ -0,0 +1,55 @@
+package database;
+
+import forecasting.SalesHistoryRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.YearMonth;
+
+/**
+ * Receipts and sales as the Add Stocks and Sold Stocks forms record them. The server and the
+ * load harness go through here too, so every path writes the same rows: the ledger movement,
+ * and for a sale the month's offtake and the forecasting history as well.
+ */
+public final class StockMovements {
+    private StockMovements() {
+    }
+
+    public static void recordReceipt(int itemCode, String monthColumn, int quantity) throws SQLException {
+        new StockLedger().record(itemCode, SalesHistoryRepository.currentPeriod(monthColumn),
+                StockLedger.MovementType.RECEIPT, quantity);
+    }
+
+    /**
+     * Books a sale: the SALE movement, the month's offtake and the forecasting history, in one
+     * transaction so a failure part way leaves none of them written.
+     */
+    public static void recordSale(int itemCode, String monthColumn, int quantity) throws SQLException {
+        YearMonth period = SalesHistoryRepository.currentPeriod(monthColumn);
+        Connection connect = database_utility.connect();
+        if (connect == null) {
+            throw new SQLException("Failed to establish database connection");
+        }
+        try {
+            connect.setAutoCommit(false);
+            new StockLedger().record(connect, itemCode, period, StockLedger.MovementType.SALE, -quantity);
+            try (PreparedStatement offtake = connect.prepareStatement(String.format(
+                    "UPDATE sale_offtake SET `%s` = COALESCE(`%s`, 0) + ?, version = version + 1 WHERE item_code = ?",
+                    monthColumn, monthColumn))) {
+                offtake.setInt(1, quantity);
+                offtake.setInt(2, itemCode);
+                offtake.executeUpdate();
+            }
+            // Keep the multi-year history used for forecasting in step
+            new SalesHistoryRepository().recordSale(connect, itemCode, period, quantity);
+            connect.commit();
+        } catch (SQLException | RuntimeException e) {
+            connect.rollback();
+            throw e;
+        } finally {
+            database_utility.close(connect);
+        }
+        SalesHistoryRepository.notifyChanged(itemCode);
+    }
+}
@@ -1,55 +1,51 @@
 package database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
 public class database_utility {
-    private static final String database_url = String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false&serverTimezone=UTC&useUnicode=true&characterEncoding=UTF-8",
-            System.getenv().getOrDefault("DB_HOST", "localhost"),
-            System.getenv().getOrDefault("DB_PORT", "3306"),
-            System.getenv().getOrDefault("DB_NAME", "inventory_management_system_database"));
-    private static final String database_username = System.getenv().getOrDefault("DB_USER", "root");
-    private static final String database_password = System.getenv().getOrDefault("DB_PASS", "computerengineering");
-
-    static {
-        try {
-            // Register the MySQL JDBC driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            System.err.println("MySQL JDBC Driver not found.");
-            e.printStackTrace();
+    private static final DatabaseBackend backend = DatabaseBackend.fromEnvironment();
+
+    // Set by usePool(); null for the desktop client, which connects per call
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Serves {@link #connect()} from a shared pool of up to size connections from now on, for
+     * the headless server. {@link #close(Connection)} returns pooled connections to it.
+     */
+    public static synchronized void usePool(int size) {
+        if (pool == null) {
+            pool = new ConnectionPool(size, database_utility::open);
         }
     }
 
     public static Connection connect() {
-        try {
-            System.out.println("Attempting to connect to database with URL: " + database_url);
-            System.out.println("Username: " + database_username);
-            
-            // Try to connect with localhost first
+        long started = QueryStats.start();
+        Connection connection;
+        ConnectionPool shared = pool;
+        if (shared != null) {
             try {
-                Connection connection = DriverManager.getConnection(database_url, database_username, database_password);
-                if (connection != null && connection.isValid(5)) {
-                    System.out.println("Successfully connected to database using localhost!");
-                    return connection;
-                }
+                connection = shared.acquire();
             } catch (Exception e) {
-                System.out.println("Could not connect using localhost, trying Docker container IP...");
-            }
-            
-            // If localhost fails, try Docker container IP
-            String dockerUrl = "jdbc:mysql://172.27.0.2:3306/inventory_management_system_database?allowPublicKeyRetrieval=true&useSSL=false&serverTimezone=UTC";
-            Connection dockerConnection = DriverManager.getConnection(dockerUrl, database_username, database_password);
-            
-            if (dockerConnection != null && dockerConnection.isValid(5)) {
-                System.out.println("Successfully connected to database using Docker container IP!");
-                return dockerConnection;
-            } else {
-                System.err.println("Database connection failed");
-                return null;
+                System.err.println("Database connection error: " + e.getMessage());
+                connection = null;
             }
+        } else {
+            connection = open();
+        }
+        QueryStats.recordAcquire(started, connection == null);
+        return connection;
+    }
+
+    /** The backend DB_BACKEND selected, for code that has to word a statement differently for it. */
+    public static DatabaseBackend backend() {
+        return backend;
+    }
+
+    private static Connection open() {
+        try {
+            return backend.open();
         } catch (Exception e) {
             System.err.println("Database connection error: " + e.getMessage());
             e.printStackTrace();
@@ -61,6 +57,7 @@ public class database_utility {
         Connection connect = null;
         PreparedStatement statement = null;
         ResultSet result = null;
+        StatementEvent started = null;
         
         try {
             connect = connect();
@@ -68,15 +65,20 @@ public class database_utility {
                 throw new Exception("Could not establish database connection");
             }
 
+            started = QueryStats.startStatement();
             statement = connect.prepareStatement(sql_query);
             for (int i = 0; i < params.length; i++) {
                 statement.setObject(i + 1, params[i]);
             }
 
             result = statement.executeQuery();
-            return new Object[]{connect, result};
+            QueryStats.recordStatement(sql_query, started, -1, false);
+            return new Object[]{connect, QueryStats.countRows(sql_query, result)};
 
         } catch (Exception e) {
+            if (started != null) {
+                QueryStats.recordStatement(sql_query, started, 0, true);
+            }
             System.err.println("Database query error: " + e.getMessage());
             e.printStackTrace();
             if (connect != null) {
@@ -86,9 +88,52 @@ public class database_utility {
         }
     }
 
+    /**
+     * Like {@link #query(String, Object...)} but asks the driver to stream rows one at a time
+     * instead of buffering the whole result set in memory. The connection can't be used for
+     * anything else until the result set has been fully read and closed.
+     */
+    public static Object[] queryStreaming(String sql_query, Object... params) {
+        Connection connect = null;
+        PreparedStatement statement = null;
+        ResultSet result = null;
+        StatementEvent started = null;
+
+        try {
+            connect = connect();
+            if (connect == null) {
+                throw new Exception("Could not establish database connection");
+            }
+
+            started = QueryStats.startStatement();
+            statement = connect.prepareStatement(sql_query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(backend.streamingFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+
+            // Streaming defers most of the work to the reads, so this is time to the first row
+            result = statement.executeQuery();
+            QueryStats.recordStatement(sql_query, started, -1, false);
+            return new Object[]{connect, QueryStats.countRows(sql_query, result)};
+
+        } catch (Exception e) {
+            if (started != null) {
+                QueryStats.recordStatement(sql_query, started, 0, true);
+            }
+            System.err.println("Database streaming query error: " + e.getMessage());
+            e.printStackTrace();
+            if (connect != null) {
+                close(connect);
+            }
+            return null;
+        }
+    }
+
     public static Object[] update(String sql_update, Object... params) {
         Connection connect = null;
         PreparedStatement statement = null;
+        StatementEvent started = null;
         
         try {
             connect = connect();
@@ -96,15 +141,20 @@ public class database_utility {
                 throw new Exception("Could not establish database connection");
             }
 
+            started = QueryStats.startStatement();
             statement = connect.prepareStatement(sql_update);
             for (int i = 0; i < params.length; i++) {
                 statement.setObject(i + 1, params[i]);
             }
 
             int result = statement.executeUpdate();
+            QueryStats.recordStatement(sql_update, started, result, false);
             return new Object[]{connect, result};
 
         } catch (Exception e) {
+            if (started != null) {
+                QueryStats.recordStatement(sql_update, started, 0, true);
+            }
             System.err.println("Database update error: " + e.getMessage());
             e.printStackTrace();
             if (connect != null) {
@@ -0,0 +1,150 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * RFC 4180 CSV written straight into a 1 MiB direct buffer and flushed to a {@link FileChannel}.
+ * Text is UTF-8 encoded by hand and numbers are formatted digit by digit, so writing a field
+ * allocates nothing.
+ */
+public class CsvWriter implements TabularWriter {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[Digits.SCRATCH_SIZE];
+    private boolean rowStarted;
+
+    public CsvWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void header(String... names) throws IOException {
+        for (String name : names) {
+            text(name);
+        }
+        endRow();
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) return;
+        boolean quote = needsQuoting(value);
+        if (quote) put((byte) '"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                ensure(2);
+                buffer.put((byte) '"').put((byte) '"');
+            } else if (c < 0x80) {
+                put((byte) c);
+            } else {
+                i = putUtf8(value, i);
+            }
+        }
+        if (quote) put((byte) '"');
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        separator();
+        putDigits(Digits.formatLong(value, digits));
+    }
+
+    @Override
+    public void decimal(double value, int decimals) throws IOException {
+        separator();
+        int pos = Digits.formatDecimal(value, decimals, digits);
+        if (pos >= 0) putDigits(pos);
+    }
+
+    @Override
+    public void empty() throws IOException {
+        separator();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        ensure(2);
+        buffer.put((byte) '\r').put((byte) '\n');
+        rowStarted = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            put((byte) ',');
+        }
+        rowStarted = true;
+    }
+
+    private static boolean needsQuoting(String value) {
+        if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') return true;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    // Encodes the character at i (and its low surrogate, if any); returns the last index consumed
+    private int putUtf8(String value, int i) throws IOException {
+        char c = value.charAt(i);
+        ensure(4);
+        if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?'); // unpaired surrogate, not encodable
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return i;
+    }
+
+    private void putDigits(int pos) throws IOException {
+        ensure(digits.length - pos);
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,69 @@
+package export;
+
+/**
+ * Allocation-free number formatting shared by the writers. Digits are written right-aligned
+ * into a caller-supplied scratch array of at least {@value #SCRATCH_SIZE} bytes and the index of
+ * the first byte is returned.
+ */
+final class Digits {
+    static final int SCRATCH_SIZE = 32;
+    static final int MAX_DECIMALS = 6;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private Digits() {
+    }
+
+    static int formatLong(long value, byte[] out) {
+        int pos = out.length;
+        if (value == Long.MIN_VALUE) {
+            return copyAscii(Long.toString(value), out);
+        }
+        boolean negative = value < 0;
+        if (negative) value = -value;
+        do {
+            out[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) out[--pos] = '-';
+        return pos;
+    }
+
+    // Fixed point with the given number of decimals; -1 for NaN and infinities. Beyond
+    // MAX_DECIMALS the scaled value could overflow, so those fall back to Double.toString.
+    static int formatDecimal(double value, int decimals, byte[] out) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return -1;
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            return copyAscii(Double.toString(value), out);
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= Long.MAX_VALUE) {
+            return copyAscii(Double.toString(value), out); // too large for fixed point, rare enough not to matter
+        }
+        long rounded = Math.round(scaled);
+        int pos = out.length;
+        if (decimals > 0) {
+            long fraction = rounded % scale;
+            for (int i = 0; i < decimals; i++) {
+                out[--pos] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            out[--pos] = '.';
+        }
+        long whole = rounded / scale;
+        do {
+            out[--pos] = (byte) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (value < 0 && rounded != 0) out[--pos] = '-';
+        return pos;
+    }
+
+    private static int copyAscii(String value, byte[] out) {
+        int pos = out.length - value.length();
+        for (int i = 0; i < value.length(); i++) {
+            out[pos + i] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+}
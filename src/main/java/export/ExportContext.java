@@ -0,0 +1,40 @@
+package export;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Row counting, progress reporting and cancellation for a running export. Checks are batched
+ * every {@value #REPORT_EVERY} rows to keep them off the per-row path.
+ */
+public class ExportContext {
+    private static final int REPORT_EVERY = 1024;
+
+    private final BooleanSupplier cancelled;
+    private final LongConsumer progress;
+    private long rows;
+
+    public ExportContext(BooleanSupplier cancelled, LongConsumer progress) {
+        this.cancelled = cancelled;
+        this.progress = progress;
+    }
+
+    // Throws CancellationException once the export has been cancelled
+    public void rowWritten() {
+        if (++rows % REPORT_EVERY == 0) {
+            checkCancelled();
+            progress.accept(rows);
+        }
+    }
+
+    public void checkCancelled() {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+}
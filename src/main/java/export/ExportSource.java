@@ -0,0 +1,18 @@
+package export;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * One kind of export (inventory, sales history, ...). Implementations stream their rows into
+ * the writer and call {@link ExportContext#rowWritten()} after each one.
+ */
+public interface ExportSource {
+    // Shown in the export picker and used for the default file name
+    String getName();
+
+    // Rough row count for the progress bar, -1 if unknown
+    long estimateRows() throws SQLException;
+
+    void export(TabularWriter out, ExportContext context) throws IOException, SQLException;
+}
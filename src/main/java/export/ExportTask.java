@@ -0,0 +1,74 @@
+package export;
+
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Runs an export in the background. Rows go to a {@code .part} file next to the target, which
+ * replaces the target only once the export has finished, so a cancelled or failed export never
+ * leaves a truncated file behind.
+ */
+public final class ExportTask extends Task<Long> {
+    private final ExportSource source;
+    private final Path target;
+
+    public ExportTask(ExportSource source, Path target) {
+        this.source = source;
+        this.target = target;
+        updateTitle("Exporting " + source.getName());
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    // The format follows the target's extension: .xlsx for Excel, anything else is CSV
+    private TabularWriter openWriter(Path part) throws IOException {
+        if (target.getFileName().toString().toLowerCase().endsWith(".xlsx")) {
+            return new XlsxWriter(part, source.getName());
+        }
+        return new CsvWriter(part);
+    }
+
+    @Override
+    protected Long call() throws Exception {
+        updateMessage("Counting rows...");
+        long estimate = source.estimateRows();
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        long start = System.nanoTime();
+
+        ExportContext context = new ExportContext(this::isCancelled, rows -> report(rows, estimate, start));
+        try (TabularWriter out = openWriter(part)) {
+            source.export(out, context);
+        } catch (Exception e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        if (isCancelled()) {
+            Files.deleteIfExists(part);
+            return context.getRows();
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+
+        long rows = context.getRows();
+        updateProgress(rows, rows);
+        updateMessage(String.format("Exported %,d rows in %.1f s", rows, (System.nanoTime() - start) / 1e9));
+        return rows;
+    }
+
+    private void report(long rows, long estimate, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long perSecond = seconds > 0 ? (long) (rows / seconds) : 0;
+        if (estimate > 0) {
+            updateProgress(Math.min(rows, estimate), estimate);
+            updateMessage(String.format("%,d of %,d rows (%,d/s)", rows, estimate, perSecond));
+        } else {
+            updateProgress(-1, 1);
+            updateMessage(String.format("%,d rows (%,d/s)", rows, perSecond));
+        }
+    }
+}
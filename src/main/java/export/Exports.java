@@ -0,0 +1,270 @@
+package export;
+
+import database.database_utility;
+import forecasting.ForecastCalculator;
+import forecasting.Forecaster;
+import forecasting.SalesHistory;
+import forecasting.SalesHistoryRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The exports offered from the Sales tab. The database-backed ones read through a streaming
+ * cursor, so only the row being written is ever held in memory.
+ */
+public final class Exports {
+    private static final String[] MONTH_NAMES = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final int FORECAST_MONTHS = 12;
+
+    private Exports() {
+    }
+
+    // Every item with its monthly sales and stock on hand
+    public static ExportSource inventory() {
+        String[] header = new String[4 + 24];
+        header[0] = "Item Code";
+        header[1] = "Description";
+        header[2] = "Volume";
+        header[3] = "Category";
+        for (int m = 0; m < 12; m++) {
+            header[4 + m] = MONTH_NAMES[m] + " Sales";
+            header[16 + m] = MONTH_NAMES[m] + " Stock";
+        }
+        return new SqlExportSource("Inventory", "SELECT COUNT(*) FROM sale_offtake",
+                "SELECT s.item_code, s.item_description, s.volume, s.category, " +
+                "s.jan, s.feb, s.mar, s.apr, s.may, s.jun, s.jul, s.aug, s.sep, s.oct, s.nov, s.`dec`, " +
+                "o.jan1, o.feb1, o.mar1, o.apr1, o.may1, o.jun1, o.jul1, o.aug1, o.sep1, o.oct1, o.nov1, o.dec1 " +
+                "FROM sale_offtake s LEFT JOIN stock_onhand_live o ON o.item_code = s.item_code ORDER BY s.item_code",
+                header, (rs, out, context) -> {
+                    out.number(rs.getInt(1));
+                    out.text(rs.getString(2));
+                    intOrEmpty(rs, 3, out);
+                    out.text(rs.getString(4));
+                    for (int column = 5; column <= 28; column++) {
+                        intOrEmpty(rs, column, out);
+                    }
+                    out.endRow();
+                    context.rowWritten();
+                });
+    }
+
+    // Stock on hand, one row per item per month
+    public static ExportSource stockHistory() {
+        return new SqlExportSource("Stock History", "SELECT COUNT(*) * 12 FROM stock_onhand",
+                "SELECT o.item_code, s.item_description, o.jan1, o.feb1, o.mar1, o.apr1, o.may1, o.jun1, " +
+                "o.jul1, o.aug1, o.sep1, o.oct1, o.nov1, o.dec1 " +
+                "FROM stock_onhand_live o JOIN sale_offtake s ON s.item_code = o.item_code ORDER BY o.item_code",
+                new String[]{"Item Code", "Description", "Month", "Stock On Hand"}, (rs, out, context) -> {
+                    int itemCode = rs.getInt(1);
+                    String description = rs.getString(2);
+                    for (int m = 0; m < 12; m++) {
+                        out.number(itemCode);
+                        out.text(description);
+                        out.text(MONTH_NAMES[m]);
+                        intOrEmpty(rs, 3 + m, out);
+                        out.endRow();
+                        context.rowWritten();
+                    }
+                });
+    }
+
+    // The full monthly sales history, every year on record
+    public static ExportSource salesHistory() {
+        return new SqlExportSource("Sales History", "SELECT COUNT(*) FROM sales_history",
+                "SELECT h.item_code, s.item_description, h.period_year, h.period_month, h.quantity " +
+                "FROM sales_history h JOIN sale_offtake s ON s.item_code = h.item_code " +
+                "ORDER BY h.item_code, h.period_year, h.period_month",
+                new String[]{"Item Code", "Description", "Year", "Month", "Quantity"}, (rs, out, context) -> {
+                    out.number(rs.getInt(1));
+                    out.text(rs.getString(2));
+                    out.number(rs.getInt(3));
+                    out.number(rs.getInt(4));
+                    intOrEmpty(rs, 5, out);
+                    out.endRow();
+                    context.rowWritten();
+                });
+    }
+
+    /**
+     * Next twelve months' forecast for every item with sales history, using the method
+     * {@link ForecastCalculator#selectFor} picks for each. Histories are streamed one item at a
+     * time and forecast into a reused buffer.
+     */
+    public static ExportSource forecasts(ForecastCalculator calculator) {
+        return new ExportSource() {
+            @Override
+            public String getName() {
+                return "Forecasts";
+            }
+
+            @Override
+            public long estimateRows() throws SQLException {
+                return count("SELECT COUNT(DISTINCT item_code) * " + FORECAST_MONTHS + " FROM sales_history");
+            }
+
+            @Override
+            public void export(TabularWriter out, ExportContext context) throws IOException, SQLException {
+                out.header("Item Code", "Method", "Year", "Month", "Forecast");
+                double[] forecast = new double[FORECAST_MONTHS];
+                try {
+                    new SalesHistoryRepository().streamAll(history -> {
+                        context.checkCancelled();
+                        if (history.isEmpty()) return;
+                        Forecaster forecaster = calculator.selectFor(history);
+                        double[] values = history.values();
+                        if (values.length < forecaster.minimumHistory()) return;
+                        calculator.forecastInto(forecaster, values, 0, values.length, forecast, 0, FORECAST_MONTHS);
+                        try {
+                            writeForecast(out, context, history, forecaster.getName(), forecast);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+    }
+
+    private static void writeForecast(TabularWriter out, ExportContext context, SalesHistory history,
+                                      String method, double[] forecast) throws IOException {
+        YearMonth period = history.getEnd();
+        for (double value : forecast) {
+            period = period.plusMonths(1);
+            out.number(history.getItemCode());
+            out.text(method);
+            out.number(period.getYear());
+            out.number(period.getMonthValue());
+            out.decimal(value, 2);
+            out.endRow();
+            context.rowWritten();
+        }
+    }
+
+    /**
+     * Rows already in memory, e.g. the series on the sales chart. Each row is written as text
+     * fields; Number values are written as numbers.
+     */
+    public static ExportSource rows(String name, String[] header, List<Object[]> rows) {
+        return new ExportSource() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long estimateRows() {
+                return rows.size();
+            }
+
+            @Override
+            public void export(TabularWriter out, ExportContext context) throws IOException {
+                out.header(header);
+                for (Object[] row : rows) {
+                    for (Object value : row) {
+                        if (value instanceof Double || value instanceof Float) {
+                            out.decimal(((Number) value).doubleValue(), 2);
+                        } else if (value instanceof Number) {
+                            out.number(((Number) value).longValue());
+                        } else {
+                            out.text(value != null ? value.toString() : null);
+                        }
+                    }
+                    out.endRow();
+                    context.rowWritten();
+                }
+            }
+        };
+    }
+
+    private static void intOrEmpty(ResultSet rs, int column, TabularWriter out) throws SQLException, IOException {
+        int value = rs.getInt(column);
+        if (rs.wasNull()) {
+            out.empty();
+        } else {
+            out.number(value);
+        }
+    }
+
+    static long count(String sql) throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(sql);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            return rs.next() ? rs.getLong(1) : -1;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    @FunctionalInterface
+    interface RowMapper {
+        void write(ResultSet rs, TabularWriter out, ExportContext context) throws SQLException, IOException;
+    }
+
+    private static class SqlExportSource implements ExportSource {
+        private final String name;
+        private final String countSql;
+        private final String sql;
+        private final String[] header;
+        private final RowMapper mapper;
+
+        SqlExportSource(String name, String countSql, String sql, String[] header, RowMapper mapper) {
+            this.name = name;
+            this.countSql = countSql;
+            this.sql = sql;
+            this.header = header;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long estimateRows() throws SQLException {
+            return count(countSql);
+        }
+
+        @Override
+        public void export(TabularWriter out, ExportContext context) throws IOException, SQLException {
+            Object[] result = database_utility.queryStreaming(sql);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            Connection connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            try {
+                out.header(header);
+                while (rs.next()) {
+                    mapper.write(rs, out, context);
+                }
+            } catch (CancellationException e) {
+                // Kill the query server-side, otherwise closing a streaming result reads every remaining row
+                rs.getStatement().cancel();
+                throw e;
+            } finally {
+                try {
+                    rs.close();
+                } catch (SQLException ignored) {
+                    // The cancelled query's result can't always be closed cleanly
+                }
+                database_utility.close(connect);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Row-at-a-time sink for exports. Fields are written left to right and {@link #endRow()}
+ * finishes the row; nothing is formatted with printf or buffered beyond the writer's own
+ * output buffer, so exports of any size run in constant memory.
+ */
+public interface TabularWriter extends Closeable {
+    void header(String... names) throws IOException;
+
+    // null writes an empty field
+    void text(String value) throws IOException;
+
+    void number(long value) throws IOException;
+
+    // Fixed-point with the given number of decimals; NaN and infinities write an empty field
+    void decimal(double value, int decimals) throws IOException;
+
+    void empty() throws IOException;
+
+    void endRow() throws IOException;
+}
@@ -0,0 +1,359 @@
+package export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming XLSX writer. Worksheet XML is encoded straight into the zip entry as rows arrive,
+ * so memory stays flat however many rows are written; only the shared-strings table is kept,
+ * and it stops growing after {@value #MAX_SHARED_STRINGS} distinct values (later new strings
+ * are written inline). Sheets roll over at Excel's row limit with the header repeated.
+ */
+public class XlsxWriter implements TabularWriter {
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+    private static final int MAX_SHARED_STRINGS = 100_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ZipOutputStream zip;
+    private final String sheetName;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[Digits.SCRATCH_SIZE];
+    private final Map<String, Integer> sharedIndex = new HashMap<>();
+    private final List<String> sharedStrings = new ArrayList<>();
+    private long sharedReferences;
+    private int position;
+
+    private String[] header;
+    private int sheetCount;
+    private int sheetRows;
+    private boolean rowOpen;
+
+    public XlsxWriter(Path path, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.sheetName = sanitizeSheetName(sheetName);
+        startSheet();
+    }
+
+    @Override
+    public void header(String... names) throws IOException {
+        header = names.clone();
+        writeHeader();
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        openRow();
+        if (value == null || value.isEmpty()) {
+            ascii("<c/>");
+            return;
+        }
+        Integer index = shared(value);
+        if (index != null) {
+            sharedReferences++;
+            ascii("<c t=\"s\"><v>");
+            digits(Digits.formatLong(index, digits));
+            ascii("</v></c>");
+        } else {
+            ascii("<c t=\"inlineStr\"><is>");
+            textElement(value);
+            ascii("</is></c>");
+        }
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        openRow();
+        ascii("<c><v>");
+        digits(Digits.formatLong(value, digits));
+        ascii("</v></c>");
+    }
+
+    @Override
+    public void decimal(double value, int decimals) throws IOException {
+        openRow();
+        int pos = Digits.formatDecimal(value, decimals, digits);
+        if (pos < 0) {
+            ascii("<c/>");
+            return;
+        }
+        ascii("<c><v>");
+        digits(pos);
+        ascii("</v></c>");
+    }
+
+    @Override
+    public void empty() throws IOException {
+        openRow();
+        ascii("<c/>");
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        openRow();
+        ascii("</row>");
+        rowOpen = false;
+        if (sheetRows == MAX_ROWS_PER_SHEET) {
+            endSheet();
+            startSheet();
+            if (header != null) writeHeader();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endSheet();
+            writeSharedStrings();
+            writeStaticParts();
+            zip.finish();
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        openRow();
+        for (String name : header) {
+            Integer index = shared(name);
+            if (index != null) {
+                sharedReferences++;
+                ascii("<c t=\"s\" s=\"1\"><v>");
+                digits(Digits.formatLong(index, digits));
+                ascii("</v></c>");
+            } else {
+                ascii("<c t=\"inlineStr\" s=\"1\"><is>");
+                textElement(name);
+                ascii("</is></c>");
+            }
+        }
+        endRow();
+    }
+
+    // The value's shared string index, adding it while there's room; null once the table is full
+    private Integer shared(String value) {
+        Integer index = sharedIndex.get(value);
+        if (index == null && sharedStrings.size() < MAX_SHARED_STRINGS) {
+            index = sharedStrings.size();
+            sharedIndex.put(value, index);
+            sharedStrings.add(value);
+        }
+        return index;
+    }
+
+    private void openRow() throws IOException {
+        if (rowOpen) return;
+        rowOpen = true;
+        sheetRows++;
+        ascii("<row r=\"");
+        digits(Digits.formatLong(sheetRows, digits));
+        ascii("\">");
+    }
+
+    private void startSheet() throws IOException {
+        sheetCount++;
+        sheetRows = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<sheetViews><sheetView workbookViewId=\"0\">"
+                + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                + "</sheetView></sheetViews><sheetData>");
+    }
+
+    private void endSheet() throws IOException {
+        if (rowOpen) {
+            ascii("</row>");
+            rowOpen = false;
+        }
+        ascii("</sheetData></worksheet>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeSharedStrings() throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+        ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"");
+        digits(Digits.formatLong(sharedReferences, digits));
+        ascii("\" uniqueCount=\"");
+        digits(Digits.formatLong(sharedStrings.size(), digits));
+        ascii("\">");
+        for (String value : sharedStrings) {
+            ascii("<si>");
+            textElement(value);
+            ascii("</si>");
+        }
+        ascii("</sst>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeStaticParts() throws IOException {
+        StringBuilder contentTypes = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>")
+                .append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        StringBuilder sheets = new StringBuilder();
+        StringBuilder relationships = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            String name = sheetCount == 1 ? sheetName : sheetName(i);
+            sheets.append("<sheet name=\"").append(escapeAttribute(name)).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+            relationships.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        relationships.append("<Relationship Id=\"rId").append(sheetCount + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                .append("<Relationship Id=\"rId").append(sheetCount + 2)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings\" Target=\"sharedStrings.xml\"/>")
+                .append("</Relationships>");
+
+        writeEntry("[Content_Types].xml", contentTypes.toString());
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                + "<sheets>" + sheets + "</sheets></workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels", relationships.toString());
+        // Style 1 is the bold header
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+                + "</styleSheet>");
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private String sheetName(int index) {
+        String suffix = " (" + index + ")";
+        return sheetName.substring(0, Math.min(sheetName.length(), 31 - suffix.length())) + suffix;
+    }
+
+    // Excel sheet names are at most 31 characters and can't contain []:*?/\
+    private static String sanitizeSheetName(String name) {
+        String cleaned = name == null ? "" : name.replaceAll("[\\[\\]:*?/\\\\]", " ").trim();
+        if (cleaned.isEmpty()) cleaned = "Sheet";
+        return cleaned.length() > 31 ? cleaned.substring(0, 31) : cleaned;
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+
+    // <t> element with the value XML-escaped and UTF-8 encoded
+    private void textElement(String value) throws IOException {
+        boolean preserve = value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+        ascii(preserve ? "<t xml:space=\"preserve\">" : "<t>");
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                ascii("&amp;");
+            } else if (c == '<') {
+                ascii("&lt;");
+            } else if (c == '>') {
+                ascii("&gt;");
+            } else if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                // Not allowed in XML 1.0, dropped
+            } else if (c < 0x80) {
+                put((byte) c);
+            } else {
+                i = putUtf8(value, i);
+            }
+        }
+        ascii("</t>");
+    }
+
+    // Encodes the character at i (and its low surrogate, if any); returns the last index consumed
+    private int putUtf8(String value, int i) throws IOException {
+        char c = value.charAt(i);
+        ensure(4);
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c) || c >= 0xFFFE) {
+            buffer[position++] = '?'; // unpaired surrogate or non-character, not valid XML
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    // Markup only: the string must be ASCII
+    private void ascii(String value) throws IOException {
+        int n = value.length();
+        if (n > buffer.length) {
+            flush();
+            zip.write(value.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensure(n);
+        for (int i = 0; i < n; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void digits(int pos) throws IOException {
+        int n = digits.length - pos;
+        ensure(n);
+        System.arraycopy(digits, pos, buffer, position, n);
+        position += n;
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == buffer.length) flush();
+        buffer[position++] = b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        zip.write(buffer, 0, position);
+        position = 0;
+    }
+}
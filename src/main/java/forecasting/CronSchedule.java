@@ -0,0 +1,125 @@
+package forecasting;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Minimal five-field cron expression: {@code minute hour day-of-month month day-of-week}.
+ * Each field accepts {@code *}, numbers, ranges ({@code 1-5}), steps ({@code *}{@code /15},
+ * {@code 8-18/2}) and comma lists. Day-of-week runs 0-7 with both 0 and 7 meaning Sunday.
+ * As in cron, when both day fields are restricted a day matching either one fires.
+ * The shortcuts {@code @hourly}, {@code @daily}, {@code @weekly} and {@code @monthly} are also accepted.
+ */
+public class CronSchedule {
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronSchedule(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59);
+        this.hours = parseField(fields[1], 0, 23);
+        this.daysOfMonth = parseField(fields[2], 1, 31);
+        this.months = parseField(fields[3], 1, 12);
+        this.daysOfWeek = parseField(fields[4], 0, 7);
+        if (daysOfWeek.get(7)) daysOfWeek.set(0);
+        this.dayOfMonthRestricted = !fields[2].equals("*");
+        this.dayOfWeekRestricted = !fields[4].equals("*");
+    }
+
+    public static CronSchedule parse(String expression) {
+        String trimmed = expression.trim().toLowerCase(Locale.ROOT);
+        String expanded = switch (trimmed) {
+            case "@hourly" -> "0 * * * *";
+            case "@daily", "@midnight" -> "0 0 * * *";
+            case "@weekly" -> "0 0 * * 0";
+            case "@monthly" -> "0 0 1 * *";
+            default -> trimmed;
+        };
+        String[] fields = expanded.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression needs 5 fields: " + expression);
+        }
+        return new CronSchedule(expression, fields);
+    }
+
+    /**
+     * First minute strictly after {@code after} that matches the schedule, or null if nothing
+     * matches within the next four years (e.g. "0 0 31 2 *").
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        LocalDateTime t = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime limit = t.plusYears(4);
+        while (t.isBefore(limit)) {
+            if (!months.get(t.getMonthValue())) {
+                t = t.withDayOfMonth(1).toLocalDate().atStartOfDay().plusMonths(1);
+            } else if (!dayMatches(t)) {
+                t = t.toLocalDate().atStartOfDay().plusDays(1);
+            } else if (!hours.get(t.getHour())) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(t.getMinute())) {
+                t = t.plusMinutes(1);
+            } else {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    private boolean dayMatches(LocalDateTime t) {
+        boolean domMatch = daysOfMonth.get(t.getDayOfMonth());
+        boolean dowMatch = daysOfWeek.get(t.getDayOfWeek() == DayOfWeek.SUNDAY ? 0 : t.getDayOfWeek().getValue());
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return domMatch || dowMatch;
+        }
+        return domMatch && dowMatch;
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                part = part.substring(0, slash);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Step must be positive in: " + field);
+                }
+            }
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else if (part.contains("-")) {
+                String[] range = part.split("-", 2);
+                from = Integer.parseInt(range[0]);
+                to = Integer.parseInt(range[1]);
+            } else {
+                from = Integer.parseInt(part);
+                to = slash >= 0 ? max : from;
+            }
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException("Value out of range " + min + "-" + max + " in: " + field);
+            }
+            for (int v = from; v <= to; v += step) {
+                bits.set(v);
+            }
+        }
+        return bits;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
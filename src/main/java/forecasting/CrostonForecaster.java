@@ -0,0 +1,108 @@
+package forecasting;
+
+/**
+ * Intermittent-demand methods for items that sell in bursts with zero months in between:
+ * <ul>
+ *   <li>{@code CROSTON}: smooths the size of non-zero sales and the gap between them
+ *       separately and forecasts size / gap each month,</li>
+ *   <li>{@code SBA} (Syntetos-Boylan): Croston scaled by (1 - β/2) to remove its known upward
+ *       bias, where β is the interval smoothing factor, the one the bias comes from,</li>
+ *   <li>{@code TSB} (Teunter-Syntetos-Babai): smooths the probability of a sale every month
+ *       instead of the gap, so the forecast decays for items that have stopped selling.</li>
+ * </ul>
+ * Missing months are skipped entirely: they count neither as a sale nor as a zero.
+ */
+public class CrostonForecaster implements Forecaster {
+    public enum Variant { CROSTON, SBA, TSB }
+
+    private final String name;
+    private final Variant variant;
+    private final double alpha; // Demand size smoothing factor (α)
+    private final double beta;  // Interval (Croston/SBA) or probability (TSB) smoothing factor (β)
+
+    public CrostonForecaster(String name, Variant variant, double alpha, double beta) {
+        this.name = name;
+        this.variant = variant;
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int minimumHistory() {
+        return 2;
+    }
+
+    @Override
+    public void forecast(double[] history, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        double rate = variant == Variant.TSB ? tsbRate(history, from, n) : crostonRate(history, from, n);
+        for (int i = 0; i < periodsAhead; i++) {
+            out[outFrom + i] = rate;
+        }
+    }
+
+    private double crostonRate(double[] history, int from, int n) {
+        double size = 0;
+        double interval = 0;
+        boolean initialised = false;
+        int sinceLast = 0;
+        for (int t = 0; t < n; t++) {
+            double v = history[from + t];
+            if (v != v) continue;
+            sinceLast++;
+            if (v <= 0) continue;
+            if (!initialised) {
+                size = v;
+                interval = sinceLast;
+                initialised = true;
+            } else {
+                size += alpha * (v - size);
+                interval += beta * (sinceLast - interval);
+            }
+            sinceLast = 0;
+        }
+        if (!initialised || interval <= 0) {
+            return 0;
+        }
+        double rate = size / interval;
+        // The bias comes from smoothing the intervals, so the correction uses their factor, not alpha
+        double intervalSmoothing = beta;
+        return variant == Variant.SBA ? rate * (1 - intervalSmoothing / 2) : rate;
+    }
+
+    private double tsbRate(double[] history, int from, int n) {
+        // Start from the overall sale probability and mean non-zero size
+        int observed = 0;
+        int sales = 0;
+        double sizeSum = 0;
+        for (int t = 0; t < n; t++) {
+            double v = history[from + t];
+            if (v != v) continue;
+            observed++;
+            if (v > 0) {
+                sales++;
+                sizeSum += v;
+            }
+        }
+        if (sales == 0) {
+            return 0;
+        }
+        double probability = (double) sales / observed;
+        double size = sizeSum / sales;
+        for (int t = 0; t < n; t++) {
+            double v = history[from + t];
+            if (v != v) continue;
+            if (v > 0) {
+                probability += beta * (1 - probability);
+                size += alpha * (v - size);
+            } else {
+                probability -= beta * probability;
+            }
+        }
+        return probability * size;
+    }
+}
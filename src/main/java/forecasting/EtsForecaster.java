@@ -0,0 +1,146 @@
+package forecasting;
+
+/**
+ * Exponential smoothing (ETS) with additive errors and a choice of trend (none, additive or
+ * damped) and seasonality (none, additive or multiplicative). Additive seasonality suits items
+ * whose seasonal swing is a fixed number of units, multiplicative ones whose swing grows with
+ * the level. Missing months carry the level and trend forward without updating anything.
+ */
+public class EtsForecaster implements Forecaster {
+    public enum Trend { NONE, ADDITIVE, DAMPED }
+    public enum Season { NONE, ADDITIVE, MULTIPLICATIVE }
+
+    private final String name;
+    private final Trend trend;
+    private final Season season;
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final double phi;
+    private final int seasonLength;
+
+    public EtsForecaster(String name, Trend trend, Season season, double alpha, double beta, double gamma,
+                         double phi, int seasonLength) {
+        this.name = name;
+        this.trend = trend;
+        this.season = season;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.phi = trend == Trend.DAMPED ? phi : 1.0;
+        this.seasonLength = seasonLength;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int minimumHistory() {
+        if (season != Season.NONE) return seasonLength;
+        return trend == Trend.NONE ? 1 : 2;
+    }
+
+    @Override
+    public int scratchSize(int length) {
+        return season == Season.NONE ? 0 : seasonLength;
+    }
+
+    @Override
+    public void forecast(double[] history, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        boolean seasonal = season != Season.NONE;
+        boolean multiplicative = season == Season.MULTIPLICATIVE;
+        if (seasonal && n < seasonLength) {
+            throw new IllegalArgumentException("Need at least 1 year of data");
+        }
+
+        // Level from the first season (or first observed month), trend from the first two
+        int start;
+        double level;
+        double slope = 0;
+        if (seasonal) {
+            double firstMean = ForecastKernels.mean(history, from, seasonLength);
+            level = Double.isNaN(firstMean) ? 0 : firstMean;
+            if (trend != Trend.NONE && n >= 2 * seasonLength) {
+                double secondMean = ForecastKernels.mean(history, from + seasonLength, seasonLength);
+                if (!Double.isNaN(firstMean) && !Double.isNaN(secondMean)) {
+                    slope = (secondMean - firstMean) / seasonLength;
+                }
+            }
+            for (int i = 0; i < seasonLength; i++) {
+                double v = history[from + i];
+                if (v != v || level == 0) {
+                    scratch[i] = multiplicative ? 1 : 0;
+                } else {
+                    scratch[i] = multiplicative ? v / level : v - level;
+                }
+            }
+            start = seasonLength;
+        } else {
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < n && second < 0; i++) {
+                if (history[from + i] == history[from + i]) {
+                    if (first < 0) first = i;
+                    else second = i;
+                }
+            }
+            if (first < 0) {
+                for (int i = 0; i < periodsAhead; i++) out[outFrom + i] = 0;
+                return;
+            }
+            level = history[from + first];
+            if (trend != Trend.NONE && second > 0) {
+                slope = (history[from + second] - level) / (second - first);
+            }
+            start = first + 1;
+        }
+
+        for (int t = start; t < n; t++) {
+            double damped = phi * slope;
+            double observed = history[from + t];
+            if (observed != observed) {
+                level += damped;
+                slope = damped;
+                continue;
+            }
+            int s = t % seasonLength;
+            double seasonIndex = seasonal ? scratch[s] : 0;
+            double deseasonalised;
+            if (!seasonal) {
+                deseasonalised = observed;
+            } else if (multiplicative) {
+                deseasonalised = seasonIndex > 0 ? observed / seasonIndex : observed;
+            } else {
+                deseasonalised = observed - seasonIndex;
+            }
+            double previousLevel = level;
+            level = alpha * deseasonalised + (1 - alpha) * (previousLevel + damped);
+            if (trend != Trend.NONE) {
+                slope = beta * (level - previousLevel) + (1 - beta) * damped;
+            }
+            if (multiplicative) {
+                if (level > 0) scratch[s] = gamma * (observed / level) + (1 - gamma) * seasonIndex;
+            } else if (seasonal) {
+                scratch[s] = gamma * (observed - level) + (1 - gamma) * seasonIndex;
+            }
+        }
+
+        double trendSum = 0;
+        double phiPower = 1;
+        for (int h = 0; h < periodsAhead; h++) {
+            phiPower *= phi;
+            trendSum += phiPower * slope; // h * slope when undamped
+            double base = level + (trend == Trend.NONE ? 0 : trendSum);
+            double value;
+            if (!seasonal) {
+                value = base;
+            } else {
+                double seasonIndex = scratch[(n + h) % seasonLength];
+                value = multiplicative ? base * seasonIndex : base + seasonIndex;
+            }
+            out[outFrom + h] = Math.max(0, value);
+        }
+    }
+}
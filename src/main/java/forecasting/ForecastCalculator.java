@@ -0,0 +1,175 @@
+package forecasting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The forecasting methods offered on the Forecasting tab, plus the backtests used to score
+ * them. Shared by the scheduler's worker threads: the {@link Forecaster}s are stateless and
+ * each thread reuses its own scratch buffers, so scoring an item allocates only its results.
+ */
+public class ForecastCalculator {
+    public static final int[] HORIZONS = {3, 6, 12, 18, 24};
+    public static final int MAX_HORIZON = 24;
+
+    // Share of observed months with no sales above which an item counts as intermittent
+    private static final double INTERMITTENT_ZERO_SHARE = 0.3;
+
+    private final int seasonLength;
+    private final Map<String, Forecaster> forecasters = new LinkedHashMap<>();
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public ForecastCalculator(ForecastingModel holtWinters) {
+        this.seasonLength = holtWinters.getSeasonLength();
+        register(holtWinters);
+        register(new MovingAverageForecaster(3));
+        register(new SimpleAverageForecaster());
+        register(new LinearTrendForecaster());
+        register(new EtsForecaster("ETS Additive", EtsForecaster.Trend.ADDITIVE, EtsForecaster.Season.ADDITIVE,
+                0.2, 0.1, 0.3, 1.0, seasonLength));
+        register(new EtsForecaster("ETS Multiplicative", EtsForecaster.Trend.DAMPED, EtsForecaster.Season.MULTIPLICATIVE,
+                0.2, 0.1, 0.3, 0.9, seasonLength));
+        register(new EtsForecaster("ETS Damped Trend", EtsForecaster.Trend.DAMPED, EtsForecaster.Season.NONE,
+                0.3, 0.1, 0, 0.9, seasonLength));
+        register(new CrostonForecaster("Croston", CrostonForecaster.Variant.CROSTON, 0.1, 0.1));
+        register(new CrostonForecaster("SBA", CrostonForecaster.Variant.SBA, 0.1, 0.1));
+        register(new CrostonForecaster("TSB", CrostonForecaster.Variant.TSB, 0.1, 0.1));
+    }
+
+    private void register(Forecaster forecaster) {
+        forecasters.put(forecaster.getName(), forecaster);
+    }
+
+    // Method names in display order
+    public List<String> getFormulas() {
+        return new ArrayList<>(forecasters.keySet());
+    }
+
+    public Forecaster get(String formula) {
+        Forecaster forecaster = forecasters.get(formula);
+        if (forecaster == null) {
+            throw new IllegalArgumentException("Unknown forecasting formula: " + formula);
+        }
+        return forecaster;
+    }
+
+    public int getSeasonLength() {
+        return seasonLength;
+    }
+
+    public double[] run(String formula, double[] history, int periodsAhead) {
+        double[] out = new double[periodsAhead];
+        forecastInto(get(formula), history, 0, history.length, out, 0, periodsAhead);
+        return out;
+    }
+
+    // Forecasts into a caller-owned buffer using this thread's scratch space
+    public void forecastInto(Forecaster forecaster, double[] history, int from, int length,
+                             double[] out, int outFrom, int periodsAhead) {
+        double[] scratch = buffers.get().scratch(forecaster.scratchSize(length));
+        forecaster.forecast(history, from, length, out, outFrom, periodsAhead, scratch);
+    }
+
+    // Months of history each formula needs before it can produce anything meaningful
+    public int minimumHistory(String formula) {
+        return get(formula).minimumHistory();
+    }
+
+    // Hold-out used to score a forecast of the given horizon: the horizon, capped at one season
+    public int holdoutFor(int horizon) {
+        return Math.min(horizon, seasonLength);
+    }
+
+    /**
+     * Method for items nobody has picked one for, e.g. the purchase list: SBA for intermittent
+     * demand, Holt-Winters once there's a season of regular sales, otherwise a moving average.
+     */
+    public Forecaster selectFor(SalesHistory history) {
+        double[] values = history.values();
+        int observed = ForecastKernels.countObserved(values, 0, values.length);
+        int zeros = 0;
+        for (double v : values) {
+            if (v == 0) zeros++;
+        }
+        if (observed >= 2 && zeros >= INTERMITTENT_ZERO_SHARE * observed) {
+            return get("SBA");
+        }
+        if (values.length >= seasonLength && observed >= seasonLength) {
+            return get("Holt-Winters");
+        }
+        return get("Moving Average");
+    }
+
+    /**
+     * Refits the method without the last {@code holdout} months and returns the RMSE of its
+     * forecast of them, or NaN if that leaves too little history.
+     */
+    public double backtestErrorSigma(Forecaster forecaster, double[] values, int holdout) {
+        int trainingLength = values.length - holdout;
+        if (holdout <= 0 || trainingLength < forecaster.minimumHistory()) {
+            return Double.NaN;
+        }
+        double[] fitted = buffers.get().fitted(holdout);
+        forecastInto(forecaster, values, 0, trainingLength, fitted, 0, holdout);
+        return ReplenishmentEngine.forecastErrorSigma(values, trainingLength, fitted, 0, holdout);
+    }
+
+    /**
+     * Runs every method over {@code history}: a {@link #MAX_HORIZON}-month forecast plus the
+     * backtests for each selectable horizon. Methods without enough history are left out.
+     */
+    public ItemForecasts computeAll(SalesHistory history) {
+        double[] values = history.values();
+        int n = values.length;
+        int observed = ForecastKernels.countObserved(values, 0, n);
+        Buffers buffers = this.buffers.get();
+        Map<String, ItemForecasts.Result> results = new LinkedHashMap<>();
+        for (Forecaster forecaster : forecasters.values()) {
+            if (observed < forecaster.minimumHistory()) continue;
+            double[] forecast = new double[MAX_HORIZON];
+            forecastInto(forecaster, values, 0, n, forecast, 0, MAX_HORIZON);
+
+            double[] accuracy = new double[HORIZONS.length];
+            double[] errorSigma = new double[HORIZONS.length];
+            for (int i = 0; i < HORIZONS.length; i++) {
+                int holdout = holdoutFor(HORIZONS[i]);
+                // Horizons sharing a hold-out share its backtest
+                if (i > 0 && holdout == holdoutFor(HORIZONS[i - 1])) {
+                    accuracy[i] = accuracy[i - 1];
+                    errorSigma[i] = errorSigma[i - 1];
+                    continue;
+                }
+                int trainingLength = n - holdout;
+                if (trainingLength < forecaster.minimumHistory()) {
+                    accuracy[i] = Double.NaN;
+                    errorSigma[i] = Double.NaN;
+                    continue;
+                }
+                double[] fitted = buffers.fitted(holdout);
+                forecastInto(forecaster, values, 0, trainingLength, fitted, 0, holdout);
+                accuracy[i] = ForecastingModel.accuracyFromMape(ForecastKernels.mape(values, trainingLength, fitted, 0, holdout));
+                errorSigma[i] = ReplenishmentEngine.forecastErrorSigma(values, trainingLength, fitted, 0, holdout);
+            }
+            results.put(forecaster.getName(), new ItemForecasts.Result(forecast, accuracy, errorSigma));
+        }
+        return new ItemForecasts(history, results);
+    }
+
+    // Per-thread working space, grown on demand and never shrunk
+    private static class Buffers {
+        private double[] scratch = new double[64];
+        private double[] fitted = new double[MAX_HORIZON];
+
+        double[] scratch(int size) {
+            if (scratch.length < size) scratch = new double[Math.max(size, scratch.length * 2)];
+            return scratch;
+        }
+
+        double[] fitted(int size) {
+            if (fitted.length < size) fitted = new double[size];
+            return fitted;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package forecasting;
+
+import java.util.Arrays;
+
+/**
+ * Numeric kernels shared by the forecasting formulas, backtests and batch jobs.
+ *
+ * <p>Every kernel works on a slice {@code [from, from + length)} of a {@code double[]}, so
+ * callers can pass part of a longer series without copying. NaN marks a missing month and is
+ * skipped everywhere.
+ *
+ * <p>A catalogue laid out SKU-major, series {@code i} at {@code [i * length, (i + 1) * length)},
+ * is processed by calling a kernel once per series; {@code KernelBenchmark} does exactly that.
+ * There are no {@code *Batch} wrappers for the loop: the forecast path never holds such a block.
+ * {@link ForecastScheduler} and {@link ReplenishmentEngine} stream each item's history, of its
+ * own start and length, to a worker thread, and the per-series kernels are what those call.
+ *
+ * <p>When the {@code jdk.incubator.vector} module is available (run with
+ * {@code --add-modules jdk.incubator.vector}) the work is done by {@link VectorKernels};
+ * otherwise, or with {@code FORECAST_VECTOR=false}, by {@link ScalarKernels}.
+ */
+public final class ForecastKernels {
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private ForecastKernels() {
+    }
+
+    private static boolean detectVectorSupport() {
+        if ("false".equalsIgnoreCase(System.getenv().getOrDefault("FORECAST_VECTOR", "true"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // Force linkage now so a broken setup falls back instead of failing mid-forecast
+            Class.forName("forecasting.VectorKernels", true, ForecastKernels.class.getClassLoader());
+            return true;
+        } catch (Throwable e) {
+            System.err.println("Vector API unavailable, using scalar forecasting kernels: " + e);
+            return false;
+        }
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    // Sum of the non-missing values
+    public static double sum(double[] data, int from, int length) {
+        return VECTORIZED ? VectorKernels.sum(data, from, length) : ScalarKernels.sum(data, from, length);
+    }
+
+    public static int countObserved(double[] data, int from, int length) {
+        return VECTORIZED ? VectorKernels.countObserved(data, from, length) : ScalarKernels.countObserved(data, from, length);
+    }
+
+    // Mean of the non-missing values, NaN if there are none
+    public static double mean(double[] data, int from, int length) {
+        return VECTORIZED ? VectorKernels.mean(data, from, length) : ScalarKernels.mean(data, from, length);
+    }
+
+    /**
+     * Least-squares line through the non-missing points, with x being the offset from
+     * {@code from}. Writes {@code slope} to {@code out[outIndex]} and {@code intercept} to
+     * {@code out[outIndex + 1]}; a flat line through the mean when the fit is degenerate.
+     */
+    public static void linearTrend(double[] data, int from, int length, double[] out, int outIndex) {
+        if (VECTORIZED) {
+            VectorKernels.linearTrend(data, from, length, out, outIndex);
+        } else {
+            ScalarKernels.linearTrend(data, from, length, out, outIndex);
+        }
+    }
+
+    static void solveTrend(int count, double sumX, double sumY, double sumXY, double sumX2, double[] out, int outIndex) {
+        double denominator = count * sumX2 - sumX * sumX;
+        double slope = denominator != 0 ? (count * sumXY - sumX * sumY) / denominator : 0;
+        out[outIndex] = slope;
+        out[outIndex + 1] = count > 0 ? (sumY - slope * sumX) / count : 0;
+    }
+
+    /**
+     * Mean absolute percentage error (in percent) of {@code forecast} against {@code actual},
+     * skipping months where the actual is zero or missing. NaN if no month qualifies.
+     */
+    public static double mape(double[] actual, int actualFrom, double[] forecast, int forecastFrom, int length) {
+        return VECTORIZED
+                ? VectorKernels.mape(actual, actualFrom, forecast, forecastFrom, length)
+                : ScalarKernels.mape(actual, actualFrom, forecast, forecastFrom, length);
+    }
+
+    /**
+     * Multiplicative seasonal indices: each position's average ratio to the mean of its own
+     * season, over the complete seasons in the slice. Positions never observed get 1.0.
+     */
+    public static void seasonalIndices(double[] data, int from, int length, int seasonLength, double[] out, int outIndex) {
+        seasonalIndices(data, from, length, seasonLength, out, outIndex, new double[2 * seasonLength], 0);
+    }
+
+    // Allocation-free variant: needs 2 * seasonLength doubles of scratch from scratchFrom
+    public static void seasonalIndices(double[] data, int from, int length, int seasonLength, double[] out, int outIndex,
+                                       double[] scratch, int scratchFrom) {
+        int sums = scratchFrom;
+        int counts = scratchFrom + seasonLength;
+        Arrays.fill(scratch, sums, counts + seasonLength, 0);
+        int completeSeasons = Math.max(1, length / seasonLength);
+        for (int s = 0; s < completeSeasons; s++) {
+            int seasonFrom = from + s * seasonLength;
+            int span = Math.min(seasonLength, from + length - seasonFrom);
+            double seasonMean = mean(data, seasonFrom, span);
+            if (seasonMean != seasonMean || seasonMean == 0) continue;
+            if (VECTORIZED) {
+                VectorKernels.accumulateRatios(data, seasonFrom, span, 1.0 / seasonMean, scratch, sums, counts);
+            } else {
+                ScalarKernels.accumulateRatios(data, seasonFrom, span, 1.0 / seasonMean, scratch, sums, counts);
+            }
+        }
+        for (int i = 0; i < seasonLength; i++) {
+            double count = scratch[counts + i];
+            out[outIndex + i] = count > 0 ? scratch[sums + i] / count : 1.0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package forecasting;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a {@link ForecastScheduler} run, handed to the progress listener.
+ */
+public class ForecastRunProgress {
+    public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final State state;
+    private final int total;
+    private final int completed;
+    private final int failed;
+    private final Duration elapsed;
+
+    ForecastRunProgress(State state, int total, int completed, int failed, Duration elapsed) {
+        this.state = state;
+        this.total = total;
+        this.completed = completed;
+        this.failed = failed;
+        this.elapsed = elapsed;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    // Items whose forecast threw; they keep their previous results
+    public int getFailed() {
+        return failed;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getFraction() {
+        return total > 0 ? (double) completed / total : 0;
+    }
+
+    // Remaining time extrapolated from the rate so far, null until the first item is done
+    public Duration getEstimatedRemaining() {
+        if (completed == 0 || state != State.RUNNING) return null;
+        long nanosPerItem = elapsed.toNanos() / completed;
+        return Duration.ofNanos(nanosPerItem * (total - completed));
+    }
+}
@@ -0,0 +1,372 @@
+package forecasting;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every item's forecasts precomputed so the Forecasting tab never forecasts on the FX
+ * thread.
+ *
+ * <p>Nothing runs until {@link #start()}: the server starts it at boot, a desktop terminal when
+ * its Forecasting tab is first opened. The first run forecasts the whole catalogue. Later runs
+ * only redo items whose {@code sales_history} rows changed since the previous run (by
+ * {@code updated_at}), items written through {@link SalesHistoryRepository} in this client,
+ * and items added since. Runs happen on the cron schedule in {@code FORECAST_SCHEDULE}
+ * (default hourly, {@code off} to disable) and a couple of seconds after local sales changes.
+ * The forecasting itself runs on {@code FORECAST_PARALLELISM} minimum-priority daemon threads
+ * (default half the cores).
+ *
+ * <p>At most {@code FORECAST_CACHE_ITEMS} items' forecasts are held (default 50000), the least
+ * recently used dropping out first. A catalogue larger than that is only precomputed up to the
+ * limit, and later runs only redo the items still held; anything else is computed by
+ * {@link #getOrCompute} when it's opened, from the current history.
+ */
+public class ForecastScheduler {
+    private static final long TRIGGER_DELAY_SECONDS = 2;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int DEFAULT_CAPACITY = 50_000;
+    private static ForecastScheduler instance;
+
+    private final ForecastCalculator calculator;
+    private final SalesHistoryRepository repository;
+    private final CronSchedule schedule;
+    private final ScheduledExecutorService coordinator;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final int capacity;
+    // Synchronized; iterate or bulk-edit it only while holding its lock
+    private final Map<Integer, ItemForecasts> results;
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean triggerPending = new AtomicBoolean();
+    private volatile Consumer<ForecastRunProgress> progressListener = progress -> { };
+    private volatile Run current;
+    private Timestamp watermark; // only touched on the coordinator thread
+    private boolean started;
+
+    public ForecastScheduler(ForecastCalculator calculator, SalesHistoryRepository repository,
+                             CronSchedule schedule, int parallelism, int capacity) {
+        this.calculator = calculator;
+        this.capacity = capacity;
+        this.results = Collections.synchronizedMap(new LruMap(capacity));
+        this.repository = repository;
+        this.schedule = schedule;
+        this.coordinator = Executors.newSingleThreadScheduledExecutor(daemonThreads("forecast-scheduler", Thread.NORM_PRIORITY));
+        this.workers = Executors.newFixedThreadPool(parallelism, daemonThreads("forecast-worker", Thread.MIN_PRIORITY));
+        // Enough queued work to keep the workers busy without loading the whole catalogue at once
+        this.maxInFlight = parallelism * 4;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public static synchronized ForecastScheduler getInstance() {
+        if (instance == null) {
+            instance = new ForecastScheduler(new ForecastCalculator(new ForecastingModel(0.2, 0.1, 0.3)),
+                    new SalesHistoryRepository(), scheduleFromEnvironment(), parallelismFromEnvironment(),
+                    capacityFromEnvironment());
+        }
+        return instance;
+    }
+
+    private static CronSchedule scheduleFromEnvironment() {
+        String expression = System.getenv().getOrDefault("FORECAST_SCHEDULE", "@hourly");
+        if (expression.isBlank() || expression.equalsIgnoreCase("off")) {
+            return null;
+        }
+        try {
+            return CronSchedule.parse(expression);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid FORECAST_SCHEDULE, using hourly: " + e.getMessage());
+            return CronSchedule.parse("@hourly");
+        }
+    }
+
+    private static int parallelismFromEnvironment() {
+        int fallback = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        try {
+            return Math.max(1, Integer.parseInt(System.getenv().getOrDefault("FORECAST_PARALLELISM", String.valueOf(fallback))));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static int capacityFromEnvironment() {
+        try {
+            return Math.max(1, Integer.parseInt(System.getenv().getOrDefault("FORECAST_CACHE_ITEMS",
+                    String.valueOf(DEFAULT_CAPACITY))));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid FORECAST_CACHE_ITEMS, using " + DEFAULT_CAPACITY);
+            return DEFAULT_CAPACITY;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name, int priority) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+
+    // Starts the initial full run and the schedule; later calls do nothing
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        SalesHistoryRepository.addChangeListener(this::markChanged);
+        coordinator.execute(this::runSafely);
+        scheduleNext();
+    }
+
+    private void scheduleNext() {
+        if (schedule == null) return;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = schedule.next(now);
+        if (next == null) return;
+        coordinator.schedule(() -> {
+            runSafely();
+            scheduleNext();
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Queues the item for the next run, which starts shortly unless one is already pending
+    public void markChanged(int itemCode) {
+        dirty.add(itemCode);
+        if (triggerPending.compareAndSet(false, true)) {
+            coordinator.schedule(() -> {
+                triggerPending.set(false);
+                runSafely();
+            }, TRIGGER_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public void requestRun() {
+        coordinator.execute(this::runSafely);
+    }
+
+    // Stops the current run after the items already being forecast; they keep their new results
+    public void cancel() {
+        Run run = current;
+        if (run != null) run.cancelled = true;
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    // Called from worker threads; marshal to the FX thread before touching the UI
+    public void setProgressListener(Consumer<ForecastRunProgress> listener) {
+        this.progressListener = listener != null ? listener : progress -> { };
+    }
+
+    public ItemForecasts get(int itemCode) {
+        return results.get(itemCode);
+    }
+
+    /**
+     * The item's precomputed forecasts, or a future that computes them on the worker pool if
+     * no run has reached the item yet.
+     */
+    public CompletableFuture<ItemForecasts> getOrCompute(int itemCode) {
+        ItemForecasts cached = results.get(itemCode);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return computeAndStore(repository.load(itemCode));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, workers);
+    }
+
+    private ItemForecasts computeAndStore(SalesHistory history) {
+        ItemForecasts forecasts = calculator.computeAll(history);
+        results.put(history.getItemCode(), forecasts);
+        return forecasts;
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (Exception e) {
+            System.err.println("Forecast run failed: " + e.getMessage());
+            e.printStackTrace();
+            progressListener.accept(new ForecastRunProgress(ForecastRunProgress.State.FAILED, 0, 0, 0, Duration.ZERO));
+        }
+    }
+
+    private void runOnce() throws SQLException, InterruptedException {
+        Timestamp scanStart = repository.databaseTime();
+        Set<Integer> catalogue = repository.listItemCodes();
+        synchronized (results) {
+            results.keySet().retainAll(catalogue); // forget deleted items
+        }
+
+        Set<Integer> drained = new HashSet<>(dirty);
+        dirty.removeAll(drained);
+        boolean full = watermark == null;
+
+        Set<Integer> targets = new HashSet<>();
+        if (!full) {
+            targets.addAll(drained);
+            targets.addAll(repository.findChangedSince(watermark));
+            synchronized (results) {
+                // Items not held are computed from current data when opened, so only held ones are stale
+                targets.retainAll(results.keySet());
+                // Any room left goes to items not yet forecast, e.g. ones added since
+                int room = capacity - results.size();
+                for (int itemCode : catalogue) {
+                    if (room <= 0) break;
+                    if (!results.containsKey(itemCode) && targets.add(itemCode)) room--;
+                }
+            }
+            if (targets.isEmpty()) {
+                watermark = scanStart;
+                return;
+            }
+        }
+
+        Run run = new Run(full ? Math.min(catalogue.size(), capacity) : targets.size());
+        current = run;
+        try {
+            if (full) {
+                // Stream the history table once rather than querying item by item, up to the capacity
+                Set<Integer> seen = new HashSet<>();
+                repository.streamAll(history -> {
+                    if (!catalogue.contains(history.getItemCode())) return;
+                    if (seen.size() >= capacity) throw new CancellationException(); // stops the scan
+                    seen.add(history.getItemCode());
+                    submit(run, () -> history);
+                });
+                for (int itemCode : catalogue) {
+                    if (seen.size() >= capacity) break;
+                    if (seen.add(itemCode)) submit(run, () -> repository.load(itemCode));
+                }
+            } else {
+                for (int itemCode : targets) {
+                    submit(run, () -> repository.load(itemCode));
+                }
+            }
+        } catch (CancellationException e) {
+            // Cancelled while submitting; fall through and wait for what's already queued
+        } catch (SQLException | RuntimeException e) {
+            dirty.addAll(drained);
+            throw e;
+        } finally {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+            current = null;
+        }
+
+        if (run.cancelled) {
+            // Leave the watermark alone so the next run picks up what this one skipped
+            dirty.addAll(drained);
+            progressListener.accept(run.snapshot(ForecastRunProgress.State.CANCELLED));
+        } else {
+            watermark = scanStart;
+            progressListener.accept(run.snapshot(ForecastRunProgress.State.COMPLETED));
+        }
+    }
+
+    private void submit(Run run, HistoryLoader loader) {
+        if (run.cancelled) throw new CancellationException();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.cancelled = true;
+            throw new CancellationException();
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    if (!run.cancelled) {
+                        computeAndStore(loader.load());
+                        run.completed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    run.failed.incrementAndGet();
+                    System.err.println("Error forecasting item: " + e.getMessage());
+                } finally {
+                    inFlight.release();
+                    run.reportProgress();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private static class LruMap extends LinkedHashMap<Integer, ItemForecasts> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ItemForecasts> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    @FunctionalInterface
+    private interface HistoryLoader {
+        SalesHistory load() throws SQLException;
+    }
+
+    private class Run {
+        final int total;
+        final long startNanos = System.nanoTime();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong lastReport = new AtomicLong(startNanos);
+        volatile boolean cancelled;
+
+        Run(int total) {
+            this.total = total;
+        }
+
+        // Throttled so a fast run doesn't flood the FX thread
+        void reportProgress() {
+            long now = System.nanoTime();
+            long last = lastReport.get();
+            if (now - last >= PROGRESS_INTERVAL_NANOS && lastReport.compareAndSet(last, now)) {
+                progressListener.accept(snapshot(ForecastRunProgress.State.RUNNING));
+            }
+        }
+
+        ForecastRunProgress snapshot(ForecastRunProgress.State state) {
+            return new ForecastRunProgress(state, total, completed.get(), failed.get(),
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+}
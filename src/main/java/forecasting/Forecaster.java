@@ -0,0 +1,35 @@
+package forecasting;
+
+/**
+ * A forecasting method offered on the Forecasting tab and used by the batch jobs.
+ *
+ * <p>Implementations are stateless and thread-safe. Anything a forecast needs beyond its input
+ * and output slices lives in a caller-supplied scratch array of at least
+ * {@link #scratchSize(int)} doubles, so a batch job can keep one set of buffers per thread and
+ * forecast the whole catalogue without allocating. NaN marks a month with no recorded sales.
+ */
+public interface Forecaster {
+    // Name shown in the formula combo box
+    String getName();
+
+    // Observed (non-missing) months needed before the method produces anything meaningful
+    int minimumHistory();
+
+    // Doubles of scratch space forecast() needs for a history of this length
+    default int scratchSize(int length) {
+        return 0;
+    }
+
+    /**
+     * Forecasts the {@code periodsAhead} months following {@code history[from, from + length)}
+     * into {@code out[outFrom, outFrom + periodsAhead)}. Forecasts are never negative.
+     */
+    void forecast(double[] history, int from, int length, double[] out, int outFrom, int periodsAhead, double[] scratch);
+
+    // Allocating convenience for one-off callers
+    default double[] forecast(double[] history, int periodsAhead) {
+        double[] out = new double[periodsAhead];
+        forecast(history, 0, history.length, out, 0, periodsAhead, new double[scratchSize(history.length)]);
+        return out;
+    }
+}
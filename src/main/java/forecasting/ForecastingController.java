@@ -8,8 +8,9 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.paint.Color;
-import database.database_utility;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.scene.Scene;
@@ -19,11 +20,15 @@ import javafx.geometry.Pos;
 import javafx.scene.input.MouseEvent;
 import javafx.geometry.Insets;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 public class ForecastingController {
     private AreaChart<String, Number> forecastChart;
@@ -34,16 +39,31 @@ public class ForecastingController {
     private ComboBox<String> forecastFormulaComboBox;
     private Label forecastPlaceholderLabel;
     private Button formulaHelpButton;
+    private ComboBox<String> forecastHorizonComboBox;
+    private Button purchaseListButton;
+    private Supplier<String> monthColumnSupplier = () -> "dec";
+    private ProgressBar runProgressBar;
+    private Label runStatusLabel;
+    private Button runCancelButton;
+    private ItemForecasts displayedForecasts;
     
+    private static final int DEFAULT_HORIZON = 6;
     private final ForecastingModel forecastingModel;
+    private final ForecastCalculator calculator;
+    private final SalesHistoryRepository historyRepository = new SalesHistoryRepository();
+    private final ReplenishmentEngine replenishmentEngine;
+    private final ForecastScheduler scheduler = ForecastScheduler.getInstance();
     
     public ForecastingController() {
         this.forecastingModel = new ForecastingModel(0.2, 0.1, 0.3); // Smoothing factors for trend, seasonal, and random components
+        this.calculator = new ForecastCalculator(forecastingModel);
+        this.replenishmentEngine = new ReplenishmentEngine(calculator, historyRepository);
     }
     
     public void initialize(AreaChart<String, Number> chart, ComboBox<String> productCombo,
                          Label accuracyLabel, Label trendLabel, Label recommendationsLabel, 
-                         ComboBox<String> formulaCombo, Label placeholderLabel, Button helpButton) {
+                         ComboBox<String> formulaCombo, Label placeholderLabel, Button helpButton,
+                         ComboBox<String> horizonCombo, Button purchaseListButton) {
         try {
             this.forecastChart = chart;
             this.forecastProductComboBox = productCombo;
@@ -53,6 +73,8 @@ public class ForecastingController {
             this.forecastFormulaComboBox = formulaCombo;
             this.forecastPlaceholderLabel = placeholderLabel;
             this.formulaHelpButton = helpButton;
+            this.forecastHorizonComboBox = horizonCombo;
+            this.purchaseListButton = purchaseListButton;
             
             System.out.println("Initializing ForecastingController...");
             
@@ -99,7 +121,7 @@ public class ForecastingController {
             if (forecastFormulaComboBox != null) {
                 forecastFormulaComboBox.setTooltip(new Tooltip("Select the forecasting formula to use."));
                 forecastFormulaComboBox.getItems().clear();
-                forecastFormulaComboBox.getItems().addAll("Holt-Winters", "Moving Average", "Simple Average", "Linear Programming");
+                forecastFormulaComboBox.getItems().addAll(calculator.getFormulas());
                 forecastFormulaComboBox.setValue(null);
                 forecastFormulaComboBox.setPromptText("Choose a formula");
                 forecastFormulaComboBox.setStyle("-fx-background-color: white; -fx-text-fill: #181739; -fx-font-size: 14px; -fx-background-radius: 5;");
@@ -116,10 +138,27 @@ public class ForecastingController {
                 });
             }
 
+            // Configure horizon combo box
+            if (forecastHorizonComboBox != null) {
+                forecastHorizonComboBox.setTooltip(new Tooltip("Select how many months ahead to forecast."));
+                for (int horizon : ForecastCalculator.HORIZONS) {
+                    forecastHorizonComboBox.getItems().add(horizon + " months");
+                }
+                forecastHorizonComboBox.setValue(DEFAULT_HORIZON + " months");
+                forecastHorizonComboBox.setStyle("-fx-background-color: white; -fx-text-fill: #181739; -fx-font-size: 14px; -fx-background-radius: 5;");
+                forecastHorizonComboBox.setOnAction(e -> updateForecast());
+            }
+
             // Configure help button
             if (formulaHelpButton != null) {
                 formulaHelpButton.setOnAction(e -> showFormulaHelp());
             }
+
+            // Configure purchase list button
+            if (purchaseListButton != null) {
+                purchaseListButton.setTooltip(new Tooltip("Reorder points and suggested orders for the whole catalogue."));
+                purchaseListButton.setOnAction(e -> showPurchaseList());
+            }
             
             // Show placeholder initially
             if (forecastPlaceholderLabel != null) {
@@ -137,40 +176,34 @@ public class ForecastingController {
     
     private void loadProducts() {
         System.out.println("Loading products...");
-        try (Connection conn = database_utility.connect()) {
-            if (conn == null) {
-                throw new SQLException("Failed to establish database connection");
+        // Clear existing items
+        if (forecastProductComboBox != null) {
+            forecastProductComboBox.getItems().clear();
+            forecastProductComboBox.setValue(null); // Show prompt
+        }
+
+        // Read off the FX thread so opening the dashboard doesn't wait on the product list
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return historyRepository.listDescriptions();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((products, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("Error loading products: " + cause.getMessage());
+                showError("Database Error", "Failed to load products: " + cause.getMessage());
+                return;
             }
-            
-            // Clear existing items
             if (forecastProductComboBox != null) {
-                forecastProductComboBox.getItems().clear();
-                forecastProductComboBox.setValue(null); // Show prompt
+                forecastProductComboBox.getItems().setAll(products);
             }
-            
-            String query = "SELECT DISTINCT item_description FROM sale_offtake ORDER BY item_description";
-            try (PreparedStatement stmt = conn.prepareStatement(query);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                int count = 0;
-                while (rs.next()) {
-                    String product = rs.getString("item_description");
-                    if (product != null) {
-                        forecastProductComboBox.getItems().add(product);
-                        count++;
-                        System.out.println("Added product: " + product);
-                    }
-                }
-                System.out.println("Loaded " + count + " products");
-                
-                if (count == 0) {
-                    showWarning("No Products", "No products found in the database.");
-                }
+            System.out.println("Loaded " + products.size() + " products");
+            if (products.isEmpty()) {
+                showWarning("No Products", "No products found in the database.");
             }
-        } catch (SQLException e) {
-            System.err.println("Error loading products: " + e.getMessage());
-            showError("Database Error", "Failed to load products: " + e.getMessage());
-        }
+        }));
     }
     
     private void updateForecast() {
@@ -181,124 +214,204 @@ public class ForecastingController {
             forecastPlaceholderLabel.setVisible(!ready);
         }
         if (!ready) return;
-        
-        try (Connection conn = database_utility.connect()) {
-            if (conn == null) {
-                throw new SQLException("Failed to establish database connection");
+
+        int horizon = getForecastHorizon();
+        String monthColumn = monthColumnSupplier.get();
+
+        // Clear existing chart data
+        if (forecastChart != null) {
+            Platform.runLater(() -> forecastChart.getData().clear());
+        }
+
+        // Forecasts come precomputed from the scheduler; only the lookups and stock on hand are read here, off the FX thread
+        common.UiActionEvent action = common.UiActionEvent.start("Forecasting", "Forecast requested");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                int itemCode = historyRepository.findItemCode(selectedProduct);
+                if (itemCode < 0) {
+                    return null;
+                }
+                ItemForecasts forecasts = scheduler.getOrCompute(itemCode).join();
+                ReplenishmentPlan plan = forecasts.has(selectedFormula)
+                        ? planReplenishment(forecasts, selectedProduct, selectedFormula, horizon, monthColumn)
+                        : null;
+                return new ForecastView(forecasts, plan);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
             }
+        }).whenComplete((view, error) -> Platform.runLater(() -> {
+            showForecast(selectedProduct, selectedFormula, horizon, view, error);
+            action.finish(view != null ? 1 : 0, selectedFormula + ", " + horizon + " months: " + selectedProduct);
+        }));
+    }
 
-            // Clear existing chart data
-            if (forecastChart != null) {
-                Platform.runLater(() -> forecastChart.getData().clear());
+    private void showForecast(String product, String formula, int horizon, ForecastView view, Throwable error) {
+        // Ignore results for a selection the user has already moved away from
+        if (!product.equals(forecastProductComboBox.getValue()) || !formula.equals(forecastFormulaComboBox.getValue())
+                || horizon != getForecastHorizon()) {
+            return;
+        }
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof IllegalArgumentException) {
+                showWarning("Forecast Error", "Unable to generate forecast: " + cause.getMessage());
+            } else {
+                System.err.println("Error updating forecast: " + cause.getMessage());
+                showError("Database Error", "Failed to update forecast: " + cause.getMessage());
             }
+            return;
+        }
+        if (view == null) {
+            showWarning("No Data", "No sales data found for " + product);
+            return;
+        }
 
-            // Get historical data
-            String query = "SELECT `jan`, `feb`, `mar`, `apr`, `may`, `jun`, `jul`, `aug`, `sep`, `oct`, `nov`, `dec` " +
-                         "FROM sale_offtake WHERE item_description = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, selectedProduct);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        double[] historicalData = new double[12];
-                        int nonZeroMonths = 0;
-                        for (int i = 0; i < 12; i++) {
-                            historicalData[i] = rs.getDouble(i + 1);
-                            if (historicalData[i] > 0) nonZeroMonths++;
-                        }
+        ItemForecasts forecasts = view.forecasts;
+        displayedForecasts = forecasts;
+        SalesHistory history = forecasts.getHistory();
 
-                        // Require at least 12 months of data
-                        if (nonZeroMonths < 12) {
-                            showWarning("Insufficient Data", "A full year (12 months) of sales data is required to generate a forecast. Only " + nonZeroMonths + " months available.");
-                            if (forecastAccuracyLabel != null) forecastAccuracyLabel.setText("");
-                            if (forecastTrendLabel != null) forecastTrendLabel.setText("");
-                            if (forecastRecommendationsLabel != null) forecastRecommendationsLabel.setText("");
-                            return;
-                        }
+        // Months with no recorded sales count as missing, not as zero
+        if (!forecasts.has(formula)) {
+            int required = calculator.minimumHistory(formula);
+            showWarning("Insufficient Data", "At least " + required + " months of sales history are required for " +
+                    formula + ". Only " + history.observedCount() + " months available.");
+            if (forecastAccuracyLabel != null) forecastAccuracyLabel.setText("");
+            if (forecastTrendLabel != null) forecastTrendLabel.setText("");
+            if (forecastRecommendationsLabel != null) forecastRecommendationsLabel.setText("");
+            return;
+        }
 
-                        try {
-                            double[] forecast;
-                            switch (selectedFormula) {
-                                case "Moving Average" -> forecast = movingAverageForecast(historicalData, 6, 3); // window=3
-                                case "Simple Average" -> forecast = simpleAverageForecast(historicalData, 6);
-                                case "Linear Programming" -> forecast = linearProgrammingForecast(historicalData, 6);
-                                default -> forecast = forecastingModel.forecast(historicalData, 6); // Holt-Winters
-                            }
-                            
-                            // Update chart and analysis
-                            Platform.runLater(() -> {
-                                updateChart(historicalData, forecast);
-                                updateTrendAnalysis(historicalData, forecast);
-                                updateRecommendations(historicalData, forecast);
-                                
-                                // Calculate and display accuracy
-                                try {
-                                    double accuracy = calculateAccuracy(
-                                        Arrays.copyOfRange(historicalData, 6, 12),
-                                        Arrays.copyOfRange(forecast, 0, 6)
-                                    );
-                                    forecastAccuracyLabel.setText(String.format("Forecast Accuracy: %.1f%%", accuracy));
-                                } catch (IllegalArgumentException e) {
-                                    forecastAccuracyLabel.setText("Accuracy calculation failed: " + e.getMessage());
-                                }
-                            });
-                            
-                        } catch (IllegalArgumentException e) {
-                            showWarning("Forecast Error", "Unable to generate forecast: " + e.getMessage());
-                        }
-                    } else {
-                        showWarning("No Data", "No sales data found for " + selectedProduct);
-                    }
+        double[] forecast = forecasts.forecast(formula, horizon);
+        Double accuracy = forecasts.accuracy(formula, horizon);
+        updateChart(history, forecast);
+        updateTrendAnalysis(history.values(), forecast);
+        updateRecommendations(view.plan);
+
+        // Display accuracy of the same method on a held-out tail of the history
+        if (forecastAccuracyLabel != null) {
+            forecastAccuracyLabel.setText(accuracy != null
+                    ? String.format("Forecast Accuracy: %.1f%%", accuracy)
+                    : "Forecast Accuracy: N/A");
+        }
+    }
+
+    // Reorder point and order quantity for the selected product, using the chosen formula and its backtest error
+    private ReplenishmentPlan planReplenishment(ItemForecasts forecasts, String description, String formula,
+                                                int horizon, String monthColumn) throws SQLException {
+        ReplenishmentPolicy policy = ReplenishmentPolicy.fromEnvironment();
+        int itemCode = forecasts.getItemCode();
+        int stockOnHand = replenishmentEngine.loadStockOnHand(itemCode, monthColumn);
+        double errorSigma = forecasts.errorSigma(formula, horizon);
+        if (Double.isNaN(errorSigma)) {
+            // Not enough history to backtest this formula, let the engine pick its own
+            return replenishmentEngine.planItem(itemCode, description, stockOnHand, forecasts.getHistory(), policy);
+        }
+        double[] forecast = forecasts.forecast(formula, ForecastCalculator.MAX_HORIZON);
+        return ReplenishmentEngine.compute(itemCode, description, formula, stockOnHand, forecast, errorSigma, policy);
+    }
+
+    /**
+     * Shows the background scheduler's progress and lets the user cancel a run. The scheduler
+     * itself waits for {@link #onTabShown()}, so terminals that never open the tab don't scan
+     * the whole sales history.
+     */
+    public void attachScheduler(ProgressBar progressBar, Label statusLabel, Button cancelButton) {
+        this.runProgressBar = progressBar;
+        this.runStatusLabel = statusLabel;
+        this.runCancelButton = cancelButton;
+        if (runCancelButton != null) {
+            runCancelButton.setOnAction(e -> {
+                scheduler.cancel();
+                runCancelButton.setDisable(true);
+            });
+        }
+        scheduler.setProgressListener(progress -> Platform.runLater(() -> showRunProgress(progress)));
+    }
+
+    // Starts the background scheduler the first time the Forecasting tab is opened
+    public void onTabShown() {
+        scheduler.start();
+    }
+
+    private void showRunProgress(ForecastRunProgress progress) {
+        boolean running = progress.getState() == ForecastRunProgress.State.RUNNING;
+        if (runProgressBar != null) {
+            runProgressBar.setVisible(running);
+            runProgressBar.setProgress(progress.getFraction());
+        }
+        if (runCancelButton != null) {
+            runCancelButton.setVisible(running);
+            if (running) runCancelButton.setDisable(false);
+        }
+        if (runStatusLabel != null) {
+            String failed = progress.getFailed() > 0 ? ", " + progress.getFailed() + " failed" : "";
+            runStatusLabel.setText(switch (progress.getState()) {
+                case RUNNING -> {
+                    Duration remaining = progress.getEstimatedRemaining();
+                    yield String.format("Updating forecasts: %d / %d%s%s", progress.getCompleted(), progress.getTotal(), failed,
+                            remaining != null ? " (about " + formatDuration(remaining) + " left)" : "");
                 }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating forecast: " + e.getMessage());
-            showError("Database Error", "Failed to update forecast: " + e.getMessage());
+                case COMPLETED -> String.format("Forecasts updated at %s: %d items in %s%s",
+                        LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm")), progress.getTotal(),
+                        formatDuration(progress.getElapsed()), failed);
+                case CANCELLED -> String.format("Forecast update cancelled after %d of %d items", progress.getCompleted(), progress.getTotal());
+                case FAILED -> "Forecast update failed, showing the last results";
+            });
+        }
+        // Redraw if the product on screen was just recomputed
+        if (progress.getState() == ForecastRunProgress.State.COMPLETED && displayedForecasts != null
+                && scheduler.get(displayedForecasts.getItemCode()) != displayedForecasts) {
+            updateForecast();
         }
     }
-    
-    private double calculateAccuracy(double[] actual, double[] forecast) {
-        if (actual.length != forecast.length || actual.length == 0) {
-            throw new IllegalArgumentException("Arrays must be of equal non-zero length");
+
+    private static String formatDuration(Duration duration) {
+        long seconds = Math.max(0, duration.getSeconds());
+        if (seconds < 60) {
+            return seconds + "s";
         }
-        
-        double sumAbsPercentError = 0.0;
-        int validPoints = 0;
-        
-        for (int i = 0; i < actual.length; i++) {
-            if (actual[i] != 0) {  // Avoid division by zero
-                double absPercentError = Math.abs((actual[i] - forecast[i]) / actual[i]) * 100;
-                sumAbsPercentError += absPercentError;
-                validPoints++;
+        return seconds < 3600
+                ? String.format("%dm %02ds", seconds / 60, seconds % 60)
+                : String.format("%dh %02dm", seconds / 3600, (seconds % 3600) / 60);
+    }
+
+    // Where to read stock on hand from; the dashboard supplies its selected month
+    public void setMonthColumnSupplier(Supplier<String> monthColumnSupplier) {
+        this.monthColumnSupplier = monthColumnSupplier;
+    }
+
+    public int getForecastHorizon() {
+        if (forecastHorizonComboBox != null && forecastHorizonComboBox.getValue() != null) {
+            try {
+                return Integer.parseInt(forecastHorizonComboBox.getValue().split(" ")[0]);
+            } catch (NumberFormatException ignored) {
+                // Fall back to the default horizon
             }
         }
-        
-        if (validPoints == 0) {
-            return 0.0;
-        }
-        
-        // Return accuracy as 100 - MAPE (Mean Absolute Percentage Error)
-        return Math.min(100.0, Math.max(0.0, 100.0 - (sumAbsPercentError / validPoints)));
+        return DEFAULT_HORIZON;
     }
     
-    private void updateChart(double[] historical, double[] forecast) {
+    private void updateChart(SalesHistory history, double[] forecast) {
         if (forecastChart == null) return;
         
         forecastChart.getData().clear();
         
-        // Historical data series
+        // Historical data series, skipping months with no recorded sales
         XYChart.Series<String, Number> historicalSeries = new XYChart.Series<>();
         historicalSeries.setName("Historical Sales");
-        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+        double[] historical = history.values();
         for (int i = 0; i < historical.length; i++) {
-            historicalSeries.getData().add(new XYChart.Data<>(months[i], historical[i]));
+            if (!Double.isNaN(historical[i])) {
+                historicalSeries.getData().add(new XYChart.Data<>(history.labelAt(i), historical[i]));
+            }
         }
         
-        // Forecast data series
+        // Forecast data series, starting the month after the last historical one
         XYChart.Series<String, Number> forecastSeries = new XYChart.Series<>();
         forecastSeries.setName("Forecast");
-        String[] forecastMonths = {"Jan", "Feb", "Mar", "Apr", "May", "Jun"};
+        YearMonth next = history.getEnd().plusMonths(1);
         for (int i = 0; i < forecast.length; i++) {
-            forecastSeries.getData().add(new XYChart.Data<>(forecastMonths[i], forecast[i]));
+            forecastSeries.getData().add(new XYChart.Data<>(SalesHistory.label(next.plusMonths(i)), forecast[i]));
         }
         
         forecastChart.getData().add(historicalSeries);
@@ -308,8 +421,8 @@ public class ForecastingController {
     private void updateTrendAnalysis(double[] historical, double[] forecast) {
         if (forecastTrendLabel == null) return;
         
-        double avgHistorical = Arrays.stream(historical).average().orElse(0);
-        double avgForecast = Arrays.stream(forecast).average().orElse(0);
+        double avgHistorical = recentAverage(historical);
+        double avgForecast = ForecastKernels.mean(forecast, 0, forecast.length);
         double change = ((avgForecast - avgHistorical) / avgHistorical) * 100;
         
         String trend;
@@ -324,29 +437,54 @@ public class ForecastingController {
         forecastTrendLabel.setText(trend);
     }
     
-    private void updateRecommendations(double[] historical, double[] forecast) {
+    private void updateRecommendations(ReplenishmentPlan plan) {
         if (forecastRecommendationsLabel == null) return;
         
-        double avgHistorical = Arrays.stream(historical).average().orElse(0);
-        double avgForecast = Arrays.stream(forecast).average().orElse(0);
-        double change = ((avgForecast - avgHistorical) / avgHistorical) * 100;
-        
         StringBuilder recommendations = new StringBuilder();
         
-        if (change > 15) {
-            recommendations.append("Consider increasing inventory levels by ").append(String.format("%.0f", change)).append("%. ");
-            recommendations.append("Review supply chain capacity to meet growing demand.");
-        } else if (change < -15) {
-            recommendations.append("Consider reducing inventory levels. ");
-            recommendations.append("Review pricing strategy and marketing efforts to stimulate demand.");
+        if (plan.isReorderNeeded()) {
+            recommendations.append("Order ").append(plan.getSuggestedOrder()).append(" units now. ");
         } else {
-            recommendations.append("Maintain current inventory levels. ");
-            recommendations.append("Continue monitoring market conditions for changes.");
+            recommendations.append("No order needed yet. ");
         }
+        recommendations.append("Stock on hand: ").append(plan.getStockOnHand())
+                .append(", reorder point: ").append(plan.getReorderPoint())
+                .append(" (incl. safety stock of ").append(plan.getSafetyStock()).append(").");
         
         forecastRecommendationsLabel.setText(recommendations.toString());
     }
+
+    private void showPurchaseList() {
+        try {
+            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(getClass().getResource("/forecasting/purchase_list_dialog.fxml"));
+            javafx.scene.Parent root = loader.load();
+            PurchaseListController controller = loader.getController();
+            Stage dialogStage = new Stage();
+            if (purchaseListButton != null && purchaseListButton.getScene() != null) {
+                dialogStage.initOwner(purchaseListButton.getScene().getWindow());
+            }
+            dialogStage.initModality(javafx.stage.Modality.APPLICATION_MODAL);
+            dialogStage.setTitle("Purchase List");
+            controller.setDialogStage(dialogStage);
+            controller.setMonthColumn(monthColumnSupplier.get());
+            dialogStage.setScene(new Scene(root));
+            dialogStage.show();
+            controller.recalculate();
+        } catch (Exception e) {
+            System.err.println("Error showing purchase list: " + e.getMessage());
+            e.printStackTrace();
+            showError("Purchase List Error", "Failed to open purchase list: " + e.getMessage());
+        }
+    }
     
+    // Average of the most recent season, so multi-year histories compare like with like
+    private double recentAverage(double[] historical) {
+        int season = forecastingModel.getSeasonLength();
+        int from = Math.max(0, historical.length - season);
+        double avg = ForecastKernels.mean(historical, from, historical.length - from);
+        return Double.isNaN(avg) ? 0 : avg;
+    }
+
     private void showError(String title, String content) {
         Platform.runLater(() -> {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -367,47 +505,6 @@ public class ForecastingController {
         });
     }
     
-    // --- Additional Forecasting Methods ---
-    private double[] movingAverageForecast(double[] data, int periodsAhead, int window) {
-        double[] forecast = new double[periodsAhead];
-        double sum = 0;
-        int n = data.length;
-        for (int i = n - window; i < n; i++) sum += data[i];
-        double avg = sum / window;
-        Arrays.fill(forecast, avg);
-        return forecast;
-    }
-    private double[] simpleAverageForecast(double[] data, int periodsAhead) {
-        double avg = Arrays.stream(data).average().orElse(0);
-        double[] forecast = new double[periodsAhead];
-        Arrays.fill(forecast, avg);
-        return forecast;
-    }
-    private double[] linearProgrammingForecast(double[] data, int periodsAhead) {
-        // Linear Programming implementation using simple linear regression
-        double[] forecast = new double[periodsAhead];
-        int n = data.length;
-        
-        // Calculate slope and intercept using least squares method
-        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-        for (int i = 0; i < n; i++) {
-            sumX += i;
-            sumY += data[i];
-            sumXY += i * data[i];
-            sumX2 += i * i;
-        }
-        
-        double slope = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
-        double intercept = (sumY - slope * sumX) / n;
-        
-        // Generate forecast using the linear equation: y = mx + b
-        for (int i = 0; i < periodsAhead; i++) {
-            forecast[i] = Math.max(0, slope * (n + i) + intercept); // Ensure non-negative values
-        }
-        
-        return forecast;
-    }
-
     private void showFormulaHelp() {
         try {
             // Create a new stage for the popup
@@ -479,10 +576,29 @@ public class ForecastingController {
                 "📊"
             );
             
-            formulasBox.getChildren().addAll(hwBox, maBox, saBox, lpBox);
+            // ETS descriptions
+            VBox etsBox = createFormulaBox(
+                "ETS (Additive / Multiplicative / Damped Trend)",
+                "Exponential smoothing variants. Additive suits seasonal swings of a fixed size, Multiplicative swings that grow with sales, and Damped Trend flattens the trend over time for items without seasonality.",
+                "📈"
+            );
+            
+            // Intermittent demand descriptions
+            VBox crostonBox = createFormulaBox(
+                "Croston / SBA / TSB",
+                "For items that sell in bursts with zero months in between. Croston forecasts average sale size over the gap between sales, SBA corrects Croston's tendency to over-forecast, and TSB lets the forecast fade for items that have stopped selling.",
+                "📦"
+            );
+            
+            formulasBox.getChildren().addAll(hwBox, maBox, saBox, lpBox, etsBox, crostonBox);
+            
+            ScrollPane formulasScroll = new ScrollPane(formulasBox);
+            formulasScroll.setFitToWidth(true);
+            formulasScroll.setPrefViewportHeight(420);
+            formulasScroll.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
             
             // Add all components
-            content.getChildren().addAll(windowControls, titleBox, formulasBox);
+            content.getChildren().addAll(windowControls, titleBox, formulasScroll);
             
             // Make window draggable
             final Delta dragDelta = new Delta();
@@ -545,6 +661,17 @@ public class ForecastingController {
         double x, y;
     }
 
+    // What the background lookup hands back to the FX thread
+    private static class ForecastView {
+        final ItemForecasts forecasts;
+        final ReplenishmentPlan plan;
+
+        ForecastView(ItemForecasts forecasts, ReplenishmentPlan plan) {
+            this.forecasts = forecasts;
+            this.plan = plan;
+        }
+    }
+
     public void refreshProductList() {
         loadProducts();
     }
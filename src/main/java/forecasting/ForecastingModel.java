@@ -1,109 +1,129 @@
 package forecasting;
 
-import java.util.Arrays;
-
-public class ForecastingModel {
+public class ForecastingModel implements Forecaster {
     private final double alpha; // Level smoothing factor
     private final double beta;  // Trend smoothing factor
     private final double gamma; // Seasonal smoothing factor
     private final int seasonLength; // Number of months in a season (12 for yearly)
-    
+
     public ForecastingModel(double alpha, double beta, double gamma) {
+        this(alpha, beta, gamma, 12); // Monthly data
+    }
+
+    public ForecastingModel(double alpha, double beta, double gamma, int seasonLength) {
         this.alpha = alpha;
         this.beta = beta;
         this.gamma = gamma;
-        this.seasonLength = 12; // Monthly data
+        this.seasonLength = seasonLength;
     }
-    
-    public double[] forecast(double[] historicalData, int periodsAhead) {
-        if (historicalData.length < seasonLength) {
+
+    public int getSeasonLength() {
+        return seasonLength;
+    }
+
+    @Override
+    public String getName() {
+        return "Holt-Winters";
+    }
+
+    @Override
+    public int minimumHistory() {
+        return seasonLength;
+    }
+
+    // Seasonal indices plus the sums and counts used to initialise them
+    @Override
+    public int scratchSize(int length) {
+        return 3 * seasonLength;
+    }
+
+    /**
+     * Multiplicative Holt-Winters forecast. The history may span any number of seasons;
+     * NaN entries are treated as missing months: the level and trend are carried forward across
+     * them and no seasonal index is updated.
+     */
+    @Override
+    public void forecast(double[] historicalData, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        if (n < seasonLength) {
             throw new IllegalArgumentException("Need at least 1 year of data");
         }
-        
-        // Initialize seasonal components using the available data
-        double[] seasons = initializeSeasonalComponents(historicalData);
-        double level = calculateInitialLevel(historicalData);
-        double trend = calculateInitialTrend(historicalData);
-        
+
+        // Initialize components from the complete seasons available. Each month's average ratio
+        // to its own season's mean, so growth across years doesn't leak into the seasonal pattern
+        double[] seasons = scratch;
+        ForecastKernels.seasonalIndices(historicalData, from, n, seasonLength, seasons, 0, scratch, seasonLength);
+        double level = calculateInitialLevel(historicalData, from, n);
+        double trend = calculateInitialTrend(historicalData, from, n);
+
+        // Smooth through the history, starting after the first season used for the initial level
+        for (int t = seasonLength; t < n; t++) {
+            int season = t % seasonLength;
+            double observed = historicalData[from + t];
+            if (Double.isNaN(observed)) {
+                level += trend;
+                continue;
+            }
+            double previousLevel = level;
+            double seasonal = seasons[season] > 0 ? seasons[season] : 1;
+            level = alpha * (observed / seasonal) + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            if (level > 0) {
+                seasons[season] = gamma * (observed / level) + (1 - gamma) * seasons[season];
+            }
+        }
+
         // Generate forecast
-        double[] forecast = new double[periodsAhead];
-        int n = historicalData.length;
-        
         for (int i = 0; i < periodsAhead; i++) {
             int season = (n + i) % seasonLength;
-            forecast[i] = Math.max(0, (level + trend * (i + 1)) * seasons[season]); // Ensure non-negative values
+            out[outFrom + i] = Math.max(0, (level + trend * (i + 1)) * seasons[season]); // Ensure non-negative values
         }
-        
-        return forecast;
     }
-    
-    private double[] initializeSeasonalComponents(double[] data) {
-        double[] seasonalIndices = new double[seasonLength];
-        int numPeriods = data.length;
-        
-        // Calculate average for each season using available data
-        double[] seasonSums = new double[seasonLength];
-        int[] seasonCounts = new int[seasonLength];
-        
-        for (int i = 0; i < numPeriods; i++) {
-            int season = i % seasonLength;
-            seasonSums[season] += data[i];
-            seasonCounts[season]++;
-        }
-        
-        // Calculate seasonal indices
-        double totalAverage = Arrays.stream(data).sum() / numPeriods;
-        if (totalAverage == 0) totalAverage = 1; // Avoid division by zero
-        
-        for (int i = 0; i < seasonLength; i++) {
-            double seasonAverage = seasonCounts[i] > 0 ? seasonSums[i] / seasonCounts[i] : totalAverage;
-            seasonalIndices[i] = seasonAverage / totalAverage;
-        }
-        
-        return seasonalIndices;
-    }
-    
-    private double calculateInitialLevel(double[] data) {
+
+    private double calculateInitialLevel(double[] data, int from, int n) {
         // Use the average of first season as initial level
-        return Arrays.stream(data, 0, Math.min(data.length, seasonLength)).average().orElse(0);
+        double level = ForecastKernels.mean(data, from, Math.min(n, seasonLength));
+        return Double.isNaN(level) ? 0 : level;
     }
-    
-    private double calculateInitialTrend(double[] data) {
-        if (data.length <= seasonLength) {
-            // With only one season, estimate trend using first and last months
-            return (data[data.length - 1] - data[0]) / (data.length - 1);
+
+    private double calculateInitialTrend(double[] data, int from, int n) {
+        if (n < 2 * seasonLength) {
+            // With only one season, estimate trend using first and last observed months
+            int first = -1, last = -1;
+            for (int i = 0; i < n; i++) {
+                if (!Double.isNaN(data[from + i])) {
+                    if (first < 0) first = i;
+                    last = i;
+                }
+            }
+            return last > first ? (data[from + last] - data[from + first]) / (last - first) : 0;
         }
-        
-        // With more data, use average change between seasons
+
+        // With more data, use average change between the first two seasons
         double sum = 0;
-        int n = Math.min(data.length - seasonLength, seasonLength);
-        for (int i = 0; i < n; i++) {
-            sum += (data[seasonLength + i] - data[i]) / seasonLength;
+        int count = 0;
+        for (int i = 0; i < seasonLength; i++) {
+            double a = data[from + i];
+            double b = data[from + seasonLength + i];
+            if (!Double.isNaN(a) && !Double.isNaN(b)) {
+                sum += (b - a) / seasonLength;
+                count++;
+            }
         }
-        return sum / n;
+        return count > 0 ? sum / count : 0;
     }
-    
+
     public static double calculateAccuracy(double[] actual, double[] forecast) {
         if (actual.length != forecast.length || actual.length == 0) {
             throw new IllegalArgumentException("Arrays must be of equal non-zero length");
         }
-        
-        double sumAbsPercentError = 0.0;
-        int validPoints = 0;
-        
-        for (int i = 0; i < actual.length; i++) {
-            if (actual[i] != 0) {  // Avoid division by zero
-                double absPercentError = Math.abs((actual[i] - forecast[i]) / actual[i]) * 100;
-                sumAbsPercentError += absPercentError;
-                validPoints++;
-            }
-        }
-        
-        if (validPoints == 0) {
+        return accuracyFromMape(ForecastKernels.mape(actual, 0, forecast, 0, actual.length));
+    }
+
+    // Accuracy as 100 - MAPE (Mean Absolute Percentage Error); 0 when no month could be scored
+    public static double accuracyFromMape(double mape) {
+        if (Double.isNaN(mape)) {
             return 0.0;
         }
-        
-        // Return accuracy as 100 - MAPE (Mean Absolute Percentage Error)
-        return Math.min(100.0, Math.max(0.0, 100.0 - (sumAbsPercentError / validPoints)));
+        return Math.min(100.0, Math.max(0.0, 100.0 - mape));
     }
 }
@@ -0,0 +1,84 @@
+package forecasting;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed forecasts for one item: every formula's forecast out to
+ * {@link ForecastCalculator#MAX_HORIZON} months and its backtest scores per selectable horizon,
+ * together with the history they were computed from. Immutable once built.
+ */
+public class ItemForecasts {
+    private final SalesHistory history;
+    private final Map<String, Result> results;
+    private final Instant computedAt = Instant.now();
+
+    ItemForecasts(SalesHistory history, Map<String, Result> results) {
+        this.history = history;
+        this.results = results;
+    }
+
+    public int getItemCode() {
+        return history.getItemCode();
+    }
+
+    public SalesHistory getHistory() {
+        return history;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    // Formulas with results, in display order
+    public Set<String> getFormulas() {
+        return Collections.unmodifiableSet(results.keySet());
+    }
+
+    // False when the history is too short for the formula
+    public boolean has(String formula) {
+        return results.containsKey(formula);
+    }
+
+    public double[] forecast(String formula, int horizon) {
+        Result result = results.get(formula);
+        return result == null ? null : Arrays.copyOf(result.forecast, Math.min(horizon, result.forecast.length));
+    }
+
+    // Backtest accuracy in percent, or null if there wasn't enough history to hold any months out
+    public Double accuracy(String formula, int horizon) {
+        Result result = results.get(formula);
+        if (result == null) return null;
+        double accuracy = result.accuracy[horizonIndex(horizon)];
+        return Double.isNaN(accuracy) ? null : accuracy;
+    }
+
+    // Standard deviation of the monthly backtest error, NaN if there was no backtest
+    public double errorSigma(String formula, int horizon) {
+        Result result = results.get(formula);
+        return result == null ? Double.NaN : result.errorSigma[horizonIndex(horizon)];
+    }
+
+    private static int horizonIndex(int horizon) {
+        int[] horizons = ForecastCalculator.HORIZONS;
+        for (int i = 0; i < horizons.length; i++) {
+            if (horizon <= horizons[i]) return i;
+        }
+        return horizons.length - 1;
+    }
+
+    static class Result {
+        final double[] forecast;
+        final double[] accuracy;
+        final double[] errorSigma;
+
+        Result(double[] forecast, double[] accuracy, double[] errorSigma) {
+            this.forecast = forecast;
+            this.accuracy = accuracy;
+            this.errorSigma = errorSigma;
+        }
+    }
+}
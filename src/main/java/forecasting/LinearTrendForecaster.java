@@ -0,0 +1,35 @@
+package forecasting;
+
+/**
+ * Least-squares straight line through the observed months, extrapolated forward. Shown as
+ * "Linear Programming" on the Forecasting tab.
+ */
+public class LinearTrendForecaster implements Forecaster {
+    @Override
+    public String getName() {
+        return "Linear Programming";
+    }
+
+    @Override
+    public int minimumHistory() {
+        return 2;
+    }
+
+    // Slope and intercept
+    @Override
+    public int scratchSize(int length) {
+        return 2;
+    }
+
+    @Override
+    public void forecast(double[] history, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        ForecastKernels.linearTrend(history, from, n, scratch, 0);
+        double slope = scratch[0];
+        double intercept = scratch[1];
+
+        // Generate forecast using the linear equation: y = mx + b
+        for (int i = 0; i < periodsAhead; i++) {
+            out[outFrom + i] = Math.max(0, slope * (n + i) + intercept); // Ensure non-negative values
+        }
+    }
+}
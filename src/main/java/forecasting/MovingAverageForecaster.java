@@ -0,0 +1,36 @@
+package forecasting;
+
+/**
+ * Flat forecast at the average of the last {@code window} observed months.
+ */
+public class MovingAverageForecaster implements Forecaster {
+    private final int window;
+
+    public MovingAverageForecaster(int window) {
+        this.window = window;
+    }
+
+    @Override
+    public String getName() {
+        return "Moving Average";
+    }
+
+    @Override
+    public int minimumHistory() {
+        return window;
+    }
+
+    @Override
+    public void forecast(double[] history, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        // Walk back far enough to cover the last `window` observed months
+        int start = from + n;
+        for (int seen = 0; start > from && seen < window; ) {
+            if (!Double.isNaN(history[--start])) seen++;
+        }
+        double avg = ForecastKernels.mean(history, start, from + n - start);
+        double value = Double.isNaN(avg) ? 0 : avg;
+        for (int i = 0; i < periodsAhead; i++) {
+            out[outFrom + i] = value;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package forecasting;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+
+import java.util.List;
+
+/**
+ * Catalogue-wide purchase list built by {@link ReplenishmentEngine}. The calculation runs off
+ * the FX thread; every column can be sorted by clicking its header.
+ */
+public class PurchaseListController {
+    @FXML private TextField leadTimeField;
+    @FXML private TextField reviewPeriodField;
+    @FXML private TextField serviceLevelField;
+    @FXML private CheckBox reorderOnlyCheckBox;
+    @FXML private Button recalculateButton;
+    @FXML private Button closeButton;
+    @FXML private ProgressIndicator progressIndicator;
+    @FXML private Label statusLabel;
+    @FXML private TableView<ReplenishmentPlan> planTable;
+    @FXML private TableColumn<ReplenishmentPlan, Integer> col_item_code;
+    @FXML private TableColumn<ReplenishmentPlan, String> col_description;
+    @FXML private TableColumn<ReplenishmentPlan, String> col_method;
+    @FXML private TableColumn<ReplenishmentPlan, Integer> col_on_hand;
+    @FXML private TableColumn<ReplenishmentPlan, Double> col_monthly_demand;
+    @FXML private TableColumn<ReplenishmentPlan, Integer> col_safety_stock;
+    @FXML private TableColumn<ReplenishmentPlan, Integer> col_reorder_point;
+    @FXML private TableColumn<ReplenishmentPlan, Integer> col_suggested_order;
+
+    private final ObservableList<ReplenishmentPlan> plans = FXCollections.observableArrayList();
+    private final FilteredList<ReplenishmentPlan> filteredPlans = new FilteredList<>(plans);
+    private final ReplenishmentEngine engine = new ReplenishmentEngine();
+    private Stage dialogStage;
+    private String monthColumn = "dec";
+    private Task<List<ReplenishmentPlan>> running;
+
+    @FXML
+    private void initialize() {
+        ReplenishmentPolicy defaults = ReplenishmentPolicy.fromEnvironment();
+        leadTimeField.setText(formatNumber(defaults.getLeadTimeMonths()));
+        reviewPeriodField.setText(formatNumber(defaults.getReviewPeriodMonths()));
+        serviceLevelField.setText(formatNumber(defaults.getServiceLevel() * 100));
+
+        col_item_code.setCellValueFactory(new PropertyValueFactory<>("itemCode"));
+        col_description.setCellValueFactory(new PropertyValueFactory<>("description"));
+        col_method.setCellValueFactory(new PropertyValueFactory<>("method"));
+        col_on_hand.setCellValueFactory(new PropertyValueFactory<>("stockOnHand"));
+        col_monthly_demand.setCellValueFactory(new PropertyValueFactory<>("monthlyDemand"));
+        col_monthly_demand.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty || value == null ? null : String.format("%.1f", value));
+            }
+        });
+        col_safety_stock.setCellValueFactory(new PropertyValueFactory<>("safetyStock"));
+        col_reorder_point.setCellValueFactory(new PropertyValueFactory<>("reorderPoint"));
+        col_suggested_order.setCellValueFactory(new PropertyValueFactory<>("suggestedOrder"));
+
+        SortedList<ReplenishmentPlan> sortedPlans = new SortedList<>(filteredPlans);
+        sortedPlans.comparatorProperty().bind(planTable.comparatorProperty());
+        planTable.setItems(sortedPlans);
+        planTable.setPlaceholder(new Label("No items to show"));
+
+        reorderOnlyCheckBox.selectedProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        recalculateButton.setOnAction(e -> recalculate());
+        closeButton.setOnAction(e -> {
+            if (running != null) running.cancel();
+            if (dialogStage != null) dialogStage.close();
+        });
+        applyFilter();
+    }
+
+    public void setDialogStage(Stage stage) {
+        this.dialogStage = stage;
+    }
+
+    // The stock_onhand month column to plan against, as returned by getSelectedMonthColumn()
+    public void setMonthColumn(String monthColumn) {
+        this.monthColumn = monthColumn;
+    }
+
+    public void recalculate() {
+        ReplenishmentPolicy policy;
+        try {
+            policy = new ReplenishmentPolicy(
+                    Double.parseDouble(leadTimeField.getText().trim()),
+                    Double.parseDouble(reviewPeriodField.getText().trim()),
+                    Double.parseDouble(serviceLevelField.getText().trim()) / 100);
+        } catch (NumberFormatException e) {
+            statusLabel.setText("Lead time, review period and service level must be numbers.");
+            return;
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText(e.getMessage());
+            return;
+        }
+
+        if (running != null) running.cancel();
+        String month = monthColumn;
+        Task<List<ReplenishmentPlan>> task = new Task<>() {
+            @Override
+            protected List<ReplenishmentPlan> call() throws Exception {
+                return engine.planCatalogue(month, policy);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            plans.setAll(task.getValue());
+            long toOrder = plans.stream().filter(ReplenishmentPlan::isReorderNeeded).count();
+            statusLabel.setText(String.format("%d of %d items need ordering (stock on hand as of %s, %.0f%% service level)",
+                    toOrder, plans.size(), month.toUpperCase(), policy.getServiceLevel() * 100));
+            setBusy(false);
+        });
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            System.err.println("Error building purchase list: " + error.getMessage());
+            error.printStackTrace();
+            statusLabel.setText("Failed to build purchase list: " + error.getMessage());
+            setBusy(false);
+        });
+        task.setOnCancelled(e -> setBusy(false));
+
+        running = task;
+        setBusy(true);
+        statusLabel.setText("Calculating reorder points...");
+        Thread worker = new Thread(task, "purchase-list");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void setBusy(boolean busy) {
+        progressIndicator.setVisible(busy);
+        recalculateButton.setDisable(busy);
+    }
+
+    private void applyFilter() {
+        boolean reorderOnly = reorderOnlyCheckBox.isSelected();
+        filteredPlans.setPredicate(plan -> !reorderOnly || plan.isReorderNeeded());
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
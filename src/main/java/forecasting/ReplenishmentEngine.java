@@ -0,0 +1,251 @@
+package forecasting;
+
+import database.database_utility;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Turns forecasts into purchasing decisions. For each item:
+ * <ul>
+ *   <li>safety stock = z × σ × √(lead time), where σ is the monthly forecast error measured by
+ *       backtesting the forecast against the most recent months,</li>
+ *   <li>reorder point = forecast demand over the lead time + safety stock,</li>
+ *   <li>suggested order = order-up-to level (demand over lead time and review period + safety
+ *       stock) minus stock on hand, but only once stock is at or below the reorder point.</li>
+ * </ul>
+ */
+public class ReplenishmentEngine {
+    private static final String CATALOGUE_QUERY =
+            "SELECT s.item_code, s.item_description, s.jan, s.feb, s.mar, s.apr, s.may, s.jun, s.jul, s.aug, " +
+            "s.sep, s.oct, s.nov, s.`dec`, o.`%s1` AS on_hand " +
+            "FROM sale_offtake s LEFT JOIN stock_onhand_live o ON o.item_code = s.item_code ORDER BY s.item_code";
+    // Histories held in memory at once while planning the catalogue
+    private static final int PLAN_BATCH_SIZE = 1000;
+
+    private final ForecastCalculator calculator;
+    private final SalesHistoryRepository historyRepository;
+
+    public ReplenishmentEngine() {
+        this(new ForecastCalculator(new ForecastingModel(0.2, 0.1, 0.3)), new SalesHistoryRepository());
+    }
+
+    public ReplenishmentEngine(ForecastCalculator calculator, SalesHistoryRepository historyRepository) {
+        this.calculator = calculator;
+        this.historyRepository = historyRepository;
+    }
+
+    /**
+     * Plans every item in the catalogue against the stock on hand for {@code monthColumn}.
+     * Histories are streamed in item code order alongside the catalogue and planned in parallel
+     * a batch at a time, so only one batch of them is in memory. Items that need ordering come
+     * first, largest order first.
+     */
+    public List<ReplenishmentPlan> planCatalogue(String monthColumn, ReplenishmentPolicy policy) throws SQLException {
+        List<CatalogueItem> items = loadCatalogue(monthColumn);
+        int year = Year.now().getValue();
+        List<ReplenishmentPlan> plans = new ArrayList<>(items.size());
+        List<CatalogueItem> batchItems = new ArrayList<>(PLAN_BATCH_SIZE);
+        List<SalesHistory> batchHistories = new ArrayList<>(PLAN_BATCH_SIZE);
+        int[] next = {0};
+
+        historyRepository.streamAll(history -> {
+            // Both are in item code order: items passed over have no history rows
+            while (next[0] < items.size() && items.get(next[0]).itemCode < history.getItemCode()) {
+                batchItems.add(items.get(next[0]++));
+                batchHistories.add(null);
+            }
+            if (next[0] < items.size() && items.get(next[0]).itemCode == history.getItemCode()) {
+                batchItems.add(items.get(next[0]++));
+                batchHistories.add(history);
+            }
+            if (batchItems.size() >= PLAN_BATCH_SIZE) {
+                planBatch(batchItems, batchHistories, year, policy, plans);
+            }
+        });
+        while (next[0] < items.size()) {
+            batchItems.add(items.get(next[0]++));
+            batchHistories.add(null);
+        }
+        planBatch(batchItems, batchHistories, year, policy, plans);
+
+        plans.sort(Comparator.comparingInt(ReplenishmentPlan::getSuggestedOrder).reversed()
+                .thenComparing(ReplenishmentPlan::getDescription, Comparator.nullsLast(Comparator.naturalOrder())));
+        return plans;
+    }
+
+    // Plans a batch in parallel into plans, then empties it
+    private void planBatch(List<CatalogueItem> items, List<SalesHistory> histories, int year,
+                           ReplenishmentPolicy policy, List<ReplenishmentPlan> plans) {
+        plans.addAll(IntStream.range(0, items.size()).parallel()
+                .mapToObj(i -> {
+                    CatalogueItem item = items.get(i);
+                    SalesHistory history = histories.get(i);
+                    if (history == null || history.isEmpty()) {
+                        history = SalesHistory.fromMonthlyRow(item.itemCode, year, item.offtake);
+                    }
+                    return planItem(item.itemCode, item.description, item.onHand, history, policy);
+                })
+                .collect(Collectors.toList()));
+        items.clear();
+        histories.clear();
+    }
+
+    /**
+     * Plans one item with the method {@link ForecastCalculator#selectFor} picks for its history.
+     */
+    public ReplenishmentPlan planItem(int itemCode, String description, int stockOnHand,
+                                      SalesHistory history, ReplenishmentPolicy policy) {
+        Forecaster forecaster = calculator.selectFor(history);
+        double[] values = history.values();
+        double[] forecast = new double[policy.getCoverMonths()];
+        if (ForecastKernels.countObserved(values, 0, values.length) > 0) {
+            calculator.forecastInto(forecaster, values, 0, values.length, forecast, 0, forecast.length);
+        }
+
+        // Backtest on up to a season of the most recent months to measure the forecast error
+        int holdout = Math.min(calculator.getSeasonLength(), values.length - forecaster.minimumHistory());
+        double sigma = holdout >= 2 ? calculator.backtestErrorSigma(forecaster, values, holdout) : Double.NaN;
+        if (Double.isNaN(sigma)) {
+            // Too little history to backtest, fall back to the spread of the sales themselves
+            sigma = standardDeviation(values);
+        }
+        return compute(itemCode, description, forecaster.getName(), stockOnHand, forecast, sigma, policy);
+    }
+
+    /**
+     * Works out safety stock, reorder point and order quantity from a forecast starting next
+     * month and the standard deviation of the monthly forecast error.
+     */
+    public static ReplenishmentPlan compute(int itemCode, String description, String method, int stockOnHand,
+                                            double[] forecast, double errorSigma, ReplenishmentPolicy policy) {
+        double leadTime = policy.getLeadTimeMonths();
+        double cover = leadTime + policy.getReviewPeriodMonths();
+        double sigma = Double.isNaN(errorSigma) ? 0 : errorSigma;
+
+        double leadTimeDemand = demandOver(forecast, leadTime);
+        double coverDemand = demandOver(forecast, cover);
+        double safetyStock = policy.getServiceFactor() * sigma * Math.sqrt(leadTime);
+        double reorderPoint = leadTimeDemand + safetyStock;
+        double orderUpTo = coverDemand + safetyStock;
+
+        int onHand = Math.max(0, stockOnHand);
+        int suggestedOrder = onHand <= reorderPoint ? (int) Math.max(0, Math.ceil(orderUpTo - onHand)) : 0;
+        double monthlyDemand = cover > 0 ? coverDemand / cover : 0;
+
+        return new ReplenishmentPlan(itemCode, description, method, stockOnHand, monthlyDemand, sigma,
+                (int) Math.ceil(leadTimeDemand), (int) Math.ceil(safetyStock), (int) Math.ceil(reorderPoint),
+                suggestedOrder);
+    }
+
+    /**
+     * Root mean squared error of {@code fitted} against {@code actual}, skipping months with no
+     * recorded sales. NaN if no month qualifies.
+     */
+    public static double forecastErrorSigma(double[] actual, double[] fitted) {
+        return forecastErrorSigma(actual, 0, fitted, 0, Math.min(actual.length, fitted.length));
+    }
+
+    public static double forecastErrorSigma(double[] actual, int actualFrom, double[] fitted, int fittedFrom, int length) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            double a = actual[actualFrom + i];
+            if (a != a) continue;
+            double error = a - fitted[fittedFrom + i];
+            sum += error * error;
+            count++;
+        }
+        return count > 0 ? Math.sqrt(sum / count) : Double.NaN;
+    }
+
+    public int loadStockOnHand(int itemCode, String monthColumn) throws SQLException {
+        SalesHistory.monthNumber(monthColumn); // rejects anything that isn't a month column
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    String.format("SELECT `%s1` FROM stock_onhand_live WHERE item_code = ?", monthColumn), itemCode);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // Sum of the forecast over a possibly fractional number of months; the last month repeats if short
+    private static double demandOver(double[] forecast, double months) {
+        if (forecast.length == 0) return 0;
+        double total = 0;
+        int whole = (int) months;
+        for (int i = 0; i < whole; i++) {
+            total += forecast[Math.min(i, forecast.length - 1)];
+        }
+        double fraction = months - whole;
+        if (fraction > 0) {
+            total += fraction * forecast[Math.min(whole, forecast.length - 1)];
+        }
+        return total;
+    }
+
+    private static double standardDeviation(double[] values) {
+        int count = ForecastKernels.countObserved(values, 0, values.length);
+        if (count < 2) return 0;
+        double mean = ForecastKernels.mean(values, 0, values.length);
+        double sum = 0;
+        for (double v : values) {
+            if (v == v) sum += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sum / (count - 1));
+    }
+
+    private List<CatalogueItem> loadCatalogue(String monthColumn) throws SQLException {
+        SalesHistory.monthNumber(monthColumn);
+        List<CatalogueItem> items = new ArrayList<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(String.format(CATALOGUE_QUERY, monthColumn));
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                double[] offtake = new double[12];
+                for (int i = 0; i < 12; i++) {
+                    offtake[i] = rs.getDouble(3 + i);
+                    if (rs.wasNull()) offtake[i] = Double.NaN;
+                }
+                items.add(new CatalogueItem(rs.getInt("item_code"), rs.getString("item_description"),
+                        rs.getInt("on_hand"), offtake));
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return items;
+    }
+
+    private static class CatalogueItem {
+        final int itemCode;
+        final String description;
+        final int onHand;
+        final double[] offtake;
+
+        CatalogueItem(int itemCode, String description, int onHand, double[] offtake) {
+            this.itemCode = itemCode;
+            this.description = description;
+            this.onHand = onHand;
+            this.offtake = offtake;
+        }
+    }
+}
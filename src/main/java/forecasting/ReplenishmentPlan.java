@@ -0,0 +1,79 @@
+package forecasting;
+
+/**
+ * One row of the purchase list: what an item is expected to sell, how much buffer it needs and
+ * how much to order now. Quantities are in units; getters are named for PropertyValueFactory.
+ */
+public class ReplenishmentPlan {
+    private final int itemCode;
+    private final String description;
+    private final String method;
+    private final int stockOnHand;
+    private final double monthlyDemand;
+    private final double forecastError;
+    private final int leadTimeDemand;
+    private final int safetyStock;
+    private final int reorderPoint;
+    private final int suggestedOrder;
+
+    public ReplenishmentPlan(int itemCode, String description, String method, int stockOnHand,
+                             double monthlyDemand, double forecastError, int leadTimeDemand,
+                             int safetyStock, int reorderPoint, int suggestedOrder) {
+        this.itemCode = itemCode;
+        this.description = description;
+        this.method = method;
+        this.stockOnHand = stockOnHand;
+        this.monthlyDemand = monthlyDemand;
+        this.forecastError = forecastError;
+        this.leadTimeDemand = leadTimeDemand;
+        this.safetyStock = safetyStock;
+        this.reorderPoint = reorderPoint;
+        this.suggestedOrder = suggestedOrder;
+    }
+
+    public int getItemCode() {
+        return itemCode;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Forecasting method the plan was built from
+    public String getMethod() {
+        return method;
+    }
+
+    public int getStockOnHand() {
+        return stockOnHand;
+    }
+
+    public double getMonthlyDemand() {
+        return monthlyDemand;
+    }
+
+    // Standard deviation of the monthly forecast error
+    public double getForecastError() {
+        return forecastError;
+    }
+
+    public int getLeadTimeDemand() {
+        return leadTimeDemand;
+    }
+
+    public int getSafetyStock() {
+        return safetyStock;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public int getSuggestedOrder() {
+        return suggestedOrder;
+    }
+
+    public boolean isReorderNeeded() {
+        return suggestedOrder > 0;
+    }
+}
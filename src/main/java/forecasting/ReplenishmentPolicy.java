@@ -0,0 +1,95 @@
+package forecasting;
+
+/**
+ * Buyer-facing replenishment settings: how long a purchase order takes to arrive, how often
+ * stock is reviewed, and the probability of not running out while waiting for a delivery.
+ * Defaults come from {@code REPLENISH_LEAD_TIME_MONTHS}, {@code REPLENISH_REVIEW_MONTHS} and
+ * {@code REPLENISH_SERVICE_LEVEL}.
+ */
+public class ReplenishmentPolicy {
+    private final double leadTimeMonths;
+    private final double reviewPeriodMonths;
+    private final double serviceLevel;
+    private final double serviceFactor;
+
+    public ReplenishmentPolicy(double leadTimeMonths, double reviewPeriodMonths, double serviceLevel) {
+        if (leadTimeMonths <= 0 || Double.isNaN(leadTimeMonths)) {
+            throw new IllegalArgumentException("Lead time must be greater than zero");
+        }
+        if (reviewPeriodMonths < 0 || Double.isNaN(reviewPeriodMonths)) {
+            throw new IllegalArgumentException("Review period cannot be negative");
+        }
+        if (!(serviceLevel >= 0.5 && serviceLevel < 1)) {
+            throw new IllegalArgumentException("Service level must be between 50% and 99.99%");
+        }
+        this.leadTimeMonths = leadTimeMonths;
+        this.reviewPeriodMonths = reviewPeriodMonths;
+        this.serviceLevel = serviceLevel;
+        this.serviceFactor = inverseNormal(serviceLevel);
+    }
+
+    public static ReplenishmentPolicy fromEnvironment() {
+        try {
+            return new ReplenishmentPolicy(
+                    Double.parseDouble(System.getenv().getOrDefault("REPLENISH_LEAD_TIME_MONTHS", "1")),
+                    Double.parseDouble(System.getenv().getOrDefault("REPLENISH_REVIEW_MONTHS", "0.25")),
+                    Double.parseDouble(System.getenv().getOrDefault("REPLENISH_SERVICE_LEVEL", "0.95")));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid replenishment settings, using defaults: " + e.getMessage());
+            return new ReplenishmentPolicy(1, 0.25, 0.95);
+        }
+    }
+
+    public double getLeadTimeMonths() {
+        return leadTimeMonths;
+    }
+
+    public double getReviewPeriodMonths() {
+        return reviewPeriodMonths;
+    }
+
+    public double getServiceLevel() {
+        return serviceLevel;
+    }
+
+    // z-score for the service level, e.g. 1.645 at 95%
+    public double getServiceFactor() {
+        return serviceFactor;
+    }
+
+    // Months of forecast needed to cover one lead time plus one review period
+    public int getCoverMonths() {
+        return (int) Math.ceil(leadTimeMonths + reviewPeriodMonths);
+    }
+
+    /**
+     * Inverse of the standard normal CDF, using Acklam's rational approximation (relative
+     * error below 1.2e-9), which is plenty for a safety factor.
+     */
+    static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
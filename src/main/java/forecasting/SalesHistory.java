@@ -0,0 +1,161 @@
+package forecasting;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Monthly sales for one item, oldest month first. Months with no recorded figure are
+ * stored as {@link Double#NaN} so models can tell "nothing recorded" apart from "sold zero".
+ */
+public class SalesHistory {
+    public static final List<String> MONTH_COLUMNS = Arrays.asList(
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec");
+    private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ENGLISH);
+
+    private final int itemCode;
+    private final YearMonth start;
+    private final double[] values;
+
+    public SalesHistory(int itemCode, YearMonth start, double[] values) {
+        this.itemCode = itemCode;
+        this.start = start;
+        this.values = values;
+    }
+
+    public int getItemCode() {
+        return itemCode;
+    }
+
+    public YearMonth getStart() {
+        return start;
+    }
+
+    public YearMonth getEnd() {
+        return start.plusMonths(values.length - 1L);
+    }
+
+    public YearMonth periodAt(int index) {
+        return start.plusMonths(index);
+    }
+
+    public String labelAt(int index) {
+        return periodAt(index).format(LABEL_FORMAT);
+    }
+
+    public static String label(YearMonth period) {
+        return period.format(LABEL_FORMAT);
+    }
+
+    public int length() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    // Backing array, NaN for missing months. Callers must not modify it.
+    public double[] values() {
+        return values;
+    }
+
+    public int observedCount() {
+        int count = 0;
+        for (double v : values) {
+            if (!Double.isNaN(v)) count++;
+        }
+        return count;
+    }
+
+    // First n months, used to fit a model on everything except a hold-out tail
+    public SalesHistory head(int n) {
+        return new SalesHistory(itemCode, start, Arrays.copyOf(values, Math.min(n, values.length)));
+    }
+
+    public double[] tail(int n) {
+        int from = Math.max(0, values.length - n);
+        return Arrays.copyOfRange(values, from, values.length);
+    }
+
+    /**
+     * Builds a one-year history from a {@code sale_offtake} row. Used for items that have no
+     * rows in {@code sales_history} yet. Months that haven't happened yet are NaN rather than
+     * the row's 0, so they don't count as months without sales.
+     */
+    public static SalesHistory fromMonthlyRow(int itemCode, int year, double[] months) {
+        double[] values = Arrays.copyOf(months, 12);
+        YearMonth now = YearMonth.now();
+        for (int m = 0; m < 12; m++) {
+            if (YearMonth.of(year, m + 1).isAfter(now)) {
+                values[m] = Double.NaN;
+            }
+        }
+        return new SalesHistory(itemCode, YearMonth.of(year, 1), values);
+    }
+
+    // Maps a sale_offtake month column ("jan".."dec") to 1..12
+    public static int monthNumber(String monthColumn) {
+        int index = MONTH_COLUMNS.indexOf(monthColumn.toLowerCase(Locale.ROOT));
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown month column: " + monthColumn);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Accumulates (period, quantity) rows arriving in period order and fills any skipped
+     * months with NaN.
+     */
+    public static class Builder {
+        private final int itemCode;
+        private YearMonth start;
+        private YearMonth last;
+        private double[] buffer = new double[36];
+        private int size;
+
+        public Builder(int itemCode) {
+            this.itemCode = itemCode;
+        }
+
+        public int getItemCode() {
+            return itemCode;
+        }
+
+        public Builder add(YearMonth period, double quantity) {
+            if (start == null) {
+                start = period;
+            } else {
+                if (!period.isAfter(last)) {
+                    throw new IllegalArgumentException("Periods must be strictly increasing: " + period + " after " + last);
+                }
+                long gap = last.until(period, ChronoUnit.MONTHS) - 1;
+                for (long i = 0; i < gap; i++) {
+                    append(Double.NaN);
+                }
+            }
+            append(quantity);
+            last = period;
+            return this;
+        }
+
+        private void append(double value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = value;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public SalesHistory build() {
+            YearMonth first = start != null ? start : YearMonth.now();
+            return new SalesHistory(itemCode, first, Arrays.copyOf(buffer, size));
+        }
+    }
+}
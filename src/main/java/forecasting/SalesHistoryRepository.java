@@ -0,0 +1,277 @@
+package forecasting;
+
+import database.database_utility;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads and writes the {@code sales_history} table. Items that have never had a row written
+ * fall back to the twelve month columns of {@code sale_offtake}, treated as the current year.
+ */
+public class SalesHistoryRepository {
+    private static final String HISTORY_QUERY =
+            "SELECT item_code, period_year, period_month, quantity FROM sales_history " +
+            "WHERE item_code = ? ORDER BY period_year, period_month";
+    private static final String ALL_HISTORY_QUERY =
+            "SELECT item_code, period_year, period_month, quantity FROM sales_history " +
+            "ORDER BY item_code, period_year, period_month";
+    private static final String ADD_SALE =
+            "INSERT INTO sales_history (item_code, period_year, period_month, quantity) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = COALESCE(quantity, 0) + VALUES(quantity)";
+    private static final String OFFTAKE_QUERY =
+            "SELECT jan, feb, mar, apr, may, jun, jul, aug, sep, oct, nov, `dec` FROM sale_offtake WHERE item_code = ?";
+
+    // Told the item code after every write through this class, e.g. to refresh forecasts
+    private static final List<IntConsumer> changeListeners = new CopyOnWriteArrayList<>();
+
+    public static void addChangeListener(IntConsumer listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(IntConsumer listener) {
+        changeListeners.remove(listener);
+    }
+
+    // For writes that affect an item's forecast without going through this class
+    public static void notifyChanged(int itemCode) {
+        for (IntConsumer listener : changeListeners) {
+            listener.accept(itemCode);
+        }
+    }
+
+    public int findItemCode(String description) throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    "SELECT item_code FROM sale_offtake WHERE item_description = ? ORDER BY item_code LIMIT 1",
+                    description);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            return rs.next() ? rs.getInt("item_code") : -1;
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    public SalesHistory load(int itemCode) throws SQLException {
+        SalesHistory.Builder builder = new SalesHistory.Builder(itemCode);
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(HISTORY_QUERY, itemCode);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                addRow(builder, rs);
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return builder.isEmpty() ? loadFromOfftake(itemCode) : builder.build();
+    }
+
+    /**
+     * Streams every item's history to {@code sink}, one item at a time and in item code order,
+     * without holding the whole table in memory. A sink can stop the scan early by throwing an
+     * unchecked exception, which is rethrown once the query has been cancelled.
+     */
+    public void streamAll(Consumer<SalesHistory> sink) throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.queryStreaming(ALL_HISTORY_QUERY);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            try {
+                SalesHistory.Builder builder = null;
+                while (rs.next()) {
+                    int itemCode = rs.getInt("item_code");
+                    if (builder == null || builder.getItemCode() != itemCode) {
+                        if (builder != null) sink.accept(builder.build());
+                        builder = new SalesHistory.Builder(itemCode);
+                    }
+                    addRow(builder, rs);
+                }
+                if (builder != null) sink.accept(builder.build());
+            } catch (RuntimeException e) {
+                // The sink gave up, e.g. a cancelled run. Kill the query server-side, otherwise
+                // closing a streaming result reads every remaining row first
+                rs.getStatement().cancel();
+                throw e;
+            } finally {
+                try {
+                    rs.close();
+                } catch (SQLException ignored) {
+                    // The cancelled query's result can't always be closed cleanly
+                }
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // Adds a sold quantity to the month's running total
+    public void recordSale(int itemCode, YearMonth period, int quantity) throws SQLException {
+        write(ADD_SALE, itemCode, period.getYear(), period.getMonthValue(), quantity);
+        notifyChanged(itemCode);
+    }
+
+    /**
+     * The same as {@link #recordSale(int, YearMonth, int)} on the caller's connection, for a sale
+     * written in one transaction with its other rows. Listeners aren't told; call
+     * {@link #notifyChanged(int)} once the transaction commits.
+     */
+    public void recordSale(Connection connect, int itemCode, YearMonth period, int quantity) throws SQLException {
+        try (PreparedStatement statement = connect.prepareStatement(ADD_SALE)) {
+            statement.setInt(1, itemCode);
+            statement.setInt(2, period.getYear());
+            statement.setInt(3, period.getMonthValue());
+            statement.setInt(4, quantity);
+            statement.executeUpdate();
+        }
+    }
+
+    // Overwrites the month's total, used when a month's offtake is edited by hand
+    public void recordMonthTotal(int itemCode, YearMonth period, int quantity) throws SQLException {
+        write("INSERT INTO sales_history (item_code, period_year, period_month, quantity) VALUES (?, ?, ?, ?) " +
+              "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)",
+              itemCode, period.getYear(), period.getMonthValue(), quantity);
+        notifyChanged(itemCode);
+    }
+
+    // Product names for the forecast picker, alphabetical
+    public List<String> listDescriptions() throws SQLException {
+        List<String> descriptions = new ArrayList<>();
+        String query = "SELECT DISTINCT item_description FROM sale_offtake ORDER BY item_description";
+        common.DataLoadEvent load = common.DataLoadEvent.start("Forecast products", query);
+        Connection connect = null;
+        boolean loaded = false;
+        try {
+            Object[] result = database_utility.query(query);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                String description = rs.getString("item_description");
+                if (description != null) {
+                    descriptions.add(description);
+                }
+            }
+            loaded = true;
+        } finally {
+            database_utility.close(connect);
+            load.finish(descriptions.size(), loaded);
+        }
+        return descriptions;
+    }
+
+    // Every item in the catalogue, whether or not it has history rows
+    public Set<Integer> listItemCodes() throws SQLException {
+        return queryItemCodes("SELECT item_code FROM sale_offtake");
+    }
+
+    // Items with a history row written at or after since (database clock)
+    public Set<Integer> findChangedSince(Timestamp since) throws SQLException {
+        return queryItemCodes("SELECT DISTINCT item_code FROM sales_history WHERE updated_at >= ?", since);
+    }
+
+    // The database's clock, so change scans don't depend on the client's
+    public Timestamp databaseTime() throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query("SELECT CURRENT_TIMESTAMP");
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            rs.next();
+            return rs.getTimestamp(1);
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    // The period a sale_offtake month column refers to; the app only tracks the current year
+    public static YearMonth currentPeriod(String monthColumn) {
+        return YearMonth.of(Year.now().getValue(), SalesHistory.monthNumber(monthColumn));
+    }
+
+    private Set<Integer> queryItemCodes(String sql, Object... params) throws SQLException {
+        Set<Integer> itemCodes = new HashSet<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(sql, params);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                itemCodes.add(rs.getInt(1));
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return itemCodes;
+    }
+
+    private void write(String sql, Object... params) throws SQLException {
+        Object[] result = database_utility.update(sql, params);
+        if (result == null) {
+            throw new SQLException("Failed to update sales history");
+        }
+        database_utility.close((Connection) result[0]);
+    }
+
+    private SalesHistory loadFromOfftake(int itemCode) throws SQLException {
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(OFFTAKE_QUERY, itemCode);
+            if (result == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (!rs.next()) {
+                return new SalesHistory(itemCode, YearMonth.now(), new double[0]);
+            }
+            double[] months = new double[12];
+            for (int i = 0; i < 12; i++) {
+                months[i] = rs.getDouble(i + 1);
+                if (rs.wasNull()) months[i] = Double.NaN;
+            }
+            return SalesHistory.fromMonthlyRow(itemCode, Year.now().getValue(), months);
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    private static void addRow(SalesHistory.Builder builder, ResultSet rs) throws SQLException {
+        YearMonth period = YearMonth.of(rs.getInt("period_year"), rs.getInt("period_month"));
+        double quantity = rs.getDouble("quantity");
+        builder.add(period, rs.wasNull() ? Double.NaN : quantity);
+    }
+}
@@ -0,0 +1,78 @@
+package forecasting;
+
+/**
+ * Plain-loop implementations behind {@link ForecastKernels}, used when the Vector API isn't
+ * available and as the reference {@link VectorKernels} is checked against.
+ */
+final class ScalarKernels {
+    private ScalarKernels() {
+    }
+
+    static double sum(double[] data, int from, int length) {
+        double sum = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            double v = data[i];
+            if (v == v) sum += v; // v != v only for NaN
+        }
+        return sum;
+    }
+
+    static int countObserved(double[] data, int from, int length) {
+        int count = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            if (data[i] == data[i]) count++;
+        }
+        return count;
+    }
+
+    static double mean(double[] data, int from, int length) {
+        double sum = 0;
+        int count = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            double v = data[i];
+            if (v == v) {
+                sum += v;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    static void linearTrend(double[] data, int from, int length, double[] out, int outIndex) {
+        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            double y = data[from + i];
+            if (y != y) continue;
+            sumX += i;
+            sumY += y;
+            sumXY += i * y;
+            sumX2 += (double) i * i;
+            count++;
+        }
+        ForecastKernels.solveTrend(count, sumX, sumY, sumXY, sumX2, out, outIndex);
+    }
+
+    static double mape(double[] actual, int actualFrom, double[] forecast, int forecastFrom, int length) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            double a = actual[actualFrom + i];
+            if (a == 0 || a != a) continue;
+            sum += Math.abs((a - forecast[forecastFrom + i]) / a);
+            count++;
+        }
+        return count > 0 ? sum / count * 100 : Double.NaN;
+    }
+
+    static void accumulateRatios(double[] data, int from, int length, double inverseMean,
+                                 double[] scratch, int sumsFrom, int countsFrom) {
+        for (int i = 0; i < length; i++) {
+            double v = data[from + i];
+            if (v == v) {
+                scratch[sumsFrom + i] += v * inverseMean;
+                scratch[countsFrom + i]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package forecasting;
+
+/**
+ * Flat forecast at the mean of every observed month.
+ */
+public class SimpleAverageForecaster implements Forecaster {
+    @Override
+    public String getName() {
+        return "Simple Average";
+    }
+
+    @Override
+    public int minimumHistory() {
+        return 1;
+    }
+
+    @Override
+    public void forecast(double[] history, int from, int n, double[] out, int outFrom, int periodsAhead, double[] scratch) {
+        double avg = ForecastKernels.mean(history, from, n);
+        double value = Double.isNaN(avg) ? 0 : avg;
+        for (int i = 0; i < periodsAhead; i++) {
+            out[outFrom + i] = value;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package forecasting;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementations behind {@link ForecastKernels}. Only loaded once
+ * {@code ForecastKernels} has confirmed the incubator module is present, so apart from the
+ * tests that check it against {@link ScalarKernels} and the benchmark that times the two
+ * (benchmarks/KernelBenchmark, in this package on the classpath), nothing else should
+ * reference it directly.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final double[] IOTA = new double[LANES];
+
+    static {
+        for (int i = 0; i < LANES; i++) IOTA[i] = i;
+    }
+
+    private VectorKernels() {
+    }
+
+    static double sum(double[] data, int from, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, data, from + i);
+            acc = acc.add(v, v.test(VectorOperators.IS_NAN).not());
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double v = data[from + i];
+            if (v == v) sum += v;
+        }
+        return sum;
+    }
+
+    static int countObserved(double[] data, int from, int length) {
+        int count = 0;
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, data, from + i);
+            count += LANES - v.test(VectorOperators.IS_NAN).trueCount();
+        }
+        for (; i < length; i++) {
+            if (data[from + i] == data[from + i]) count++;
+        }
+        return count;
+    }
+
+    static double mean(double[] data, int from, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int count = 0;
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, data, from + i);
+            VectorMask<Double> observed = v.test(VectorOperators.IS_NAN).not();
+            acc = acc.add(v, observed);
+            count += observed.trueCount();
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double v = data[from + i];
+            if (v == v) {
+                sum += v;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    static void linearTrend(double[] data, int from, int length, double[] out, int outIndex) {
+        DoubleVector iota = DoubleVector.fromArray(SPECIES, IOTA, 0);
+        DoubleVector sx = DoubleVector.zero(SPECIES);
+        DoubleVector sy = DoubleVector.zero(SPECIES);
+        DoubleVector sxy = DoubleVector.zero(SPECIES);
+        DoubleVector sx2 = DoubleVector.zero(SPECIES);
+        int count = 0;
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector y = DoubleVector.fromArray(SPECIES, data, from + i);
+            VectorMask<Double> observed = y.test(VectorOperators.IS_NAN).not();
+            DoubleVector x = iota.add(i);
+            sx = sx.add(x, observed);
+            sy = sy.add(y, observed);
+            sxy = sxy.add(x.mul(y), observed);
+            sx2 = sx2.add(x.mul(x), observed);
+            count += observed.trueCount();
+        }
+        double sumX = sx.reduceLanes(VectorOperators.ADD);
+        double sumY = sy.reduceLanes(VectorOperators.ADD);
+        double sumXY = sxy.reduceLanes(VectorOperators.ADD);
+        double sumX2 = sx2.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double y = data[from + i];
+            if (y != y) continue;
+            sumX += i;
+            sumY += y;
+            sumXY += i * y;
+            sumX2 += (double) i * i;
+            count++;
+        }
+        ForecastKernels.solveTrend(count, sumX, sumY, sumXY, sumX2, out, outIndex);
+    }
+
+    static double mape(double[] actual, int actualFrom, double[] forecast, int forecastFrom, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int count = 0;
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, actual, actualFrom + i);
+            DoubleVector f = DoubleVector.fromArray(SPECIES, forecast, forecastFrom + i);
+            VectorMask<Double> valid = a.compare(VectorOperators.NE, 0.0).andNot(a.test(VectorOperators.IS_NAN));
+            acc = acc.add(a.sub(f).div(a).abs(), valid);
+            count += valid.trueCount();
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double a = actual[actualFrom + i];
+            if (a == 0 || a != a) continue;
+            sum += Math.abs((a - forecast[forecastFrom + i]) / a);
+            count++;
+        }
+        return count > 0 ? sum / count * 100 : Double.NaN;
+    }
+
+    static void accumulateRatios(double[] data, int from, int length, double inverseMean,
+                                 double[] scratch, int sumsFrom, int countsFrom) {
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, data, from + i);
+            VectorMask<Double> observed = v.test(VectorOperators.IS_NAN).not();
+            DoubleVector sums = DoubleVector.fromArray(SPECIES, scratch, sumsFrom + i);
+            sums.add(v.mul(inverseMean), observed).intoArray(scratch, sumsFrom + i);
+            DoubleVector counts = DoubleVector.fromArray(SPECIES, scratch, countsFrom + i);
+            counts.lanewise(VectorOperators.ADD, 1.0, observed).intoArray(scratch, countsFrom + i);
+        }
+        for (; i < length; i++) {
+            double v = data[from + i];
+            if (v == v) {
+                scratch[sumsFrom + i] += v * inverseMean;
+                scratch[countsFrom + i]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package loadtest;
+
+import database.database_utility;
+import login.AuthService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Fills a test database with a synthetic catalogue for load and scale testing: products in
+ * {@code sale_offtake}, monthly stock in {@code stock_onhand}, several years of
+ * {@code sales_history}, an activity feed and clerk accounts. Everything but the password salts
+ * comes from the seed, so the same options always give the same data; pass {@code --as-of} as
+ * well to pin the activity timestamps and the current year.
+ *
+ * <p>Demand is seasonal with a trend for most items and intermittent (mostly zero months) for a
+ * share of them, with sales levels spread log-normally so a few items dominate, as in the real
+ * catalogue. By default rows go straight into the database configured by the DB_* variables in
+ * JDBC batches; {@code --out=DIR} writes tab-separated files and a {@code load.sql} for
+ * {@code LOAD DATA LOCAL INFILE} instead, which is several times faster past a few hundred
+ * thousand items. Either way the generated tables are emptied first, so point it at a test
+ * database only:
+ * <pre>
+ * DB_HOST=localhost mvn javafx:run -Djavafx.mainClass=inventory.example.inventory_ms/loadtest.DatasetGenerator \
+ *     -Djavafx.args="--items=100000 --seed=7 --replace"
+ * </pre>
+ */
+public class DatasetGenerator {
+    private static final int BATCH_ITEMS = 1000;
+    private static final String[] MONTHS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+    // Emptied before loading, children first; change_log is emptied again afterwards
+    private static final String[] TABLES = {
+            "sales_history", "stock_movements", "stock_snapshots", "stock_onhand", "sale_offtake",
+            "notifications_activities", "change_log"};
+
+    private static final int[] VOLUMES = {50, 100, 250, 500, 1000, 2000};
+    private static final int[] VOLUME_WEIGHTS = {5, 10, 15, 30, 35, 5};
+    private static final String[] SUPPLIERS = {
+            "Euro-Med", "B. Braun", "Baxter", "Fresenius Kabi", "Otsuka", "Lifeline", "Pharmaline", "Medisol"};
+    private static final Map<String, String[]> NAMES = new LinkedHashMap<>();
+
+    static {
+        NAMES.put("Intravenous", new String[]{
+                "Dextrose 5% in Distilled Water", "Normal Saline Solution", "Lactated Ringers Injection",
+                "Dextrose 5% in Lactated Ringers Injection", "Dextrose 5% in Normal Saline 0.9%",
+                "Dextrose 5% in 1/2 Normal Saline", "Dextrose 5% in 1/3 Normal Saline",
+                "Isotonic Sodium Chloride", "Acetated Ringers Injection", "Mannitol 20%"});
+        NAMES.put("Irrigation", new String[]{
+                "Sterile Water for Irrigation", "Sodium Chloride 0.9% Irrigation", "Glycine 1.5% Irrigation"});
+        NAMES.put("Injectables", new String[]{
+                "Sterile Water for Injection (vial)", "Potassium Chloride 2 mEq/mL", "Sodium Bicarbonate 8.4%"});
+        NAMES.put("Parenteral Nutrition", new String[]{
+                "Amino Acids 10%", "Lipid Emulsion 20%", "Dextrose 50% in Water"});
+        NAMES.put("Dialysis", new String[]{
+                "Peritoneal Dialysis Solution 1.5%", "Peritoneal Dialysis Solution 2.5%", "Hemodialysis Concentrate"});
+    }
+
+    private static final String[] FIRST_NAMES = {
+            "Maria", "Jose", "Ana", "Juan", "Rosa", "Mark", "Grace", "Paolo", "Liza", "Carlo", "Joy", "Miguel"};
+    private static final String[] LAST_NAMES = {
+            "Santos", "Reyes", "Cruz", "Bautista", "Garcia", "Mendoza", "Torres", "Flores", "Ramos", "Villanueva"};
+    private static final DateTimeFormatter ACTIVITY_DATE = DateTimeFormatter.ofPattern("MMMM dd yyyy", Locale.ENGLISH);
+
+    /** Command line options, as {@code --name=value}. */
+    static final class Options {
+        int items = 10_000;
+        long seed = 42;
+        int years = 3;
+        double intermittent = 0.2;
+        double critical = 0.05;
+        int activities = -1;
+        int accounts = 20;
+        String password = "loadtest";
+        LocalDate asOf = LocalDate.now();
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        Path out;
+        boolean replace;
+
+        Options() {
+            categories.put("Intravenous", 70);
+            categories.put("Irrigation", 10);
+            categories.put("Injectables", 10);
+            categories.put("Parenteral Nutrition", 5);
+            categories.put("Dialysis", 5);
+        }
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                String name = equals < 0 ? arg : arg.substring(0, equals);
+                String value = equals < 0 ? "" : arg.substring(equals + 1);
+                switch (name) {
+                    case "--items": options.items = Integer.parseInt(value); break;
+                    case "--seed": options.seed = Long.parseLong(value); break;
+                    case "--years": options.years = Integer.parseInt(value); break;
+                    case "--intermittent": options.intermittent = Double.parseDouble(value); break;
+                    case "--critical": options.critical = Double.parseDouble(value); break;
+                    case "--activities": options.activities = Integer.parseInt(value); break;
+                    case "--accounts": options.accounts = Integer.parseInt(value); break;
+                    case "--password": options.password = value; break;
+                    case "--as-of": options.asOf = LocalDate.parse(value); break;
+                    case "--categories": options.categories = parseCategories(value); break;
+                    case "--out": options.out = Paths.get(value); break;
+                    case "--replace": options.replace = true; break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (options.items < 1 || options.items > 9_000_000) {
+                throw new IllegalArgumentException("--items must be between 1 and 9000000");
+            }
+            if (options.years < 1) {
+                throw new IllegalArgumentException("--years must be at least 1");
+            }
+            if (options.activities < 0) {
+                options.activities = Math.min(100_000, Math.max(500, options.items / 10));
+            }
+            return options;
+        }
+
+        // e.g. "Intravenous:70,Irrigation:10,Dialysis:20"
+        private static Map<String, Integer> parseCategories(String value) {
+            Map<String, Integer> categories = new LinkedHashMap<>();
+            for (String part : value.split(",")) {
+                String[] pair = part.split(":");
+                String category = pair[0].trim();
+                if (category.isEmpty() || category.length() > 45) {
+                    throw new IllegalArgumentException("Invalid category: " + part);
+                }
+                categories.put(category, pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1);
+            }
+            return categories;
+        }
+    }
+
+    /** One generated item: its catalogue row, this year's stock and its sales by month, oldest first. */
+    static final class Product {
+        int itemCode;
+        String description;
+        int volume;
+        String category;
+        int[] stock = new int[12];
+        // years x 12 months, the last year being the one in sale_offtake; null for an unrecorded month
+        Integer[] sales;
+    }
+
+    /** Where the rows go: the database, or files for LOAD DATA. */
+    private interface Sink extends AutoCloseable {
+        void product(Product product, int firstYear) throws Exception;
+
+        void activity(String text, LocalDateTime at, String terminal) throws Exception;
+
+        void account(String username, String firstName, String middleInitial, String lastName, String hash) throws Exception;
+
+        // Called every BATCH_ITEMS items and at the end
+        void flush() throws Exception;
+
+        // Narrower than AutoCloseable's, which would let close() throw InterruptedException
+        @Override
+        void close() throws SQLException, IOException;
+    }
+
+    private final Options options;
+    private final String[] categories;
+    private final int[] categoryWeights;
+    private final int codeStride;
+
+    DatasetGenerator(Options options) {
+        this.options = options;
+        this.categories = options.categories.keySet().toArray(new String[0]);
+        this.categoryWeights = options.categories.values().stream().mapToInt(Integer::intValue).toArray();
+        this.codeStride = Math.max(1, 9_000_000 / options.items);
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --items=N --seed=N --years=N --intermittent=0.2 --critical=0.05"
+                    + " --activities=N --accounts=N --password=TEXT --as-of=YYYY-MM-DD"
+                    + " --categories=Name:weight,... --out=DIR --replace");
+            System.exit(2);
+            return;
+        }
+        try {
+            new DatasetGenerator(options).run();
+        } catch (Exception e) {
+            System.err.println("Dataset generation failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void run() throws Exception {
+        long started = System.nanoTime();
+        int firstYear = options.asOf.getYear() - options.years + 1;
+        try (Sink sink = options.out != null ? new FileSink(options.out, options) : new JdbcSink(options.replace)) {
+            int step = Math.max(1, options.items / 10);
+            for (int i = 0; i < options.items; i++) {
+                sink.product(product(i), firstYear);
+                if ((i + 1) % BATCH_ITEMS == 0) {
+                    sink.flush();
+                }
+                if ((i + 1) % step == 0) {
+                    System.out.println("Generated " + (i + 1) + " of " + options.items + " items");
+                }
+            }
+            sink.flush();
+
+            writeActivities(sink);
+            writeAccounts(sink);
+            sink.flush();
+        }
+        System.out.println(String.format("Generated %d items, %d activities and %d accounts (seed %d) in %.1f s",
+                options.items, options.activities, options.accounts, options.seed,
+                (System.nanoTime() - started) / 1e9));
+    }
+
+    // Item i, the same for a given seed whatever the catalogue size or order of generation
+    Product product(int index) {
+        SplittableRandom random = new SplittableRandom(options.seed * 0x9E3779B97F4A7C15L + index);
+        Product product = new Product();
+        product.itemCode = 1_000_000 + index * codeStride + random.nextInt(codeStride);
+        product.category = categories[weighted(random, categoryWeights)];
+        product.volume = VOLUMES[weighted(random, VOLUME_WEIGHTS)];
+        String[] names = NAMES.getOrDefault(product.category, new String[]{product.category + " Solution"});
+        // The supplier and a series number keep description and volume unique, as the forms require
+        product.description = names[random.nextInt(names.length)] + " ("
+                + SUPPLIERS[random.nextInt(SUPPLIERS.length)] + " " + (100 + index) + ")";
+
+        int months = options.years * 12;
+        double[] demand = random.nextDouble() < options.intermittent
+                ? intermittent(random, months)
+                : seasonal(random, months);
+        product.sales = new Integer[months];
+        for (int m = 0; m < months; m++) {
+            // The odd month missing from older history, as from a terminal that was down
+            boolean unrecorded = m < months - 12 && random.nextInt(60) == 0;
+            product.sales[m] = unrecorded ? null : (int) Math.round(demand[m]);
+        }
+
+        // Months of cover held; critical items run below a month
+        boolean critical = random.nextDouble() < options.critical;
+        double cover = critical ? random.nextDouble() * 0.3 : 0.5 + random.nextDouble() * 5.5;
+        double typical = 0;
+        for (int m = months - 12; m < months; m++) {
+            typical += demand[m] / 12;
+        }
+        for (int m = 0; m < 12; m++) {
+            double basis = Math.max(demand[months - 12 + m], typical);
+            product.stock[m] = (int) Math.round(basis * cover * (0.8 + random.nextDouble() * 0.4));
+        }
+        return product;
+    }
+
+    // Steady demand with a yearly cycle, a trend and noise; levels are log-normal around 2000
+    private static double[] seasonal(SplittableRandom random, int months) {
+        double level = Math.exp(Math.log(2000) + 1.2 * random.nextGaussian());
+        double growth = -0.01 + random.nextDouble() * 0.03;
+        double amplitude = random.nextDouble() * 0.5;
+        double phase = random.nextDouble() * 2 * Math.PI;
+        double[] demand = new double[months];
+        for (int m = 0; m < months; m++) {
+            double seasonal = 1 + amplitude * Math.sin(2 * Math.PI * (m % 12) / 12 + phase);
+            double noise = 1 + (random.nextDouble() - 0.5) * 0.3;
+            demand[m] = Math.max(0, level * Math.pow(1 + growth, m) * seasonal * noise);
+        }
+        return demand;
+    }
+
+    // Slow movers: most months nothing, the rest a lump of varying size
+    private static double[] intermittent(SplittableRandom random, int months) {
+        double size = Math.exp(Math.log(200) + random.nextGaussian());
+        double chance = 0.1 + random.nextDouble() * 0.4;
+        double[] demand = new double[months];
+        for (int m = 0; m < months; m++) {
+            demand[m] = random.nextDouble() < chance ? size * (0.2 + random.nextDouble() * 1.3) : 0;
+        }
+        return demand;
+    }
+
+    // The feed the dashboard shows, worded as the terminals word it, spread over the last 90 days
+    private void writeActivities(Sink sink) throws Exception {
+        SplittableRandom random = new SplittableRandom(options.seed ^ 0x5DEECE66DL);
+        LocalDateTime start = options.asOf.atStartOfDay().minusDays(90);
+        long spanSeconds = 90L * 24 * 3600;
+        for (int i = 0; i < options.activities; i++) {
+            LocalDateTime at = start.plusSeconds(spanSeconds * i / options.activities + random.nextInt(60));
+            Product product = product(random.nextInt(options.items));
+            int roll = random.nextInt(100);
+            String text;
+            if (roll < 45) {
+                text = (1 + random.nextInt(500)) * 10 + " stocks of " + product.description
+                        + " has been sold as of " + at.format(ACTIVITY_DATE);
+            } else if (roll < 85) {
+                text = (1 + random.nextInt(200)) * 50 + " stocks of " + product.description
+                        + " has arrived at the facility as of " + at.format(ACTIVITY_DATE);
+            } else if (roll < 95) {
+                text = "Product updated: " + product.description;
+            } else {
+                text = "New product added: " + product.description;
+            }
+            sink.activity(text, at, String.format("terminal-%02d", 1 + random.nextInt(8)));
+            if ((i + 1) % (BATCH_ITEMS * 10) == 0) {
+                sink.flush();
+            }
+        }
+    }
+
+    // clerk001, clerk002, ... all with the same password, for the load harness to log in as
+    private void writeAccounts(Sink sink) throws Exception {
+        SplittableRandom random = new SplittableRandom(options.seed ^ 0x2545F4914F6CDD1DL);
+        AuthService auth = AuthService.get();
+        for (int i = 1; i <= options.accounts; i++) {
+            sink.account(String.format("clerk%03d", i),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    (char) ('A' + random.nextInt(26)) + ".",
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    auth.hash(options.password));
+        }
+    }
+
+    // An index into weights, chosen in proportion to them
+    static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static String productColumns() {
+        StringBuilder columns = new StringBuilder("item_code, item_description, volume, category");
+        for (String month : MONTHS) {
+            columns.append(", `").append(month).append('`');
+        }
+        return columns.toString();
+    }
+
+    private static String stockColumns() {
+        StringBuilder columns = new StringBuilder("item_code");
+        for (String month : MONTHS) {
+            columns.append(", `").append(month).append("1`");
+        }
+        return columns.toString();
+    }
+
+    /**
+     * Inserts with JDBC batches, which Connector/J rewrites into multi-row statements, committing
+     * every {@value #BATCH_ITEMS} items. Key and foreign key checks are off for the session.
+     */
+    private static final class JdbcSink implements Sink {
+        private final Connection connect;
+        private final PreparedStatement insertProduct;
+        private final PreparedStatement insertStock;
+        private final PreparedStatement insertHistory;
+        private final PreparedStatement insertActivity;
+        private final PreparedStatement insertAccount;
+
+        JdbcSink(boolean replace) throws SQLException {
+            connect = database_utility.connect();
+            if (connect == null) {
+                throw new SQLException("Failed to establish database connection");
+            }
+            try {
+                try (Statement statement = connect.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM sale_offtake")) {
+                    rs.next();
+                    if (rs.getLong(1) > 0 && !replace) {
+                        throw new SQLException("sale_offtake already has " + rs.getLong(1)
+                                + " products; pass --replace to empty the generated tables first");
+                    }
+                }
+                try (Statement statement = connect.createStatement()) {
+                    keyChecks(statement, false);
+                    for (String table : TABLES) {
+                        statement.execute("TRUNCATE TABLE " + table);
+                    }
+                }
+                connect.setAutoCommit(false);
+                insertProduct = connect.prepareStatement("INSERT INTO sale_offtake (" + productColumns()
+                        + ") VALUES (?, ?, ?, ?" + ", ?".repeat(12) + ")");
+                insertStock = connect.prepareStatement("INSERT INTO stock_onhand (" + stockColumns()
+                        + ") VALUES (?" + ", ?".repeat(12) + ")");
+                insertHistory = connect.prepareStatement(
+                        "INSERT INTO sales_history (item_code, period_year, period_month, quantity) VALUES (?, ?, ?, ?)");
+                insertActivity = connect.prepareStatement(
+                        "INSERT INTO notifications_activities (activities, `timestamp`, terminal) VALUES (?, ?, ?)");
+                insertAccount = connect.prepareStatement(
+                        "INSERT INTO accounts (username, password, first_name, middle_initial, last_name, password_hash) "
+                        + "VALUES (?, NULL, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE password = NULL, "
+                        + "first_name = VALUES(first_name), middle_initial = VALUES(middle_initial), "
+                        + "last_name = VALUES(last_name), password_hash = VALUES(password_hash)");
+            } catch (SQLException e) {
+                database_utility.close(connect);
+                throw e;
+            }
+        }
+
+        @Override
+        public void product(Product product, int firstYear) throws SQLException {
+            int months = product.sales.length;
+            insertProduct.setInt(1, product.itemCode);
+            insertProduct.setString(2, product.description);
+            insertProduct.setInt(3, product.volume);
+            insertProduct.setString(4, product.category);
+            insertStock.setInt(1, product.itemCode);
+            for (int m = 0; m < 12; m++) {
+                Integer sold = product.sales[months - 12 + m];
+                insertProduct.setInt(5 + m, sold != null ? sold : 0);
+                insertStock.setInt(2 + m, product.stock[m]);
+            }
+            insertProduct.addBatch();
+            insertStock.addBatch();
+            for (int m = 0; m < months; m++) {
+                insertHistory.setInt(1, product.itemCode);
+                insertHistory.setInt(2, firstYear + m / 12);
+                insertHistory.setInt(3, m % 12 + 1);
+                insertHistory.setObject(4, product.sales[m]);
+                insertHistory.addBatch();
+            }
+        }
+
+        @Override
+        public void activity(String text, LocalDateTime at, String terminal) throws SQLException {
+            insertActivity.setString(1, text);
+            insertActivity.setTimestamp(2, Timestamp.valueOf(at));
+            insertActivity.setString(3, terminal);
+            insertActivity.addBatch();
+        }
+
+        @Override
+        public void account(String username, String firstName, String middleInitial, String lastName, String hash)
+                throws SQLException {
+            insertAccount.setString(1, username);
+            insertAccount.setString(2, firstName);
+            insertAccount.setString(3, middleInitial);
+            insertAccount.setString(4, lastName);
+            insertAccount.setString(5, hash);
+            insertAccount.addBatch();
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            try {
+                insertProduct.executeBatch();
+                insertStock.executeBatch();
+                insertHistory.executeBatch();
+                insertActivity.executeBatch();
+                insertAccount.executeBatch();
+                connect.commit();
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try (Statement statement = connect.createStatement()) {
+                // The triggers logged every generated row; terminals only need changes from here on
+                connect.setAutoCommit(true);
+                statement.execute("TRUNCATE TABLE change_log");
+                keyChecks(statement, true);
+            } finally {
+                database_utility.close(connect);
+            }
+        }
+
+        // MySQL's per-session switches, or H2's database-wide one for the embedded backend
+        private static void keyChecks(Statement statement, boolean on) throws SQLException {
+            if (database_utility.backend().isEmbedded()) {
+                statement.execute("SET REFERENTIAL_INTEGRITY " + (on ? "TRUE" : "FALSE"));
+            } else {
+                statement.execute("SET foreign_key_checks = " + (on ? 1 : 0));
+                statement.execute("SET unique_checks = " + (on ? 1 : 0));
+            }
+        }
+    }
+
+    /**
+     * Writes one tab-separated file per table in LOAD DATA's default format and a load.sql that
+     * empties the tables and loads them, run from the same directory:
+     * {@code mysql --local-infile=1 -uroot -p inventory_management_system_database < load.sql}.
+     */
+    private static final class FileSink implements Sink {
+        private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private final Path directory;
+        private final Options options;
+        private final BufferedWriter products;
+        private final BufferedWriter stock;
+        private final BufferedWriter history;
+        private final BufferedWriter activities;
+        private final BufferedWriter accounts;
+        private final List<BufferedWriter> writers = new ArrayList<>();
+
+        FileSink(Path directory, Options options) throws IOException {
+            this.directory = directory;
+            this.options = options;
+            Files.createDirectories(directory);
+            products = open("sale_offtake.tsv");
+            stock = open("stock_onhand.tsv");
+            history = open("sales_history.tsv");
+            activities = open("notifications_activities.tsv");
+            accounts = open("accounts.tsv");
+        }
+
+        private BufferedWriter open(String name) throws IOException {
+            BufferedWriter writer = Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8);
+            writers.add(writer);
+            return writer;
+        }
+
+        @Override
+        public void product(Product product, int firstYear) throws IOException {
+            int months = product.sales.length;
+            products.write(product.itemCode + "\t" + escape(product.description) + "\t" + product.volume
+                    + "\t" + escape(product.category));
+            stock.write(Integer.toString(product.itemCode));
+            for (int m = 0; m < 12; m++) {
+                Integer sold = product.sales[months - 12 + m];
+                products.write("\t" + (sold != null ? sold : 0));
+                stock.write("\t" + product.stock[m]);
+            }
+            products.write('\n');
+            stock.write('\n');
+            for (int m = 0; m < months; m++) {
+                Integer sold = product.sales[m];
+                history.write(product.itemCode + "\t" + (firstYear + m / 12) + "\t" + (m % 12 + 1)
+                        + "\t" + (sold != null ? sold.toString() : "\\N") + "\n");
+            }
+        }
+
+        @Override
+        public void activity(String text, LocalDateTime at, String terminal) throws IOException {
+            activities.write(escape(text) + "\t" + at.format(TIMESTAMP) + "\t" + escape(terminal) + "\n");
+        }
+
+        @Override
+        public void account(String username, String firstName, String middleInitial, String lastName, String hash)
+                throws IOException {
+            accounts.write(escape(username) + "\t\\N\t" + escape(firstName) + "\t" + escape(middleInitial)
+                    + "\t" + escape(lastName) + "\t" + escape(hash) + "\n");
+        }
+
+        @Override
+        public void flush() {
+            // Buffered writers flush themselves as they fill
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (BufferedWriter writer : writers) {
+                writer.close();
+            }
+            StringBuilder script = new StringBuilder();
+            script.append("-- Generated by loadtest.DatasetGenerator: ").append(options.items).append(" items, seed ")
+                    .append(options.seed).append(", as of ").append(options.asOf).append('\n');
+            script.append("-- Empties the generated tables. Run from this directory with mysql --local-infile=1\n");
+            script.append("SET GLOBAL local_infile = 1;\n");
+            script.append("SET foreign_key_checks = 0;\n");
+            script.append("SET unique_checks = 0;\n");
+            for (String table : TABLES) {
+                script.append("TRUNCATE TABLE ").append(table).append(";\n");
+            }
+            load(script, "sale_offtake", "", productColumns());
+            load(script, "stock_onhand", "", stockColumns());
+            load(script, "sales_history", "", "item_code, period_year, period_month, quantity");
+            load(script, "notifications_activities", "", "activities, `timestamp`, terminal");
+            load(script, "accounts", "REPLACE ",
+                    "username, password, first_name, middle_initial, last_name, password_hash");
+            script.append("TRUNCATE TABLE change_log;\n");
+            script.append("SET foreign_key_checks = 1;\n");
+            script.append("SET unique_checks = 1;\n");
+            Files.writeString(directory.resolve("load.sql"), script.toString(), StandardCharsets.UTF_8);
+            System.out.println("Wrote " + directory.toAbsolutePath() + "; load it with load.sql from that directory");
+        }
+
+        private static void load(StringBuilder script, String table, String modifier, String columns) {
+            script.append("LOAD DATA LOCAL INFILE '").append(table).append(".tsv' ").append(modifier)
+                    .append("INTO TABLE ").append(table).append(" CHARACTER SET utf8mb4 (").append(columns).append(");\n");
+        }
+
+        // LOAD DATA's default escaping: backslash, tab and newline are backslash-escaped
+        private static String escape(String value) {
+            if (value == null) {
+                return "\\N";
+            }
+            return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+        }
+    }
+}
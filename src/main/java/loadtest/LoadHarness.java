@@ -0,0 +1,459 @@
+package loadtest;
+
+import common.LatencyHistogram;
+import dashboard.DashboardQueries;
+import dashboard.Inventory_management_bin;
+import database.BulkEditor;
+import database.ProductUpdater;
+import database.StockMovements;
+import database.database_utility;
+import forecasting.ForecastScheduler;
+import forecasting.SalesHistory;
+import forecasting.SalesHistoryRepository;
+import login.AuthService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates many terminals working against one database, without a display, to find how many a
+ * MySQL instance can carry. Each terminal is a virtual thread that logs in as one of the
+ * generated clerks, then repeats a weighted mix of what clerks do, pausing between actions:
+ * listing a month's inventory, searching, selling, receiving, editing and deleting products, and
+ * opening the sales and forecasting tabs. The work goes through the same code the forms and
+ * tabs call ({@link DashboardQueries}, {@link StockMovements}, {@link ProductUpdater},
+ * {@link BulkEditor}, {@link AuthService}, the forecast scheduler), one connection per call as on
+ * a desktop terminal unless {@code --pool} is given.
+ *
+ * <p>At the end it reports throughput and latency percentiles per action, errors, edit
+ * conflicts, and lost updates. To find lost updates, every item the run sold, received or
+ * corrected is read back and compared with its starting balance plus what the run did to it.
+ * Deletes only take items from the end of the catalogue, which no other action touches, so they
+ * don't disturb that check. Nothing else should write to the database during a run. Forecasts
+ * are cached once for all the simulated terminals, as behind the headless server, so later
+ * forecast requests mostly hit the cache. Load a dataset with {@link DatasetGenerator} first:
+ * <pre>
+ * DB_HOST=localhost mvn javafx:run -Djavafx.mainClass=inventory.example.inventory_ms/loadtest.LoadHarness \
+ *     -Djavafx.args="--terminals=50 --duration=120"
+ * </pre>
+ */
+public class LoadHarness {
+    enum Action {
+        LOGIN, LIST, SEARCH, SELL, RECEIVE, EDIT, DELETE, SALES, FORECAST;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Share of the catalogue, from the end, that deletes draw from
+    private static final double DELETABLE_SHARE = 0.02;
+
+    /** Command line options, as {@code --name=value}. */
+    static final class Options {
+        int terminals = 20;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        long thinkMillis = 1000;
+        String month = SalesHistory.MONTH_COLUMNS.get(LocalDate.now().getMonthValue() - 1);
+        int accounts = 20;
+        String password = "loadtest";
+        int hotItems;
+        int pool;
+        long seed = 42;
+        Map<Action, Integer> mix = new EnumMap<>(Action.class);
+
+        Options() {
+            mix.put(Action.LOGIN, 1);
+            mix.put(Action.LIST, 20);
+            mix.put(Action.SEARCH, 20);
+            mix.put(Action.SELL, 25);
+            mix.put(Action.RECEIVE, 12);
+            mix.put(Action.EDIT, 8);
+            mix.put(Action.DELETE, 1);
+            mix.put(Action.SALES, 6);
+            mix.put(Action.FORECAST, 7);
+        }
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                String name = equals < 0 ? arg : arg.substring(0, equals);
+                String value = equals < 0 ? "" : arg.substring(equals + 1);
+                switch (name) {
+                    case "--terminals": options.terminals = Integer.parseInt(value); break;
+                    case "--duration": options.durationSeconds = Integer.parseInt(value); break;
+                    case "--warmup": options.warmupSeconds = Integer.parseInt(value); break;
+                    case "--think-ms": options.thinkMillis = Long.parseLong(value); break;
+                    case "--month": options.month = value.toLowerCase(Locale.ROOT); break;
+                    case "--accounts": options.accounts = Integer.parseInt(value); break;
+                    case "--password": options.password = value; break;
+                    case "--hot-items": options.hotItems = Integer.parseInt(value); break;
+                    case "--pool": options.pool = Integer.parseInt(value); break;
+                    case "--seed": options.seed = Long.parseLong(value); break;
+                    case "--mix": options.mix = parseMix(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (!SalesHistory.MONTH_COLUMNS.contains(options.month)) {
+                throw new IllegalArgumentException("Unknown month: " + options.month);
+            }
+            if (options.terminals < 1 || options.durationSeconds < 1 || options.accounts < 1) {
+                throw new IllegalArgumentException("--terminals, --duration and --accounts must be at least 1");
+            }
+            if (options.mix.values().stream().mapToInt(Integer::intValue).sum() < 1) {
+                throw new IllegalArgumentException("--mix needs at least one action with a positive weight");
+            }
+            return options;
+        }
+
+        // e.g. "list:50,search:30,sell:20"; actions left out don't run
+        private static Map<Action, Integer> parseMix(String value) {
+            Map<Action, Integer> mix = new EnumMap<>(Action.class);
+            for (String part : value.split(",")) {
+                String[] pair = part.split(":");
+                mix.put(Action.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)),
+                        pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1);
+            }
+            return mix;
+        }
+    }
+
+    // Everything recorded for one action
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        volatile String firstError;
+    }
+
+    // What the run did to an item, to check against the database afterwards
+    private static final class Expected {
+        final LongAdder stock = new LongAdder();
+        final LongAdder offtake = new LongAdder();
+    }
+
+    private final Options options;
+    private final Map<Action, Stats> stats = new EnumMap<>(Action.class);
+    private final Action[] actions;
+    private final int[] weights;
+    private final Map<Integer, Expected> expected = new ConcurrentHashMap<>();
+    private final LongAdder editsUpdated = new LongAdder();
+    private final LongAdder editsMerged = new LongAdder();
+    private final LongAdder editConflicts = new LongAdder();
+    private final LongAdder editsNotFound = new LongAdder();
+    private final LongAdder loginsRejected = new LongAdder();
+    private final SalesHistoryRepository historyRepository = new SalesHistoryRepository();
+
+    private List<Inventory_management_bin> items;
+    private Queue<Integer> deletable;
+    private long measureFrom;
+    private long measureUntil;
+
+    LoadHarness(Options options) {
+        this.options = options;
+        for (Action action : Action.values()) {
+            stats.put(action, new Stats());
+        }
+        this.actions = options.mix.keySet().toArray(new Action[0]);
+        this.weights = new int[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            weights[i] = options.mix.get(actions[i]);
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --terminals=N --duration=SECONDS --warmup=SECONDS --think-ms=N --month=jan"
+                    + " --accounts=N --password=TEXT --hot-items=N --pool=N --seed=N"
+                    + " --mix=login:1,list:20,search:20,sell:25,receive:12,edit:8,delete:1,sales:6,forecast:7");
+            System.exit(2);
+            return;
+        }
+        try {
+            new LoadHarness(options).run();
+            System.exit(0);
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void run() throws Exception {
+        if (options.pool > 0) {
+            database_utility.usePool(options.pool);
+        }
+        List<Inventory_management_bin> catalogue = DashboardQueries.inventory(options.month);
+        if (catalogue.size() < 2) {
+            throw new IllegalStateException("The catalogue has " + catalogue.size()
+                    + " items; load a dataset with loadtest.DatasetGenerator first");
+        }
+        int deletableCount = (int) Math.max(1, catalogue.size() * DELETABLE_SHARE);
+        items = new ArrayList<>(catalogue.subList(0, catalogue.size() - deletableCount));
+        deletable = new ConcurrentLinkedQueue<>();
+        for (Inventory_management_bin item : catalogue.subList(items.size(), catalogue.size())) {
+            deletable.add(item.getItem_code());
+        }
+        System.out.println(String.format("Running %d terminals against %d items (%s database) for %d s after a %d s warm-up",
+                options.terminals, catalogue.size(), database_utility.backend().name(),
+                options.durationSeconds, options.warmupSeconds));
+
+        long started = System.nanoTime();
+        measureFrom = started + options.warmupSeconds * 1_000_000_000L;
+        measureUntil = measureFrom + options.durationSeconds * 1_000_000_000L;
+        List<Thread> terminals = new ArrayList<>();
+        for (int t = 0; t < options.terminals; t++) {
+            int terminal = t;
+            terminals.add(Thread.ofVirtual().name("terminal-" + (t + 1)).start(() -> terminal(terminal)));
+        }
+        for (Thread terminal : terminals) {
+            terminal.join();
+        }
+
+        System.out.print(report(verify(catalogue)));
+    }
+
+    private void terminal(int index) {
+        SplittableRandom random = new SplittableRandom(options.seed * 31 + index);
+        String username = String.format("clerk%03d", index % options.accounts + 1);
+        // Terminals start their shift at different moments, logged in first
+        sleep((long) (random.nextDouble() * options.thinkMillis));
+        Action next = Action.LOGIN;
+        while (System.nanoTime() < measureUntil) {
+            perform(next, random, username);
+            sleep(thinkTime(random));
+            next = actions[DatasetGenerator.weighted(random, weights)];
+            if (next == Action.DELETE && deletable.isEmpty()) {
+                // Nothing left that can be deleted without upsetting the lost-update check
+                next = Action.LIST;
+            }
+        }
+    }
+
+    private void perform(Action action, SplittableRandom random, String username) {
+        long start = System.nanoTime();
+        long paused = 0;
+        boolean failed = false;
+        Exception error = null;
+        try {
+            paused = execute(action, random, username);
+        } catch (Exception e) {
+            failed = true;
+            error = e;
+        }
+        long end = System.nanoTime();
+        if (start < measureFrom || end > measureUntil) return;
+
+        Stats actionStats = stats.get(action);
+        actionStats.latency.record((end - start - paused) / 1000);
+        if (failed) {
+            actionStats.errors.increment();
+            if (actionStats.firstError == null) {
+                actionStats.firstError = error.getClass().getSimpleName() + ": " + error.getMessage();
+            }
+        }
+    }
+
+    // Runs one action; returns the nanoseconds spent in simulated user pauses, which aren't timed
+    private long execute(Action action, SplittableRandom random, String username) throws Exception {
+        switch (action) {
+            case LOGIN: {
+                // A fresh terminal has no cached session, so this is the full check
+                AuthService auth = AuthService.get();
+                auth.invalidate(username);
+                if (auth.login(username, options.password) == null) {
+                    loginsRejected.increment();
+                    throw new IllegalStateException("Login rejected for " + username);
+                }
+                return 0;
+            }
+            case LIST:
+                DashboardQueries.inventory(SalesHistory.MONTH_COLUMNS.get(random.nextInt(12)));
+                return 0;
+            case SEARCH:
+                DashboardQueries.search(searchTerm(random), options.month);
+                return 0;
+            case SELL: {
+                int itemCode = pick(random).getItem_code();
+                int quantity = 1 + random.nextInt(20);
+                StockMovements.recordSale(itemCode, options.month, quantity);
+                Expected change = expected(itemCode);
+                change.stock.add(-quantity);
+                change.offtake.add(quantity);
+                return 0;
+            }
+            case RECEIVE: {
+                int itemCode = pick(random).getItem_code();
+                int quantity = (1 + random.nextInt(50)) * 10;
+                StockMovements.recordReceipt(itemCode, options.month, quantity);
+                expected(itemCode).stock.add(quantity);
+                return 0;
+            }
+            case EDIT:
+                return edit(random);
+            case DELETE: {
+                Integer itemCode = deletable.poll();
+                if (itemCode != null) {
+                    new BulkEditor(options.month).delete(List.of(itemCode), () -> false, progress -> { });
+                }
+                return 0;
+            }
+            case SALES:
+                DashboardQueries.monthlySalesTotals();
+                DashboardQueries.topProduct();
+                return 0;
+            case FORECAST: {
+                // Opening the tab loads the product list; then a product is picked and forecast
+                historyRepository.listDescriptions();
+                int itemCode = historyRepository.findItemCode(pick(random).getItem_des());
+                if (itemCode >= 0) {
+                    ForecastScheduler.getInstance().getOrCompute(itemCode).join();
+                }
+                return 0;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+
+    // A stock count correction through the edit form: read, a pause while the clerk types, then save
+    private long edit(SplittableRandom random) throws Exception {
+        int itemCode = pick(random).getItem_code();
+        ProductUpdater updater = new ProductUpdater();
+        ProductUpdater.Snapshot base = updater.load(itemCode, options.month);
+        if (base == null) {
+            editsNotFound.increment();
+            return 0;
+        }
+        long paused = System.nanoTime();
+        sleep(thinkTime(random));
+        paused = System.nanoTime() - paused;
+
+        int correction = random.nextBoolean() ? 1 + random.nextInt(5) : -1 - random.nextInt(5);
+        ProductUpdater.Snapshot edited = new ProductUpdater.Snapshot(itemCode, base.getDescription(), base.getVolume(),
+                base.getCategory(), base.getSalesOfftake(), base.getStockOnHand() + correction, -1);
+        ProductUpdater.Result result = updater.update(base, edited, options.month);
+        switch (result.getStatus()) {
+            case UPDATED:
+                editsUpdated.increment();
+                break;
+            case MERGED:
+                editsMerged.increment();
+                break;
+            case CONFLICT:
+                editConflicts.increment();
+                break;
+            default:
+                editsNotFound.increment();
+        }
+        // A saved edit always records its correction as an adjustment, on top of whatever sales
+        // or receipts landed during the pause, so it counts even when the stock moved meanwhile
+        if (result.isSaved()) {
+            expected(itemCode).stock.add(correction);
+        }
+        return paused;
+    }
+
+    // Every item the run wrote to, read back and compared; returns how many disagree
+    private int[] verify(List<Inventory_management_bin> before) throws Exception {
+        Map<Integer, Inventory_management_bin> start = new HashMap<>();
+        for (Inventory_management_bin item : before) {
+            start.put(item.getItem_code(), item);
+        }
+        Map<Integer, Inventory_management_bin> end = new HashMap<>();
+        for (Inventory_management_bin item : DashboardQueries.inventory(options.month)) {
+            end.put(item.getItem_code(), item);
+        }
+        int stockMismatches = 0;
+        int offtakeMismatches = 0;
+        for (Map.Entry<Integer, Expected> entry : expected.entrySet()) {
+            Inventory_management_bin was = start.get(entry.getKey());
+            Inventory_management_bin now = end.get(entry.getKey());
+            if (now == null || was.getSoh() + entry.getValue().stock.sum() != now.getSoh()) {
+                stockMismatches++;
+            }
+            if (now == null || was.getSot() + entry.getValue().offtake.sum() != now.getSot()) {
+                offtakeMismatches++;
+            }
+        }
+        return new int[]{expected.size(), stockMismatches, offtakeMismatches};
+    }
+
+    private String report(int[] verified) {
+        double seconds = options.durationSeconds;
+        StringBuilder text = new StringBuilder(String.format("%n%-10s %8s %7s %8s %9s %9s %9s %9s%n",
+                "action", "count", "errors", "per s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        long total = 0;
+        long errors = 0;
+        for (Action action : Action.values()) {
+            Stats actionStats = stats.get(action);
+            long count = actionStats.latency.count();
+            if (count == 0) continue;
+            total += count;
+            errors += actionStats.errors.sum();
+            text.append(String.format("%-10s %8d %7d %8.1f %9.1f %9.1f %9.1f %9.1f%n", action.label(), count,
+                    actionStats.errors.sum(), count / seconds, actionStats.latency.percentile(50) / 1000.0,
+                    actionStats.latency.percentile(90) / 1000.0, actionStats.latency.percentile(99) / 1000.0,
+                    actionStats.latency.max() / 1000.0));
+        }
+        text.append(String.format("%-10s %8d %7d %8.1f%n", "total", total, errors, total / seconds));
+        text.append(String.format("%nEdits: %d updated, %d merged, %d conflicts, %d not found; %d logins rejected%n",
+                editsUpdated.sum(), editsMerged.sum(), editConflicts.sum(), editsNotFound.sum(), loginsRejected.sum()));
+        text.append(String.format("Lost updates: %d stock and %d offtake of %d items written%n",
+                verified[1], verified[2], verified[0]));
+        for (Action action : Action.values()) {
+            String firstError = stats.get(action).firstError;
+            if (firstError != null) {
+                text.append("First ").append(action.label()).append(" error: ").append(firstError).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private Expected expected(int itemCode) {
+        return expected.computeIfAbsent(itemCode, code -> new Expected());
+    }
+
+    // Half the picks land on the first --hot-items items when set, to force contention
+    private Inventory_management_bin pick(SplittableRandom random) {
+        if (options.hotItems > 0 && random.nextBoolean()) {
+            return items.get(random.nextInt(Math.min(options.hotItems, items.size())));
+        }
+        return items.get(random.nextInt(items.size()));
+    }
+
+    // The start of a word from a product's description, as a clerk would type it
+    private String searchTerm(SplittableRandom random) {
+        String[] words = pick(random).getItem_des().split("\\s+");
+        String word = words[random.nextInt(words.length)];
+        return word.substring(0, Math.min(word.length(), 3 + random.nextInt(3)));
+    }
+
+    // Exponential around --think-ms, as arrivals from people are
+    private long thinkTime(SplittableRandom random) {
+        return (long) (-Math.log(1 - random.nextDouble()) * options.thinkMillis);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
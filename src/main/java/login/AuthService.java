@@ -0,0 +1,218 @@
+package login;
+
+import database.database_utility;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks credentials against salted PBKDF2 hashes in {@code accounts.password_hash}. The cost is
+ * set by {@code AUTH_PBKDF2_ITERATIONS}; hashes made at a lower cost are upgraded on the next
+ * successful login, and accounts still holding a plaintext {@code password} are hashed (and the
+ * plaintext cleared) the same way.
+ *
+ * <p>A successful login is remembered on this terminal for {@code AUTH_SESSION_MINUTES}, so
+ * unlocking the screen or logging in again during a shift change is checked locally without a
+ * database round trip or a second hash. Only an HMAC of the password under a key that never
+ * leaves this process is kept. Blocking: call off the FX thread.
+ */
+public final class AuthService {
+    /** A verified login. */
+    public static final class Session {
+        private final String username;
+        private final String token;
+        private final long expiresAt;
+
+        Session(String username, String token, long expiresAt) {
+            this.username = username;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+    private static final String SCHEME = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final AuthService INSTANCE = new AuthService(
+            intSetting("AUTH_PBKDF2_ITERATIONS", 210000), intSetting("AUTH_SESSION_MINUTES", 15) * 60_000L);
+
+    private final int iterations;
+    private final long sessionMillis;
+    private final byte[] sessionKey = new byte[32];
+    // Hashed against for unknown usernames, so they take as long to reject as a wrong password
+    private final byte[] dummySalt = new byte[SALT_BYTES];
+    // The latest session per username and the HMAC of the password it was verified with
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> verifiers = new ConcurrentHashMap<>();
+
+    private AuthService(int iterations, long sessionMillis) {
+        this.iterations = iterations;
+        this.sessionMillis = sessionMillis;
+        RANDOM.nextBytes(sessionKey);
+        RANDOM.nextBytes(dummySalt);
+    }
+
+    public static AuthService get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Verifies the credentials, from the local session cache when possible. Returns the session,
+     * or null if the username or password is wrong. Throws if the database can't be reached.
+     */
+    public Session login(String username, String password) throws SQLException {
+        Session cached = sessions.get(username);
+        if (cached != null && !cached.isExpired()
+                && MessageDigest.isEqual(verifiers.get(username), verifier(password))) {
+            return cached;
+        }
+        // Expired, or a different password (it may have been changed): ask the database
+        if (!verify(username, password)) {
+            return null;
+        }
+        byte[] token = new byte[32];
+        RANDOM.nextBytes(token);
+        Session session = new Session(username, Base64.getUrlEncoder().withoutPadding().encodeToString(token),
+                System.currentTimeMillis() + sessionMillis);
+        verifiers.put(username, verifier(password));
+        sessions.put(username, session);
+        return session;
+    }
+
+    // Forgets the cached session so the next login goes to the database
+    public void invalidate(String username) {
+        sessions.remove(username);
+        verifiers.remove(username);
+    }
+
+    /** A storable hash of the password at the configured cost, e.g. for seeding new accounts. */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return encode(iterations, salt, pbkdf2(password, salt, iterations));
+    }
+
+    private boolean verify(String username, String password) throws SQLException {
+        String plaintext;
+        String stored;
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                "SELECT password, password_hash FROM accounts WHERE username = ?", username);
+            if (result == null) {
+                throw new SQLException("Failed to query accounts");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (!rs.next()) {
+                pbkdf2(password, dummySalt, iterations);
+                return false;
+            }
+            plaintext = rs.getString("password");
+            stored = rs.getString("password_hash");
+        } finally {
+            database_utility.close(connect);
+        }
+
+        if (stored != null) {
+            String[] parts = stored.split("\\$");
+            if (parts.length != 4 || !SCHEME.equals(parts[0])) {
+                System.err.println("Unrecognised password hash for " + username);
+                return false;
+            }
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            if (!MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations))) {
+                return false;
+            }
+            if (storedIterations < iterations) {
+                store(username, "password_hash = ?", stored, password);
+            }
+            return true;
+        }
+
+        // An account from before hashing: check the plaintext once, then replace it
+        if (plaintext == null || !MessageDigest.isEqual(
+                plaintext.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        store(username, "password = ?", plaintext, password);
+        return true;
+    }
+
+    // Writes a fresh hash, unless another terminal changed the account since it was read
+    private void store(String username, String unchangedCondition, String unchangedValue, String password) {
+        Object[] result = database_utility.update(
+            "UPDATE accounts SET password_hash = ?, password = NULL WHERE username = ? AND " + unchangedCondition,
+            hash(password), username, unchangedValue);
+        if (result == null) {
+            // The login still stands; the upgrade is retried next time
+            System.err.println("Failed to store password hash for " + username);
+        } else {
+            database_utility.close((Connection) result[0]);
+        }
+    }
+
+    private static int intSetting(String name, int defaultValue) {
+        try {
+            int value = Integer.parseInt(System.getenv().getOrDefault(name, String.valueOf(defaultValue)));
+            if (value > 0) return value;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("Invalid " + name + ", using " + defaultValue);
+        return defaultValue;
+    }
+
+    private byte[] verifier(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(sessionKey, "HmacSHA256"));
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return SCHEME + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+}
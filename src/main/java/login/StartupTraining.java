@@ -0,0 +1,65 @@
+package login;
+
+import common.ViewRegistry;
+import dashboard.DashboardBootstrap;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Training run for the AppCDS archive built by the {@code runtime} Maven profile. Walks the
+ * startup path a terminal takes (login window, loading overlay, dashboard prefetch, the
+ * dashboard with its sales and forecasting tabs, the popup forms) so their classes are loaded,
+ * then exits so the JVM can write the archive. Needs a display (xvfb-run on a build host) and
+ * is most representative with the DB_* variables pointing at a database; without one the
+ * queries fail and are logged, which still loads most of the classes.
+ */
+public class StartupTraining {
+    private static final int DEFAULT_SECONDS = 15;
+
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        Platform.startup(() -> {
+            try {
+                show("/login/login_form.fxml");
+                show("/login/loading.fxml");
+
+                DashboardBootstrap bootstrap = DashboardBootstrap.start();
+                bootstrap.whenReady(() -> {
+                    try {
+                        show("/dashboard/dashboard.fxml");
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            // Background initialisation and the popup preload finish within this window
+            PauseTransition wait = new PauseTransition(Duration.seconds(seconds));
+            wait.setOnFinished(e -> {
+                try {
+                    ViewRegistry.take(sold_stocks.soldStock.FORM);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                System.out.println("Training run complete");
+                // Exit outright; the dashboard's background threads needn't wind down for the archive to be written
+                System.exit(0);
+            });
+            wait.play();
+        });
+    }
+
+    private static void show(String fxml) throws Exception {
+        Parent root = new FXMLLoader(StartupTraining.class.getResource(fxml)).load();
+        Stage stage = new Stage();
+        stage.setScene(new Scene(root));
+        stage.show();
+    }
+}
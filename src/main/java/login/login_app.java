@@ -1,6 +1,7 @@
 package login;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.paint.Color;
@@ -10,10 +11,14 @@ import org.jetbrains.annotations.NotNull;
 
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
 public class login_app extends Application {
     @Override
     public void start(@NotNull Stage stage) throws IOException {
+        // Logs the stack whenever the UI freezes
+        common.FxWatchdog.start();
         // Set icon (taskbar, window bar)
         stage.getIcons().add(new javafx.scene.image.Image(getClass().getResource("/images/intervein_logo_no_text.png").toExternalForm()));
         FXMLLoader fxmlLoader = new FXMLLoader(login_app.class.getResource("login_form.fxml"));
@@ -22,6 +27,9 @@ public class login_app extends Application {
         stage.setTitle("login page");
         stage.setScene(scene);
         stage.initStyle(StageStyle.TRANSPARENT); // <--- this removes the top bar
+        if (Boolean.getBoolean("inventory.startup.report")) {
+            reportFirstFrame(scene);
+        }
         stage.show();
         System.out.println("Java version: " + System.getProperty("java.version"));
         System.out.println("JavaFX version: " + System.getProperty("javafx.version"));
@@ -29,6 +37,25 @@ public class login_app extends Application {
 
 
 
+    }
+
+    /**
+     * Prints the time from process start to the login window's first pulse, for
+     * deployment/startup_benchmark.sh. With -Dinventory.startup.exit=true the app then quits.
+     */
+    private static void reportFirstFrame(Scene scene) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            Instant started = ProcessHandle.current().info().startInstant().orElse(null);
+            if (started != null) {
+                System.out.println("startup: first frame after " + Duration.between(started, Instant.now()).toMillis() + " ms");
+            }
+            if (Boolean.getBoolean("inventory.startup.exit")) {
+                Platform.runLater(Platform::exit);
+            }
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
     }
 
     public static void main(String[] args) {
@@ -1,6 +1,7 @@
 package login;
 
-import database.database_utility;
+import dashboard.DashboardBootstrap;
+import dashboard.dashboardController;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
@@ -13,17 +14,20 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.sql.Connection;
-import java.sql.ResultSet;
 
 public class login_controller {
+    private static final KeyCombination LOCK_SHORTCUT = new KeyCodeCombination(KeyCode.L, KeyCombination.SHORTCUT_DOWN);
 
     @FXML private Pane login_pane;
     @FXML private PasswordField password;
@@ -34,6 +38,10 @@ public class login_controller {
     @FXML private Label errorLabel;
 
     private boolean isPasswordVisible = false;
+    private boolean loggingIn = false;
+    // Set when this window is the lock screen in front of a running dashboard
+    private Stage lockedDashboard;
+    private String lockedUser;
     private double xOffset = 0;
     private double yOffset = 0;
 
@@ -129,58 +137,101 @@ public class login_controller {
             return;
         }
 
-        try {
-            Object[] result_from_query = database_utility.query(
-                "SELECT * FROM accounts WHERE username = ? AND password = ?", 
-                username, password_string
-            );
-
-            if (result_from_query == null) {
-                showError("Could not connect to database. Please try again.");
-                return;
-            }
-
-            Connection conn = (Connection) result_from_query[0];
-            ResultSet result = (ResultSet) result_from_query[1];
+        if (loggingIn) {
+            return;
+        }
+        loggingIn = true;
 
+        // Check the credentials off the FX thread; the dashboard prefetch starts the moment they're valid
+        Stage locked = lockedDashboard;
+        String lockedBy = lockedUser;
+        new Thread(() -> {
+            AuthService.Session session = null;
+            String error = null;
             try {
-                if (result.next()) {
-                    // Login successful - clear any error messages
-                    errorLabel.setVisible(false);
-                    
-                    String fullName = result.getString("first_name") + " " + 
-                                    result.getString("middle_initial") + " " + 
-                                    result.getString("last_name");
-                    String usernameFromDb = result.getString("username");
-
-                    // Show loading overlay (non-blocking)
-                    showLoadingOverlay();
-
-                    // Load the dashboard in a background thread
-                    new Thread(() -> {
-                        try {
-                            // Simulate loading time (optional, remove in production)
-                            Thread.sleep(1000);
-                        } catch (InterruptedException ignored) {}
-                        javafx.application.Platform.runLater(() -> {
-                            loadDashboard(usernameFromDb);
-                            hideLoadingOverlay();
-                        });
-                    }).start();
-                } else {
-                    showError("Log in credentials are invalid");
+                session = AuthService.get().login(username, password_string);
+                if (session == null) {
+                    error = "Log in credentials are invalid";
+                } else if (server.InventoryClient.get() != null
+                        && !server.InventoryClient.get().login(username, password_string)) {
+                    // The server checks the same accounts table, so this only happens if they disagree
+                    session = null;
+                    error = "The inventory server rejected this login";
                 }
-            } finally {
-                // Close the database resources
-                if (result != null) result.close();
-                if (conn != null) database_utility.close(conn);
+            } catch (IOException e) {
+                e.printStackTrace();
+                error = "Could not connect to the inventory server. Please try again.";
+            } catch (Exception e) {
+                e.printStackTrace();
+                error = "Could not connect to database. Please try again.";
             }
-        } catch (Exception e) {
+
+            if (session != null && locked != null && username.equals(lockedBy)) {
+                // Unlocking: the dashboard is still loaded, just hidden
+                javafx.application.Platform.runLater(() -> {
+                    ((Stage) login_pane.getScene().getWindow()).close();
+                    locked.show();
+                });
+            } else if (session != null) {
+                if (locked != null) {
+                    // Someone else at a locked terminal: log the previous user out and start afresh
+                    AuthService.get().invalidate(lockedBy);
+                    javafx.application.Platform.runLater(() -> closeDashboard(locked));
+                }
+                DashboardBootstrap bootstrap = DashboardBootstrap.start();
+                String loggedIn = session.getUsername();
+                javafx.application.Platform.runLater(() -> openDashboard(bootstrap, loggedIn));
+            } else {
+                String message = error;
+                javafx.application.Platform.runLater(() -> {
+                    loggingIn = false;
+                    showError(message);
+                });
+            }
+        }, "login").start();
+    }
+
+    /**
+     * Hides the dashboard behind a fresh login window. Logging in again as the same user shows
+     * the same dashboard; within the session window that's checked without going to the
+     * database. Anyone else logging in gets a new dashboard, as if the first user had logged out.
+     */
+    static void lockScreen(Stage dashboardStage, String username) {
+        try {
+            FXMLLoader loader = new FXMLLoader(login_controller.class.getResource("/login/login_form.fxml"));
+            Scene scene = new Scene(loader.load(), 900, 450);
+            scene.setFill(Color.TRANSPARENT);
+            login_controller controller = loader.getController();
+            controller.lockedDashboard = dashboardStage;
+            controller.lockedUser = username;
+
+            Stage stage = new Stage(StageStyle.TRANSPARENT);
+            stage.setTitle("login page");
+            stage.setScene(scene);
+            common.StageManager.configureStage(stage);
+            dashboardStage.hide();
+            stage.show();
+        } catch (IOException e) {
             e.printStackTrace();
-            showError("An error occurred while processing your request.");
         }
     }
 
+    // Shows the loading overlay until the prefetch finishes, then swaps it for the dashboard
+    private void openDashboard(DashboardBootstrap bootstrap, String username) {
+        // Login successful - clear any error messages
+        errorLabel.setVisible(false);
+
+        loadingController loading = showLoadingOverlay();
+        if (loading != null) {
+            bootstrap.setListener(loading::setProgress);
+        }
+        bootstrap.whenReady(() -> {
+            loadDashboard(username);
+            hideLoadingOverlay();
+            loggingIn = false;
+        });
+    }
+
     private void showError(String message) {
         errorLabel.setText(message);
         errorLabel.setVisible(true);
@@ -201,11 +252,10 @@ public class login_controller {
             
             Scene dashboardScene = new Scene(dashboardRoot);
             dashboardStage.setScene(dashboardScene);
+            dashboardScene.getAccelerators().put(LOCK_SHORTCUT, () -> lockScreen(dashboardStage, username));
             
             // Set the icon for the dashboard window
-            dashboardStage.getIcons().add(
-                new Image(getClass().getResource("/images/intervein_logo_no_text.png").toExternalForm())
-            );
+            common.StageManager.configureStage(dashboardStage);
             
             // Close the login window
             ((Stage) login_pane.getScene().getWindow()).close();
@@ -219,9 +269,16 @@ public class login_controller {
         }
     }
 
+    private static void closeDashboard(Stage dashboardStage) {
+        if (dashboardStage.getScene().getRoot().getUserData() instanceof dashboardController controller) {
+            controller.close();
+        }
+        dashboardStage.close();
+    }
+
     // --- Loading overlay logic ---
     private Stage loadingStage;
-    private void showLoadingOverlay() {
+    private loadingController showLoadingOverlay() {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/login/loading.fxml"));
             Parent loadingRoot = loader.load();
@@ -233,8 +290,10 @@ public class login_controller {
             scene.setFill(null);
             loadingStage.setScene(scene);
             loadingStage.show();
+            return loader.getController();
         } catch (IOException e) {
             e.printStackTrace();
+            return null;
         }
     }
     private void hideLoadingOverlay() {
@@ -4,6 +4,10 @@ module inventory.example.inventory_ms {
     requires javafx.base;
     requires javafx.graphics;
     requires java.sql;
+    requires java.net.http;
+    requires jdk.httpserver;
+    requires jdk.jfr;
+    requires static jdk.incubator.vector;
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
     requires org.jetbrains.annotations;
@@ -25,4 +29,5 @@ module inventory.example.inventory_ms {
     exports add_stocks;
     exports add_edit_product;
     exports database;
+    exports server;
 }
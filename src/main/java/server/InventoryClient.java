@@ -0,0 +1,145 @@
+package server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets the desktop client use an {@link InventoryServer} instead of the database. Enabled by
+ * setting INVENTORY_SERVER_URL (e.g. http://inventory-host:8081); {@link #get()} returns null
+ * otherwise and callers keep querying MySQL directly. Writes need {@link #login} first.
+ */
+public class InventoryClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final InventoryClient INSTANCE = create(System.getenv("INVENTORY_SERVER_URL"));
+
+    private final String baseUrl;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    // From the server's /api/login, sent with every write
+    private volatile String token;
+
+    public InventoryClient(String baseUrl) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+    }
+
+    // The configured server, or null to talk to the database directly
+    public static InventoryClient get() {
+        return INSTANCE;
+    }
+
+    private static InventoryClient create(String url) {
+        return url == null || url.isBlank() ? null : new InventoryClient(url);
+    }
+
+    /**
+     * Logs in to the server with the same account as the login screen. Returns false if the
+     * server rejects the credentials.
+     */
+    public boolean login(String username, String password) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.write(body)))
+                .build();
+        HttpResponse<String> response = execute(request);
+        if (response.statusCode() == 401) {
+            return false;
+        }
+        Object reply = read(response);
+        Object issued = reply instanceof Map ? ((Map<?, ?>) reply).get("token") : null;
+        if (!(issued instanceof String)) {
+            throw new IOException("Unexpected response from inventory server");
+        }
+        token = (String) issued;
+        return true;
+    }
+
+    /** Rows with itemCode, description, volume, category, salesOfftake and stockOnHand. */
+    public List<Map<String, Object>> inventory(String month) throws IOException {
+        return list(getJson("/api/inventory?month=" + encode(month)));
+    }
+
+    public List<Map<String, Object>> search(String term, String month) throws IOException {
+        return list(getJson("/api/inventory/search?q=" + encode(term) + "&month=" + encode(month)));
+    }
+
+    // type is RECEIPT, SALE or ADJUSTMENT; see InventoryService.recordMovement
+    public void recordMovement(int itemCode, String month, String type, int quantity) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("itemCode", itemCode);
+        body.put("month", month);
+        body.put("type", type);
+        body.put("quantity", quantity);
+        String current = token;
+        if (current == null) {
+            throw new IOException("Not logged in to the inventory server");
+        }
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/movements"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + current)
+                .POST(HttpRequest.BodyPublishers.ofString(Json.write(body)))
+                .build());
+    }
+
+    private Object getJson(String path) throws IOException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build());
+    }
+
+    private Object send(HttpRequest request) throws IOException {
+        return read(execute(request));
+    }
+
+    private HttpResponse<String> execute(HttpRequest request) throws IOException {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the inventory server", e);
+        }
+    }
+
+    // The parsed body of a successful response; other statuses throw with the server's message
+    private static Object read(HttpResponse<String> response) throws IOException {
+        Object body;
+        try {
+            body = Json.parse(response.body());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Inventory server returned " + response.statusCode() + " with an unreadable body", e);
+        }
+        if (response.statusCode() >= 300) {
+            Object message = body instanceof Map ? ((Map<?, ?>) body).get("error") : null;
+            throw new IOException("Inventory server returned " + response.statusCode()
+                    + (message != null ? ": " + message : ""));
+        }
+        return body;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> list(Object body) throws IOException {
+        if (!(body instanceof List)) {
+            throw new IOException("Unexpected response from inventory server");
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Object row : (List<Object>) body) {
+            rows.add((Map<String, Object>) row);
+        }
+        return rows;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
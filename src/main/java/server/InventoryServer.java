@@ -0,0 +1,370 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import database.ChangeFeed;
+import database.StockLedger;
+import database.database_utility;
+import forecasting.ForecastScheduler;
+import forecasting.SalesHistory;
+import login.AuthService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless server mode: one process holding a shared connection pool, response cache and
+ * forecast scheduler, serving the inventory operations to terminals as a JSON API. Each request
+ * runs on its own virtual thread. The cache is dropped whenever the change feed reports a
+ * write, from this server or anything else still talking to the database directly.
+ *
+ * <pre>
+ * GET  /api/health
+ * POST /api/login            {"username": "clerk001", "password": "..."}
+ * GET  /api/inventory?month=jan
+ * GET  /api/inventory/search?q=saline&amp;month=jan
+ * GET  /api/items/{itemCode}/movements?limit=100
+ * POST /api/movements        {"itemCode": 1144133, "month": "jan", "type": "SALE", "quantity": 10}
+ * GET  /api/sales/summary
+ * GET  /api/forecasts/{itemCode}?horizon=12&amp;formula=Holt-Winters
+ * GET  /api/stats
+ * </pre>
+ *
+ * Writes need {@code Authorization: Bearer <token>} with a token from {@code /api/login}, which
+ * checks the account through {@link AuthService} like the login screen does. Tokens last
+ * SERVER_TOKEN_HOURS (default 12).
+ *
+ * <p>Listens on SERVER_BIND (default 127.0.0.1, so only this host can connect; set it to a LAN
+ * address or 0.0.0.0 to serve other terminals) and SERVER_PORT (8081). Also configured with
+ * DB_POOL_SIZE (10), SERVER_CACHE_SECONDS (30) and SERVER_CACHE_ENTRIES (1000) alongside the
+ * usual DB_* variables.
+ */
+public class InventoryServer {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final InventoryService service = new InventoryService();
+    private final ResponseCache cache;
+    private final long tokenMillis;
+    // Tokens handed out by /api/login and when they expire
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private HttpServer http;
+
+    public InventoryServer(long cacheTtlMillis, int cacheEntries, long tokenMillis) {
+        this.cache = new ResponseCache(cacheTtlMillis, cacheEntries);
+        this.tokenMillis = tokenMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String bind = System.getenv().getOrDefault("SERVER_BIND", "127.0.0.1");
+        int port = intSetting("SERVER_PORT", 8081);
+        database_utility.usePool(intSetting("DB_POOL_SIZE", 10));
+        InventoryServer server = new InventoryServer(intSetting("SERVER_CACHE_SECONDS", 30) * 1000L,
+                intSetting("SERVER_CACHE_ENTRIES", 1000), intSetting("SERVER_TOKEN_HOURS", 12) * 3_600_000L);
+        server.start(new InetSocketAddress(InetAddress.getByName(bind), port));
+        System.out.println("Inventory server listening on " + bind + ":" + port);
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        StockLedger.startCompaction();
+        ForecastScheduler.getInstance().start();
+        // An embedded database has only this server writing to it, and it clears the cache itself
+        if (!database_utility.backend().isEmbedded()) {
+            startInvalidation();
+        }
+
+        http = HttpServer.create(address, 0);
+        http.createContext("/api/", this::handle);
+        http.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        http.start();
+    }
+
+    public void stop() {
+        if (http != null) http.stop(1);
+    }
+
+    private void startInvalidation() {
+        Thread.ofVirtual().name("server-change-feed")
+                .uncaughtExceptionHandler((t, e) -> System.err.println("Cache invalidation stopped: " + e))
+                .start(this::followChanges);
+    }
+
+    // Follows the change feed and drops every cached response when anything changes
+    private void followChanges() {
+        try {
+            ChangeFeed feed = null;
+            while (feed == null) {
+                try {
+                    feed = new ChangeFeed();
+                } catch (SQLException e) {
+                    System.err.println("Change feed unavailable, retrying: " + e.getMessage());
+                    Thread.sleep(5_000);
+                }
+            }
+            try {
+                while (true) {
+                    if (!feed.next(30_000).isEmpty()) {
+                        cache.clear();
+                    }
+                }
+            } finally {
+                feed.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            // path[0] is empty and path[1] is "api"
+            String resource = path.length > 2 ? path[2] : "";
+
+            if (method.equals("POST") && resource.equals("login") && path.length == 3) {
+                login(exchange);
+                return;
+            }
+            if (method.equals("POST") && resource.equals("movements") && path.length == 3) {
+                if (!authorised(exchange)) {
+                    send(exchange, 401, error("Log in first: POST /api/login, then send Authorization: Bearer <token>"));
+                    return;
+                }
+                recordMovement(exchange);
+                return;
+            }
+            if (!method.equals("GET")) {
+                send(exchange, 405, error("Method not allowed"));
+                return;
+            }
+
+            byte[] body;
+            switch (resource) {
+                case "health":
+                    body = json(Map.of("status", "ok", "cachedResponses", cache.size()));
+                    break;
+                case "stats":
+                    body = json(database.QueryStats.snapshot());
+                    break;
+                case "inventory":
+                    String month = month(query);
+                    if (path.length == 3) {
+                        body = cache.get("inventory:" + month, () -> json(service.inventory(month)));
+                    } else if (path.length == 4 && path[3].equals("search")) {
+                        String term = query.getOrDefault("q", "");
+                        body = cache.get("search:" + month + ":" + term, () -> json(service.search(term, month)));
+                    } else {
+                        body = null;
+                    }
+                    break;
+                case "items":
+                    if (path.length == 5 && path[4].equals("movements")) {
+                        int itemCode = intParam(path[3], "item code");
+                        int limit = query.containsKey("limit") ? intParam(query.get("limit"), "limit") : 100;
+                        body = cache.get("movements:" + itemCode + ":" + limit,
+                                () -> json(service.movements(itemCode, limit)));
+                    } else {
+                        body = null;
+                    }
+                    break;
+                case "sales":
+                    body = path.length == 4 && path[3].equals("summary")
+                            ? cache.get("sales:summary", () -> json(service.salesSummary()))
+                            : null;
+                    break;
+                case "forecasts":
+                    if (path.length == 4) {
+                        int itemCode = intParam(path[3], "item code");
+                        int horizon = query.containsKey("horizon") ? intParam(query.get("horizon"), "horizon") : 12;
+                        if (horizon < 1 || horizon > forecasting.ForecastCalculator.MAX_HORIZON) {
+                            throw new IllegalArgumentException("horizon must be 1-" + forecasting.ForecastCalculator.MAX_HORIZON);
+                        }
+                        String formula = query.get("formula");
+                        // Forecasts have their own cache in the scheduler
+                        body = json(service.forecasts(itemCode, formula, horizon));
+                    } else {
+                        body = null;
+                    }
+                    break;
+                default:
+                    body = null;
+            }
+            if (body == null) {
+                send(exchange, 404, error("Not found"));
+            } else {
+                send(exchange, 200, body);
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (Exception e) {
+            // The details stay in the server log; they can include SQL and schema names
+            System.err.println("Request failed: " + exchange.getRequestURI());
+            e.printStackTrace();
+            send(exchange, 500, error("Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void login(HttpExchange exchange) throws Exception {
+        Map<?, ?> request = readObject(exchange);
+        Object username = request.get("username");
+        Object password = request.get("password");
+        if (!(username instanceof String) || !(password instanceof String)) {
+            throw new IllegalArgumentException("username and password are required");
+        }
+        AuthService.Session session = AuthService.get().login((String) username, (String) password);
+        if (session == null) {
+            send(exchange, 401, error("Log in credentials are invalid"));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(expiresAt -> expiresAt <= now);
+        tokens.put(session.getToken(), now + tokenMillis);
+        send(exchange, 200, json(Map.of("token", session.getToken(), "username", session.getUsername())));
+    }
+
+    // Whether the request carries a live token from /api/login
+    private boolean authorised(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        Long expiresAt = tokens.get(header.substring("Bearer ".length()).trim());
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    private void recordMovement(HttpExchange exchange) throws Exception {
+        Map<?, ?> request = readObject(exchange);
+        int itemCode = intField(request, "itemCode");
+        int quantity = intField(request, "quantity");
+        Object monthValue = request.get("month");
+        String month = monthValue != null ? checkMonth(monthValue.toString()) : currentMonth();
+        StockLedger.MovementType type;
+        try {
+            type = StockLedger.MovementType.valueOf(String.valueOf(request.get("type")));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("type must be RECEIPT, SALE or ADJUSTMENT");
+        }
+        if (type != StockLedger.MovementType.ADJUSTMENT && quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+
+        service.recordMovement(itemCode, month, type, quantity);
+        cache.clear();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("recorded", true);
+        response.put("itemCode", itemCode);
+        response.put("month", month);
+        response.put("type", type.name());
+        response.put("quantity", quantity);
+        send(exchange, 201, json(response));
+    }
+
+    private static Map<?, ?> readObject(HttpExchange exchange) throws IOException {
+        Object parsed = Json.parse(readBody(exchange));
+        if (!(parsed instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<?, ?>) parsed;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] json(Object value) {
+        return Json.write(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String message) {
+        return json(Map.of("error", message == null ? "" : message));
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static String month(Map<String, String> query) {
+        String month = query.get("month");
+        return month != null ? checkMonth(month) : currentMonth();
+    }
+
+    // Month columns are spliced into SQL, so only the twelve known names get through
+    private static String checkMonth(String month) {
+        String column = month.toLowerCase();
+        if (!SalesHistory.MONTH_COLUMNS.contains(column)) {
+            throw new IllegalArgumentException("month must be one of " + SalesHistory.MONTH_COLUMNS);
+        }
+        return column;
+    }
+
+    private static String currentMonth() {
+        return SalesHistory.MONTH_COLUMNS.get(LocalDate.now().getMonthValue() - 1);
+    }
+
+    private static int intParam(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static int intField(Map<?, ?> request, String name) {
+        Object value = request.get(name);
+        if (!(value instanceof Long)) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+        long number = (Long) value;
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " is out of range: " + number);
+        }
+        return (int) number;
+    }
+
+    private static int intSetting(String name, int defaultValue) {
+        try {
+            return Integer.parseInt(System.getenv().getOrDefault(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package server;
+
+import database.StockLedger;
+import database.StockMovements;
+import database.database_utility;
+import forecasting.ForecastScheduler;
+import forecasting.ItemForecasts;
+import forecasting.SalesHistory;
+import forecasting.SalesHistoryRepository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations the server exposes, as plain maps and lists ready for {@link Json}. Queries
+ * are the desktop client's, so both backends return the same numbers.
+ */
+class InventoryService {
+    private static final long FORECAST_TIMEOUT_SECONDS = 60;
+    private static final int MAX_MOVEMENTS = 1000;
+
+    private final StockLedger ledger = new StockLedger();
+
+    List<Map<String, Object>> inventory(String month) throws SQLException {
+        return items(String.format(
+                "SELECT so.item_code, so.item_description, so.volume, so.category, so.`%s` AS sot, o.`%s1` AS soh " +
+                "FROM sale_offtake so JOIN stock_onhand_live o ON so.item_code = o.item_code ORDER BY so.item_code",
+                month, month));
+    }
+
+    List<Map<String, Object>> search(String term, String month) throws SQLException {
+        String pattern = "%" + term + "%";
+        return items(String.format(
+                "SELECT so.item_code, so.item_description, so.volume, so.category, so.`%s` AS sot, o.`%s1` AS soh " +
+                "FROM sale_offtake so JOIN stock_onhand_live o ON so.item_code = o.item_code " +
+                "WHERE LOWER(so.item_description) LIKE LOWER(?) OR so.item_code LIKE ? OR LOWER(so.category) LIKE LOWER(?) " +
+                "ORDER BY so.item_code",
+                month, month), pattern, pattern, pattern);
+    }
+
+    private List<Map<String, Object>> items(String sql, Object... params) throws SQLException {
+        List<Map<String, Object>> items = new ArrayList<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(sql, params);
+            if (result == null) {
+                throw new SQLException("Failed to query inventory");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("itemCode", rs.getInt("item_code"));
+                item.put("description", rs.getString("item_description"));
+                item.put("volume", rs.getInt("volume"));
+                item.put("category", rs.getString("category"));
+                item.put("salesOfftake", rs.getInt("sot"));
+                item.put("stockOnHand", rs.getInt("soh"));
+                items.add(item);
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return items;
+    }
+
+    // The item's ledger entries, newest first
+    List<Map<String, Object>> movements(int itemCode, int limit) throws SQLException {
+        List<Map<String, Object>> movements = new ArrayList<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    "SELECT id, period_year, period_month, movement_type, quantity, terminal, created_at " +
+                    "FROM stock_movements WHERE item_code = ? ORDER BY id DESC LIMIT ?",
+                    itemCode, Math.min(Math.max(limit, 1), MAX_MOVEMENTS));
+            if (result == null) {
+                throw new SQLException("Failed to query stock movements");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            while (rs.next()) {
+                Map<String, Object> movement = new LinkedHashMap<>();
+                movement.put("id", rs.getLong("id"));
+                movement.put("period", String.format("%04d-%02d", rs.getInt("period_year"), rs.getInt("period_month")));
+                movement.put("type", rs.getString("movement_type"));
+                movement.put("quantity", rs.getInt("quantity"));
+                movement.put("terminal", rs.getString("terminal"));
+                movement.put("createdAt", rs.getTimestamp("created_at").toInstant().toString());
+                movements.add(movement);
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return movements;
+    }
+
+    /**
+     * Records a receipt, sale or adjustment the way the desktop forms do: a sale also adds to
+     * the month's offtake and the forecasting history. Quantities are positive except for
+     * adjustments, which are signed.
+     */
+    void recordMovement(int itemCode, String month, StockLedger.MovementType type, int quantity) throws SQLException {
+        switch (type) {
+            case RECEIPT:
+                StockMovements.recordReceipt(itemCode, month, quantity);
+                break;
+            case SALE:
+                StockMovements.recordSale(itemCode, month, quantity);
+                break;
+            case ADJUSTMENT:
+                ledger.record(itemCode, SalesHistoryRepository.currentPeriod(month), type, quantity);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported movement type: " + type);
+        }
+    }
+
+    // Monthly totals, average and top product, as on the Sales tab
+    Map<String, Object> salesSummary() throws SQLException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Connection connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    "SELECT SUM(jan), SUM(feb), SUM(mar), SUM(apr), SUM(may), SUM(jun), " +
+                    "SUM(jul), SUM(aug), SUM(sep), SUM(oct), SUM(nov), SUM(`dec`) FROM sale_offtake");
+            if (result == null) {
+                throw new SQLException("Failed to query sales totals");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            Map<String, Object> months = new LinkedHashMap<>();
+            long total = 0;
+            if (rs.next()) {
+                for (int m = 0; m < 12; m++) {
+                    long value = rs.getLong(m + 1);
+                    months.put(SalesHistory.MONTH_COLUMNS.get(m), value);
+                    total += value;
+                }
+            }
+            summary.put("months", months);
+            summary.put("total", total);
+            summary.put("monthlyAverage", total / 12.0);
+        } finally {
+            database_utility.close(connect);
+        }
+
+        connect = null;
+        try {
+            Object[] result = database_utility.query(
+                    "SELECT item_code, item_description, " +
+                    "(jan + feb + mar + apr + may + jun + jul + aug + sep + oct + nov + `dec`) AS total_sales " +
+                    "FROM sale_offtake ORDER BY total_sales DESC LIMIT 1");
+            if (result == null) {
+                throw new SQLException("Failed to query top product");
+            }
+            connect = (Connection) result[0];
+            ResultSet rs = (ResultSet) result[1];
+            if (rs.next()) {
+                Map<String, Object> top = new LinkedHashMap<>();
+                top.put("itemCode", rs.getInt("item_code"));
+                top.put("description", rs.getString("item_description"));
+                top.put("total", rs.getLong("total_sales"));
+                summary.put("topProduct", top);
+            }
+        } finally {
+            database_utility.close(connect);
+        }
+        return summary;
+    }
+
+    /**
+     * Forecasts from the shared scheduler's cache, computed on demand for items no run has
+     * reached. One formula if given, otherwise every formula with enough history.
+     */
+    Map<String, Object> forecasts(int itemCode, String formula, int horizon) throws Exception {
+        ItemForecasts forecasts = ForecastScheduler.getInstance().getOrCompute(itemCode)
+                .get(FORECAST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        SalesHistory itemHistory = forecasts.getHistory();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("itemCode", itemCode);
+        body.put("horizon", horizon);
+        body.put("computedAt", forecasts.getComputedAt().toString());
+        List<String> periods = new ArrayList<>();
+        for (int i = 1; i <= horizon; i++) {
+            periods.add(SalesHistory.label(itemHistory.getEnd().plusMonths(i)));
+        }
+        body.put("periods", periods);
+
+        Map<String, Object> methods = new LinkedHashMap<>();
+        for (String name : formula != null ? List.of(formula) : forecasts.getFormulas()) {
+            if (!forecasts.has(name)) continue;
+            Map<String, Object> method = new LinkedHashMap<>();
+            method.put("values", forecasts.forecast(name, horizon));
+            method.put("accuracy", forecasts.accuracy(name, horizon));
+            methods.put(name, method);
+        }
+        body.put("forecasts", methods);
+        return body;
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Rendered JSON responses shared by every client of the server. Concurrent requests for the
+ * same key wait on one computation instead of each querying the database. Entries live for the
+ * configured TTL and are dropped wholesale when the change feed reports a change. Keys include
+ * client input such as search terms, so once there are more than the configured number of
+ * entries, adding one sweeps out the expired ones and then the oldest.
+ */
+class ResponseCache {
+    interface Loader {
+        byte[] load() throws Exception;
+    }
+
+    private static class Entry {
+        final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        final long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    ResponseCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    byte[] get(String key, Loader loader) throws Exception {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= now) {
+                entries.remove(key, entry);
+                entry = null;
+            }
+            if (entry == null) {
+                Entry created = new Entry(now + ttlMillis);
+                entry = entries.putIfAbsent(key, created);
+                if (entry == null) {
+                    if (entries.size() > maxEntries) {
+                        evict(now);
+                    }
+                    // This request computes; the rest wait on its result
+                    try {
+                        byte[] body = loader.load();
+                        created.body.complete(body);
+                        return body;
+                    } catch (Exception e) {
+                        entries.remove(key, created);
+                        created.body.completeExceptionally(e);
+                        throw e;
+                    }
+                }
+            }
+            try {
+                return entry.body.get();
+            } catch (ExecutionException e) {
+                // The computing request failed and removed the entry; try again ourselves
+                if (entries.get(key) == entry) {
+                    entries.remove(key, entry);
+                }
+            }
+        }
+    }
+
+    // Drops expired entries, then the oldest until the cache is back to its limit
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) return;
+        // Every entry gets the same TTL, so the first to expire are the oldest
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                .limit(excess)
+                .forEach(e -> entries.remove(e.getKey(), e.getValue()));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -1,6 +1,5 @@
 package sold_stocks;
 
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Bounds;
 import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
@@ -13,17 +12,20 @@ import javafx.stage.StageStyle;
 import java.io.IOException;
 
 public class soldStock {
+    public static final String FORM = "/soldStocks/soldstock_form.fxml";
+
     public void showPopup(Stage owner, AnchorPane inventoryPane, int itemCode, String description, int volume, String category, int salesOfftake, int stocksOnHand) throws IOException {
         Stage stage = new Stage();
         stage.initOwner(owner);
         stage.initModality(Modality.WINDOW_MODAL);
 
-        stage.getIcons().add(new javafx.scene.image.Image(getClass().getResource("/images/intervein_logo_no_text.png").toExternalForm()));
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/soldStocks/soldstock_form.fxml"));
-        Scene scene = new Scene(loader.load(), 377, 432);
+        common.StageManager.configureStage(stage);
+        // Preloaded by the dashboard; parsed here only if the spare isn't ready yet
+        common.ViewRegistry.View<soldstocksController> view = common.ViewRegistry.take(FORM);
+        Scene scene = new Scene(view.getRoot(), 377, 432);
         
         // Get the controller and set the item data
-        soldstocksController controller = loader.getController();
+        soldstocksController controller = view.getController();
         controller.setItemData(itemCode, volume, category, salesOfftake, stocksOnHand);
         
         // Set the dashboard controller reference
@@ -9,8 +9,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.scene.Scene;
-import database.database_utility;
-import java.sql.Connection;
+import database.StockMovements;
 import javafx.scene.control.ButtonType;
 
 public class soldstocksController {
@@ -61,51 +60,42 @@ public class soldstocksController {
             return;
         }
 
-        int updatedSoh = currentSoh - soldStocks;
-        Connection connect = null;
+        common.UiActionEvent action = common.UiActionEvent.start("Sold stocks", "Sale committed");
         try {
             // Get the selected month from dashboardController
             String selectedMonth = dashboardControllerRef.getSelectedMonthColumn();
             
-            // Update stock_onhand table with the correct month column
-            Object[] result = database_utility.update(
-                String.format("UPDATE stock_onhand SET %s1 = ? WHERE item_code = ?", selectedMonth),
-                updatedSoh, itemCode
-            );
+            server.InventoryClient client = server.InventoryClient.get();
+            if (client != null) {
+                // The server records the sale, the offtake and the forecasting history together
+                client.recordMovement(itemCode, selectedMonth, "SALE", soldStocks);
+            } else {
+                // The ledger entry, the month's offtake and the forecasting history
+                StockMovements.recordSale(itemCode, selectedMonth, soldStocks);
+            }
+            // Timed up to the write, not the user dismissing the alert below
+            action.finish(1, itemCode + " x" + soldStocks);
+
+            // Add notification to dashboard
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.addSoldStockNotification(soldStocks, volumeField.getText() + "mL");
+            }
             
-            if (result != null) {
-                connect = (Connection) result[0];
-                
-                // Update sale_offtake table with the correct month column
-                database_utility.update(
-                    String.format("UPDATE sale_offtake SET %s = COALESCE(%s, 0) + ? WHERE item_code = ?", 
-                        selectedMonth, selectedMonth),
-                    soldStocks, itemCode
-                );
-                
-                // Add notification to dashboard
-                if (dashboardControllerRef != null) {
-                    dashboardControllerRef.addSoldStockNotification(soldStocks, volumeField.getText() + "mL");
-                }
-                
-                showAlert("Success", "Stock sold successfully and sales data updated.");
-                
-                // Refresh the inventory table
-                if (dashboardControllerRef != null) {
-                    dashboardControllerRef.inventory_management_query();
-                }
-                
-                // Close the form
-                Stage stage = (Stage) sold_pane.getScene().getWindow();
-                stage.close();
+            showAlert("Success", "Stock sold successfully and sales data updated.");
+            
+            // Refresh the inventory table
+            if (dashboardControllerRef != null) {
+                dashboardControllerRef.inventory_management_query();
             }
+            
+            // Close the form
+            Stage stage = (Stage) sold_pane.getScene().getWindow();
+            stage.close();
         } catch (Exception e) {
             showAlert("Database Error", "Failed to update stock and sales data: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            if (connect != null) {
-                database_utility.close(connect);
-            }
+            action.finish(0, "failed");
         }
     }
 
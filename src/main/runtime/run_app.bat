@@ -0,0 +1,10 @@
+@echo off
+REM Starts the inventory system on the bundled runtime. The AppCDS archive from the build's training
+REM run is used when it matches; otherwise the JVM writes a fresh one when the app exits, so only the
+REM first start after an update pays full class loading.
+cd /d "%~dp0"
+"..\runtime\bin\javaw.exe" ^
+    -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=app.jsa ^
+    --add-modules jdk.incubator.vector --enable-native-access=ALL-UNNAMED ^
+    --module-path lib --add-modules ALL-MODULE-PATH ^
+    --module inventory.example.inventory_ms/login.login_app %*
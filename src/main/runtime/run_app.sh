@@ -0,0 +1,10 @@
+#!/bin/sh
+# Starts the inventory system on the bundled runtime. The AppCDS archive from the build's training
+# run is used when it matches; otherwise the JVM writes a fresh one when the app exits, so only the
+# first start after an update pays full class loading.
+cd "$(dirname "$0")" || exit 1
+exec ../runtime/bin/java \
+    -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=app.jsa \
+    --add-modules jdk.incubator.vector --enable-native-access=ALL-UNNAMED \
+    --module-path lib --add-modules ALL-MODULE-PATH \
+    --module inventory.example.inventory_ms/login.login_app "$@"
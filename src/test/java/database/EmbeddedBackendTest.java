@@ -0,0 +1,179 @@
+package database;
+
+import dashboard.DashboardQueries;
+import dashboard.Inventory_management_bin;
+import forecasting.SalesHistoryRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the ledger, the product updater, bulk edits and the search against the embedded H2
+ * database, which surefire selects with DB_BACKEND=embedded. Each test works on its own item
+ * codes, so the order they run in doesn't matter.
+ */
+class EmbeddedBackendTest {
+    private static final String MONTH = "mar";
+
+    @BeforeAll
+    static void embeddedOnly() {
+        // These write to the database; never let them loose on a real server
+        assumeTrue(database_utility.backend().isEmbedded(), "needs DB_BACKEND=embedded");
+    }
+
+    private static void addProduct(int itemCode, String description, int stock) throws SQLException {
+        Connection connect = database_utility.connect();
+        try (PreparedStatement product = connect.prepareStatement(
+                "INSERT INTO sale_offtake (item_code, item_description, volume, category, `mar`) VALUES (?, ?, 500, 'Irrigation', 0)");
+             PreparedStatement onHand = connect.prepareStatement(
+                "INSERT INTO stock_onhand (item_code, `mar1`) VALUES (?, ?)")) {
+            product.setInt(1, itemCode);
+            product.setString(2, description);
+            product.executeUpdate();
+            onHand.setInt(1, itemCode);
+            onHand.setInt(2, stock);
+            onHand.executeUpdate();
+        } finally {
+            database_utility.close(connect);
+        }
+    }
+
+    private static int intQuery(String sql, int itemCode) throws SQLException {
+        Object[] result = database_utility.query(sql, itemCode);
+        try {
+            ResultSet rs = (ResultSet) result[1];
+            return rs.next() ? rs.getInt(1) : -1;
+        } finally {
+            database_utility.close((Connection) result[0]);
+        }
+    }
+
+    @Test
+    void ledgerBalancesSurviveCompaction() throws SQLException {
+        addProduct(9100001, "Ledger Test Solution", 100);
+        StockLedger ledger = new StockLedger();
+
+        StockMovements.recordReceipt(9100001, MONTH, 40);
+        StockMovements.recordSale(9100001, MONTH, 15);
+        StockMovements.recordSale(9100001, MONTH, 5);
+        assertEquals(120, ledger.balance(9100001, MONTH));
+        assertEquals(30, ledger.adjustTo(9100001, MONTH, 150));
+
+        assertTrue(ledger.compact() >= 4);
+        assertEquals(150, ledger.balance(9100001, MONTH));
+        assertEquals(150, intQuery("SELECT `mar1` FROM stock_onhand WHERE item_code = ?", 9100001));
+        assertEquals(20, intQuery("SELECT `mar` FROM sale_offtake WHERE item_code = ?", 9100001));
+
+        // Both sales land on the one history row
+        YearMonth period = SalesHistoryRepository.currentPeriod(MONTH);
+        Object[] result = database_utility.query(
+                "SELECT COUNT(*), SUM(quantity) FROM sales_history WHERE item_code = ? AND period_year = ? AND period_month = ?",
+                9100001, period.getYear(), period.getMonthValue());
+        try {
+            ResultSet rs = (ResultSet) result[1];
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            assertEquals(20, rs.getInt(2));
+        } finally {
+            database_utility.close((Connection) result[0]);
+        }
+    }
+
+    @Test
+    void saleOfUnknownItemRollsBack() throws SQLException {
+        // The history row violates its foreign key, so the movement before it goes too
+        assertThrows(SQLException.class, () -> StockMovements.recordSale(9100009, MONTH, 5));
+        assertEquals(0, intQuery("SELECT COUNT(*) FROM stock_movements WHERE item_code = ?", 9100009));
+    }
+
+    @Test
+    void updaterMergesAndDetectsConflicts() throws SQLException {
+        addProduct(9100002, "Updater Test Solution", 60);
+        ProductUpdater updater = new ProductUpdater();
+        ProductUpdater.Snapshot base = updater.load(9100002, MONTH);
+        assertEquals(60, base.getStockOnHand());
+
+        // Another terminal renames it; our stock change still merges
+        ProductUpdater.Snapshot renamed = new ProductUpdater.Snapshot(9100002, "Updater Test Solution B",
+                base.getVolume(), base.getCategory(), base.getSalesOfftake(), base.getStockOnHand(), -1);
+        assertEquals(ProductUpdater.Result.Status.UPDATED, updater.update(base, renamed, MONTH).getStatus());
+        ProductUpdater.Snapshot restocked = new ProductUpdater.Snapshot(9100002, base.getDescription(),
+                base.getVolume(), base.getCategory(), base.getSalesOfftake(), 75, -1);
+        assertEquals(ProductUpdater.Result.Status.MERGED, updater.update(base, restocked, MONTH).getStatus());
+
+        ProductUpdater.Snapshot current = updater.load(9100002, MONTH);
+        assertEquals("Updater Test Solution B", current.getDescription());
+        assertEquals(75, current.getStockOnHand());
+
+        // Renaming it differently from the same stale base conflicts
+        ProductUpdater.Snapshot otherName = new ProductUpdater.Snapshot(9100002, "Updater Test Solution C",
+                base.getVolume(), base.getCategory(), base.getSalesOfftake(), base.getStockOnHand(), -1);
+        ProductUpdater.Result result = updater.update(base, otherName, MONTH);
+        assertEquals(ProductUpdater.Result.Status.CONFLICT, result.getStatus());
+        assertEquals(List.of(ProductUpdater.DESCRIPTION), result.getConflicts());
+
+        // Rebased, the form takes the other rename, and a sale made meanwhile isn't undone by our +5
+        StockMovements.recordSale(9100002, MONTH, 10);
+        ProductUpdater.Snapshot ourEdit = new ProductUpdater.Snapshot(9100002, "Updater Test Solution C",
+                base.getVolume(), base.getCategory(), base.getSalesOfftake(), base.getStockOnHand() + 5, -1);
+        result = updater.update(base, ourEdit, MONTH);
+        assertEquals(ProductUpdater.Result.Status.CONFLICT, result.getStatus());
+        ProductUpdater.Snapshot rebased = ProductUpdater.rebase(base, ourEdit, result.getCurrent(), result.getConflicts());
+        assertEquals("Updater Test Solution B", rebased.getDescription());
+        assertEquals(10, rebased.getSalesOfftake());
+        assertEquals(70, rebased.getStockOnHand());
+        assertEquals(ProductUpdater.Result.Status.UPDATED, updater.update(result.getCurrent(), rebased, MONTH).getStatus());
+        assertEquals(70, updater.load(9100002, MONTH).getStockOnHand());
+
+        assertNull(updater.load(9100099, MONTH));
+    }
+
+    @Test
+    void bulkEditsAdjustRecategorizeAndDelete() throws SQLException {
+        addProduct(9100003, "Bulk Test Solution", 10);
+        addProduct(9100004, "Bulk Test Solution", 20);
+        List<Integer> items = List.of(9100003, 9100004);
+        BulkEditor editor = new BulkEditor(MONTH);
+
+        Map<Integer, Integer> balances = editor.adjust(items, 5, () -> false, progress -> { });
+        assertEquals(Map.of(9100003, 15, 9100004, 25), balances);
+        assertEquals(2, editor.recategorize(items, "Dialysis", () -> false, progress -> { }));
+        assertEquals(2, intQuery("SELECT COUNT(*) FROM sale_offtake WHERE category = 'Dialysis' AND item_code >= ?", 9100003));
+        StockMovements.recordReceipt(9100003, "jan", 7);
+        assertEquals(2, editor.delete(items, () -> false, progress -> { }));
+        // Every month's balance is written off before the rows go, so the ledger nets to zero
+        assertEquals(-22, intQuery("SELECT SUM(quantity) FROM stock_movements WHERE item_code = ? AND movement_type = 'DELETE'", 9100003));
+        assertEquals(-7, intQuery("SELECT SUM(quantity) FROM stock_movements WHERE item_code = ? AND movement_type = 'DELETE'"
+                + " AND period_month = 1", 9100003));
+        assertEquals(0, intQuery("SELECT COUNT(*) FROM sale_offtake WHERE item_code = ?", 9100004));
+    }
+
+    @Test
+    void searchMatchesDescriptionCodeAndCategory() throws Exception {
+        addProduct(9100005, "Searchable Glycine 1.5%", 42);
+        StockMovements.recordReceipt(9100005, MONTH, 8);
+
+        List<Inventory_management_bin> byDescription = DashboardQueries.search("glycine", MONTH);
+        assertEquals(1, byDescription.size());
+        assertEquals(9100005, byDescription.get(0).getItem_code());
+        assertEquals(50, byDescription.get(0).getSoh());
+
+        assertEquals(1, DashboardQueries.search("9100005", MONTH).size());
+        assertTrue(DashboardQueries.search("IRRIGATION", MONTH).stream()
+                .anyMatch(item -> item.getItem_code() == 9100005));
+        assertTrue(DashboardQueries.search("no such product", MONTH).isEmpty());
+    }
+}
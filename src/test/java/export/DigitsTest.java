@@ -0,0 +1,28 @@
+package export;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DigitsTest {
+    private static String decimal(double value, int decimals) {
+        byte[] out = new byte[Digits.SCRATCH_SIZE];
+        int pos = Digits.formatDecimal(value, decimals, out);
+        return new String(out, pos, out.length - pos, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void fixedPointUpToMaxDecimals() {
+        assertEquals("3", decimal(2.5, 0));
+        assertEquals("-1.25", decimal(-1.25, 2));
+        assertEquals("0.000001", decimal(0.000001, Digits.MAX_DECIMALS));
+    }
+
+    @Test
+    void moreDecimalsFallBackToDoubleToString() {
+        assertEquals(Double.toString(1.123456789), decimal(1.123456789, Digits.MAX_DECIMALS + 3));
+        assertEquals(Double.toString(-2.5), decimal(-2.5, -1));
+    }
+}
@@ -0,0 +1,51 @@
+package forecasting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Croston and SBA against a series worked by hand, with α = 0.1 for sizes and β = 0.2 for
+ * intervals so that using the wrong factor in the SBA correction changes the answer.
+ *
+ * <pre>
+ *   month     1  2  3  4  5  6  7
+ *   sales     0  5  0  0  3  0  4
+ *   size      -  5        4.8   4.72   (size += 0.1 * (sale - size))
+ *   interval  -  2        2.2   2.16   (interval += 0.2 * (gap - interval))
+ * </pre>
+ * Croston = 4.72 / 2.16; SBA = Croston × (1 - 0.2 / 2).
+ */
+class CrostonForecasterTest {
+    private static final double[] SALES = {0, 5, 0, 0, 3, 0, 4};
+    private static final double CROSTON = 4.72 / 2.16;
+
+    private static double forecast(CrostonForecaster.Variant variant, double[] history) {
+        double[] out = new double[3];
+        new CrostonForecaster(variant.name(), variant, 0.1, 0.2)
+                .forecast(history, 0, history.length, out, 0, out.length, null);
+        assertEquals(out[0], out[2], "flat forecast");
+        return out[0];
+    }
+
+    @Test
+    void crostonSmoothsSizesAndIntervalsSeparately() {
+        assertEquals(CROSTON, forecast(CrostonForecaster.Variant.CROSTON, SALES), 1e-12);
+    }
+
+    @Test
+    void sbaCorrectsWithTheIntervalFactor() {
+        assertEquals(CROSTON * 0.9, forecast(CrostonForecaster.Variant.SBA, SALES), 1e-12);
+    }
+
+    @Test
+    void missingMonthsAreSkipped() {
+        double[] withGaps = {0, 5, Double.NaN, 0, 0, 3, 0, Double.NaN, 4};
+        assertEquals(CROSTON * 0.9, forecast(CrostonForecaster.Variant.SBA, withGaps), 1e-12);
+    }
+
+    @Test
+    void noSalesForecastsZero() {
+        assertEquals(0, forecast(CrostonForecaster.Variant.SBA, new double[]{0, 0, 0}));
+    }
+}
@@ -0,0 +1,108 @@
+package forecasting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Safety stock, reorder point and order quantity against cases worked by hand:
+ *
+ * <pre>
+ *   lead time 2, review 1, 95% (z = 1.6448536), forecast 10, 20, 30, σ = 5
+ *   lead-time demand = 10 + 20 = 30           cover demand = 10 + 20 + 30 = 60
+ *   safety stock     = 1.6448536 × 5 × √2 = 11.63
+ *   reorder point    = 30 + 11.63 = 41.63     order-up-to  = 60 + 11.63 = 71.63
+ *   on hand 40       → order ⌈71.63 - 40⌉ = 32
+ *
+ *   lead time 0.5, review 0, 99% (z = 2.3263479), forecast 8, σ = 2
+ *   lead-time demand = 0.5 × 8 = 4
+ *   safety stock     = 2.3263479 × 2 × √0.5 = 3.29
+ *   reorder point    = order-up-to = 7.29;    on hand 5 → order ⌈2.29⌉ = 3
+ * </pre>
+ */
+class ReplenishmentEngineTest {
+    private static final double[] FORECAST = {10, 20, 30};
+
+    private static ReplenishmentPlan plan(int onHand, double[] forecast, double sigma, ReplenishmentPolicy policy) {
+        return ReplenishmentEngine.compute(1, "Item", "Test", onHand, forecast, sigma, policy);
+    }
+
+    @Test
+    void inverseNormalMatchesTables() {
+        assertEquals(0, ReplenishmentPolicy.inverseNormal(0.5), 1e-9);
+        assertEquals(1.0, ReplenishmentPolicy.inverseNormal(0.8413447460685429), 1e-8);
+        assertEquals(1.6448536269514722, ReplenishmentPolicy.inverseNormal(0.95), 1e-8);
+        assertEquals(1.959963984540054, ReplenishmentPolicy.inverseNormal(0.975), 1e-8);
+        // 0.99 and 0.001 fall in the tail branches of the approximation
+        assertEquals(2.3263478740408408, ReplenishmentPolicy.inverseNormal(0.99), 1e-8);
+        assertEquals(-3.090232306167813, ReplenishmentPolicy.inverseNormal(0.001), 1e-8);
+        assertEquals(-ReplenishmentPolicy.inverseNormal(0.9), ReplenishmentPolicy.inverseNormal(0.1), 1e-12);
+    }
+
+    @Test
+    void ordersUpToCoverOnceAtTheReorderPoint() {
+        ReplenishmentPolicy policy = new ReplenishmentPolicy(2, 1, 0.95);
+        ReplenishmentPlan plan = plan(40, FORECAST, 5, policy);
+        assertEquals(30, plan.getLeadTimeDemand());
+        assertEquals(12, plan.getSafetyStock());
+        assertEquals(42, plan.getReorderPoint());
+        assertEquals(32, plan.getSuggestedOrder());
+        assertEquals(20, plan.getMonthlyDemand(), 1e-12);
+
+        // Above the reorder point nothing is ordered yet
+        assertEquals(0, plan(42, FORECAST, 5, policy).getSuggestedOrder());
+        // Negative stock orders as if empty
+        assertEquals(72, plan(-10, FORECAST, 5, policy).getSuggestedOrder());
+    }
+
+    @Test
+    void fractionalLeadTimeTakesPartOfAMonth() {
+        ReplenishmentPolicy policy = new ReplenishmentPolicy(0.5, 0, 0.99);
+        ReplenishmentPlan plan = plan(5, new double[]{8}, 2, policy);
+        assertEquals(4, plan.getLeadTimeDemand());
+        assertEquals(4, plan.getSafetyStock());
+        assertEquals(8, plan.getReorderPoint());
+        assertEquals(3, plan.getSuggestedOrder());
+    }
+
+    @Test
+    void noForecastErrorMeansNoSafetyStock() {
+        ReplenishmentPolicy policy = new ReplenishmentPolicy(2, 1, 0.99);
+        for (double sigma : new double[]{0, Double.NaN}) {
+            ReplenishmentPlan plan = plan(30, FORECAST, sigma, policy);
+            assertEquals(0, plan.getSafetyStock());
+            assertEquals(30, plan.getReorderPoint());
+            assertEquals(30, plan.getSuggestedOrder());
+        }
+        // At 50% service the error doesn't matter either
+        assertEquals(0, plan(30, FORECAST, 5, new ReplenishmentPolicy(2, 1, 0.5)).getSafetyStock());
+    }
+
+    @Test
+    void noDemandOrdersNothing() {
+        ReplenishmentPlan plan = plan(0, new double[]{0, 0, 0}, 0, new ReplenishmentPolicy(2, 1, 0.95));
+        assertEquals(0, plan.getReorderPoint());
+        assertEquals(0, plan.getSuggestedOrder());
+        assertFalse(plan.isReorderNeeded());
+    }
+
+    @Test
+    void policyRejectsZeroLeadTime() {
+        // With no lead time there is no wait to cover; the policy rejects it rather than plan zero stock
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPolicy(0, 1, 0.95));
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPolicy(1, -1, 0.95));
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPolicy(1, 1, 1.0));
+        assertEquals(1, new ReplenishmentPolicy(1, 0, 0.5).getCoverMonths());
+    }
+
+    @Test
+    void errorSigmaSkipsMissingMonths() {
+        // Errors -2 and 4 → √((4 + 16) / 2)
+        double sigma = ReplenishmentEngine.forecastErrorSigma(new double[]{10, Double.NaN, 14}, new double[]{12, 99, 10});
+        assertEquals(Math.sqrt(10), sigma, 1e-12);
+        assertTrue(Double.isNaN(ReplenishmentEngine.forecastErrorSigma(new double[]{Double.NaN}, new double[]{1})));
+    }
+}
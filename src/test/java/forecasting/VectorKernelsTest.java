@@ -0,0 +1,102 @@
+package forecasting;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the Vector API kernels against the scalar loops. Slice lengths run past several
+ * multiples of any vector width and start at an odd offset, so the masked tails are covered.
+ */
+class VectorKernelsTest {
+    private static final int MAX_LENGTH = 67;
+    private static final int OFFSET = 3;
+    private static final double TOLERANCE = 1e-9;
+
+    @BeforeAll
+    static void requireVectorModule() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "run with --add-modules jdk.incubator.vector");
+    }
+
+    // Sales-like values with missing months and zero months mixed in
+    private static double[] series(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] data = new double[OFFSET + MAX_LENGTH + OFFSET];
+        for (int i = 0; i < data.length; i++) {
+            double roll = random.nextDouble();
+            data[i] = roll < 0.1 ? Double.NaN : roll < 0.2 ? 0 : Math.round(random.nextDouble(1, 5000));
+        }
+        return data;
+    }
+
+    private static void assertClose(double expected, double actual, String what) {
+        if (Double.isNaN(expected)) {
+            assertEquals(expected, actual, what);
+        } else {
+            assertEquals(expected, actual, TOLERANCE * Math.max(1, Math.abs(expected)), what);
+        }
+    }
+
+    @Test
+    void sumsCountsAndMeansMatch() {
+        double[] data = series(1);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            String what = "length " + length;
+            assertClose(ScalarKernels.sum(data, OFFSET, length), VectorKernels.sum(data, OFFSET, length), what);
+            assertEquals(ScalarKernels.countObserved(data, OFFSET, length),
+                    VectorKernels.countObserved(data, OFFSET, length), what);
+            assertClose(ScalarKernels.mean(data, OFFSET, length), VectorKernels.mean(data, OFFSET, length), what);
+        }
+    }
+
+    @Test
+    void allMissingMeanIsNaN() {
+        double[] data = new double[MAX_LENGTH];
+        Arrays.fill(data, Double.NaN);
+        assertEquals(Double.NaN, VectorKernels.mean(data, 0, MAX_LENGTH));
+        assertEquals(0, VectorKernels.countObserved(data, 0, MAX_LENGTH));
+    }
+
+    @Test
+    void linearTrendsMatch() {
+        double[] data = series(2);
+        double[] scalar = new double[2];
+        double[] vector = new double[2];
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            ScalarKernels.linearTrend(data, OFFSET, length, scalar, 0);
+            VectorKernels.linearTrend(data, OFFSET, length, vector, 0);
+            assertClose(scalar[0], vector[0], "slope, length " + length);
+            assertClose(scalar[1], vector[1], "intercept, length " + length);
+        }
+    }
+
+    @Test
+    void mapesMatch() {
+        double[] actual = series(3);
+        double[] forecast = series(4);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            assertClose(ScalarKernels.mape(actual, OFFSET, forecast, OFFSET + 1, length),
+                    VectorKernels.mape(actual, OFFSET, forecast, OFFSET + 1, length), "length " + length);
+        }
+    }
+
+    @Test
+    void seasonalRatiosMatch() {
+        double[] data = series(5);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            double[] scalar = new double[2 * MAX_LENGTH];
+            double[] vector = new double[2 * MAX_LENGTH];
+            ScalarKernels.accumulateRatios(data, OFFSET, length, 1 / 1234.5, scalar, 0, MAX_LENGTH);
+            VectorKernels.accumulateRatios(data, OFFSET, length, 1 / 1234.5, vector, 0, MAX_LENGTH);
+            for (int i = 0; i < scalar.length; i++) {
+                assertClose(scalar[i], vector[i], "index " + i + ", length " + length);
+            }
+        }
+    }
+}
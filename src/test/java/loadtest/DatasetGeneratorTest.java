@@ -0,0 +1,38 @@
+package loadtest;
+
+import database.database_utility;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DatasetGeneratorTest {
+    private static long count(String sql) throws Exception {
+        Object[] result = database_utility.query(sql);
+        try {
+            ResultSet rs = (ResultSet) result[1];
+            rs.next();
+            return rs.getLong(1);
+        } finally {
+            database_utility.close((Connection) result[0]);
+        }
+    }
+
+    @Test
+    void regeneratingReplacesCatalogueAndUpdatesAccounts() throws Exception {
+        // It empties the catalogue first; only ever run it against the embedded database
+        assumeTrue(database_utility.backend().isEmbedded(), "needs DB_BACKEND=embedded");
+        String[] args = {"--items=200", "--years=2", "--activities=20", "--accounts=3", "--replace"};
+        new DatasetGenerator(DatasetGenerator.Options.parse(args)).run();
+        // The second run's accounts already exist, so they go through the upsert
+        new DatasetGenerator(DatasetGenerator.Options.parse(args)).run();
+
+        assertEquals(200, count("SELECT COUNT(*) FROM sale_offtake"));
+        assertEquals(200, count("SELECT COUNT(*) FROM stock_onhand"));
+        assertEquals(200 * 24, count("SELECT COUNT(*) FROM sales_history"));
+        assertEquals(3, count("SELECT COUNT(*) FROM accounts WHERE username LIKE 'clerk%' AND password IS NULL"));
+    }
+}
@@ -0,0 +1,32 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+    @Test
+    void parsesWhatItWrites() {
+        String text = Json.write(Map.of("items", List.of(1, 2.5, "a\"b"), "ok", true));
+        assertEquals(Map.of("items", List.of(1L, 2.5, "a\"b"), "ok", true), Json.parse(text));
+    }
+
+    @Test
+    void rejectsDeepNestingInsteadOfOverflowing() {
+        assertEquals(List.of(), unwrap(Json.parse("[".repeat(64) + "]".repeat(64)), 63));
+        // Rejected as bad input, which the server answers with a 400
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(65) + "]".repeat(65)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(100_000)));
+    }
+
+    private static Object unwrap(Object value, int levels) {
+        for (int i = 0; i < levels; i++) {
+            value = ((List<?>) value).get(0);
+        }
+        return value;
+    }
+}